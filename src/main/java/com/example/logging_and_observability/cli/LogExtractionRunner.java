@@ -1,8 +1,11 @@
 package com.example.logging_and_observability.cli;
 
 import com.example.logging_and_observability.logging.extractor.ProfileExtractor;
+import com.example.logging_and_observability.logging.extractor.ProfileShard;
 import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.parser.LogFilter;
 import com.example.logging_and_observability.logging.parser.LogParser;
+import com.example.logging_and_observability.logging.store.ColumnarLogStore;
 import com.example.logging_and_observability.profiling.model.UserProfile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,14 +13,27 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * CLI runner for parsing logs and extracting profiles (Question 5)
  *
  * Usage:
  * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --incremental"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --user=alice.johnson@email.com"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --from=2025-01-15T14:00 --to=2025-01-15T14:05"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --binary"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --columnar"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --spill-budget-mb=256"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --threads=8"
+ *
+ * Sharded extraction: start one process per shard over the same logs, then merge
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--extract-profiles --shard=3/8"
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--merge-shards"
  */
 @Slf4j
 @Component
@@ -32,11 +48,41 @@ public class LogExtractionRunner implements CommandLineRunner {
     public void run(String... args) throws Exception {
         // Check if we should extract profiles
         boolean extractProfiles = false;
+        boolean incremental = false;
+        boolean binary = false;
+        boolean columnar = false;
+        String spillBudgetMb = null;
+        String threads = null;
+        String shardSpec = null;
+        boolean mergeShards = false;
+        String userEmail = null;
+        String from = null;
+        String to = null;
 
         for (String arg : args) {
             if ("--extract-profiles".equals(arg) || "--parse-logs".equals(arg)) {
                 extractProfiles = true;
-                break;
+            } else if ("--merge-shards".equals(arg)) {
+                extractProfiles = true;
+                mergeShards = true;
+            } else if (arg.startsWith("--shard=")) {
+                shardSpec = arg.substring("--shard=".length());
+            } else if ("--incremental".equals(arg)) {
+                incremental = true;
+            } else if ("--binary".equals(arg)) {
+                binary = true;
+            } else if ("--columnar".equals(arg)) {
+                columnar = true;
+            } else if (arg.startsWith("--spill-budget-mb=")) {
+                spillBudgetMb = arg.substring("--spill-budget-mb=".length());
+            } else if (arg.startsWith("--threads=")) {
+                threads = arg.substring("--threads=".length());
+            } else if (arg.startsWith("--user=")) {
+                userEmail = arg.substring("--user=".length());
+            } else if (arg.startsWith("--from=")) {
+                from = arg.substring("--from=".length());
+            } else if (arg.startsWith("--to=")) {
+                to = arg.substring("--to=".length());
             }
         }
 
@@ -48,25 +94,67 @@ public class LogExtractionRunner implements CommandLineRunner {
             log.info("╚════════════════════════════════════════════════════════╝");
             log.info("\n");
 
+            // Option values are only converted now, so a malformed one exits like a failed extraction
+            ProfileShard shard;
+            long spillBudgetBytes;
+            int parallelism;
+            LogFilter logFilter;
             try {
-                // Step 1: Parse logs
-                log.info("Step 1: Parsing log files...");
-                List<LogEntry> logs = logParser.parseDefaultLogs();
-                log.info("✅ Parsed {} log entries\n", logs.size());
+                shard = shardSpec != null ? ProfileShard.parse(shardSpec) : null;
+                spillBudgetBytes = spillBudgetMb != null ? parseSpillBudgetBytes(spillBudgetMb) : 0;
+                parallelism = threads != null ? parseThreads(threads) : 0;
+                logFilter = LogFilter.builder()
+                        .userEmail(userEmail)
+                        .from(from != null ? LocalDateTime.parse(from) : null)
+                        .to(to != null ? LocalDateTime.parse(to) : null)
+                        .build();
+                if (incremental && !logFilter.isUnfiltered()) {
+                    // The saved accumulators cover every user and the whole history
+                    throw new IllegalArgumentException("--incremental cannot be combined with --user, --from or --to");
+                }
+                if (parallelism > 0 && (shard != null || mergeShards || spillBudgetBytes > 0 || incremental
+                        || binary || columnar || !logFilter.isUnfiltered())) {
+                    // The parallel extraction reads every entry of the text logs
+                    throw new IllegalArgumentException("--threads cannot be combined with other extraction options");
+                }
+                if ((shard != null || mergeShards) && ((shard != null && mergeShards) || spillBudgetBytes > 0
+                        || incremental || binary || columnar || !logFilter.isUnfiltered())) {
+                    // Shards hold the accumulators of every entry of the text logs
+                    throw new IllegalArgumentException("--shard and --merge-shards cannot be combined with other extraction options");
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.error("❌ Invalid arguments: {}", e.getMessage());
+                log.info("✅ Exiting application...");
+                System.exit(1);
+                return;
+            }
 
-                // Step 2: Extract profiles
-                log.info("Step 2: Extracting user profiles from logs...");
-                Map<String, UserProfile> profiles = profileExtractor.extractProfilesFromLogs();
-                log.info("✅ Extracted {} user profiles\n", profiles.size());
+            int exitStatus = 0;
 
-                // Step 3: Export profiles
-                log.info("Step 3: Exporting profiles to JSON...");
-                profileExtractor.exportProfiles(profiles);
-                log.info("✅ Profiles exported\n");
+            try {
+                if (shard != null) {
+                    // Partial accumulators of this shard's users, merged later by --merge-shards
+                    int users = profileExtractor.extractProfileShard(shard);
+                    log.info("✅ Saved accumulators of {} users for shard {}\n", users, shard);
+                } else if (mergeShards) {
+                    log.info("Merging profile shards...");
+                    Map<String, UserProfile> profiles = profileExtractor.mergeProfileShards();
+                    log.info("✅ Merged {} user profiles\n", profiles.size());
 
-                // Step 4: Generate report
-                String report = profileExtractor.generateExtractionReport(profiles);
-                log.info(report);
+                    profileExtractor.exportProfiles(profiles);
+                    log.info(profileExtractor.generateExtractionReport(profiles));
+                } else if (spillBudgetBytes > 0) {
+                    // Parse, extract and export in one pass; entries beyond the budget are spilled to disk
+                    log.info("Extracting profiles out-of-core ({} MB heap budget)...", spillBudgetBytes / (1024 * 1024));
+                    int exported = profileExtractor.exportProfilesOutOfCore(spillBudgetBytes);
+                    log.info("✅ Extracted and exported {} user profiles\n", exported);
+                } else if (incremental) {
+                    extractAndExportIncremental();
+                } else if (parallelism > 0) {
+                    extractAndExportParallel(parallelism);
+                } else {
+                    extractAndExport(logFilter, columnar, binary);
+                }
 
                 log.info("\n");
                 log.info("╔════════════════════════════════════════════════════════╗");
@@ -79,11 +167,126 @@ public class LogExtractionRunner implements CommandLineRunner {
 
             } catch (Exception e) {
                 log.error("❌ Profile extraction failed", e);
+                exitStatus = 1;
             }
 
-            // Exit after extraction
+            // Exit after extraction; a failure exits non-zero, e.g. so a shard worker's launcher notices it
             log.info("✅ Exiting application...");
-            System.exit(0);
+            System.exit(exitStatus);
+        }
+    }
+
+    /**
+     * Heap budget in bytes from a --spill-budget-mb value
+     */
+    private static long parseSpillBudgetBytes(String megabytes) {
+        long budget = Long.parseLong(megabytes.trim());
+        if (budget < 1 || budget > Long.MAX_VALUE / (1024 * 1024)) {
+            throw new IllegalArgumentException("Invalid spill budget, expected a positive number of MB: " + megabytes);
+        }
+        return budget * 1024 * 1024;
+    }
+
+    /**
+     * Thread count from a --threads value
+     */
+    private static int parseThreads(String threads) {
+        int count = Integer.parseInt(threads.trim());
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid thread count, expected a positive number: " + threads);
+        }
+        return count;
+    }
+
+    /**
+     * Parse the logs, extract the profiles in memory, export them and log the report
+     */
+    private void extractAndExport(LogFilter logFilter, boolean columnar, boolean binary) {
+        // Step 1: Parse logs
+        log.info("Step 1: Parsing log files...");
+        long parsedEntries;
+        ColumnarLogStore store = null;
+        if (columnar) {
+            // Parsed once into compact columns, then reused for extraction
+            store = logParser.loadDefaultLogsColumnar(logFilter);
+            parsedEntries = store.size();
+            log.info("Columnar store: ~{} KB for {} entries", store.estimatedBytes() / 1024, parsedEntries);
+        } else if (binary) {
+            // Structured logs decoded from StructuredLogger's binary segments
+            parsedEntries = logParser.parseDefaultLogsBinary(logFilter).size();
+        } else if (logFilter.hasTimeRange()) {
+            // Seek to the time window instead of reading whole files
+            parsedEntries = logParser.parseDefaultLogsRange(logFilter).size();
+        } else {
+            try (Stream<LogEntry> logs = logParser.streamDefaultLogs(logFilter)) {
+                parsedEntries = logs.count();
+            }
+        }
+        log.info("✅ Parsed {} log entries\n", parsedEntries);
+
+        // Step 2: Extract profiles
+        log.info("Step 2: Extracting user profiles from logs...");
+        Map<String, UserProfile> profiles;
+        if (store != null) {
+            profiles = profileExtractor.extractProfilesFromStore(store, logFilter);
+        } else if (binary) {
+            profiles = profileExtractor.extractProfilesFromBinaryLogs(logFilter);
+        } else if (logFilter.hasTimeRange()) {
+            profiles = profileExtractor.extractProfilesForRange(logFilter);
+        } else {
+            profiles = profileExtractor.extractProfilesStreaming(logFilter);
         }
+        log.info("✅ Extracted {} user profiles\n", profiles.size());
+
+        // Step 3: Export profiles
+        log.info("Step 3: Exporting profiles to JSON...");
+        profileExtractor.exportProfiles(profiles);
+        log.info("✅ Profiles exported\n");
+
+        // Step 4: Generate report
+        String report = profileExtractor.generateExtractionReport(profiles);
+        log.info(report);
+    }
+
+    /**
+     * Parse all the logs, extract the profiles with a pool of threads, export them and log the report.
+     * The profiles are the same as a sequential extraction, whatever the thread count.
+     */
+    private void extractAndExportParallel(int threads) {
+        // Steps 1 and 2: Parse the logs and fold them into per-user accumulators concurrently
+        log.info("Steps 1-2: Parsing log files and extracting user profiles ({} threads)...", threads);
+        profileExtractor.setParallelism(threads);
+        Map<String, UserProfile> profiles = profileExtractor.extractProfilesFromLogsParallel();
+        log.info("✅ Extracted {} user profiles\n", profiles.size());
+
+        // Step 3: Export profiles
+        log.info("Step 3: Exporting profiles to JSON...");
+        profileExtractor.exportProfiles(profiles);
+        log.info("✅ Profiles exported\n");
+
+        // Step 4: Generate report
+        String report = profileExtractor.generateExtractionReport(profiles);
+        log.info(report);
+    }
+
+    /**
+     * Fold only the entries appended since the previous incremental run into the saved
+     * accumulators, export the profiles of every user and log the report. The log positions
+     * are saved with the accumulators, so they only move for entries that were folded in.
+     */
+    private void extractAndExportIncremental() {
+        // Steps 1 and 2: Parse the new log lines and fold them into the saved accumulators
+        log.info("Steps 1-2: Parsing new log lines and updating user profiles...");
+        Map<String, UserProfile> profiles = profileExtractor.extractProfilesIncremental();
+        log.info("✅ Updated {} user profiles\n", profiles.size());
+
+        // Step 3: Export profiles
+        log.info("Step 3: Exporting profiles to JSON...");
+        profileExtractor.exportProfiles(profiles);
+        log.info("✅ Profiles exported\n");
+
+        // Step 4: Generate report
+        String report = profileExtractor.generateExtractionReport(profiles);
+        log.info(report);
     }
 }
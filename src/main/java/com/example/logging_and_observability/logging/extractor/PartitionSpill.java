@@ -0,0 +1,178 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.segment.LogSegmentReader;
+import com.example.logging_and_observability.logging.segment.LogSegmentWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Log entries hash-partitioned by user email, held in memory up to a heap budget and
+ * spilled to binary run files beyond it
+ *
+ * Every spill writes one run file (LogSegmentWriter format) per non-empty partition, so
+ * a partition is the concatenation of its runs followed by what is still in memory, in
+ * arrival order: each user's entries come back in log order. The level salts the hash,
+ * so a partition that is still too large can be split again with level + 1.
+ * Run files live in a temporary directory. Each one is read into the heap and deleted as its
+ * partition is consumed, so no mapping or handle outlives it; close() deletes what is left.
+ * Not thread-safe.
+ */
+@Slf4j
+final class PartitionSpill implements Closeable {
+
+    private final int partitions;
+    private final int level;
+    private final long heapBudgetBytes;
+    private final Path spillRoot;
+
+    private final List<List<LogEntry>> buffers = new ArrayList<>();
+    private final List<List<Path>> runs = new ArrayList<>();
+    private final long[] partitionBytes;        // estimated heap size of every entry added, per partition
+    private long bufferedBytes;
+    private Path directory;
+    private int spills;
+    private long spilledEntries;
+
+    PartitionSpill(int partitions, int level, long heapBudgetBytes, Path spillRoot) {
+        if (partitions < 1 || heapBudgetBytes < 1) {
+            throw new IllegalArgumentException("Invalid spill settings: " + partitions + " partitions, "
+                    + heapBudgetBytes + " bytes");
+        }
+        this.partitions = partitions;
+        this.level = level;
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.spillRoot = spillRoot;
+        this.partitionBytes = new long[partitions];
+        for (int partition = 0; partition < partitions; partition++) {
+            buffers.add(new ArrayList<>());
+            runs.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Partition of a user at a given level; levels hash independently of each other
+     */
+    static int partitionOf(String userEmail, int level, int partitions) {
+        int hash = userEmail.hashCode() + level * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, partitions);
+    }
+
+    /**
+     * Add an entry with a user email, spilling every partition once the budget is exceeded
+     */
+    void add(LogEntry entry) throws IOException {
+        int partition = partitionOf(entry.getUserEmail(), level, partitions);
+        int bytes = entry.estimateHeapBytes();
+        buffers.get(partition).add(entry);
+        partitionBytes[partition] += bytes;
+        bufferedBytes += bytes;
+
+        if (bufferedBytes > heapBudgetBytes) {
+            spill();
+        }
+    }
+
+    boolean hasSpilled() {
+        return spills > 0;
+    }
+
+    int getPartitions() {
+        return partitions;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    int getSpills() {
+        return spills;
+    }
+
+    long getSpilledEntries() {
+        return spilledEntries;
+    }
+
+    /**
+     * Estimated heap size of all entries of a partition, i.e. what aggregating it in memory costs
+     */
+    long getPartitionBytes(int partition) {
+        return partitionBytes[partition];
+    }
+
+    /**
+     * Entries of a partition in arrival order; the in-memory part is released as it is handed out
+     */
+    Stream<LogEntry> partition(int partition) {
+        List<LogEntry> buffered = buffers.set(partition, new ArrayList<>());
+        return Stream.concat(
+                runs.get(partition).stream().flatMap(PartitionSpill::readRun),
+                buffered.stream());
+    }
+
+    private static Stream<LogEntry> readRun(Path run) {
+        try {
+            LogSegmentReader reader = LogSegmentReader.load(run);
+            Files.delete(run);
+            return reader.stream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void spill() throws IOException {
+        if (directory == null) {
+            Files.createDirectories(spillRoot);
+            directory = Files.createTempDirectory(spillRoot, "profile-spill-");
+        }
+        for (int partition = 0; partition < partitions; partition++) {
+            List<LogEntry> buffered = buffers.get(partition);
+            if (buffered.isEmpty()) {
+                continue;
+            }
+            Path run = directory.resolve("run-" + partition + "-" + spills + ".seg");
+            try (LogSegmentWriter writer = LogSegmentWriter.create(run)) {
+                for (LogEntry entry : buffered) {
+                    writer.write(entry);
+                }
+            }
+            runs.get(partition).add(run);
+            spilledEntries += buffered.size();
+            buffers.set(partition, new ArrayList<>());
+        }
+        log.debug("Spilled {} bytes of log entries to {} (level {}, spill {})", bufferedBytes, directory, level, spills);
+        bufferedBytes = 0;
+        spills++;
+    }
+
+    /**
+     * Delete the run files
+     */
+    @Override
+    public void close() throws IOException {
+        buffers.clear();
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        directory = null;
+    }
+}
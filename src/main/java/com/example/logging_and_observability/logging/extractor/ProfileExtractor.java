@@ -1,7 +1,12 @@
 package com.example.logging_and_observability.logging.extractor;
 
 import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.parser.LogCheckpoint;
+import com.example.logging_and_observability.logging.parser.LogDeduplicator;
+import com.example.logging_and_observability.logging.parser.LogFilter;
 import com.example.logging_and_observability.logging.parser.LogParser;
+import com.example.logging_and_observability.logging.store.ColumnarLogStore;
+import com.example.logging_and_observability.logging.store.ColumnarLogStore.Column;
 import com.example.logging_and_observability.profiling.model.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -12,9 +17,21 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Extracts user profiles from parsed log entries
@@ -28,6 +45,17 @@ public class ProfileExtractor {
     private final ObjectMapper objectMapper;
 
     private static final String EXTRACTED_PROFILES_DIR = "extracted-profiles";
+    private static final String PROFILE_STATE_FILE = "log-checkpoints/profile-state.json";
+    private static final String PROFILE_SHARDS_DIR = "profile-shards";
+    private static final String SAMPLING_STATS_FILE = "structured-logs/sampling-stats.json";
+    private static final int CHUNKS_PER_THREAD = 4;         // smooths out chunks with expensive users
+    private static final int MAX_SPILL_LEVEL = 3;           // re-partitioning cannot split a single heavy user
+
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+    private volatile int spillPartitions = 64;
+    private volatile Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+    private volatile Path shardDirectory = Paths.get(PROFILE_SHARDS_DIR);
+    private final ProfileStateStore stateStore = new ProfileStateStore(PROFILE_STATE_FILE);
 
     public ProfileExtractor(LogParser logParser) {
         this.logParser = logParser;
@@ -61,218 +89,610 @@ public class ProfileExtractor {
 
         // Build profile for each user
         Map<String, UserProfile> profiles = new HashMap<>();
+        SampledOutOperations sampledOut = loadSampledOut(LogFilter.ALL);
 
         for (Map.Entry<String, List<LogEntry>> entry : logsByUser.entrySet()) {
             String userEmail = entry.getKey();
             List<LogEntry> userLogs = entry.getValue();
 
-            UserProfile profile = buildProfileFromLogs(userEmail, userLogs);
+            UserProfile profile = buildProfileFromLogs(userEmail, userLogs, sampledOut);
             profiles.put(userEmail, profile);
 
             log.info("Built {} profile for user: {}", profile.getProfileType(), userEmail);
         }
+        addSampledOutUsers(profiles, sampledOut);
 
         return profiles;
     }
 
     /**
-     * Build a user profile from their log entries
+     * Extract all user profiles from logs with a pool of parallelism threads.
+     * The profiles are exactly those of extractProfilesFromLogs().
      */
-    private UserProfile buildProfileFromLogs(String userEmail, List<LogEntry> logs) {
-        // Extract user info
-        String userName = logs.stream()
-                .map(LogEntry::getUserName)
-                .filter(Objects::nonNull)
-                .findFirst()
-                .orElse("Unknown");
-
-        // Count operations by type
-        long readOps = logs.stream()
-                .filter(log -> "READ".equals(log.getOperationType()))
-                .count();
-
-        long writeOps = logs.stream()
-                .filter(log -> "WRITE".equals(log.getOperationType()))
-                .count();
-
-        long expensiveOps = logs.stream()
-                .filter(log -> "SEARCH_EXPENSIVE".equals(log.getOperationType()))
-                .count();
-
-        long totalOps = readOps + writeOps + expensiveOps;
-
-        // Determine profile type
-        double expensivePercentage = totalOps > 0 ? (expensiveOps * 100.0 / totalOps) : 0;
-        double writePercentage = totalOps > 0 ? (writeOps * 100.0 / totalOps) : 0;
-        double readPercentage = totalOps > 0 ? (readOps * 100.0 / totalOps) : 0;
-
-        UserProfile profile;
-
-        if (expensivePercentage >= 50.0) {
-            profile = buildExpensiveSeekerProfile(userName, userEmail, logs);
-        } else if (writePercentage >= 60.0) {
-            profile = buildWriteHeavyProfile(userName, userEmail, logs);
-        } else {
-            profile = buildReadHeavyProfile(userName, userEmail, logs);
+    public Map<String, UserProfile> extractProfilesFromLogsParallel() {
+        log.info("Extracting user profiles from logs ({} threads)...", parallelism);
+
+        List<LogEntry> logs = logParser.parseDefaultLogs();
+        log.info("Found {} log entries to process", logs.size());
+
+        return extractProfilesParallel(logs, loadSampledOut(LogFilter.ALL));
+    }
+
+    /**
+     * Number of threads of the parallel extraction (defaults to the number of processors)
+     */
+    public void setParallelism(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + threads);
+        }
+        this.parallelism = threads;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Extract user profiles from a list of entries in parallel.
+     * Contiguous chunks of the list are folded concurrently into per-user accumulators,
+     * split by email hash; each hash partition then merges its users' accumulators in
+     * chunk order, so every user sees their entries in list order and the profiles are
+     * the same as a sequential pass, whatever the thread count.
+     */
+    public Map<String, UserProfile> extractProfilesParallel(List<LogEntry> logs) {
+        return extractProfilesParallel(logs, SampledOutOperations.NONE);
+    }
+
+    private Map<String, UserProfile> extractProfilesParallel(List<LogEntry> logs, SampledOutOperations sampledOut) {
+        int threads = parallelism;
+        if (threads == 1) {
+            return extractProfilesFromStream(logs.stream(), sampledOut);
+        }
+        int chunks = Math.max(1, Math.min(threads * CHUNKS_PER_THREAD, logs.size()));
+        int partitions = threads;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "profile-extractor-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            // Fold: one task per chunk, each producing one accumulator map per partition
+            List<Callable<List<Map<String, UserLogAccumulator>>>> folds = new ArrayList<>();
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                List<LogEntry> slice = logs.subList(
+                        (int) ((long) logs.size() * chunk / chunks), (int) ((long) logs.size() * (chunk + 1) / chunks));
+                folds.add(() -> foldChunk(slice, partitions));
+            }
+            List<List<Map<String, UserLogAccumulator>>> folded = invokeAll(pool, folds);
+
+            // Merge: one task per partition, chunks taken in list order
+            List<Callable<Map<String, UserProfile>>> merges = new ArrayList<>();
+            for (int partition = 0; partition < partitions; partition++) {
+                int current = partition;
+                merges.add(() -> mergePartition(folded, current, sampledOut));
+            }
+
+            Map<String, UserProfile> profiles = new HashMap<>();
+            for (Map<String, UserProfile> partitionProfiles : invokeAll(pool, merges)) {
+                profiles.putAll(partitionProfiles);
+            }
+            addSampledOutUsers(profiles, sampledOut);
+
+            log.info("Processed {} log entries for {} users ({} threads)", logs.size(), profiles.size(), threads);
+            return profiles;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Map<String, UserLogAccumulator>> foldChunk(List<LogEntry> slice, int partitions) {
+        List<Map<String, UserLogAccumulator>> accumulators = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            accumulators.add(new HashMap<>());
+        }
+        for (LogEntry entry : slice) {
+            String userEmail = entry.getUserEmail();
+            if (userEmail != null) {
+                accumulators.get(partitionOf(userEmail, partitions))
+                        .computeIfAbsent(userEmail, UserLogAccumulator::new).add(entry);
+            }
+        }
+        return accumulators;
+    }
+
+    private Map<String, UserProfile> mergePartition(List<List<Map<String, UserLogAccumulator>>> folded, int partition,
+                                                    SampledOutOperations sampledOut) {
+        Map<String, UserLogAccumulator> merged = new HashMap<>();
+        for (List<Map<String, UserLogAccumulator>> chunk : folded) {
+            chunk.get(partition).forEach((userEmail, accumulator) -> merged.merge(userEmail, accumulator,
+                    (earlier, later) -> {
+                        earlier.merge(later);
+                        return earlier;
+                    }));
         }
 
-        // Set common fields
-        profile.setTotalOperations((int) totalOps);
-        profile.setProfileCreatedAt(logs.stream()
-                .map(LogEntry::getTimestamp)
-                .min(LocalDateTime::compareTo)
-                .orElse(LocalDateTime.now()));
-        profile.setLastActivityAt(logs.stream()
-                .map(LogEntry::getTimestamp)
-                .max(LocalDateTime::compareTo)
-                .orElse(LocalDateTime.now()));
+        Map<String, UserProfile> profiles = new HashMap<>();
+        for (UserLogAccumulator accumulator : merged.values()) {
+            UserProfile profile = accumulator.toProfile(sampledOut);
+            profiles.put(accumulator.getUserEmail(), profile);
+
+            log.info("Built {} profile for user: {}", profile.getProfileType(), accumulator.getUserEmail());
+        }
+        return profiles;
+    }
 
-        // Convert LogEntry to OperationLog
-        List<OperationLog> operationHistory = logs.stream()
-                .map(this::convertToOperationLog)
-                .collect(Collectors.toList());
-        profile.setOperationHistory(operationHistory);
+    private static int partitionOf(String userEmail, int partitions) {
+        return Math.floorMod(userEmail.hashCode(), partitions);
+    }
 
-        return profile;
+    private static <T> List<T> invokeAll(ExecutorService pool, List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while extracting profiles", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Profile extraction failed", e.getCause());
+        }
     }
 
     /**
-     * Build ReadHeavyProfile from logs
+     * Extract all user profiles incrementally. The accumulators and log positions saved by
+     * the previous run are loaded, only the entries appended since then are folded in, and
+     * every user is classified again; the first run reads the logs from the beginning,
+     * rolled segments included. The deduplication window is saved with the accumulators, so
+     * an operation whose two copies are read by consecutive runs is still counted once,
+     * provided neither source lags the other by more than the deduplication tolerance.
+     * Saving rewrites the counters of every user but only appends the new operations to the
+     * saved history (ProfileStateStore); reading that history back, like exporting the
+     * profiles, still grows with the logs.
      */
-    private ReadHeavyProfile buildReadHeavyProfile(String userName, String userEmail, List<LogEntry> logs) {
-        ReadHeavyProfile profile = new ReadHeavyProfile();
-        profile.setUserName(userName);
-        profile.setUserEmail(userEmail);
-        profile.setUserAge(0); // Age not available from logs
-
-        long readOps = logs.stream()
-                .filter(log -> "READ".equals(log.getOperationType()))
-                .count();
-
-        long writeOps = logs.stream()
-                .filter(log -> "WRITE".equals(log.getOperationType()))
-                .count();
-
-        profile.setTotalReadOperations((int) readOps);
-        profile.setTotalWriteOperations((int) writeOps);
-
-        // Count specific operations
-        profile.setGetAllProductsCount((int) logs.stream()
-                .filter(log -> "getAllProducts".equals(log.getAction()))
-                .count());
-
-        profile.setGetProductByIdCount((int) logs.stream()
-                .filter(log -> "getProductById".equals(log.getAction()))
-                .count());
-
-        // Track product views
-        logs.stream()
-                .filter(log -> "getProductById".equals(log.getAction()))
-                .filter(log -> log.getResourceId() != null)
-                .forEach(log -> {
-                    String productId = log.getResourceId();
-                    String productName = log.getResourceName();
-                    if (productName != null) {
-                        profile.trackProductView(productId, productName);
-                    }
-                });
+    public synchronized Map<String, UserProfile> extractProfilesIncremental() {
+        ProfileStateStore.State state = stateStore.load();
+        Map<String, UserLogAccumulator> accumulators = state.getAccumulators();
+        log.info("Extracting user profiles from logs (incremental, {} users saved)...", accumulators.size());
+
+        LogDeduplicator deduplicator = new LogDeduplicator();
+        deduplicator.restoreWindow(state.getDeduplicationWindow());
+        List<LogEntry> appended = logParser.parseDefaultLogsSince(state.getCheckpoints(), deduplicator);
+        for (LogEntry entry : appended) {
+            if (entry.getUserEmail() != null) {
+                accumulators.computeIfAbsent(entry.getUserEmail(), UserLogAccumulator::new).add(entry);
+            }
+        }
 
-        return profile;
+        state.setDeduplicationWindow(deduplicator.getWindow());
+        state.setUpdatedAt(LocalDateTime.now());
+        stateStore.save(state);
+        log.info("Folded {} new log entries, {} users in total", appended.size(), accumulators.size());
+
+        // The sampled-out counts are cumulative: added to the profiles, never to the saved accumulators
+        return toProfiles(accumulators, loadSampledOut(LogFilter.ALL));
+    }
+
+    /**
+     * Forget the saved incremental state, e.g. after the logs were replaced
+     */
+    public void resetIncrementalState() {
+        stateStore.clear();
     }
 
     /**
-     * Build WriteHeavyProfile from logs
+     * Fold the entries of the users of one shard into accumulators and save them to
+     * profile-shards/shard-index-of-count.json, with the positions of the log files read.
+     * Each shard can run in its own process over the same logs; mergeProfileShards() then
+     * builds the profiles of all users. The logs must not change while a shard is extracted.
+     *
+     * @return the number of users of the shard
+     * @throws UncheckedIOException if the shard file cannot be written
      */
-    private WriteHeavyProfile buildWriteHeavyProfile(String userName, String userEmail, List<LogEntry> logs) {
-        WriteHeavyProfile profile = new WriteHeavyProfile();
-        profile.setUserName(userName);
-        profile.setUserEmail(userEmail);
-        profile.setUserAge(0);
+    public int extractProfileShard(ProfileShard shard) {
+        log.info("Extracting user profiles from logs (shard {})...", shard);
+
+        Map<String, LogCheckpoint> positions = logParser.positionsOfDefaultLogs();
+        Map<String, UserLogAccumulator> accumulators = new TreeMap<>();
+        long[] processed = {0};
+        try (Stream<LogEntry> logs = logParser.streamDefaultLogs()) {
+            logs.forEachOrdered(entry -> {
+                processed[0]++;
+                if (entry.getUserEmail() != null && shard.contains(entry.getUserEmail())) {
+                    accumulators.computeIfAbsent(entry.getUserEmail(), UserLogAccumulator::new).add(entry);
+                }
+            });
+        }
 
-        long readOps = logs.stream()
-                .filter(log -> "READ".equals(log.getOperationType()))
-                .count();
+        if (!positions.equals(logParser.positionsOfDefaultLogs())) {
+            throw new IllegalStateException("Logs changed while extracting shard " + shard
+                    + "; every shard must read the same logs");
+        }
+
+        ProfileStateStore.State state = new ProfileStateStore.State();
+        state.setUpdatedAt(LocalDateTime.now());
+        state.setCheckpoints(positions);
+        state.setAccumulators(accumulators);
+        String shardFile = shardDirectory.resolve(shard.fileName()).toString();
+        try {
+            new ProfileStateStore(shardFile).write(state);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save profile shard " + shardFile, e);
+        }
 
-        long writeOps = logs.stream()
-                .filter(log -> "WRITE".equals(log.getOperationType()))
-                .count();
+        log.info("Processed {} log entries, saved {} users of shard {} to {}",
+                processed[0], accumulators.size(), shard, shardFile);
+        return accumulators.size();
+    }
 
-        profile.setTotalReadOperations((int) readOps);
-        profile.setTotalWriteOperations((int) writeOps);
+    /**
+     * Build the profiles of all users from the accumulators saved by extractProfileShard().
+     * Every shard of the same count must be present, and no other count, and all of them
+     * must have read the logs at the same positions.
+     */
+    public Map<String, UserProfile> mergeProfileShards() {
+        Map<ProfileShard, File> shardFiles = new TreeMap<>(Comparator.comparingInt(ProfileShard::getIndex));
+        Set<Integer> counts = new TreeSet<>();
+        Path directory = shardDirectory;
+        File[] files = directory.toFile().listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            ProfileShard shard = ProfileShard.fromFileName(file.getName());
+            if (shard != null) {
+                shardFiles.put(shard, file);
+                counts.add(shard.getCount());
+            }
+        }
 
-        // Count specific operations
-        profile.setAddProductCount((int) logs.stream()
-                .filter(log -> "addProduct".equals(log.getAction()))
-                .count());
+        if (counts.size() != 1) {
+            throw new IllegalStateException(counts.isEmpty()
+                    ? "No profile shards in " + directory
+                    : "Profile shards of different runs in " + directory + ", counts " + counts);
+        }
+        int count = counts.iterator().next();
+        if (shardFiles.size() != count) {
+            List<Integer> missing = new ArrayList<>();
+            for (int index = 1; index <= count; index++) {
+                if (!shardFiles.containsKey(ProfileShard.of(index, count))) {
+                    missing.add(index);
+                }
+            }
+            throw new IllegalStateException("Missing profile shards " + missing + " of " + count);
+        }
+        log.info("Merging {} profile shards from {}...", count, directory);
 
-        profile.setUpdateProductCount((int) logs.stream()
-                .filter(log -> "updateProduct".equals(log.getAction()))
-                .count());
+        Map<String, UserProfile> profiles = new HashMap<>();
+        SampledOutOperations sampledOut = loadSampledOut(LogFilter.ALL);
+        Map<String, LogCheckpoint> positions = null;
+        for (Map.Entry<ProfileShard, File> entry : shardFiles.entrySet()) {
+            ProfileShard shard = entry.getKey();
+            ProfileStateStore.State state;
+            try {
+                state = new ProfileStateStore(entry.getValue().getPath()).read();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unreadable profile shard " + entry.getValue(), e);
+            }
 
-        profile.setDeleteProductCount((int) logs.stream()
-                .filter(log -> "deleteProduct".equals(log.getAction()))
-                .count());
+            // A shard left by an earlier run over other logs would silently mix two runs
+            if (positions == null) {
+                positions = state.getCheckpoints();
+            } else if (!positions.equals(state.getCheckpoints())) {
+                throw new IllegalStateException("Profile shard " + shard + " was extracted from other logs than shard "
+                        + shardFiles.keySet().iterator().next() + ": " + entry.getValue());
+            }
 
-        // Track products modified
-        logs.stream()
-                .filter(log -> "WRITE".equals(log.getOperationType()))
-                .filter(log -> log.getResourceId() != null)
-                .forEach(log -> {
-                    profile.incrementWriteOperation(log.getAction(), log.getResourceId());
-                });
+            for (UserLogAccumulator accumulator : state.getAccumulators().values()) {
+                // Shards own disjoint users, so a user found elsewhere means mismatched files
+                if (!shard.contains(accumulator.getUserEmail())) {
+                    throw new IllegalStateException("User " + accumulator.getUserEmail()
+                            + " does not belong to shard " + shard + ": " + entry.getValue());
+                }
+                UserProfile profile = accumulator.toProfile(sampledOut);
+                profiles.put(accumulator.getUserEmail(), profile);
 
-        return profile;
+                log.info("Built {} profile for user: {}", profile.getProfileType(), accumulator.getUserEmail());
+            }
+        }
+        addSampledOutUsers(profiles, sampledOut);
+
+        log.info("Merged {} users from {} profile shards", profiles.size(), count);
+        return profiles;
+    }
+
+    /**
+     * Extract all user profiles by streaming the default logs.
+     * Log entries are folded into per-user accumulators as they are read,
+     * so the full list of entries is never held in memory.
+     */
+    public Map<String, UserProfile> extractProfilesStreaming() {
+        return extractProfilesStreaming(LogFilter.ALL);
+    }
+
+    /**
+     * Extract profiles from the log entries accepted by the filter, e.g. a single user
+     * or a time window. The filter is applied while parsing, so other lines are skipped cheaply.
+     */
+    public Map<String, UserProfile> extractProfilesStreaming(LogFilter filter) {
+        log.info("Extracting user profiles from logs (streaming, {})...", filter);
+
+        try (Stream<LogEntry> logs = logParser.streamDefaultLogs(filter)) {
+            return extractProfilesFromStream(logs, loadSampledOut(filter));
+        }
     }
 
     /**
-     * Build ExpensiveProductSeekerProfile from logs
+     * Extract profiles from the entries with from <= timestamp < to.
+     * Every log file is binary-searched for the range, so a short window costs
+     * a few reads plus the lines inside it instead of a full parse.
      */
-    private ExpensiveProductSeekerProfile buildExpensiveSeekerProfile(String userName, String userEmail, List<LogEntry> logs) {
-        ExpensiveProductSeekerProfile profile = new ExpensiveProductSeekerProfile();
-        profile.setUserName(userName);
-        profile.setUserEmail(userEmail);
-        profile.setUserAge(0);
-
-        // Track expensive product views
-        logs.stream()
-                .filter(log -> log.getResourcePrice() != null)
-                .forEach(log -> {
-                    String productId = log.getResourceId();
-                    String productName = log.getResourceName();
-                    Double price = log.getResourcePrice();
-
-                    if (productId != null && productName != null && price != null) {
-                        profile.trackProductView(productId, productName, price);
+    public Map<String, UserProfile> extractProfilesForRange(LocalDateTime from, LocalDateTime to) {
+        return extractProfilesForRange(LogFilter.builder().from(from).to(to).build());
+    }
+
+    /**
+     * Extract profiles from the entries accepted by a filter with a time range
+     */
+    public Map<String, UserProfile> extractProfilesForRange(LogFilter filter) {
+        log.info("Extracting user profiles from logs ({})...", filter);
+
+        List<LogEntry> logs = logParser.parseDefaultLogsRange(filter);
+        return extractProfilesFromStream(logs.stream());
+    }
+
+    /**
+     * Extract profiles with the structured logs read from StructuredLogger's binary segments
+     * instead of re-parsing application-logs.txt
+     */
+    public Map<String, UserProfile> extractProfilesFromBinaryLogs(LogFilter filter) {
+        log.info("Extracting user profiles from logs (binary segments, {})...", filter);
+
+        List<LogEntry> logs = logParser.parseDefaultLogsBinary(filter);
+        return extractProfilesFromStream(logs.stream(), loadSampledOut(filter));
+    }
+
+    /**
+     * Extract user profiles from a stream of log entries.
+     * The stream is consumed in encounter order; the caller remains responsible for closing it.
+     */
+    public Map<String, UserProfile> extractProfilesFromStream(Stream<LogEntry> logs) {
+        return extractProfilesFromStream(logs, SampledOutOperations.NONE);
+    }
+
+    private Map<String, UserProfile> extractProfilesFromStream(Stream<LogEntry> logs, SampledOutOperations sampledOut) {
+        Map<String, UserLogAccumulator> accumulators = new HashMap<>();
+        long[] processed = {0};
+
+        logs.forEachOrdered(entry -> {
+            processed[0]++;
+            if (entry.getUserEmail() != null) {
+                accumulators.computeIfAbsent(entry.getUserEmail(), UserLogAccumulator::new).add(entry);
+            }
+        });
+
+        log.info("Processed {} log entries for {} users", processed[0], accumulators.size());
+
+        return toProfiles(accumulators, sampledOut);
+    }
+
+    /**
+     * Profiles of the accumulated users, with their sampled-out operations, and of the users
+     * whose operations were all sampled out
+     */
+    private static Map<String, UserProfile> toProfiles(Map<String, UserLogAccumulator> accumulators,
+                                                       SampledOutOperations sampledOut) {
+        Map<String, UserProfile> profiles = new HashMap<>();
+
+        for (UserLogAccumulator accumulator : accumulators.values()) {
+            UserProfile profile = accumulator.toProfile(sampledOut);
+            profiles.put(accumulator.getUserEmail(), profile);
+
+            log.info("Built {} profile for user: {}", profile.getProfileType(), accumulator.getUserEmail());
+        }
+        addSampledOutUsers(profiles, sampledOut);
+
+        return profiles;
+    }
+
+    /**
+     * Add the profiles of the users that only have sampled-out operations
+     */
+    private static void addSampledOutUsers(Map<String, UserProfile> profiles, SampledOutOperations sampledOut) {
+        for (String userEmail : sampledOut.users()) {
+            if (!profiles.containsKey(userEmail)) {
+                UserProfile profile = new UserLogAccumulator(userEmail).toProfile(sampledOut);
+                profiles.put(userEmail, profile);
+
+                log.info("Built {} profile for user: {} (sampled-out operations only)", profile.getProfileType(), userEmail);
+            }
+        }
+    }
+
+    /**
+     * Operations StructuredLogger counted without writing them, for the users whose entries
+     * all pass the filter
+     */
+    private SampledOutOperations loadSampledOut(LogFilter filter) {
+        return SampledOutOperations.load(new File(SAMPLING_STATS_FILE), objectMapper).restrictTo(filter);
+    }
+
+    /**
+     * Extract all user profiles with about heapBudgetBytes of log entries in memory at most.
+     * Entries are hash-partitioned by user email while the logs are streamed; beyond the budget
+     * every partition is spilled to a run file on disk. Each partition is then aggregated on its
+     * own, after being split again if it alone exceeds the budget. Profiles are handed to the
+     * sink as their partition completes, so they need not be kept either.
+     * The profiles are exactly those of extractProfilesFromLogs().
+     *
+     * @return the number of profiles handed to the sink
+     */
+    public int extractProfilesOutOfCore(long heapBudgetBytes, Consumer<UserProfile> sink) {
+        log.info("Extracting user profiles from logs (out-of-core, {} KB budget)...", heapBudgetBytes / 1024);
+
+        long processed = 0;
+        SampledOutOperations sampledOut = loadSampledOut(LogFilter.ALL);
+        Set<String> sampledOutUsers = new HashSet<>(sampledOut.users());
+        Consumer<UserProfile> profiles = profile -> {
+            sampledOutUsers.remove(profile.getUserEmail());
+            sink.accept(profile);
+        };
+        try (Stream<LogEntry> logs = logParser.streamDefaultLogs();
+             PartitionSpill spill = new PartitionSpill(spillPartitions, 0, heapBudgetBytes, spillDirectory)) {
+            for (Iterator<LogEntry> entries = logs.iterator(); entries.hasNext(); ) {
+                LogEntry entry = entries.next();
+                processed++;
+                if (entry.getUserEmail() != null) {
+                    spill.add(entry);
+                }
+            }
+            log.info("Partitioned {} log entries, {} spilled to disk in {} runs",
+                    processed, spill.getSpilledEntries(), spill.getSpills());
+
+            int users = aggregateSpill(spill, heapBudgetBytes, sampledOut, profiles);
+
+            // Users whose operations were all sampled out are in no partition
+            for (String userEmail : sampledOutUsers) {
+                sink.accept(new UserLogAccumulator(userEmail).toProfile(sampledOut));
+                users++;
+            }
+            log.info("Processed {} log entries for {} users", processed, users);
+            return users;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Out-of-core profile extraction failed", e);
+        }
+    }
+
+    /**
+     * Extract all user profiles out-of-core and export each one as soon as it is built
+     *
+     * @return the number of profiles exported
+     */
+    public int exportProfilesOutOfCore(long heapBudgetBytes) {
+        int exported = extractProfilesOutOfCore(heapBudgetBytes,
+                profile -> exportProfile(profile.getUserEmail(), profile));
+
+        log.info("Profile extraction complete. {} profiles exported to {}", exported, EXTRACTED_PROFILES_DIR);
+        return exported;
+    }
+
+    /**
+     * Number of hash partitions of the out-of-core extraction (64 by default)
+     */
+    public void setSpillPartitions(int partitions) {
+        if (partitions < 2) {
+            throw new IllegalArgumentException("At least 2 spill partitions are needed: " + partitions);
+        }
+        this.spillPartitions = partitions;
+    }
+
+    /**
+     * Directory under which the out-of-core extraction creates its temporary run files
+     * (java.io.tmpdir by default)
+     */
+    public void setSpillDirectory(Path directory) {
+        this.spillDirectory = Objects.requireNonNull(directory);
+    }
+
+    /**
+     * Directory of the shard files of extractProfileShard() and mergeProfileShards()
+     * (profile-shards by default)
+     */
+    void setShardDirectory(Path directory) {
+        this.shardDirectory = Objects.requireNonNull(directory);
+    }
+
+    private int aggregateSpill(PartitionSpill spill, long heapBudgetBytes, SampledOutOperations sampledOut,
+                               Consumer<UserProfile> sink) throws IOException {
+        int users = 0;
+        for (int partition = 0; partition < spill.getPartitions(); partition++) {
+            try (Stream<LogEntry> entries = spill.partition(partition)) {
+                if (spill.getPartitionBytes(partition) > heapBudgetBytes && spill.getLevel() < MAX_SPILL_LEVEL) {
+                    // Too large to aggregate within the budget: split it with an independent hash
+                    try (PartitionSpill split = new PartitionSpill(spillPartitions, spill.getLevel() + 1,
+                            heapBudgetBytes, spillDirectory)) {
+                        for (Iterator<LogEntry> it = entries.iterator(); it.hasNext(); ) {
+                            split.add(it.next());
+                        }
+                        users += aggregateSpill(split, heapBudgetBytes, sampledOut, sink);
                     }
-                });
+                } else {
+                    users += aggregatePartition(entries, sampledOut, sink);
+                }
+            }
+        }
+        return users;
+    }
+
+    private static int aggregatePartition(Stream<LogEntry> entries, SampledOutOperations sampledOut,
+                                          Consumer<UserProfile> sink) {
+        Map<String, UserLogAccumulator> accumulators = new HashMap<>();
+        entries.forEachOrdered(entry ->
+                accumulators.computeIfAbsent(entry.getUserEmail(), UserLogAccumulator::new).add(entry));
+
+        for (UserLogAccumulator accumulator : accumulators.values()) {
+            UserProfile profile = accumulator.toProfile(sampledOut);
+            sink.accept(profile);
 
-        return profile;
+            log.info("Built {} profile for user: {}", profile.getProfileType(), accumulator.getUserEmail());
+        }
+        return accumulators.size();
+    }
+
+    /**
+     * Extract user profiles from a columnar store.
+     * Rows are grouped by the user email column and folded without materializing LogEntry objects.
+     */
+    public Map<String, UserProfile> extractProfilesFromStore(ColumnarLogStore store) {
+        return extractProfilesFromStore(store, SampledOutOperations.NONE);
     }
 
     /**
-     * Convert LogEntry to OperationLog
+     * Extract user profiles from a columnar store loaded from the default logs with the filter
+     * (LogParser.loadDefaultLogsColumnar), counting the operations StructuredLogger sampled out
      */
-    private OperationLog convertToOperationLog(LogEntry logEntry) {
-        OperationLog opLog = new OperationLog();
-        opLog.setOperationName(logEntry.getAction());
-        opLog.setTimestamp(logEntry.getTimestamp());
-        opLog.setUserName(logEntry.getUserName());
-        opLog.setUserEmail(logEntry.getUserEmail());
-        opLog.setProductId(logEntry.getResourceId());
-        opLog.setProductName(logEntry.getResourceName());
-        opLog.setProductPrice(logEntry.getResourcePrice());
-        opLog.setAdditionalInfo(logEntry.getAdditionalInfo());
-
-        // Convert operation type
-        if ("READ".equals(logEntry.getOperationType())) {
-            opLog.setOperationType(UserOperationType.READ);
-        } else if ("WRITE".equals(logEntry.getOperationType())) {
-            opLog.setOperationType(UserOperationType.WRITE);
-        } else if ("SEARCH_EXPENSIVE".equals(logEntry.getOperationType())) {
-            opLog.setOperationType(UserOperationType.SEARCH_EXPENSIVE);
+    public Map<String, UserProfile> extractProfilesFromStore(ColumnarLogStore store, LogFilter filter) {
+        return extractProfilesFromStore(store, loadSampledOut(filter));
+    }
+
+    private Map<String, UserProfile> extractProfilesFromStore(ColumnarLogStore store, SampledOutOperations sampledOut) {
+        int[][] rowsByUser = store.groupBy(Column.USER_EMAIL);
+        Map<String, UserProfile> profiles = new HashMap<>();
+
+        for (int code = ColumnarLogStore.NULL_CODE + 1; code < rowsByUser.length; code++) {
+            String userEmail = store.decode(Column.USER_EMAIL, code);
+            UserLogAccumulator accumulator = new UserLogAccumulator(userEmail);
+            for (int row : rowsByUser[code]) {
+                accumulator.add(store, row);
+            }
+
+            UserProfile profile = accumulator.toProfile(sampledOut);
+            profiles.put(userEmail, profile);
+
+            log.info("Built {} profile for user: {}", profile.getProfileType(), userEmail);
         }
+        addSampledOutUsers(profiles, sampledOut);
 
-        return opLog;
+        log.info("Processed {} log entries for {} users", store.size(), profiles.size());
+        return profiles;
+    }
+
+    /**
+     * Build a user profile from their log entries, in a single pass over them
+     */
+    private UserProfile buildProfileFromLogs(String userEmail, List<LogEntry> logs, SampledOutOperations sampledOut) {
+        UserLogAccumulator accumulator = new UserLogAccumulator(userEmail);
+        for (LogEntry entry : logs) {
+            accumulator.add(entry);
+        }
+        return accumulator.toProfile(sampledOut);
     }
 
     /**
@@ -282,26 +702,27 @@ public class ProfileExtractor {
         log.info("Exporting {} extracted profiles...", profiles.size());
 
         for (Map.Entry<String, UserProfile> entry : profiles.entrySet()) {
-            String userEmail = entry.getKey();
-            UserProfile profile = entry.getValue();
-
-            String fileName = String.format("%s/%s_%s_extracted.json",
-                    EXTRACTED_PROFILES_DIR,
-                    userEmail.replaceAll("[^a-zA-Z0-9]", "_"),
-                    profile.getProfileType());
-
-            try {
-                objectMapper.writeValue(new File(fileName), profile);
-                log.info("Exported extracted profile: {}", fileName);
-            } catch (IOException e) {
-                log.error("Failed to export profile for {}", userEmail, e);
-            }
+            exportProfile(entry.getKey(), entry.getValue());
         }
 
         log.info("Profile extraction complete. {} profiles exported to {}",
                 profiles.size(), EXTRACTED_PROFILES_DIR);
     }
 
+    private void exportProfile(String userEmail, UserProfile profile) {
+        String fileName = String.format("%s/%s_%s_extracted.json",
+                EXTRACTED_PROFILES_DIR,
+                userEmail.replaceAll("[^a-zA-Z0-9]", "_"),
+                profile.getProfileType());
+
+        try {
+            objectMapper.writeValue(new File(fileName), profile);
+            log.info("Exported extracted profile: {}", fileName);
+        } catch (IOException e) {
+            log.error("Failed to export profile for {}", userEmail, e);
+        }
+    }
+
     /**
      * Generate extraction report
      */
@@ -0,0 +1,100 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One of count shards of the users, written "index/count" with 1 <= index <= count
+ *
+ * Shard index holds the users whose email hash falls in the index-th of count equal
+ * ranges of the 32-bit hash space. The hash only depends on the email, so separate
+ * processes agree on which shard owns a user without coordinating.
+ */
+public final class ProfileShard {
+
+    private static final Pattern SPEC = Pattern.compile("(\\d+)/(\\d+)");
+    private static final Pattern FILE_NAME = Pattern.compile("shard-(\\d+)-of-(\\d+)\\.json");
+
+    private final int index;
+    private final int count;
+
+    private ProfileShard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    public static ProfileShard of(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+        }
+        return new ProfileShard(index, count);
+    }
+
+    /**
+     * Shard from its "index/count" form, e.g. "3/8"
+     */
+    public static ProfileShard parse(String spec) {
+        Matcher matcher = SPEC.matcher(spec.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid shard, expected index/count: " + spec);
+        }
+        return of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    /**
+     * Shard whose partial accumulators are stored in a file of that name, or null
+     */
+    static ProfileShard fromFileName(String fileName) {
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean contains(String userEmail) {
+        long hash = Integer.toUnsignedLong(hash(userEmail));
+        return (int) ((hash * count) >>> 32) == index - 1;
+    }
+
+    /**
+     * Name of the file of partial accumulators written for this shard
+     */
+    String fileName() {
+        return "shard-" + index + "-of-" + count + ".json";
+    }
+
+    // String.hashCode() is specified, hence stable across JVMs; mixed so every range gets its share
+    private static int hash(String userEmail) {
+        int hash = userEmail.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ProfileShard shard && shard.index == index && shard.count == count;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * index + count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
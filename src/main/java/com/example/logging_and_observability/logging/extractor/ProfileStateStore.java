@@ -0,0 +1,224 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.parser.LogCheckpoint;
+import com.example.logging_and_observability.logging.parser.LogDeduplicator;
+import com.example.logging_and_observability.profiling.model.OperationLog;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Persists the state of incremental profile extraction: the accumulator of every user
+ * and the log positions they reflect, in one JSON file replaced atomically, so a crash
+ * never leaves accumulators and checkpoints out of step.
+ *
+ * The operation histories, which grow with the logs, are not in that file: each save appends
+ * only the operations added since the previous one to a JSON Lines side file next to it
+ * (profile-state.history.jsonl for profile-state.json), and the state records the length of
+ * the side file it goes with. Saving therefore costs the new operations plus the counters,
+ * whatever the size of the history; loading still reads the whole side file back, since the
+ * profiles carry the full history.
+ */
+@Slf4j
+public class ProfileStateStore {
+
+    private final File stateFile;
+    private final File historyFile;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Accumulators by user email, the checkpoint of every log file folded into them, the
+     * cross-source deduplication window reached by the last run, and the length of the
+     * history side file when the state was saved
+     */
+    @Data
+    public static class State {
+        private LocalDateTime updatedAt;
+        private long historyBytes;
+        private Map<String, LogCheckpoint> checkpoints = new TreeMap<>();
+        private Map<String, UserLogAccumulator> accumulators = new TreeMap<>();
+        private List<LogDeduplicator.WindowEntry> deduplicationWindow = new ArrayList<>();
+    }
+
+    // One operation of a user's history in the side file
+    private record HistoryLine(String userEmail, OperationLog operation) {
+    }
+
+    // The history is in the side file; still read from states saved before it existed
+    @JsonIgnoreProperties(value = "operationHistory", allowSetters = true)
+    private abstract static class HistoryInSideFile {
+    }
+
+    // OperationLog formats its timestamp to the second for exported profiles; keep it exact here
+    private abstract static class ExactOperationTimestamp {
+        @JsonFormat
+        private LocalDateTime timestamp;
+
+        @JsonFormat
+        abstract LocalDateTime getTimestamp();
+
+        @JsonFormat
+        abstract void setTimestamp(LocalDateTime timestamp);
+    }
+
+    public ProfileStateStore(String stateFile) {
+        this.stateFile = new File(stateFile);
+        String name = this.stateFile.getName();
+        String baseName = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        this.historyFile = new File(this.stateFile.getAbsoluteFile().getParentFile(), baseName + ".history.jsonl");
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.addMixIn(OperationLog.class, ExactOperationTimestamp.class);
+        this.objectMapper.addMixIn(UserLogAccumulator.class, HistoryInSideFile.class);
+    }
+
+    /**
+     * Saved state, or an empty one if there is none or it cannot be read
+     */
+    public synchronized State load() {
+        if (!stateFile.exists()) {
+            return new State();
+        }
+        try {
+            return read();
+        } catch (IOException e) {
+            log.warn("Unreadable profile state {}, starting from scratch", stateFile, e);
+            return new State();
+        }
+    }
+
+    /**
+     * Saved state, failing if it is missing or cannot be read. Operations appended to the
+     * side file by a save that did not complete are dropped from it.
+     */
+    public synchronized State read() throws IOException {
+        State state = objectMapper.readValue(stateFile, State.class);
+        readHistory(state);
+        return state;
+    }
+
+    private void readHistory(State state) throws IOException {
+        Map<String, Integer> restored = new HashMap<>();
+        if (state.getHistoryBytes() > 0) {
+            try (FileChannel channel = FileChannel.open(historyFile.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                truncateHistory(channel, state.getHistoryBytes());
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    HistoryLine history = objectMapper.readValue(line, HistoryLine.class);
+                    UserLogAccumulator accumulator = state.getAccumulators().get(history.userEmail());
+                    if (accumulator == null) {
+                        throw new IOException("Profile history " + historyFile + " has operations of unknown user "
+                                + history.userEmail());
+                    }
+                    accumulator.restoreOperation(history.operation());
+                    restored.merge(history.userEmail(), 1, Integer::sum);
+                }
+            }
+        }
+        for (UserLogAccumulator accumulator : state.getAccumulators().values()) {
+            if (restored.getOrDefault(accumulator.getUserEmail(), 0) != accumulator.savedOperations()) {
+                throw new IOException("Profile history " + historyFile + " does not match the saved operations of "
+                        + accumulator.getUserEmail());
+            }
+        }
+    }
+
+    public synchronized void save(State state) {
+        try {
+            write(state);
+        } catch (IOException e) {
+            log.error("Failed to save profile state {}", stateFile, e);
+        }
+    }
+
+    /**
+     * Replace the saved state, failing if it cannot be written. The operations not saved yet
+     * are appended to the side file first, so it is never behind a state that was written.
+     */
+    public synchronized void write(State state) throws IOException {
+        File parent = stateFile.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        writeHistory(state);
+
+        // Write to a temporary file first so a crash never leaves a half-written state
+        Path temp = new File(parent, stateFile.getName() + ".tmp").toPath();
+        objectMapper.writeValue(temp.toFile(), state);
+        try {
+            Files.move(temp, stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeHistory(State state) throws IOException {
+        try (FileChannel channel = FileChannel.open(historyFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Anything after the saved length belongs to no state: a save that failed, or an older history
+            truncateHistory(channel, state.getHistoryBytes());
+            channel.position(state.getHistoryBytes());
+
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            for (UserLogAccumulator accumulator : state.getAccumulators().values()) {
+                for (OperationLog operation : accumulator.unsavedOperations()) {
+                    writer.write(objectMapper.writeValueAsString(new HistoryLine(accumulator.getUserEmail(), operation)));
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+            channel.force(false);
+
+            state.setHistoryBytes(channel.size());
+            state.getAccumulators().values().forEach(UserLogAccumulator::markOperationsSaved);
+        }
+    }
+
+    private void truncateHistory(FileChannel channel, long historyBytes) throws IOException {
+        if (channel.size() < historyBytes) {
+            throw new IOException("Profile history " + historyFile + " is shorter than its saved length " + historyBytes);
+        }
+        channel.truncate(historyBytes);
+    }
+
+    /**
+     * Delete the saved state, so the next incremental run starts from the beginning of the logs
+     */
+    public synchronized void clear() {
+        try {
+            Files.deleteIfExists(stateFile.toPath());
+            Files.deleteIfExists(historyFile.toPath());
+        } catch (IOException e) {
+            log.error("Failed to delete profile state {}", stateFile, e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.parser.LogFilter;
+import com.example.logging_and_observability.logging.service.LogSampler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Operations StructuredLogger counted but did not write because of its sampling policies,
+ * per user, as saved in structured-logs/sampling-stats.json
+ *
+ * They are in none of the log files, so UserLogAccumulator.toProfile() adds them to the
+ * user's operation counters before classifying. Only counts are known: no timestamp,
+ * product or history entry. The counts cover the whole history of the logs, so they only
+ * apply to extractions that read all of a user's entries (see restrictTo).
+ */
+@Slf4j
+final class SampledOutOperations {
+
+    static final SampledOutOperations NONE = new SampledOutOperations(Map.of(), Map.of());
+
+    private final Map<String, Map<String, Long>> byOperationType;      // user email -> operation type -> count
+    private final Map<String, Map<String, Long>> byAction;             // user email -> action -> count
+
+    private SampledOutOperations(Map<String, Map<String, Long>> byOperationType,
+                                 Map<String, Map<String, Long>> byAction) {
+        this.byOperationType = byOperationType;
+        this.byAction = byAction;
+    }
+
+    /**
+     * Counts saved by StructuredLogger, or none if there is no file or it cannot be read
+     */
+    static SampledOutOperations load(File statsFile, ObjectMapper objectMapper) {
+        if (!statsFile.exists()) {
+            return NONE;
+        }
+        try {
+            LogSampler.Totals totals = objectMapper.readValue(statsFile, LogSampler.Totals.class);
+            return new SampledOutOperations(
+                    totals.suppressedOperationsByUser() != null ? totals.suppressedOperationsByUser() : Map.of(),
+                    totals.suppressedByUser() != null ? totals.suppressedByUser() : Map.of());
+        } catch (IOException e) {
+            log.warn("Unreadable sampling statistics {}, suppressed operations are not counted", statsFile, e);
+            return NONE;
+        }
+    }
+
+    /**
+     * Counts of the users whose entries all pass the filter; none if it has a time range
+     * or a condition on the entries themselves
+     */
+    SampledOutOperations restrictTo(LogFilter filter) {
+        if (filter.isUnfiltered() || isEmpty()) {
+            return this;
+        }
+        String userEmail = filter.getUserEmail();
+        if (userEmail == null || !filter.acceptsEveryEntryOf(userEmail)) {
+            return NONE;
+        }
+        Map<String, Map<String, Long>> userByOperationType = new TreeMap<>();
+        Map<String, Map<String, Long>> userByAction = new TreeMap<>();
+        if (byOperationType.containsKey(userEmail)) {
+            userByOperationType.put(userEmail, byOperationType.get(userEmail));
+        }
+        if (byAction.containsKey(userEmail)) {
+            userByAction.put(userEmail, byAction.get(userEmail));
+        }
+        return new SampledOutOperations(userByOperationType, userByAction);
+    }
+
+    boolean isEmpty() {
+        return byOperationType.isEmpty() && byAction.isEmpty();
+    }
+
+    /**
+     * Users with suppressed operations
+     */
+    Set<String> users() {
+        Set<String> users = new TreeSet<>(byOperationType.keySet());
+        users.addAll(byAction.keySet());
+        return users;
+    }
+
+    /**
+     * Suppressed operations of a user with this operation type (READ, WRITE, SEARCH_EXPENSIVE)
+     */
+    long countByOperationType(String userEmail, String operationType) {
+        return count(byOperationType, userEmail, operationType);
+    }
+
+    /**
+     * Suppressed operations of a user with this action (getAllProducts, addProduct...)
+     */
+    long countByAction(String userEmail, String action) {
+        return count(byAction, userEmail, action);
+    }
+
+    private static long count(Map<String, Map<String, Long>> counts, String userEmail, String key) {
+        Map<String, Long> userCounts = counts.get(userEmail);
+        Long count = userCounts != null ? userCounts.get(key) : null;
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.store.ColumnarLogStore;
+import com.example.logging_and_observability.logging.store.ColumnarLogStore.Column;
+import com.example.logging_and_observability.profiling.model.*;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user state built incrementally from a stream of log entries.
+ * Only the counters and the operation history needed by the profiles are kept,
+ * so raw LogEntry objects can be discarded as soon as they have been added.
+ * Every statistic of the three profile types is updated by add() itself, so toProfile()
+ * never walks the history again; accumulators of consecutive parts of a user's log can
+ * be combined with merge(). The fields are serialized as they are (ProfileStateStore),
+ * so an accumulator can be saved and folded further in a later run; the operation history
+ * goes to an append-only side file instead, only the operations added since the last save.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class UserLogAccumulator {
+
+    private final String userEmail;
+    private String userName;
+
+    private long readOps;
+    private long writeOps;
+    private long expensiveOps;
+
+    private long getAllProductsCount;
+    private long getProductByIdCount;
+    private long addProductCount;
+    private long updateProductCount;
+    private long deleteProductCount;
+
+    private LocalDateTime firstTimestamp;
+    private LocalDateTime lastTimestamp;
+
+    private final List<OperationLog> operationHistory = new ArrayList<>();
+    private int savedOperations;        // first operations of the history already in ProfileStateStore's side file
+
+    // getProductById views per product, and the last name seen for it (READ_HEAVY)
+    private final Map<String, Integer> productViews = new LinkedHashMap<>();
+    private final Map<String, String> productViewNames = new HashMap<>();
+
+    // WRITE operations on a product, per action then product (WRITE_HEAVY)
+    private final Map<String, Map<String, Integer>> productWrites = new LinkedHashMap<>();
+
+    // Priced product views, in order of first appearance (EXPENSIVE_SEEKER)
+    private final List<PricedView> pricedViews = new ArrayList<>();
+    @JsonIgnore
+    private final Map<List<Object>, PricedView> pricedViewIndex = new HashMap<>();     // rebuilt after loading
+
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+    private static final class PricedView {
+        private String productId;
+        private String productName;
+        private Double price;
+        private int views;
+
+        private PricedView() {
+        }
+
+        private PricedView(String productId, String productName, Double price) {
+            this.productId = productId;
+            this.productName = productName;
+            this.price = price;
+        }
+
+        private List<Object> key() {
+            return Arrays.asList(productId, productName, price);
+        }
+    }
+
+    @JsonCreator
+    public UserLogAccumulator(@JsonProperty("userEmail") String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    /**
+     * Fold one log entry of this user into the accumulator
+     */
+    public void add(LogEntry entry) {
+        add(entry.getUserName(), entry.getOperationType(), entry.getAction(), entry.getTimestamp(),
+                toOperationLog(entry));
+    }
+
+    /**
+     * Fold one row of a columnar store into the accumulator, without materializing a LogEntry
+     */
+    public void add(ColumnarLogStore store, int row) {
+        add(store.value(Column.USER_NAME, row), store.value(Column.OPERATION_TYPE, row),
+                store.value(Column.ACTION, row), store.timestamp(row), toOperationLog(store, row));
+    }
+
+    private void add(String entryUserName, String operationType, String action,
+                     LocalDateTime timestamp, OperationLog operation) {
+        if (userName == null) {
+            userName = entryUserName;
+        }
+
+        if ("READ".equals(operationType)) {
+            readOps++;
+        } else if ("WRITE".equals(operationType)) {
+            writeOps++;
+        } else if ("SEARCH_EXPENSIVE".equals(operationType)) {
+            expensiveOps++;
+        }
+
+        if (action != null) {
+            switch (action) {
+                case "getAllProducts" -> getAllProductsCount++;
+                case "getProductById" -> getProductByIdCount++;
+                case "addProduct" -> addProductCount++;
+                case "updateProduct" -> updateProductCount++;
+                case "deleteProduct" -> deleteProductCount++;
+                default -> { }
+            }
+        }
+
+        if (firstTimestamp == null || timestamp.isBefore(firstTimestamp)) {
+            firstTimestamp = timestamp;
+        }
+        if (lastTimestamp == null || timestamp.isAfter(lastTimestamp)) {
+            lastTimestamp = timestamp;
+        }
+
+        operationHistory.add(operation);
+
+        String productId = operation.getProductId();
+        String productName = operation.getProductName();
+        if (productId == null) {
+            return;
+        }
+        if ("getProductById".equals(action) && productName != null) {
+            productViews.merge(productId, 1, Integer::sum);
+            productViewNames.put(productId, productName);
+        }
+        if (operation.getOperationType() == UserOperationType.WRITE && action != null) {
+            productWrites.computeIfAbsent(action, a -> new LinkedHashMap<>()).merge(productId, 1, Integer::sum);
+        }
+        if (operation.getProductPrice() != null && productName != null) {
+            addPricedViews(productId, productName, operation.getProductPrice(), 1);
+        }
+    }
+
+    private void addPricedViews(String productId, String productName, Double price, int views) {
+        if (pricedViewIndex.size() != pricedViews.size()) {
+            pricedViewIndex.clear();
+            for (PricedView view : pricedViews) {
+                pricedViewIndex.put(view.key(), view);
+            }
+        }
+        PricedView view = new PricedView(productId, productName, price);
+        PricedView existing = pricedViewIndex.putIfAbsent(view.key(), view);
+        if (existing != null) {
+            view = existing;
+        } else {
+            pricedViews.add(view);
+        }
+        view.views += views;
+    }
+
+    /**
+     * Fold in the accumulator of the same user's entries that come after this one's
+     */
+    public void merge(UserLogAccumulator later) {
+        if (!userEmail.equals(later.userEmail)) {
+            throw new IllegalArgumentException("Cannot merge " + later.userEmail + " into " + userEmail);
+        }
+        if (userName == null) {
+            userName = later.userName;
+        }
+
+        readOps += later.readOps;
+        writeOps += later.writeOps;
+        expensiveOps += later.expensiveOps;
+
+        getAllProductsCount += later.getAllProductsCount;
+        getProductByIdCount += later.getProductByIdCount;
+        addProductCount += later.addProductCount;
+        updateProductCount += later.updateProductCount;
+        deleteProductCount += later.deleteProductCount;
+
+        if (later.firstTimestamp != null && (firstTimestamp == null || later.firstTimestamp.isBefore(firstTimestamp))) {
+            firstTimestamp = later.firstTimestamp;
+        }
+        if (later.lastTimestamp != null && (lastTimestamp == null || later.lastTimestamp.isAfter(lastTimestamp))) {
+            lastTimestamp = later.lastTimestamp;
+        }
+
+        operationHistory.addAll(later.operationHistory);
+
+        later.productViews.forEach((productId, views) -> productViews.merge(productId, views, Integer::sum));
+        productViewNames.putAll(later.productViewNames);
+        later.productWrites.forEach((action, writes) -> {
+            Map<String, Integer> merged = productWrites.computeIfAbsent(action, a -> new LinkedHashMap<>());
+            writes.forEach((productId, count) -> merged.merge(productId, count, Integer::sum));
+        });
+        for (PricedView view : later.pricedViews) {
+            addPricedViews(view.productId, view.productName, view.price, view.views);
+        }
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    /**
+     * Operations of the history not in ProfileStateStore's side file yet, oldest first
+     */
+    List<OperationLog> unsavedOperations() {
+        return operationHistory.subList(savedOperations, operationHistory.size());
+    }
+
+    void markOperationsSaved() {
+        savedOperations = operationHistory.size();
+    }
+
+    int savedOperations() {
+        return savedOperations;
+    }
+
+    /**
+     * Append an operation read back from ProfileStateStore's side file
+     */
+    void restoreOperation(OperationLog operation) {
+        operationHistory.add(operation);
+    }
+
+    /**
+     * Classify the user and build the matching profile
+     */
+    public UserProfile toProfile() {
+        return toProfile(SampledOutOperations.NONE);
+    }
+
+    /**
+     * Classify the user and build the matching profile, counting the user's operations that
+     * StructuredLogger sampled out as well. The accumulator itself is left unchanged.
+     */
+    UserProfile toProfile(SampledOutOperations sampledOut) {
+        String name = userName != null ? userName : "Unknown";
+        long readOps = this.readOps + sampledOut.countByOperationType(userEmail, "READ");
+        long writeOps = this.writeOps + sampledOut.countByOperationType(userEmail, "WRITE");
+        long expensiveOps = this.expensiveOps + sampledOut.countByOperationType(userEmail, "SEARCH_EXPENSIVE");
+        long totalOps = readOps + writeOps + expensiveOps;
+
+        double expensivePercentage = totalOps > 0 ? (expensiveOps * 100.0 / totalOps) : 0;
+        double writePercentage = totalOps > 0 ? (writeOps * 100.0 / totalOps) : 0;
+
+        UserProfile profile;
+
+        if (expensivePercentage >= 50.0) {
+            profile = buildExpensiveSeekerProfile();
+        } else if (writePercentage >= 60.0) {
+            profile = buildWriteHeavyProfile(readOps, writeOps, sampledOut);
+        } else {
+            profile = buildReadHeavyProfile(readOps, writeOps, sampledOut);
+        }
+
+        profile.setUserName(name);
+        profile.setUserEmail(userEmail);
+        profile.setUserAge(0); // Age not available from logs
+
+        profile.setTotalOperations((int) totalOps);
+        profile.setProfileCreatedAt(firstTimestamp != null ? firstTimestamp : LocalDateTime.now());
+        profile.setLastActivityAt(lastTimestamp != null ? lastTimestamp : LocalDateTime.now());
+        profile.setOperationHistory(new ArrayList<>(operationHistory));
+
+        return profile;
+    }
+
+    private ReadHeavyProfile buildReadHeavyProfile(long readOps, long writeOps, SampledOutOperations sampledOut) {
+        ReadHeavyProfile profile = new ReadHeavyProfile();
+        profile.setTotalReadOperations((int) readOps);
+        profile.setTotalWriteOperations((int) writeOps);
+        profile.setGetAllProductsCount((int) (getAllProductsCount + sampledOut.countByAction(userEmail, "getAllProducts")));
+        profile.setGetProductByIdCount((int) (getProductByIdCount + sampledOut.countByAction(userEmail, "getProductById")));
+
+        // Track product views
+        productViews.forEach((productId, views) ->
+                profile.trackProductViews(productId, productViewNames.get(productId), views));
+
+        return profile;
+    }
+
+    private WriteHeavyProfile buildWriteHeavyProfile(long readOps, long writeOps, SampledOutOperations sampledOut) {
+        WriteHeavyProfile profile = new WriteHeavyProfile();
+        profile.setTotalReadOperations((int) readOps);
+        profile.setTotalWriteOperations((int) writeOps);
+        profile.setAddProductCount((int) (addProductCount + sampledOut.countByAction(userEmail, "addProduct")));
+        profile.setUpdateProductCount((int) (updateProductCount + sampledOut.countByAction(userEmail, "updateProduct")));
+        profile.setDeleteProductCount((int) (deleteProductCount + sampledOut.countByAction(userEmail, "deleteProduct")));
+
+        // Track products modified
+        productWrites.forEach((action, writes) -> writes.forEach((productId, count) ->
+                profile.incrementWriteOperations(action, productId, count)));
+
+        return profile;
+    }
+
+    private ExpensiveProductSeekerProfile buildExpensiveSeekerProfile() {
+        ExpensiveProductSeekerProfile profile = new ExpensiveProductSeekerProfile();
+
+        // Track expensive product views
+        for (PricedView view : pricedViews) {
+            profile.trackProductViews(view.productId, view.productName, view.price, view.views);
+        }
+
+        return profile;
+    }
+
+    /**
+     * Convert LogEntry to OperationLog
+     */
+    static OperationLog toOperationLog(LogEntry logEntry) {
+        OperationLog opLog = new OperationLog();
+        opLog.setOperationName(logEntry.getAction());
+        opLog.setTimestamp(logEntry.getTimestamp());
+        opLog.setUserName(logEntry.getUserName());
+        opLog.setUserEmail(logEntry.getUserEmail());
+        opLog.setProductId(logEntry.getResourceId());
+        opLog.setProductName(logEntry.getResourceName());
+        opLog.setProductPrice(logEntry.getResourcePrice());
+        opLog.setAdditionalInfo(logEntry.getAdditionalInfo());
+
+        opLog.setOperationType(toOperationType(logEntry.getOperationType()));
+
+        return opLog;
+    }
+
+    /**
+     * Convert a columnar store row to OperationLog
+     */
+    static OperationLog toOperationLog(ColumnarLogStore store, int row) {
+        OperationLog opLog = new OperationLog();
+        opLog.setOperationName(store.value(Column.ACTION, row));
+        opLog.setTimestamp(store.timestamp(row));
+        opLog.setUserName(store.value(Column.USER_NAME, row));
+        opLog.setUserEmail(store.value(Column.USER_EMAIL, row));
+        opLog.setProductId(store.value(Column.RESOURCE_ID, row));
+        opLog.setProductName(store.value(Column.RESOURCE_NAME, row));
+        opLog.setProductPrice(store.price(row));
+        opLog.setAdditionalInfo(store.additionalInfo(row));
+        opLog.setOperationType(toOperationType(store.value(Column.OPERATION_TYPE, row)));
+
+        return opLog;
+    }
+
+    private static UserOperationType toOperationType(String operationType) {
+        if ("READ".equals(operationType)) {
+            return UserOperationType.READ;
+        } else if ("WRITE".equals(operationType)) {
+            return UserOperationType.WRITE;
+        } else if ("SEARCH_EXPENSIVE".equals(operationType)) {
+            return UserOperationType.SEARCH_EXPENSIVE;
+        }
+        return null;
+    }
+}
@@ -43,7 +43,6 @@ public class LogEntry {
 
         public Builder() {
             this.logEntry = new LogEntry();
-            this.logEntry.timestamp = LocalDateTime.now();
         }
 
         public Builder timestamp(LocalDateTime timestamp) {
@@ -187,4 +186,28 @@ public class LogEntry {
 
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Rough heap size of this entry: object, timestamp, boxed numbers and non-shared strings
+     * (level, event, action and the like come from small, shared vocabularies)
+     */
+    public int estimateHeapBytes() {
+        int bytes = 88;                                   // LogEntry header and 17 references
+        if (timestamp != null) {
+            bytes += 72;                                  // LocalDateTime, LocalDate, LocalTime
+        }
+        if (resourcePrice != null) {
+            bytes += 16;
+        }
+        if (duration != null) {
+            bytes += 16;
+        }
+        bytes += stringBytes(userName) + stringBytes(userEmail) + stringBytes(resourceId)
+                + stringBytes(resourceName) + stringBytes(errorMessage) + stringBytes(additionalInfo);
+        return bytes;
+    }
+
+    private static int stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.logging_and_observability.logging.parser;
+
+/**
+ * Reusable CharSequence over a range of a char array.
+ * Lets a decoded chunk be scanned line by line without copying each line into a String.
+ */
+final class CharArrayView implements CharSequence {
+
+    private char[] data;
+    private int offset;
+    private int length;
+
+    CharArrayView reset(char[] data, int start, int end) {
+        this.data = data;
+        this.offset = start;
+        this.length = end - start;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return data[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    String substring(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + ") of " + length);
+        }
+        return new String(data, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, offset, length);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.logging_and_observability.logging.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over up to 64 keywords
+ *
+ * match() reads the text once and returns a bitmask with bit i set when keyword i occurs,
+ * whatever the number of keywords. Failure links are folded into a dense transition table
+ * at build time, so each character costs one class lookup and one array read.
+ * Immutable and safe to share between threads.
+ */
+final class KeywordAutomaton {
+
+    static final int MAX_KEYWORDS = Long.SIZE;
+
+    private static final int ASCII = 128;
+
+    private final List<String> keywords;
+    private final int[] asciiClasses;              // char -> class for ASCII
+    private final Map<Character, Integer> otherClasses;
+    private final int classCount;                  // class 0 = character in no keyword
+    private final int[] transitions;               // state * classCount + class -> state
+    private final long[] outputs;                  // keywords ending in each state
+    private final long allKeywords;
+
+    KeywordAutomaton(List<String> keywords) {
+        if (keywords.size() > MAX_KEYWORDS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYWORDS + " keywords, got " + keywords.size());
+        }
+        this.keywords = List.copyOf(keywords);
+        this.asciiClasses = new int[ASCII];
+        this.otherClasses = new HashMap<>();
+
+        int classes = 1;
+        for (String keyword : this.keywords) {
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Empty keyword");
+            }
+            for (char c : keyword.toCharArray()) {
+                if (charClass(c) == 0) {
+                    if (c < ASCII) {
+                        asciiClasses[c] = classes++;
+                    } else {
+                        otherClasses.put(c, classes++);
+                    }
+                }
+            }
+        }
+        this.classCount = classes;
+
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<Long> outs = new ArrayList<>();
+        gotos.add(newRow());
+        outs.add(0L);
+        for (int k = 0; k < this.keywords.size(); k++) {
+            int state = 0;
+            for (char c : this.keywords.get(k).toCharArray()) {
+                int cls = charClass(c);
+                if (gotos.get(state)[cls] < 0) {
+                    gotos.get(state)[cls] = gotos.size();
+                    gotos.add(newRow());
+                    outs.add(0L);
+                }
+                state = gotos.get(state)[cls];
+            }
+            outs.set(state, outs.get(state) | (1L << k));
+        }
+
+        // Breadth-first: resolve failure links into direct transitions and merge outputs
+        int states = gotos.size();
+        this.transitions = new int[states * classCount];
+        this.outputs = new long[states];
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        for (int cls = 0; cls < classCount; cls++) {
+            int next = gotos.get(0)[cls];
+            transitions[cls] = next < 0 ? 0 : next;
+            if (next > 0) {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        outputs[0] = outs.get(0);
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = outs.get(state) | outputs[failure[state]];
+            for (int cls = 0; cls < classCount; cls++) {
+                int next = gotos.get(state)[cls];
+                int fallback = transitions[failure[state] * classCount + cls];
+                if (next < 0) {
+                    transitions[state * classCount + cls] = fallback;
+                } else {
+                    transitions[state * classCount + cls] = next;
+                    failure[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.allKeywords = this.keywords.size() == MAX_KEYWORDS ? -1L : (1L << this.keywords.size()) - 1;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[classCount];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private int charClass(char c) {
+        if (c < ASCII) {
+            return asciiClasses[c];
+        }
+        Integer cls = otherClasses.get(c);
+        return cls == null ? 0 : cls;
+    }
+
+    /**
+     * Bitmask of the keywords found in the text
+     */
+    long match(CharSequence text) {
+        long found = 0;
+        int state = 0;
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int cls = c < ASCII ? asciiClasses[c] : charClass(c);
+            state = transitions[state * classCount + cls];
+            found |= outputs[state];
+            if (found == allKeywords) {
+                break;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Bit of a keyword, or 0 if it is not part of the automaton
+     */
+    long bit(String keyword) {
+        int index = keywords.indexOf(keyword);
+        return index < 0 ? 0 : 1L << index;
+    }
+
+    List<String> keywords() {
+        return keywords;
+    }
+}
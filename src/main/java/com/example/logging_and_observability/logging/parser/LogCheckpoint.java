@@ -0,0 +1,22 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position reached in a log file by the last incremental parse
+ */
+@Data
+public class LogCheckpoint {
+
+    private String filePath;        // Path of the active log file
+    private String fileKey;         // Inode (dev/ino) of the file that was read, null if unsupported
+    private long headHash;          // Hash of the first headLength bytes, identifies the file after a rename
+    private int headLength;
+    private long offset;            // Byte offset just after the last complete line read
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
+    private LocalDateTime lastTimestamp;
+}
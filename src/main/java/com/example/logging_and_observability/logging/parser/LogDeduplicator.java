@@ -0,0 +1,349 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Drops operations logged by more than one source
+ *
+ * The same operation can reach both the application log (ProductService logger) and the
+ * structured log (StructuredLogger). Entries are fingerprinted on user email, action and
+ * resource id, and an entry is a duplicate when an unmatched entry with the same fingerprint
+ * from another source is within the time tolerance. Repeats inside one source are real
+ * operations and are kept; each entry cancels at most one entry of another source.
+ *
+ * Memory is bounded: an exact window holds at most maxExactEntries recent fingerprints.
+ * Under bursts the oldest ones overflow into a rolling counting Bloom filter (two generations
+ * of one tolerance each, one byte counter per slot). A match takes one count back out of the
+ * filter, so an overflowed entry still cancels at most one duplicate; a false positive, at a
+ * small rate, can cancel an unrelated entry.
+ * Entries must be offered in timestamp order, which mergeDistinct() guarantees; entries
+ * without an email, action or timestamp are always kept.
+ * The unmatched entries of the exact window can be saved with getWindow() and restored
+ * with restoreWindow(), so a later run over newly appended entries still matches them;
+ * the Bloom generations are not carried over.
+ * Not thread-safe.
+ */
+public final class LogDeduplicator implements LogMerger.SourceFilter {
+
+    private static final Duration DEFAULT_TOLERANCE = Duration.ofSeconds(2);
+    private static final int DEFAULT_MAX_EXACT_ENTRIES = 100_000;
+    private static final int DEFAULT_BLOOM_COUNTERS = 1 << 20;  // 1 MB per generation
+    private static final int COUNTER_SATURATED = 0xFF;          // sticky: never decremented again
+    private static final int BLOOM_HASHES = 4;
+
+    private final long toleranceMillis;
+    private final int maxExactEntries;
+
+    private final ArrayDeque<Pending> window = new ArrayDeque<>();
+    private final Map<Long, ArrayDeque<Pending>> pendingByFingerprint = new HashMap<>();
+    private long latestMillis = Long.MIN_VALUE;
+    private int sourceCount;
+
+    private byte[] currentBloom;
+    private byte[] previousBloom;
+    private boolean currentDirty;
+    private boolean previousDirty;
+    private long currentGeneration = Long.MIN_VALUE;
+
+    private long entries;
+    private long exactDuplicates;
+    private long probableDuplicates;
+
+    public LogDeduplicator() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_EXACT_ENTRIES, DEFAULT_BLOOM_COUNTERS);
+    }
+
+    /**
+     * @param bloomCounters counters (bytes) of each of the two Bloom generations
+     */
+    public LogDeduplicator(Duration tolerance, int maxExactEntries, int bloomCounters) {
+        if (tolerance.isNegative() || maxExactEntries < 1 || bloomCounters < BLOOM_HASHES) {
+            throw new IllegalArgumentException("Invalid deduplication settings");
+        }
+        this.toleranceMillis = tolerance.toMillis();
+        this.maxExactEntries = maxExactEntries;
+        this.currentBloom = new byte[bloomCounters];
+        this.previousBloom = new byte[bloomCounters];
+    }
+
+    /**
+     * Recent entry of one source, waiting for a counterpart from another source
+     */
+    private static final class Pending {
+        private final long fingerprint;
+        private final int source;
+        private final long millis;
+        private boolean matched;
+
+        private Pending(long fingerprint, int source, long millis) {
+            this.fingerprint = fingerprint;
+            this.source = source;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * Unmatched entry of the exact window, as saved between runs
+     */
+    public record WindowEntry(long fingerprint, int source, long millis) {}
+
+    /**
+     * Unmatched entries of the exact window, oldest first
+     */
+    public List<WindowEntry> getWindow() {
+        List<WindowEntry> unmatched = new ArrayList<>();
+        for (Pending pending : window) {
+            if (!pending.matched) {
+                unmatched.add(new WindowEntry(pending.fingerprint, pending.source, pending.millis));
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Resume from the window saved by a previous run, before any entry is offered
+     */
+    public void restoreWindow(List<WindowEntry> saved) {
+        if (entries > 0 || !window.isEmpty()) {
+            throw new IllegalStateException("Window can only be restored into an unused deduplicator");
+        }
+        for (WindowEntry entry : saved) {
+            Pending pending = new Pending(entry.fingerprint(), entry.source(), entry.millis());
+            window.addLast(pending);
+            pendingByFingerprint.computeIfAbsent(entry.fingerprint(), key -> new ArrayDeque<>(2)).addLast(pending);
+            sourceCount = Math.max(sourceCount, entry.source() + 1);
+            latestMillis = Math.max(latestMillis, entry.millis());
+        }
+    }
+
+    /**
+     * Merge timestamp-ordered sources, dropping cross-source duplicates
+     */
+    public List<LogEntry> mergeDistinct(List<List<LogEntry>> sources) {
+        int total = sources.stream().mapToInt(List::size).sum();
+        List<LogEntry> merged = new ArrayList<>(total);
+        List<Iterator<LogEntry>> iterators = new ArrayList<>();
+        for (List<LogEntry> source : sources) {
+            iterators.add(source.iterator());
+        }
+
+        LogMerger.mergeIterators(iterators, this).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    /**
+     * Lazily merge timestamp-ordered streams, dropping cross-source duplicates.
+     * Closing the result closes every source stream.
+     */
+    public Stream<LogEntry> mergeDistinctStreams(List<Stream<LogEntry>> sources) {
+        List<Iterator<LogEntry>> iterators = new ArrayList<>();
+        for (Stream<LogEntry> source : sources) {
+            iterators.add(source.iterator());
+        }
+
+        Stream<LogEntry> merged = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(LogMerger.mergeIterators(iterators, this), Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+
+        for (Stream<LogEntry> source : sources) {
+            merged = merged.onClose(source::close);
+        }
+        return merged;
+    }
+
+    /**
+     * True to keep the entry, false if another source already logged the same operation
+     */
+    @Override
+    public boolean accept(LogEntry entry, int source) {
+        entries++;
+        sourceCount = Math.max(sourceCount, source + 1);
+
+        // Without a fingerprint or a time there is nothing to match, e.g. binary entries without a timestamp
+        if (entry.getUserEmail() == null || entry.getAction() == null || entry.getTimestamp() == null) {
+            return true;
+        }
+
+        long millis = entry.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long fingerprint = fingerprint(entry);
+        advanceTo(millis);
+
+        ArrayDeque<Pending> candidates = pendingByFingerprint.get(fingerprint);
+        if (candidates != null) {
+            for (Pending candidate : candidates) {
+                if (!candidate.matched && candidate.source != source
+                        && Math.abs(millis - candidate.millis) <= toleranceMillis) {
+                    candidate.matched = true;
+                    exactDuplicates++;
+                    return false;
+                }
+            }
+        }
+
+        for (int other = 0; other < sourceCount; other++) {
+            if (other != source && bloomTake(fingerprint, other)) {
+                probableDuplicates++;
+                return false;
+            }
+        }
+
+        Pending pending = new Pending(fingerprint, source, millis);
+        window.addLast(pending);
+        pendingByFingerprint.computeIfAbsent(fingerprint, key -> new ArrayDeque<>(2)).addLast(pending);
+
+        // Bursts beyond the exact window overflow into the Bloom filter
+        while (window.size() > maxExactEntries) {
+            Pending evicted = evictOldest();
+            if (!evicted.matched) {
+                bloomAdd(evicted.fingerprint, evicted.source);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Expire entries that fell out of the tolerance and rotate Bloom generations
+     */
+    private void advanceTo(long millis) {
+        if (millis <= latestMillis) {
+            return;
+        }
+        latestMillis = millis;
+
+        while (!window.isEmpty() && window.peekFirst().millis < millis - toleranceMillis) {
+            evictOldest();
+        }
+
+        long generation = Math.floorDiv(millis, Math.max(1, toleranceMillis));
+        if (generation == currentGeneration + 1) {
+            byte[] recycled = previousBloom;
+            boolean recycledDirty = previousDirty;
+            previousBloom = currentBloom;
+            previousDirty = currentDirty;
+            currentBloom = recycled;
+            currentDirty = false;
+            if (recycledDirty) {
+                Arrays.fill(currentBloom, (byte) 0);
+            }
+        } else if (generation != currentGeneration) {
+            // More than one generation passed: everything in the filter is stale
+            if (currentDirty) {
+                Arrays.fill(currentBloom, (byte) 0);
+            }
+            if (previousDirty) {
+                Arrays.fill(previousBloom, (byte) 0);
+            }
+            currentDirty = false;
+            previousDirty = false;
+        }
+        currentGeneration = generation;
+    }
+
+    private Pending evictOldest() {
+        Pending oldest = window.pollFirst();
+        ArrayDeque<Pending> sameFingerprint = pendingByFingerprint.get(oldest.fingerprint);
+        sameFingerprint.pollFirst();
+        if (sameFingerprint.isEmpty()) {
+            pendingByFingerprint.remove(oldest.fingerprint);
+        }
+        return oldest;
+    }
+
+    /**
+     * 64-bit FNV-1a over the normalized email, action and resource id
+     */
+    static long fingerprint(LogEntry entry) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, entry.getUserEmail().trim().toLowerCase(Locale.ROOT));
+        hash = mix(hash, entry.getAction().trim());
+        hash = mix(hash, entry.getResourceId() == null ? "" : entry.getResourceId().trim());
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Field separator, so ("ab", "c") and ("a", "bc") differ
+        hash ^= 0x1f;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    private void bloomAdd(long fingerprint, int source) {
+        long hash = spread(fingerprint, source);
+        int step = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int slot = Math.floorMod((int) hash + i * step, currentBloom.length);
+            if ((currentBloom[slot] & 0xFF) != COUNTER_SATURATED) {
+                currentBloom[slot]++;
+            }
+        }
+        currentDirty = true;
+    }
+
+    /**
+     * Take one count of an overflowed entry of that source, newest generation first
+     */
+    private boolean bloomTake(long fingerprint, int source) {
+        return (currentDirty && bloomTake(currentBloom, fingerprint, source))
+                || (previousDirty && bloomTake(previousBloom, fingerprint, source));
+    }
+
+    private boolean bloomTake(byte[] bloom, long fingerprint, int source) {
+        long hash = spread(fingerprint, source);
+        int step = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            if (bloom[Math.floorMod((int) hash + i * step, bloom.length)] == 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int slot = Math.floorMod((int) hash + i * step, bloom.length);
+            if (bloom[slot] != 0 && (bloom[slot] & 0xFF) != COUNTER_SATURATED) {
+                bloom[slot]--;
+            }
+        }
+        return true;
+    }
+
+    private static long spread(long fingerprint, int source) {
+        long hash = fingerprint ^ (source * 0x9E3779B97F4A7C15L);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getExactDuplicates() {
+        return exactDuplicates;
+    }
+
+    public long getProbableDuplicates() {
+        return probableDuplicates;
+    }
+
+    public long getDuplicates() {
+        return exactDuplicates + probableDuplicates;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.logging_and_observability.logging.parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Identifies a log file across renames by inode and head hash,
+ * for the checkpoints of incremental parsing (LogCheckpoint)
+ */
+final class LogFileIdentity {
+
+    // Bytes hashed at the start of a file to recognise it after a rename
+    static final int HEAD_LENGTH = 1024;
+
+    private LogFileIdentity() {
+    }
+
+    /**
+     * Inode of a file as reported by the file system, or null where unsupported
+     */
+    static String fileKey(Path path) throws IOException {
+        Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        return key != null ? key.toString() : null;
+    }
+
+    /**
+     * FNV-1a hash of the first {@code length} bytes of an open file
+     */
+    static long headHash(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        int read;
+        do {
+            read = channel.read(buffer, buffer.position());
+        } while (read > 0 && buffer.hasRemaining());
+
+        return hash(buffer.array(), buffer.position());
+    }
+
+    private static long hash(byte[] bytes, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * True if a gzipped segment holds the file described by the checkpoint
+     * (the inode changes when logback compresses a rolled file, so only the content is compared)
+     */
+    static boolean isSameContent(LogCheckpoint checkpoint, File gzipFile) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gzipFile))) {
+            byte[] head = in.readNBytes(checkpoint.getHeadLength());
+            return head.length == checkpoint.getHeadLength()
+                    && hash(head, head.length) == checkpoint.getHeadHash();
+        }
+    }
+
+    /**
+     * True if the open file is the one described by the checkpoint
+     */
+    static boolean isSameFile(LogCheckpoint checkpoint, String fileKey, FileChannel channel) throws IOException {
+        if (checkpoint.getFileKey() != null && fileKey != null && !checkpoint.getFileKey().equals(fileKey)) {
+            return false;
+        }
+        if (channel.size() < checkpoint.getHeadLength()) {
+            return false;
+        }
+        return headHash(channel, checkpoint.getHeadLength()) == checkpoint.getHeadHash();
+    }
+
+    static LogCheckpoint open(String filePath, String fileKey, FileChannel channel) throws IOException {
+        LogCheckpoint checkpoint = new LogCheckpoint();
+        checkpoint.setFilePath(filePath);
+        checkpoint.setFileKey(fileKey);
+        checkpoint.setHeadLength((int) Math.min(HEAD_LENGTH, channel.size()));
+        checkpoint.setHeadHash(headHash(channel, checkpoint.getHeadLength()));
+        return checkpoint;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter specification pushed down into LogParser
+ * Uses Builder Pattern: LogFilter.builder().userEmail("alice@email.com").operationType("WRITE").build()
+ *
+ * Every condition is optional and all of them must hold. A raw line is first checked
+ * with mightMatch(), a plain substring test that never rejects a line that could match,
+ * so most lines are dropped before they are scanned or a LogEntry is built.
+ * matches() then applies the exact conditions to the parsed entry.
+ */
+public final class LogFilter {
+
+    private static final DateTimeFormatter LOG_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final int TIMESTAMP_LENGTH = 23;
+
+    /** Filter without conditions */
+    public static final LogFilter ALL = builder().build();
+
+    private final LocalDateTime from;      // inclusive
+    private final LocalDateTime to;        // exclusive
+    private final String level;
+    private final String userEmail;
+    private final String action;
+    private final String operationType;
+    private final String logger;
+
+    // Pre-check: each group needs at least one of its literals in the line
+    private final String[][] requiredLiterals;
+    private final String fromText;
+    private final String toText;
+
+    private LogFilter(Builder builder) {
+        this.from = builder.from;
+        this.to = builder.to;
+        this.level = builder.level;
+        this.userEmail = builder.userEmail;
+        this.action = builder.action;
+        this.operationType = builder.operationType;
+        this.logger = builder.logger;
+
+        List<String[]> literals = new ArrayList<>();
+        if (level != null) {
+            literals.add(new String[]{level});
+        }
+        if (logger != null) {
+            literals.add(new String[]{logger});
+        }
+        if (userEmail != null) {
+            literals.add(new String[]{userEmail});
+        }
+        if (action != null) {
+            literals.add(actionLiterals(action));
+        }
+        if (operationType != null) {
+            literals.add(operationTypeLiterals(operationType));
+        }
+        this.requiredLiterals = literals.toArray(new String[0][]);
+        this.fromText = timestampText(from);
+        this.toText = timestampText(to);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Literals whose presence LogParser needs to set the action
+     * (the expensive-view action is derived from the message wording)
+     */
+    private static String[] actionLiterals(String action) {
+        if ("viewExpensiveProduct".equals(action)) {
+            return new String[]{"Expensive product view", "SEARCH_EXPENSIVE", action};
+        }
+        return new String[]{action};
+    }
+
+    /**
+     * Literals from which LogParser can derive an operation type,
+     * either "Action: X" or one of the action names of the fallback format
+     */
+    private static String[] operationTypeLiterals(String operationType) {
+        return switch (operationType) {
+            case "READ" -> new String[]{"READ", "getAllProducts", "getProductById"};
+            case "WRITE" -> new String[]{"WRITE", "addProduct", "updateProduct", "deleteProduct"};
+            case "SEARCH_EXPENSIVE" -> new String[]{"SEARCH_EXPENSIVE", "Expensive product view"};
+            default -> new String[]{operationType};
+        };
+    }
+
+    /**
+     * Bound formatted like the log timestamp, or null when it cannot be compared as text
+     */
+    private static String timestampText(LocalDateTime bound) {
+        if (bound == null || bound.getYear() < 1 || bound.getYear() > 9999) {
+            return null;
+        }
+        return bound.format(LOG_DATE_FORMATTER);
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+
+    public boolean isUnfiltered() {
+        return requiredLiterals.length == 0 && from == null && to == null;
+    }
+
+    /**
+     * True if every entry of the user passes: no condition besides, at most, this user email
+     */
+    public boolean acceptsEveryEntryOf(String userEmail) {
+        return from == null && to == null && level == null && logger == null && action == null
+                && operationType == null && (this.userEmail == null || this.userEmail.equals(userEmail));
+    }
+
+    /**
+     * Cheap pre-check on a raw line: false only if the line cannot produce a matching entry
+     */
+    public boolean mightMatch(CharSequence line) {
+        for (String[] group : requiredLiterals) {
+            if (!containsAny(line, group)) {
+                return false;
+            }
+        }
+        return (fromText == null && toText == null) || mightBeInRange(line);
+    }
+
+    /**
+     * Exact check on a parsed entry
+     */
+    public boolean matches(LogEntry entry) {
+        if (from != null && entry.getTimestamp().isBefore(from)) {
+            return false;
+        }
+        if (to != null && !entry.getTimestamp().isBefore(to)) {
+            return false;
+        }
+        return (level == null || level.equals(entry.getLevel()))
+                && (logger == null || logger.equals(entry.getLogger()))
+                && (userEmail == null || userEmail.equals(entry.getUserEmail()))
+                && (action == null || action.equals(entry.getAction()))
+                && (operationType == null || operationType.equals(entry.getOperationType()));
+    }
+
+    /**
+     * Compares the leading "yyyy-MM-dd HH:mm:ss.SSS" as text. Lines whose day is past 28
+     * may be adjusted when parsed, so they are left to the exact check.
+     */
+    private boolean mightBeInRange(CharSequence line) {
+        if (line.length() < TIMESTAMP_LENGTH) {
+            return false;
+        }
+        char dayTens = line.charAt(8);
+        if (dayTens > '2' || (dayTens == '2' && line.charAt(9) > '8')) {
+            return true;
+        }
+        if (fromText != null && compareTimestamp(line, fromText) < 0) {
+            return false;
+        }
+        // The bound is truncated to milliseconds, so equality is decided by the exact check
+        return toText == null || compareTimestamp(line, toText) <= 0;
+    }
+
+    private static int compareTimestamp(CharSequence line, String bound) {
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            int diff = line.charAt(i) - bound.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean containsAny(CharSequence line, String[] literals) {
+        for (String literal : literals) {
+            if (contains(line, literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean contains(CharSequence text, String literal) {
+        if (text instanceof String string) {
+            return string.contains(literal);
+        }
+
+        int last = text.length() - literal.length();
+        char first = literal.charAt(0);
+        for (int i = 0; i <= last; i++) {
+            if (text.charAt(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < literal.length() && text.charAt(i + j) == literal.charAt(j)) {
+                j++;
+            }
+            if (j == literal.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("LogFilter{");
+        if (from != null) description.append("from=").append(from).append(' ');
+        if (to != null) description.append("to=").append(to).append(' ');
+        if (level != null) description.append("level=").append(level).append(' ');
+        if (logger != null) description.append("logger=").append(logger).append(' ');
+        if (userEmail != null) description.append("userEmail=").append(userEmail).append(' ');
+        if (action != null) description.append("action=").append(action).append(' ');
+        if (operationType != null) description.append("operationType=").append(operationType).append(' ');
+        return description.toString().trim() + "}";
+    }
+
+    /**
+     * Builder Pattern for constructing LogFilter
+     */
+    public static class Builder {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private String level;
+        private String userEmail;
+        private String action;
+        private String operationType;
+        private String logger;
+
+        public Builder from(LocalDateTime from) {
+            this.from = from;
+            return this;
+        }
+
+        public Builder to(LocalDateTime to) {
+            this.to = to;
+            return this;
+        }
+
+        public Builder level(String level) {
+            this.level = emptyToNull(level);
+            return this;
+        }
+
+        public Builder userEmail(String userEmail) {
+            this.userEmail = emptyToNull(userEmail);
+            return this;
+        }
+
+        public Builder action(String action) {
+            this.action = emptyToNull(action);
+            return this;
+        }
+
+        public Builder operationType(String operationType) {
+            this.operationType = emptyToNull(operationType);
+            return this;
+        }
+
+        public Builder logger(String logger) {
+            this.logger = emptyToNull(logger);
+            return this;
+        }
+
+        private static String emptyToNull(String value) {
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        public LogFilter build() {
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new IllegalArgumentException("Empty time range: " + from + " to " + to);
+            }
+            return new LogFilter(this);
+        }
+    }
+}
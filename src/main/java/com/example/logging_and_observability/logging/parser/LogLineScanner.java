@@ -0,0 +1,266 @@
+package com.example.logging_and_observability.logging.parser;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Low-garbage scanner for the Logback line layout
+ * Format: "2025-01-15 10:30:45.123 [thread] LEVEL logger - message"
+ *
+ * Accepts exactly the lines matched by the former LOG_PATTERN regex and splits
+ * them the same way, but works on any CharSequence and only records offsets.
+ * The timestamp is parsed by hand with a per-second cache, and thread, level
+ * and logger go through bounded interners, so a matching line costs a single
+ * String (the message) once the dictionaries are warm.
+ *
+ * Not thread-safe: parsers keep one instance per thread.
+ */
+final class LogLineScanner {
+
+    private static final DateTimeFormatter LOG_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final int TIMESTAMP_LENGTH = 23;   // yyyy-MM-dd HH:mm:ss.SSS
+    private static final int SECOND_LENGTH = 19;      // yyyy-MM-dd HH:mm:ss
+
+    private static final int THREAD_SLOTS = 256;
+    private static final int LEVEL_SLOTS = 16;
+    private static final int LOGGER_SLOTS = 256;
+
+    private final StringInterner threads = new StringInterner(THREAD_SLOTS);
+    private final StringInterner levels = new StringInterner(LEVEL_SLOTS);
+    private final StringInterner loggers = new StringInterner(LOGGER_SLOTS);
+
+    // Per-second cache: last "yyyy-MM-dd HH:mm:ss" prefix and its value
+    private final char[] cachedSecond = new char[SECOND_LENGTH];
+    private LocalDateTime cachedSecondValue;
+    private LocalDateTime cachedTimestamp;
+    private int cachedMillis = -1;
+
+    private CharSequence line;
+    private int threadStart, threadEnd;
+    private int levelStart, levelEnd;
+    private int loggerStart, loggerEnd;
+    private int messageStart;
+
+    /**
+     * Scan a line; returns false when it does not follow the layout
+     */
+    boolean scan(CharSequence text) {
+        this.line = null;
+        int length = text.length();
+
+        // (\d{4}-\d{2}-\d{2} \d{2}:\d{2}:\d{2}\.\d{3})
+        if (length < TIMESTAMP_LENGTH || !isTimestamp(text)) {
+            return false;
+        }
+
+        // \s+\[([^\]]+)\]
+        int i = skipSpaces(text, TIMESTAMP_LENGTH, length);
+        if (i == TIMESTAMP_LENGTH || i >= length || text.charAt(i) != '[') {
+            return false;
+        }
+        int tStart = ++i;
+        while (i < length && text.charAt(i) != ']') {
+            i++;
+        }
+        if (i == tStart || i >= length) {
+            return false;
+        }
+        int tEnd = i++;
+
+        // \s+([A-Z]+)
+        int lStart = skipSpaces(text, i, length);
+        if (lStart == i) {
+            return false;
+        }
+        i = lStart;
+        while (i < length && text.charAt(i) >= 'A' && text.charAt(i) <= 'Z') {
+            i++;
+        }
+        if (i == lStart) {
+            return false;
+        }
+        int lEnd = i;
+
+        // \s+([^\s]+)
+        int gStart = skipSpaces(text, i, length);
+        if (gStart == i) {
+            return false;
+        }
+        i = gStart;
+        while (i < length && !isSpace(text.charAt(i))) {
+            i++;
+        }
+        if (i == gStart) {
+            return false;
+        }
+        int gEnd = i;
+
+        // \s+-\s+
+        i = skipSpaces(text, i, length);
+        if (i == gEnd || i >= length || text.charAt(i) != '-') {
+            return false;
+        }
+        int dash = ++i;
+        i = skipSpaces(text, i, length);
+        if (i == dash) {
+            return false;
+        }
+
+        // (.+) - when the spaces run to the end, the group takes the last one
+        int mStart = i;
+        if (mStart == length) {
+            if (length - dash < 2) {
+                return false;
+            }
+            mStart = length - 1;
+        }
+        for (int j = mStart; j < length; j++) {
+            if (isLineTerminator(text.charAt(j))) {
+                return false;
+            }
+        }
+
+        this.line = text;
+        this.threadStart = tStart;
+        this.threadEnd = tEnd;
+        this.levelStart = lStart;
+        this.levelEnd = lEnd;
+        this.loggerStart = gStart;
+        this.loggerEnd = gEnd;
+        this.messageStart = mStart;
+        return true;
+    }
+
+    String thread() {
+        return threads.intern(line, threadStart, threadEnd);
+    }
+
+    String level() {
+        return levels.intern(line, levelStart, levelEnd);
+    }
+
+    String logger() {
+        return loggers.intern(line, loggerStart, loggerEnd);
+    }
+
+    String message() {
+        return StringInterner.substring(line, messageStart, line.length());
+    }
+
+    /**
+     * Timestamp of the scanned line, same result as LocalDateTime.parse with "yyyy-MM-dd HH:mm:ss.SSS"
+     */
+    LocalDateTime timestamp() {
+        int millis = digits(line, 20, 3);
+
+        if (cachedSecondValue == null || !sameSecond(line)) {
+            LocalDateTime second = parseSecond(line);
+            if (second == null) {
+                // Rare fields (year 0, a day past the end of the month, out-of-range values): let the
+                // formatter resolve or reject them; what it resolves only depends on the second
+                second = LocalDateTime.parse(line.subSequence(0, TIMESTAMP_LENGTH), LOG_DATE_FORMATTER).withNano(0);
+            }
+            for (int i = 0; i < SECOND_LENGTH; i++) {
+                cachedSecond[i] = line.charAt(i);
+            }
+            cachedSecondValue = second;
+            cachedMillis = -1;
+        }
+
+        if (millis != cachedMillis) {
+            cachedTimestamp = cachedSecondValue.withNano(millis * 1_000_000);
+            cachedMillis = millis;
+        }
+        return cachedTimestamp;
+    }
+
+    /**
+     * Timestamp at the start of a text, or null if it does not start with a valid one.
+     * Used to probe single lines, e.g. while seeking in a file.
+     */
+    static LocalDateTime leadingTimestamp(CharSequence text) {
+        if (text.length() < TIMESTAMP_LENGTH || !isTimestamp(text)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text.subSequence(0, TIMESTAMP_LENGTH), LOG_DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean sameSecond(CharSequence text) {
+        for (int i = SECOND_LENGTH - 1; i >= 0; i--) {
+            if (cachedSecond[i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fields that can be built directly; null defers to the formatter
+     */
+    private static LocalDateTime parseSecond(CharSequence text) {
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+                || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second);
+    }
+
+    private static boolean isTimestamp(CharSequence text) {
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            char c = text.charAt(i);
+            boolean ok = switch (i) {
+                case 4, 7 -> c == '-';
+                case 10 -> c == ' ';
+                case 13, 16 -> c == ':';
+                case 19 -> c == '.';
+                default -> c >= '0' && c <= '9';
+            };
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int skipSpaces(CharSequence text, int from, int length) {
+        int i = from;
+        while (i < length && isSpace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Same characters as the regex class \s
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Characters the regex '.' does not match
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
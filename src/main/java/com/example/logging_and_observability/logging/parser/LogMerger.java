@@ -0,0 +1,142 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * K-way merge of timestamp-ordered LogEntry sources.
+ * Entries with the same timestamp keep the order of their sources,
+ * so merging a single source returns it unchanged.
+ */
+public final class LogMerger {
+
+    private LogMerger() {}
+
+    /**
+     * Merge already-parsed sources into one list
+     */
+    public static List<LogEntry> mergeByTimestamp(List<List<LogEntry>> sources) {
+        if (sources.size() == 1) {
+            return sources.get(0);
+        }
+
+        int total = sources.stream().mapToInt(List::size).sum();
+        List<LogEntry> merged = new ArrayList<>(total);
+        List<Iterator<LogEntry>> iterators = new ArrayList<>();
+        for (List<LogEntry> source : sources) {
+            iterators.add(source.iterator());
+        }
+
+        mergeIterators(iterators).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    /**
+     * Lazily merge streams. Only one entry per source is held at a time;
+     * closing the result closes every source stream.
+     */
+    public static Stream<LogEntry> mergeStreams(List<Stream<LogEntry>> sources) {
+        List<Iterator<LogEntry>> iterators = new ArrayList<>();
+        for (Stream<LogEntry> source : sources) {
+            iterators.add(source.iterator());
+        }
+
+        Stream<LogEntry> merged = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(mergeIterators(iterators), Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+
+        for (Stream<LogEntry> source : sources) {
+            merged = merged.onClose(source::close);
+        }
+        return merged;
+    }
+
+    public static Iterator<LogEntry> mergeIterators(List<Iterator<LogEntry>> sources) {
+        return mergeIterators(sources, (entry, source) -> true);
+    }
+
+    /**
+     * Decides per merged entry whether it is kept, knowing which source it came from
+     */
+    @FunctionalInterface
+    public interface SourceFilter {
+        boolean accept(LogEntry entry, int source);
+    }
+
+    /**
+     * Merge iterators, passing each entry in timestamp order to the filter
+     */
+    public static Iterator<LogEntry> mergeIterators(List<Iterator<LogEntry>> sources, SourceFilter filter) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>();
+        for (int i = 0; i < sources.size(); i++) {
+            Cursor cursor = new Cursor(sources.get(i), i);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        return new Iterator<>() {
+            private LogEntry next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !heads.isEmpty()) {
+                    Cursor cursor = heads.poll();
+                    LogEntry entry = cursor.current;
+                    int source = cursor.index;
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                    if (filter.accept(entry, source)) {
+                        next = entry;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public LogEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                LogEntry entry = next;
+                next = null;
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Head of one source; ordered by timestamp, then by source index
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Iterator<LogEntry> source;
+        private final int index;
+        private LogEntry current;
+
+        private Cursor(Iterator<LogEntry> source, int index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        private boolean advance() {
+            current = source.hasNext() ? source.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byTime = current.getTimestamp().compareTo(other.current.getTimestamp());
+            return byTime != 0 ? byTime : Integer.compare(index, other.index);
+        }
+    }
+}
@@ -1,19 +1,45 @@
 package com.example.logging_and_observability.logging.parser;
 
 import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.segment.LogSegmentReader;
+import com.example.logging_and_observability.logging.segment.SegmentManifest;
+import com.example.logging_and_observability.logging.store.ColumnarLogStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * IMPROVED Parser for extracting structured information from Logback logs
@@ -24,21 +50,143 @@ import java.util.regex.Pattern;
 public class LogParser {
 
     // Logback default pattern: %d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n
-    private static final Pattern LOG_PATTERN = Pattern.compile(
-            "(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3})\\s+" +  // timestamp
-                    "\\[([^\\]]+)\\]\\s+" +                                        // thread
-                    "([A-Z]+)\\s+" +                                               // level
-                    "([^\\s]+)\\s+-\\s+" +                                         // logger
-                    "(.+)"                                                         // message
-    );
+    // Lines are split by LogLineScanner; one per thread since chunks are parsed in parallel
+    private static final ThreadLocal<LogLineScanner> LINE_SCANNER = ThreadLocal.withInitial(LogLineScanner::new);
 
-    private static final DateTimeFormatter LOG_DATE_FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    // Parallel parsing: files are mapped and split into chunks of roughly this size
+    private static final int PARALLEL_CHUNK_SIZE = 8 * 1024 * 1024;        // 8 MB
+    // Files at least this large are parsed in parallel by parseDefaultLogs()
+    private static final long PARALLEL_THRESHOLD = 4L * PARALLEL_CHUNK_SIZE; // 32 MB
+    private static final int BOUNDARY_SCAN_SIZE = 64 * 1024;
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    // Rolled segments produced by logback-spring.xml: ${LOG_FILE}.%d{yyyy-MM-dd}.%i.log, optionally gzipped
+    private static final String ROLLED_SEGMENT_SUFFIX = "\\.(\\d{4}-\\d{2}-\\d{2})\\.(\\d+)";
+
+    private static final String BINARY_LOGS_DIR = "structured-logs/segments";
+    // File path of the reports of the parseDefaultLogs methods
+    private static final String DEFAULT_LOGS = "logs/product-management.log, structured-logs/application-logs.txt";
+    private static final String BINARY_SEGMENT_EXTENSION = ".lseg";
+
+    // Time-range seek: concurrent threads can write lines slightly out of order, so both
+    // searched offsets are widened by this margin and the exact bounds are applied as a filter
+    private static final Duration SEEK_TOLERANCE = Duration.ofSeconds(1);
+    private static final int TIMESTAMP_PROBE_SIZE = 23;   // yyyy-MM-dd HH:mm:ss.SSS
+
+    // Value extraction for free-form messages
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})");
+    private static final Pattern USER_NAME_PATTERN = Pattern.compile("User[:\\s]+([A-Za-z\\s]+)(?:\\s|$)");
+    private static final Pattern PRODUCT_ID_PATTERN = Pattern.compile("(?:ID|id)[:\\s]+(\\d+)");
+    private static final Pattern PRICE_PATTERN = Pattern.compile("(?:€|EUR|Price:)[:\\s]*([\\d.]+)");
+    private static final Pattern PRODUCT_NAME_PATTERN = Pattern.compile("Name[:\\s]+([^|]+?)\\s*(?:\\||$)");
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)\\s*(?:ms|milliseconds)");
+
+    // Keyword rules for messages that are not in the structured ProductService format
+    private static final MessageRules DEFAULT_MESSAGE_RULES = MessageRules.builder()
+            // Check for user operations
+            .rule(List.of("User ", "user"), (message, matches, builder) -> extractUserInfo(message, builder))
+            // Check for product operations
+            .rule(List.of("product", "Product"), (message, matches, builder) -> {
+                extractProductInfo(message, builder);
+                builder.event("PRODUCT_OPERATION");
+            })
+            // Check for specific actions
+            .rule(List.of("getAllProducts", "getProductById", "addProduct", "updateProduct", "deleteProduct"),
+                    (message, matches, builder) -> {
+                        if (matches.contains("getAllProducts")) {
+                            builder.action("getAllProducts").operationType("READ");
+                        } else if (matches.contains("getProductById")) {
+                            builder.action("getProductById").operationType("READ");
+                        } else if (matches.contains("addProduct")) {
+                            builder.action("addProduct").operationType("WRITE");
+                        } else if (matches.contains("updateProduct")) {
+                            builder.action("updateProduct").operationType("WRITE");
+                        } else {
+                            builder.action("deleteProduct").operationType("WRITE");
+                        }
+                    })
+            // Check for expensive product operations
+            .rule(List.of("Expensive product view", "SEARCH_EXPENSIVE"),
+                    (message, matches, builder) -> builder.action("viewExpensiveProduct").operationType("SEARCH_EXPENSIVE"))
+            // Check for authentication
+            .keywords("Success", "successfully")
+            .rule(List.of("authenticated", "login"), (message, matches, builder) -> {
+                builder.event("USER_AUTHENTICATION");
+                builder.result(matches.contains("Success") || matches.contains("successfully") ? "SUCCESS" : "FAILURE");
+            })
+            // Check for registration
+            .rule(List.of("registered", "registration"), (message, matches, builder) -> {
+                builder.event("USER_REGISTRATION");
+                builder.result("SUCCESS");
+            })
+            // Check for errors
+            .rule(List.of("Error", "failed", "Exception"),
+                    (message, matches, builder) -> {
+                        builder.result("ERROR");
+                        builder.errorMessage(message);
+                    },
+                    (message, matches, builder) -> {
+                        if (builder.build().getResult() == null) {
+                            builder.result("SUCCESS");
+                        }
+                    })
+            // Extract duration if present
+            .rule(List.of("ms", "milliseconds"), (message, matches, builder) -> extractDuration(message, builder))
+            .build();
+
+    private final MessageRules messageRules;
+    private final int chunkSize;
+    private volatile ParseReport lastParseReport;
+
+    public LogParser() {
+        this(DEFAULT_MESSAGE_RULES);
+    }
+
+    /**
+     * Parser with a custom rule table, e.g. LogParser.defaultMessageRules().toBuilder().rule(...).build()
+     * LogFilter pre-checks assume actions and operation types come from the default keywords.
+     */
+    public LogParser(MessageRules messageRules) {
+        this(messageRules, PARALLEL_CHUNK_SIZE);
+    }
+
+    /**
+     * Parser splitting files into chunks of about chunkSize bytes for parallel parsing
+     */
+    LogParser(MessageRules messageRules, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.messageRules = messageRules;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Rule table used for free-form messages by the default constructor
+     */
+    public static MessageRules defaultMessageRules() {
+        return DEFAULT_MESSAGE_RULES;
+    }
 
     /**
      * Parse a log file and extract LogEntry objects
      */
     public List<LogEntry> parseLogFile(String filePath) {
+        return parseLogFile(filePath, LogFilter.ALL);
+    }
+
+    /**
+     * Parse a log file, keeping only the entries accepted by the filter.
+     * Lines that cannot match are rejected before they are parsed.
+     */
+    public List<LogEntry> parseLogFile(String filePath, LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(filePath, "SEQUENTIAL");
+        return publishReport(report, readLogFile(filePath, filter, report), start);
+    }
+
+    private List<LogEntry> readLogFile(String filePath, LogFilter filter, ParseReport report) {
         List<LogEntry> entries = new ArrayList<>();
         File file = new File(filePath);
 
@@ -49,16 +197,20 @@ public class LogParser {
 
         log.info("Parsing log file: {}", filePath);
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = openReader(file)) {
             String line;
             int lineNumber = 0;
 
             while ((line = reader.readLine()) != null) {
                 lineNumber++;
 
+                if (!filter.mightMatch(line)) {
+                    continue;
+                }
+
                 try {
                     LogEntry entry = parseLine(line);
-                    if (entry != null) {
+                    if (entry != null && filter.matches(entry)) {
                         entries.add(entry);
                     }
                 } catch (Exception e) {
@@ -67,6 +219,7 @@ public class LogParser {
             }
 
             log.info("Parsed {} log entries from {}", entries.size(), filePath);
+            report.add(file.length(), lineNumber, 1);
 
         } catch (IOException e) {
             log.error("Error reading log file: {}", filePath, e);
@@ -76,219 +229,858 @@ public class LogParser {
     }
 
     /**
-     * Parse a single log line
+     * Stream the entries of a log file lazily, one line at a time.
+     * Only the current line is held in memory. The stream keeps the file open
+     * and must be closed, e.g. with try-with-resources.
      */
-    private LogEntry parseLine(String line) {
-        Matcher matcher = LOG_PATTERN.matcher(line);
+    public Stream<LogEntry> streamLogFile(String filePath) {
+        return streamLogFile(filePath, LogFilter.ALL);
+    }
 
-        if (!matcher.matches()) {
-            return null;
+    /**
+     * Stream the entries of a log file accepted by the filter
+     */
+    public Stream<LogEntry> streamLogFile(String filePath, LogFilter filter) {
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            log.warn("Log file not found: {}", filePath);
+            return Stream.empty();
         }
 
-        String timestampStr = matcher.group(1);
-        String thread = matcher.group(2);
-        String level = matcher.group(3);
-        String logger = matcher.group(4);
-        String message = matcher.group(5);
+        log.info("Streaming log file: {}", filePath);
 
-        LocalDateTime timestamp = LocalDateTime.parse(timestampStr, LOG_DATE_FORMATTER);
+        BufferedReader reader;
+        try {
+            reader = openReader(file);
+        } catch (IOException e) {
+            log.error("Error reading log file: {}", filePath, e);
+            return Stream.empty();
+        }
 
-        LogEntry.Builder builder = LogEntry.builder()
-                .timestamp(timestamp)
-                .thread(thread)
-                .level(level)
-                .logger(logger)
-                .additionalInfo(message);
+        return reader.lines()
+                .filter(filter::mightMatch)
+                .map(this::parseLineQuietly)
+                .filter(entry -> entry != null && filter.matches(entry))
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        log.warn("Failed to close log file: {}", filePath, e);
+                    }
+                });
+    }
 
-        // Parse message for structured information
-        parseMessage(message, builder);
+    /**
+     * Reader over a log file; rolled archives ending in .gz are decompressed transparently
+     */
+    private BufferedReader openReader(File file) throws IOException {
+        if (isGzip(file)) {
+            return new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file), GZIP_BUFFER_SIZE)));
+        }
+        return new BufferedReader(new FileReader(file));
+    }
 
-        return builder.build();
+    private static boolean isGzip(File file) {
+        return file.getName().endsWith(".gz");
     }
 
     /**
-     * Parse message content and extract structured information
-     * IMPROVED to match the actual ProductService log format
+     * Parse a log file in parallel.
+     * The file is memory-mapped, split into chunks that end on line boundaries and
+     * the chunks are parsed on the common ForkJoin pool. Entries are returned in
+     * file order, exactly as parseLogFile would return them.
      */
-    private void parseMessage(String message, LogEntry.Builder builder) {
-        // NEW: Parse structured format from ProductService
-        // Example: "Operation: getAllProducts | User: Alice | Email: alice@email.com | Action: READ"
-        if (message.contains("Operation:")) {
-            parseStructuredProductLog(message, builder);
-            return;
+    public List<LogEntry> parseLogFileParallel(String filePath) {
+        return parseLogFileParallel(filePath, LogFilter.ALL);
+    }
+
+    /**
+     * Parse a log file in parallel, keeping only the entries accepted by the filter
+     */
+    public List<LogEntry> parseLogFileParallel(String filePath, LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(filePath, "PARALLEL");
+        return publishReport(report, readLogFileParallel(filePath, filter, report), start);
+    }
+
+    private List<LogEntry> readLogFileParallel(String filePath, LogFilter filter, ParseReport report) {
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            log.warn("Log file not found: {}", filePath);
+            return new ArrayList<>();
         }
 
-        // Fallback: Check for user operations
-        if (message.contains("User ") || message.contains("user")) {
-            extractUserInfo(message, builder);
+        log.info("Parsing log file (parallel): {}", filePath);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ChunkResult result = parseRange(channel, 0, size, filter);
+
+            log.info("Parsed {} log entries from {}", result.entries.size(), filePath);
+            report.add(size, result.lines, result.chunks);
+            return result.entries;
+
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error reading log file: {}", filePath, e);
+            return new ArrayList<>();
         }
+    }
 
-        // Check for product operations
-        if (message.contains("product") || message.contains("Product")) {
-            extractProductInfo(message, builder);
-            builder.event("PRODUCT_OPERATION");
+    /**
+     * Parse the entries of a log file with from <= timestamp < to; either bound may be null
+     */
+    public List<LogEntry> parseLogFileRange(String filePath, LocalDateTime from, LocalDateTime to) {
+        return parseLogFileRange(filePath, LogFilter.builder().from(from).to(to).build());
+    }
+
+    /**
+     * Parse the entries of a log file accepted by a filter with a time range.
+     * Lines are written in timestamp order, so the byte offsets of both bounds are found
+     * by binary search and only the lines in between are read (in parallel when large).
+     * Gzip archives cannot be searched and are filtered line by line instead.
+     */
+    public List<LogEntry> parseLogFileRange(String filePath, LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(filePath, "RANGE");
+        return publishReport(report, readLogFileRange(filePath, filter, report), start);
+    }
+
+    private List<LogEntry> readLogFileRange(String filePath, LogFilter filter, ParseReport report) {
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            log.warn("Log file not found: {}", filePath);
+            return new ArrayList<>();
         }
 
-        // Check for specific actions
-        if (message.contains("getAllProducts")) {
-            builder.action("getAllProducts").operationType("READ");
-        } else if (message.contains("getProductById")) {
-            builder.action("getProductById").operationType("READ");
-        } else if (message.contains("addProduct")) {
-            builder.action("addProduct").operationType("WRITE");
-        } else if (message.contains("updateProduct")) {
-            builder.action("updateProduct").operationType("WRITE");
-        } else if (message.contains("deleteProduct")) {
-            builder.action("deleteProduct").operationType("WRITE");
+        if (isGzip(file)) {
+            return readLogFile(filePath, filter, report);
         }
 
-        // Check for expensive product operations
-        if (message.contains("Expensive product view") || message.contains("SEARCH_EXPENSIVE")) {
-            builder.action("viewExpensiveProduct").operationType("SEARCH_EXPENSIVE");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+            ByteBuffer probe = ByteBuffer.allocate(TIMESTAMP_PROBE_SIZE);
+
+            long begin = filter.getFrom() == null ? 0
+                    : seekTimestamp(channel, filter.getFrom().minus(SEEK_TOLERANCE), size, scan, probe);
+            long end = filter.getTo() == null ? size
+                    : Math.max(begin, seekTimestamp(channel, filter.getTo().plus(SEEK_TOLERANCE), size, scan, probe));
+
+            log.info("Parsing bytes {}-{} of {} for {}", begin, end, filePath, filter);
+            ChunkResult result = parseRange(channel, begin, end, filter);
+
+            log.info("Parsed {} log entries from {}", result.entries.size(), filePath);
+            report.add(end - begin, result.lines, result.chunks);
+            return result.entries;
+
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error reading log file: {}", filePath, e);
+            return new ArrayList<>();
         }
+    }
+
+    /**
+     * Offset of the first line stamped at or after {@code target}, or {@code size} if there is none.
+     * Lines without a timestamp (stack traces, wrapped messages) belong to the entry above them.
+     * The scan and probe buffers are reused by every step of the search.
+     */
+    private long seekTimestamp(FileChannel channel, LocalDateTime target, long size,
+                               ByteBuffer scan, ByteBuffer probe) throws IOException {
+        long low = 0;
+        long high = size;
 
-        // Check for authentication
-        if (message.contains("authenticated") || message.contains("login")) {
-            builder.event("USER_AUTHENTICATION");
-            builder.result(message.contains("Success") || message.contains("successfully") ? "SUCCESS" : "FAILURE");
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            TimestampedLine line = timestampedLineAt(channel, middle, size, scan, probe);
+            if (line != null && line.timestamp().isBefore(target)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
 
-        // Check for registration
-        if (message.contains("registered") || message.contains("registration")) {
-            builder.event("USER_REGISTRATION");
-            builder.result("SUCCESS");
+        TimestampedLine first = timestampedLineAt(channel, low, size, scan, probe);
+        return first == null ? size : first.offset();
+    }
+
+    private record TimestampedLine(long offset, LocalDateTime timestamp) {}
+
+    /**
+     * First line starting at or after {@code position} that begins with a timestamp
+     */
+    private TimestampedLine timestampedLineAt(FileChannel channel, long position, long size,
+                                              ByteBuffer scan, ByteBuffer probe) throws IOException {
+        long lineStart = position == 0 ? 0 : nextLineStart(channel, position - 1, size, scan);
+
+        while (lineStart < size) {
+            probe.clear();
+            int read = channel.read(probe, lineStart);
+            if (read == TIMESTAMP_PROBE_SIZE) {
+                String text = new String(probe.array(), 0, read, StandardCharsets.ISO_8859_1);
+                LocalDateTime timestamp = LogLineScanner.leadingTimestamp(text);
+                if (timestamp != null) {
+                    return new TimestampedLine(lineStart, timestamp);
+                }
+            }
+            lineStart = nextLineStart(channel, lineStart, size, scan);
         }
 
-        // Check for errors
-        if (message.contains("Error") || message.contains("failed") || message.contains("Exception")) {
-            builder.result("ERROR");
-            builder.errorMessage(message);
-        } else if (builder.build().getResult() == null) {
-            builder.result("SUCCESS");
+        return null;
+    }
+
+    /**
+     * Entries appended to a log file after a checkpoint, and the checkpoint reached
+     * (null if the file is missing or could not be read to the end); nothing is saved
+     */
+    private record IncrementalRead(List<LogEntry> entries, LogCheckpoint checkpoint) {}
+
+    private IncrementalRead readSinceCheckpoint(String filePath, LogCheckpoint previous, ParseReport report) {
+        List<LogEntry> entries = new ArrayList<>();
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            log.warn("Log file not found: {}", filePath);
+            return new IncrementalRead(entries, null);
         }
 
-        // Extract duration if present
-        if (message.contains("ms") || message.contains("milliseconds")) {
-            extractDuration(message, builder);
+        LogCheckpoint next = null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            String fileKey = LogFileIdentity.fileKey(file.toPath());
+            long from = 0;
+
+            if (previous == null) {
+                // The whole history: rolled segments, oldest first, then the active file
+                log.info("No checkpoint for {}, parsing its rolled segments and the file from the beginning", filePath);
+                for (File segment : findRolledSegments(file)) {
+                    entries.addAll(parseSegment(segment, report));
+                }
+            } else if (LogFileIdentity.isSameFile(previous, fileKey, channel) && channel.size() >= previous.getOffset()) {
+                from = previous.getOffset();
+                log.info("Resuming {} at byte {}", filePath, from);
+            } else {
+                log.info("{} was rolled over since the last run", filePath);
+                entries.addAll(parseRolledSinceCheckpoint(file, previous, report));
+            }
+
+            long to = lastLineEnd(channel, from, channel.size());
+            ChunkResult result = parseRange(channel, from, to, LogFilter.ALL);
+            entries.addAll(result.entries);
+
+            LocalDateTime lastTimestamp = previous != null ? previous.getLastTimestamp() : null;
+            if (!entries.isEmpty()) {
+                lastTimestamp = entries.get(entries.size() - 1).getTimestamp();
+            }
+
+            next = LogFileIdentity.open(filePath, fileKey, channel);
+            next.setOffset(to);
+            next.setLastTimestamp(lastTimestamp);
+
+            log.info("Parsed {} new log entries from {}", entries.size(), filePath);
+            report.add(to - from, result.lines, result.chunks);
+
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error reading log file: {}", filePath, e);
         }
+
+        return new IncrementalRead(entries, next);
     }
 
     /**
-     * NEW: Parse structured ProductService logs
-     * Format: "Operation: getAllProducts | User: Alice | Email: alice@email.com | Action: READ"
+     * Entries written to rolled segments of {@code activeFile} after the checkpoint:
+     * the tail of the checkpointed file (now renamed) and every newer segment.
+     * If the checkpointed file was deleted, the newer segments are read from the last timestamp
+     * read on, that millisecond included: the entries read before were all in the deleted file,
+     * so an entry of a newer segment logged in the same millisecond is a new one. What the
+     * deleted file held after the checkpoint is lost.
      */
-    private void parseStructuredProductLog(String message, LogEntry.Builder builder) {
-        builder.event("PRODUCT_OPERATION");
+    private List<LogEntry> parseRolledSinceCheckpoint(File activeFile, LogCheckpoint checkpoint, ParseReport report)
+            throws IOException {
+        List<LogEntry> entries = new ArrayList<>();
+        List<File> segments = findRolledSegments(activeFile);
+        int checkpointed = -1;
+
+        for (int i = 0; i < segments.size() && checkpointed < 0; i++) {
+            File segment = segments.get(i);
+
+            if (isGzip(segment)) {
+                // Compressed after the rename: compare the decompressed head, then skip to the offset
+                if (LogFileIdentity.isSameContent(checkpoint, segment)) {
+                    checkpointed = i;
+                    log.info("Reading the rest of {} from byte {}", segment, checkpoint.getOffset());
+                    entries.addAll(parseGzipFrom(segment, checkpoint.getOffset(), report));
+                }
+                continue;
+            }
 
-        // Extract Operation
-        Pattern opPattern = Pattern.compile("Operation:\\s*(\\w+)");
-        Matcher opMatcher = opPattern.matcher(message);
-        if (opMatcher.find()) {
-            builder.action(opMatcher.group(1));
+            try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+                String fileKey = LogFileIdentity.fileKey(segment.toPath());
+                if (LogFileIdentity.isSameFile(checkpoint, fileKey, channel)
+                        && channel.size() >= checkpoint.getOffset()) {
+                    checkpointed = i;
+                    log.info("Reading the rest of {} from byte {}", segment, checkpoint.getOffset());
+                    ChunkResult rest = parseRange(channel, checkpoint.getOffset(), channel.size(), LogFilter.ALL);
+                    report.add(channel.size() - checkpoint.getOffset(), rest.lines, rest.chunks);
+                    entries.addAll(rest.entries);
+                }
+            }
+        }
+
+        if (checkpointed < 0) {
+            // The checkpointed file is gone: fall back to the timestamp of the last entry read
+            log.warn("Checkpointed file for {} not found, reading rolled segments after {}",
+                    activeFile, checkpoint.getLastTimestamp());
         }
 
-        // Extract User name
-        Pattern userPattern = Pattern.compile("User:\\s*([^|]+?)\\s*(?:\\||$)");
-        Matcher userMatcher = userPattern.matcher(message);
-        if (userMatcher.find()) {
-            String userName = userMatcher.group(1).trim();
-            if (!userName.equals("Unknown")) {
-                builder.userName(userName);
+        LocalDateTime lastTimestamp = checkpointed < 0 ? checkpoint.getLastTimestamp() : null;
+        for (int i = checkpointed + 1; i < segments.size(); i++) {
+            for (LogEntry entry : parseSegment(segments.get(i), report)) {
+                if (lastTimestamp == null || !entry.getTimestamp().isBefore(lastTimestamp)) {
+                    entries.add(entry);
+                }
             }
         }
 
-        // Extract Email
-        Pattern emailPattern = Pattern.compile("Email:\\s*([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})");
-        Matcher emailMatcher = emailPattern.matcher(message);
-        if (emailMatcher.find()) {
-            builder.userEmail(emailMatcher.group(1));
+        return entries;
+    }
+
+    /**
+     * Every entry of a rolled segment; unlike parseLogFile, a read failure is thrown
+     */
+    private List<LogEntry> parseSegment(File segment, ParseReport report) throws IOException {
+        if (isGzip(segment)) {
+            return parseGzipFrom(segment, 0, report);
         }
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            ChunkResult result = parseRange(channel, 0, channel.size(), LogFilter.ALL);
+            report.add(channel.size(), result.lines, result.chunks);
+            return result.entries;
+        }
+    }
 
-        // Extract ProductID as String
-        Pattern idPattern = Pattern.compile("ProductID:\\s*(\\d+)");
-        Matcher idMatcher = idPattern.matcher(message);
-        if (idMatcher.find()) {
-            builder.resourceId(idMatcher.group(1));  // <-- garder en String
-            builder.resourceType("PRODUCT");
+    /**
+     * Entries of a gzipped segment after the first {@code offset} decompressed bytes
+     */
+    private List<LogEntry> parseGzipFrom(File file, long offset, ParseReport report) throws IOException {
+        List<LogEntry> entries = new ArrayList<>();
+        long lines = 0;
+
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file), GZIP_BUFFER_SIZE)) {
+            in.skipNBytes(offset);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                LogEntry entry = parseLineQuietly(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
         }
 
+        report.add(file.length(), lines, 1);
+        return entries;
+    }
 
-        // Extract ProductName
-        Pattern namePattern = Pattern.compile("ProductName:\\s*([^|]+?)\\s*(?:\\||$)");
-        Matcher nameMatcher = namePattern.matcher(message);
-        if (nameMatcher.find()) {
-            builder.resourceName(nameMatcher.group(1).trim());
-            builder.resourceType("PRODUCT");
+    /**
+     * Rolled segments of a log file matching the logback file name pattern
+     * (product-management.log -> product-management.2025-12-23.0.log[.gz],
+     * application-logs.txt -> application-logs.2025-12-23.0.txt[.gz]),
+     * oldest first: by date, then by index
+     */
+    private List<File> findRolledSegments(File activeFile) {
+        String name = activeFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        Pattern segmentPattern = Pattern.compile(
+                Pattern.quote(base) + ROLLED_SEGMENT_SUFFIX + Pattern.quote(extension) + "(\\.gz)?");
+        File directory = activeFile.getAbsoluteFile().getParentFile();
+
+        File[] candidates = directory.listFiles((dir, candidate) -> segmentPattern.matcher(candidate).matches());
+
+        List<File> segments = new ArrayList<>();
+        if (candidates != null) {
+            Set<String> names = new HashSet<>();
+            for (File candidate : candidates) {
+                names.add(candidate.getName());
+            }
+            for (File candidate : candidates) {
+                // While a segment is being compressed both versions exist: read the plain one
+                String candidateName = candidate.getName();
+                if (!isGzip(candidate) || !names.contains(candidateName.substring(0, candidateName.length() - 3))) {
+                    segments.add(candidate);
+                }
+            }
+        }
+        segments.sort(Comparator
+                .comparing((File f) -> segmentKey(segmentPattern, f, 1))
+                .thenComparingInt(f -> Integer.parseInt(segmentKey(segmentPattern, f, 2)))
+                .thenComparing(File::getName));
+        return segments;
+    }
+
+    private static String segmentKey(Pattern segmentPattern, File segment, int group) {
+        Matcher matcher = segmentPattern.matcher(segment.getName());
+        return matcher.matches() ? matcher.group(group) : "";
+    }
+
+    /**
+     * Parse a log file together with all of its rolled segments (including .gz archives).
+     * Segments are parsed concurrently and k-way merged in timestamp order.
+     */
+    public List<LogEntry> parseRolledLogSet(String activeFilePath) {
+        return parseRolledLogSet(activeFilePath, LogFilter.ALL);
+    }
+
+    /**
+     * Parse a log file and its rolled segments, keeping only the entries accepted by the filter
+     */
+    public List<LogEntry> parseRolledLogSet(String activeFilePath, LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(activeFilePath, "ROLLED_SET");
+        return publishReport(report, readRolledLogSet(activeFilePath, filter, report), start);
+    }
+
+    private List<LogEntry> readRolledLogSet(String activeFilePath, LogFilter filter, ParseReport report) {
+        return parseSegments(activeFilePath, filter, segment -> parseLogFileAuto(segment.getPath(), filter, report));
+    }
+
+    /**
+     * Parse the entries of a log file and its rolled segments accepted by a filter with a time range.
+     * Every segment is searched with parseLogFileRange, so segments outside the range cost a few reads.
+     */
+    public List<LogEntry> parseRolledLogSetRange(String activeFilePath, LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(activeFilePath, "ROLLED_SET_RANGE");
+        return publishReport(report, readRolledLogSetRange(activeFilePath, filter, report), start);
+    }
+
+    private List<LogEntry> readRolledLogSetRange(String activeFilePath, LogFilter filter, ParseReport report) {
+        return parseSegments(activeFilePath, filter, segment -> readLogFileRange(segment.getPath(), filter, report));
+    }
+
+    /**
+     * Parse the active file and its rolled segments concurrently and merge them in timestamp order;
+     * the parser adds every segment to the report of the call
+     */
+    private List<LogEntry> parseSegments(String activeFilePath, LogFilter filter, Function<File, List<LogEntry>> parser) {
+        File activeFile = new File(activeFilePath);
+        List<File> segments = skipOutsideRange(activeFile, findRolledSegments(activeFile), filter);
+        if (activeFile.exists()) {
+            segments.add(activeFile);
         }
 
-        // Extract Action (READ/WRITE)
-        Pattern actionPattern = Pattern.compile("Action:\\s*(READ|WRITE)");
-        Matcher actionMatcher = actionPattern.matcher(message);
-        if (actionMatcher.find()) {
-            builder.operationType(actionMatcher.group(1));
+        if (segments.isEmpty()) {
+            log.warn("Log file not found: {}", activeFilePath);
+            return new ArrayList<>();
         }
 
-        // Extract Price
-        Pattern pricePattern = Pattern.compile("Price:\\s*€([\\d.]+)");
-        Matcher priceMatcher = pricePattern.matcher(message);
-        if (priceMatcher.find()) {
-            builder.resourcePrice(Double.parseDouble(priceMatcher.group(1)));
+        log.info("Parsing {} segment(s) of {}", segments.size(), activeFilePath);
+
+        List<List<LogEntry>> parsed = segments.parallelStream()
+                .map(parser)
+                .toList();
+
+        return LogMerger.mergeByTimestamp(parsed);
+    }
+
+    /**
+     * Streaming counterpart of parseRolledLogSet: segments are read lazily and merged on the fly
+     */
+    public Stream<LogEntry> streamRolledLogSet(String activeFilePath) {
+        return streamRolledLogSet(activeFilePath, LogFilter.ALL);
+    }
+
+    /**
+     * Stream a log file and its rolled segments, keeping only the entries accepted by the filter
+     */
+    public Stream<LogEntry> streamRolledLogSet(String activeFilePath, LogFilter filter) {
+        File activeFile = new File(activeFilePath);
+        List<File> segments = skipOutsideRange(activeFile, findRolledSegments(activeFile), filter);
+        if (activeFile.exists() || segments.isEmpty()) {
+            segments.add(activeFile);
+        }
+
+        List<Stream<LogEntry>> streams = new ArrayList<>();
+        for (File segment : segments) {
+            streams.add(streamLogFile(segment.getPath(), filter));
+        }
+        return streams.size() == 1 ? streams.get(0) : LogMerger.mergeStreams(streams);
+    }
+
+    /**
+     * Rolled segments that may hold entries in the filter's time range, according to the
+     * segment manifest written by StructuredLogger; all of them when there is no manifest
+     */
+    private List<File> skipOutsideRange(File activeFile, List<File> segments, LogFilter filter) {
+        List<File> kept = new ArrayList<>(segments);
+        if (!filter.hasTimeRange() || segments.isEmpty()
+                || !Files.exists(SegmentManifest.manifestPath(activeFile.toPath()))) {
+            return kept;
+        }
+        SegmentManifest manifest = SegmentManifest.load(activeFile.toPath());
+        kept.removeIf(segment -> {
+            SegmentManifest.Segment described = manifest.find(segment.getName());
+            return described != null && !described.mayOverlap(filter.getFrom(), filter.getTo());
+        });
+        if (kept.size() < segments.size()) {
+            log.info("Skipped {} of {} rolled segment(s) of {} outside {}",
+                    segments.size() - kept.size(), segments.size(), activeFile, filter);
+        }
+        return kept;
+    }
+
+    /**
+     * Read the binary segments written by StructuredLogger, without any text parsing.
+     * Segments are decoded concurrently and merged in timestamp order; the segment index
+     * skips blocks outside the filter's time range and segments that never saw its user.
+     */
+    public List<LogEntry> parseBinaryLogs(String directory, LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(directory, "BINARY");
+        return publishReport(report, readBinaryLogs(directory, filter, report), start);
+    }
+
+    private List<LogEntry> readBinaryLogs(String directory, LogFilter filter, ParseReport report) {
+        List<LogSegmentReader> segments = openBinarySegments(directory, filter);
+
+        List<List<LogEntry>> parsed = segments.parallelStream()
+                .map(segment -> {
+                    try (Stream<LogEntry> entries = segment.stream(filter.getFrom(), filter.getTo())) {
+                        return entries.filter(filter::matches).toList();
+                    }
+                })
+                .toList();
+
+        List<LogEntry> merged = LogMerger.mergeByTimestamp(parsed);
+        long bytes = segments.stream().mapToLong(segment -> segment.getPath().toFile().length()).sum();
+        long records = segments.stream().mapToLong(LogSegmentReader::getEntryCount).sum();
+        report.add(bytes, records, segments.size());
+        return merged;
+    }
+
+    /**
+     * Streaming counterpart of parseBinaryLogs: segments are decoded lazily and merged on the fly
+     */
+    public Stream<LogEntry> streamBinaryLogs(String directory, LogFilter filter) {
+        List<Stream<LogEntry>> streams = new ArrayList<>();
+        for (LogSegmentReader segment : openBinarySegments(directory, filter)) {
+            streams.add(segment.stream(filter.getFrom(), filter.getTo()).filter(filter::matches));
+        }
+        if (streams.isEmpty()) {
+            return Stream.empty();
+        }
+        return streams.size() == 1 ? streams.get(0) : LogMerger.mergeStreams(streams);
+    }
+
+    /**
+     * Segments of a directory that may hold entries accepted by the filter, in name order
+     */
+    private List<LogSegmentReader> openBinarySegments(String directory, LogFilter filter) {
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(BINARY_SEGMENT_EXTENSION));
+        if (files == null || files.length == 0) {
+            log.warn("No binary log segments in: {}", directory);
+            return new ArrayList<>();
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        List<LogSegmentReader> segments = new ArrayList<>();
+        for (File file : files) {
+            try {
+                LogSegmentReader segment = LogSegmentReader.open(file.toPath());
+                if (segment.mayOverlap(filter.getFrom(), filter.getTo())
+                        && (filter.getUserEmail() == null || segment.mayContainUser(filter.getUserEmail()))) {
+                    segments.add(segment);
+                }
+            } catch (IOException e) {
+                log.error("Error reading binary log segment: {}", file, e);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Position just after the last '\n' in [from, size), or {@code from} if there is none
+     */
+    private long lastLineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long end = size;
+
+        while (end > from) {
+            long blockStart = Math.max(from, end - BOUNDARY_SCAN_SIZE);
+            scan.clear();
+            scan.limit((int) (end - blockStart));
+            int read;
+            do {
+                read = channel.read(scan, blockStart + scan.position());
+            } while (read > 0 && scan.hasRemaining());
+            for (int i = scan.position() - 1; i >= 0; i--) {
+                if (scan.get(i) == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            end = blockStart;
+        }
+
+        return from;
+    }
+
+    /**
+     * Throughput report of the most recently completed public parse call, on any thread.
+     * It covers every file that call read, e.g. all the segments of a rolled set.
+     */
+    public ParseReport getLastParseReport() {
+        return lastParseReport;
+    }
+
+    /**
+     * Empty report of a public parse call; the files it reads are added to it
+     */
+    private static ParseReport newReport(String filePath, String mode) {
+        ParseReport report = new ParseReport();
+        report.setFilePath(filePath);
+        report.setMode(mode);
+        return report;
+    }
+
+    /**
+     * Complete the report of a public parse call with what it returns, and make it the last one
+     */
+    private List<LogEntry> publishReport(ParseReport report, List<LogEntry> entries, long startNanos) {
+        report.setEntries(entries.size());
+        report.setElapsedNanos(System.nanoTime() - startNanos);
+
+        lastParseReport = report;
+        log.info(report.toSummary());
+        return entries;
+    }
+
+    /**
+     * Parse the bytes [from, to) of a file on the common ForkJoin pool
+     */
+    private ChunkResult parseRange(FileChannel channel, long from, long to, LogFilter filter) throws IOException {
+        List<long[]> chunks = splitOnLineBoundaries(channel, from, to);
+        ChunkResult result = ForkJoinPool.commonPool()
+                .invoke(new ChunkParseTask(channel, chunks, 0, chunks.size(), filter));
+        result.chunks = chunks.size();
+        return result;
+    }
+
+    /**
+     * Split [from, size) into {start, end} ranges of about chunkSize bytes.
+     * Every range except the last ends just after a '\n'.
+     */
+    private List<long[]> splitOnLineBoundaries(FileChannel channel, long from, long size) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long chunkStart = from;
+
+        while (chunkStart < size) {
+            long target = chunkStart + chunkSize;
+            long chunkEnd = target >= size ? size : nextLineStart(channel, target, size, scan);
+            chunks.add(new long[]{chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Position just after the first '\n' at or after {@code from}, or {@code size} if there is none
+     */
+    private long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
         }
 
-        // Check for specific patterns
-        if (message.contains("Product found") || message.contains("Retrieved") || message.contains("Product added") || message.contains("Product updated") || message.contains("Product deleted")) {
-            // Extract ID
-            Pattern idPattern2 = Pattern.compile("ID:\\s*(\\d+)");
-            Matcher idMatcher2 = idPattern2.matcher(message);
-            if (idMatcher2.find()) {
-                builder.resourceId(idMatcher2.group(1));  // garder en String
-                builder.resourceType("PRODUCT");
+        return size;
+    }
+
+    /**
+     * Entries and raw line count for a contiguous range of chunks
+     */
+    private static class ChunkResult {
+        private final List<LogEntry> entries;
+        private long lines;
+        private int chunks;
+
+        private ChunkResult(List<LogEntry> entries, long lines) {
+            this.entries = entries;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Parses chunks [from, to) by splitting the range in half until a single chunk is left.
+     * Results are joined left to right so file order is preserved.
+     */
+    private class ChunkParseTask extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+        private final LogFilter filter;
+
+        private ChunkParseTask(FileChannel channel, List<long[]> chunks, int from, int to, LogFilter filter) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            if (to - from <= 1) {
+                return from < to ? parseChunk(chunks.get(from)) : new ChunkResult(new ArrayList<>(), 0);
             }
 
+            int middle = (from + to) >>> 1;
+            ChunkParseTask left = new ChunkParseTask(channel, chunks, from, middle, filter);
+            ChunkParseTask right = new ChunkParseTask(channel, chunks, middle, to, filter);
+            left.fork();
+            ChunkResult rightResult = right.compute();
+            ChunkResult leftResult = left.join();
+
+            leftResult.entries.addAll(rightResult.entries);
+            leftResult.lines += rightResult.lines;
+            return leftResult;
+        }
+
+        private ChunkResult parseChunk(long[] chunk) {
+            long start = chunk[0];
+            long length = chunk[1] - chunk[0];
+            CharBuffer chars;
 
-            // Extract Name
-            Pattern namePattern2 = Pattern.compile("Name:\\s*([^|]+?)\\s*(?:\\||$)");
-            Matcher nameMatcher2 = namePattern2.matcher(message);
-            if (nameMatcher2.find()) {
-                builder.resourceName(nameMatcher2.group(1).trim());
+            try {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                chars = Charset.defaultCharset().decode(mapped);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
 
-            // Extract Price
-            Pattern pricePattern2 = Pattern.compile("Price:\\s*€([\\d.]+)");
-            Matcher priceMatcher2 = pricePattern2.matcher(message);
-            if (priceMatcher2.find()) {
-                builder.resourcePrice(Double.parseDouble(priceMatcher2.group(1)));
+            List<LogEntry> entries = new ArrayList<>();
+            CharArrayView line = new CharArrayView();
+            char[] data = chars.array();
+            int limit = chars.arrayOffset() + chars.limit();
+            int lineStart = chars.arrayOffset();
+            long lines = 0;
+
+            // Same line terminators as BufferedReader.readLine: \n, \r or \r\n
+            for (int i = lineStart; i <= limit; i++) {
+                boolean atEnd = i == limit;
+                char c = atEnd ? '\n' : data[i];
+                if (c != '\n' && c != '\r') {
+                    continue;
+                }
+                if (atEnd && i == lineStart) {
+                    break;
+                }
+
+                lines++;
+                line.reset(data, lineStart, i);
+                try {
+                    LogEntry entry = filter.mightMatch(line) ? parseLine(line) : null;
+                    if (entry != null && filter.matches(entry)) {
+                        entries.add(entry);
+                    }
+                } catch (Exception e) {
+                    log.debug("Failed to parse line in chunk at byte {}: {}", start, e.getMessage());
+                }
+
+                if (c == '\r' && i + 1 < limit && data[i + 1] == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
             }
+
+            return new ChunkResult(entries, lines);
         }
+    }
 
-        // Check for expensive product view
-        if (message.contains("Expensive product view")) {
-            builder.action("viewExpensiveProduct");
-            builder.operationType("SEARCH_EXPENSIVE");
+    /**
+     * Parse a single log line, returning null instead of throwing on malformed input
+     */
+    private LogEntry parseLineQuietly(String line) {
+        try {
+            return parseLine(line);
+        } catch (Exception e) {
+            log.debug("Failed to parse line: {}", e.getMessage());
+            return null;
         }
+    }
+
+    /**
+     * Parse a single log line
+     */
+    private LogEntry parseLine(CharSequence line) {
+        LogLineScanner scanner = LINE_SCANNER.get();
+
+        if (!scanner.scan(line)) {
+            return null;
+        }
+
+        String message = scanner.message();
+
+        LogEntry.Builder builder = LogEntry.builder()
+                .timestamp(scanner.timestamp())
+                .thread(scanner.thread())
+                .level(scanner.level())
+                .logger(scanner.logger())
+                .additionalInfo(message);
+
+        // Parse message for structured information
+        parseMessage(message, builder);
+
+        return builder.build();
+    }
 
-        // Set result
-        if (message.contains("SUCCESS") || message.contains("Status: SUCCESS")) {
-            builder.result("SUCCESS");
-        } else if (message.contains("ERROR") || message.contains("Status: ERROR")) {
-            builder.result("ERROR");
+    /**
+     * Parse message content and extract structured information
+     * IMPROVED to match the actual ProductService log format
+     */
+    private void parseMessage(String message, LogEntry.Builder builder) {
+        // NEW: Parse structured format from ProductService
+        // Example: "Operation: getAllProducts | User: Alice | Email: alice@email.com | Action: READ"
+        if (message.contains("Operation:")) {
+            StructuredLogTokenizer.tokenize(message, builder);
+            return;
         }
+
+        // Fallback: keyword rules, detected in a single pass over the message
+        messageRules.apply(message, builder);
     }
 
     /**
      * Extract user information from message
      */
-    private void extractUserInfo(String message, LogEntry.Builder builder) {
+    private static void extractUserInfo(String message, LogEntry.Builder builder) {
         // Try to extract email
-        Pattern emailPattern = Pattern.compile("([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})");
-        Matcher emailMatcher = emailPattern.matcher(message);
+        Matcher emailMatcher = EMAIL_PATTERN.matcher(message);
         if (emailMatcher.find()) {
             builder.userEmail(emailMatcher.group(1));
         }
 
         // Try to extract user name
-        Pattern namePattern = Pattern.compile("User[:\\s]+([A-Za-z\\s]+)(?:\\s|$)");
-        Matcher nameMatcher = namePattern.matcher(message);
+        Matcher nameMatcher = USER_NAME_PATTERN.matcher(message);
         if (nameMatcher.find()) {
             String name = nameMatcher.group(1).trim();
             if (!name.equals("Unknown")) {
@@ -300,27 +1092,24 @@ public class LogParser {
     /**
      * Extract product information from message
      */
-    private void extractProductInfo(String message, LogEntry.Builder builder) {
+    private static void extractProductInfo(String message, LogEntry.Builder builder) {
         builder.resourceType("PRODUCT");
 
         // Try to extract product ID
-        Pattern idPattern = Pattern.compile("(?:ID|id)[:\\s]+(\\d+)");
-        Matcher idMatcher = idPattern.matcher(message);
+        Matcher idMatcher = PRODUCT_ID_PATTERN.matcher(message);
         if (idMatcher.find()) {
             builder.resourceId(idMatcher.group(1));  // utiliser directement le String
         }
 
 
         // Try to extract price
-        Pattern pricePattern = Pattern.compile("(?:€|EUR|Price:)[:\\s]*([\\d.]+)");
-        Matcher priceMatcher = pricePattern.matcher(message);
+        Matcher priceMatcher = PRICE_PATTERN.matcher(message);
         if (priceMatcher.find()) {
             builder.resourcePrice(Double.parseDouble(priceMatcher.group(1)));
         }
 
         // Try to extract product name
-        Pattern namePattern = Pattern.compile("Name[:\\s]+([^|]+?)\\s*(?:\\||$)");
-        Matcher nameMatcher = namePattern.matcher(message);
+        Matcher nameMatcher = PRODUCT_NAME_PATTERN.matcher(message);
         if (nameMatcher.find()) {
             builder.resourceName(nameMatcher.group(1).trim());
         }
@@ -329,9 +1118,8 @@ public class LogParser {
     /**
      * Extract duration from message
      */
-    private void extractDuration(String message, LogEntry.Builder builder) {
-        Pattern durationPattern = Pattern.compile("(\\d+)\\s*(?:ms|milliseconds)");
-        Matcher durationMatcher = durationPattern.matcher(message);
+    private static void extractDuration(String message, LogEntry.Builder builder) {
+        Matcher durationMatcher = DURATION_PATTERN.matcher(message);
         if (durationMatcher.find()) {
             builder.duration(Long.parseLong(durationMatcher.group(1)));
         }
@@ -341,14 +1129,182 @@ public class LogParser {
      * Parse logs from default log directory
      */
     public List<LogEntry> parseDefaultLogs() {
-        List<LogEntry> allEntries = new ArrayList<>();
+        return parseDefaultLogs(LogFilter.ALL);
+    }
 
-        // Parse main log file
-        allEntries.addAll(parseLogFile("logs/product-management.log"));
+    /**
+     * Parse the default logs, keeping only the entries accepted by the filter
+     */
+    public List<LogEntry> parseDefaultLogs(LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(DEFAULT_LOGS, "DEFAULT");
+
+        // Parse main log file and its rolled history
+        List<LogEntry> applicationLogs = readRolledLogSet("logs/product-management.log", filter, report);
 
         // Parse structured logs if available
-        allEntries.addAll(parseLogFile("structured-logs/application-logs.txt"));
+        List<LogEntry> structuredLogs = readRolledLogSet("structured-logs/application-logs.txt", filter, report);
+
+        return publishReport(report, mergeDistinct(applicationLogs, structuredLogs), start);
+    }
+
+    /**
+     * Parse the default logs accepted by a filter with a time range, seeking to the range in every file
+     */
+    public List<LogEntry> parseDefaultLogsRange(LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(DEFAULT_LOGS, "DEFAULT_RANGE");
+        return publishReport(report, mergeDistinct(
+                readRolledLogSetRange("logs/product-management.log", filter, report),
+                readRolledLogSetRange("structured-logs/application-logs.txt", filter, report)), start);
+    }
+
+    /**
+     * Parse what was appended to the default logs after the given checkpoints, keyed by file
+     * path (missing: the rolled segments and the file from the beginning). Nothing is saved:
+     * the map is updated with the positions reached, for callers that persist them together
+     * with state derived from the entries. A file that cannot be read keeps its checkpoint
+     * and contributes no entries.
+     */
+    public List<LogEntry> parseDefaultLogsSince(Map<String, LogCheckpoint> checkpoints) {
+        return parseDefaultLogsSince(checkpoints, new LogDeduplicator());
+    }
+
+    /**
+     * Same as parseDefaultLogsSince(checkpoints), with cross-source duplicates dropped by the
+     * given deduplicator; restored from the window of the previous run, it also catches
+     * duplicates whose other copy was read by that run
+     */
+    public List<LogEntry> parseDefaultLogsSince(Map<String, LogCheckpoint> checkpoints, LogDeduplicator deduplicator) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(DEFAULT_LOGS, "DEFAULT_INCREMENTAL");
+        return publishReport(report, mergeDistinct(
+                readLogFileSince("logs/product-management.log", checkpoints, report),
+                readLogFileSince("structured-logs/application-logs.txt", checkpoints, report),
+                deduplicator), start);
+    }
+
+    /**
+     * Parse only the lines appended to a log file after its checkpoint in the map (missing: its
+     * rolled segments and the file from the beginning), and put the position reached in the map.
+     * A checkpoint records inode, head hash, byte offset and last timestamp. If the file was
+     * rolled over in between, the rest of the renamed file, plain or gzipped, and any newer
+     * rolled segments are read first, so nothing is read twice or missed. A trailing line
+     * without its newline is left for the next run. A file that cannot be read keeps its
+     * checkpoint and contributes no entries.
+     */
+    public List<LogEntry> parseLogFileSince(String filePath, Map<String, LogCheckpoint> checkpoints) {
+        long start = System.nanoTime();
+        ParseReport report = newReport(filePath, "INCREMENTAL");
+        return publishReport(report, readLogFileSince(filePath, checkpoints, report), start);
+    }
+
+    private List<LogEntry> readLogFileSince(String filePath, Map<String, LogCheckpoint> checkpoints, ParseReport report) {
+        IncrementalRead read = readSinceCheckpoint(filePath, checkpoints.get(filePath), report);
+        if (read.checkpoint() == null) {
+            return List.of();
+        }
+        checkpoints.put(filePath, read.checkpoint());
+        return read.entries();
+    }
+
+    /**
+     * Position of every default log file and rolled segment, keyed by path: file identity
+     * and size. Processes that see the same positions read the same log entries.
+     */
+    public Map<String, LogCheckpoint> positionsOfDefaultLogs() {
+        Map<String, LogCheckpoint> positions = new TreeMap<>();
+        for (String activeFilePath : List.of("logs/product-management.log", "structured-logs/application-logs.txt")) {
+            File activeFile = new File(activeFilePath);
+            List<File> files = findRolledSegments(activeFile);
+            if (activeFile.exists()) {
+                files.add(activeFile);
+            }
+            for (File file : files) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    LogCheckpoint position = LogFileIdentity.open(file.getPath(), LogFileIdentity.fileKey(file.toPath()), channel);
+                    position.setOffset(channel.size());
+                    positions.put(file.getPath(), position);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read log file " + file, e);
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Stream logs from default log directory without materializing them.
+     * Closing the returned stream closes every underlying file.
+     */
+    public Stream<LogEntry> streamDefaultLogs() {
+        return streamDefaultLogs(LogFilter.ALL);
+    }
+
+    /**
+     * Stream the default logs, keeping only the entries accepted by the filter
+     */
+    public Stream<LogEntry> streamDefaultLogs(LogFilter filter) {
+        LogDeduplicator deduplicator = new LogDeduplicator();
+        return deduplicator.mergeDistinctStreams(List.of(
+                        streamRolledLogSet("logs/product-management.log", filter),
+                        streamRolledLogSet("structured-logs/application-logs.txt", filter)))
+                .onClose(() -> logDuplicates(deduplicator));
+    }
+
+    /**
+     * Parse the application log together with the binary structured log segments.
+     * Structured entries are decoded instead of re-parsed from application-logs.txt.
+     */
+    public List<LogEntry> parseDefaultLogsBinary(LogFilter filter) {
+        long start = System.nanoTime();
+        ParseReport report = newReport("logs/product-management.log, " + BINARY_LOGS_DIR, "DEFAULT_BINARY");
+        List<LogEntry> applicationLogs = filter.hasTimeRange()
+                ? readRolledLogSetRange("logs/product-management.log", filter, report)
+                : readRolledLogSet("logs/product-management.log", filter, report);
+        return publishReport(report, mergeDistinct(applicationLogs, readBinaryLogs(BINARY_LOGS_DIR, filter, report)), start);
+    }
 
-        return allEntries;
+    /**
+     * Load the default logs accepted by the filter into a columnar store,
+     * which takes a fraction of the memory of the equivalent List of LogEntry
+     */
+    public ColumnarLogStore loadDefaultLogsColumnar(LogFilter filter) {
+        try (Stream<LogEntry> logs = streamDefaultLogs(filter)) {
+            return ColumnarLogStore.of(logs);
+        }
+    }
+
+    /**
+     * Merge the application and structured logs in timestamp order.
+     * Operations written to both (ProductService logger and StructuredLogger) are kept once.
+     */
+    private List<LogEntry> mergeDistinct(List<LogEntry> applicationLogs, List<LogEntry> structuredLogs) {
+        return mergeDistinct(applicationLogs, structuredLogs, new LogDeduplicator());
+    }
+
+    private List<LogEntry> mergeDistinct(List<LogEntry> applicationLogs, List<LogEntry> structuredLogs,
+                                         LogDeduplicator deduplicator) {
+        List<LogEntry> merged = deduplicator.mergeDistinct(List.of(applicationLogs, structuredLogs));
+        logDuplicates(deduplicator);
+        return merged;
+    }
+
+    private void logDuplicates(LogDeduplicator deduplicator) {
+        if (deduplicator.getDuplicates() > 0) {
+            log.info("Dropped {} cross-source duplicate entries ({} probable) out of {}",
+                    deduplicator.getDuplicates(), deduplicator.getProbableDuplicates(), deduplicator.getEntries());
+        }
+    }
+
+    /**
+     * Parse large files in parallel and small ones sequentially (both give the same result)
+     */
+    private List<LogEntry> parseLogFileAuto(String filePath, LogFilter filter, ParseReport report) {
+        File file = new File(filePath);
+        if (!isGzip(file) && file.length() >= PARALLEL_THRESHOLD) {
+            return readLogFileParallel(filePath, filter, report);
+        }
+        return readLogFile(filePath, filter, report);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keyword rule table for free-form log messages
+ * Uses Builder Pattern: MessageRules.builder().rule(List.of("registered"), (message, matches, entry) -> ...).build()
+ *
+ * All keywords of all rules are compiled into one KeywordAutomaton, so a message is scanned
+ * once however many rules there are. Rules are then applied in table order: a rule fires when
+ * any of its keywords occurs, otherwise its optional fallback runs. Actions can test other
+ * registered keywords through Matches without scanning the message again.
+ */
+public final class MessageRules {
+
+    /**
+     * What a rule does with a message
+     */
+    @FunctionalInterface
+    public interface Action {
+        void apply(String message, Matches matches, LogEntry.Builder builder);
+    }
+
+    /**
+     * Keywords found in the current message
+     */
+    public static final class Matches {
+        private final Map<String, Long> bits;
+        private final long found;
+
+        private Matches(Map<String, Long> bits, long found) {
+            this.bits = bits;
+            this.found = found;
+        }
+
+        public boolean contains(String keyword) {
+            Long bit = bits.get(keyword);
+            if (bit == null) {
+                throw new IllegalArgumentException("Keyword not registered in the rule table: " + keyword);
+            }
+            return (found & bit) != 0;
+        }
+    }
+
+    private record Rule(List<String> anyOf, Action whenMatched, Action otherwise) {}
+
+    private final List<Rule> rules;
+    private final Set<String> extraKeywords;
+    private final KeywordAutomaton automaton;
+    private final Map<String, Long> bits;
+    private final long[] ruleMasks;
+
+    private MessageRules(Builder builder) {
+        this.rules = List.copyOf(builder.rules);
+        this.extraKeywords = new LinkedHashSet<>(builder.extraKeywords);
+
+        Set<String> keywords = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            keywords.addAll(rule.anyOf());
+        }
+        keywords.addAll(extraKeywords);
+
+        this.automaton = new KeywordAutomaton(new ArrayList<>(keywords));
+        this.bits = new HashMap<>();
+        for (String keyword : keywords) {
+            bits.put(keyword, automaton.bit(keyword));
+        }
+
+        this.ruleMasks = new long[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            for (String keyword : rules.get(i).anyOf()) {
+                ruleMasks[i] |= bits.get(keyword);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder holding this table's rules, to add new message kinds on top of it
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.rules.addAll(rules);
+        builder.extraKeywords.addAll(extraKeywords);
+        return builder;
+    }
+
+    /**
+     * Scan the message once and apply every rule in order
+     */
+    public void apply(String message, LogEntry.Builder builder) {
+        long found = automaton.match(message);
+        Matches matches = new Matches(bits, found);
+
+        for (int i = 0; i < ruleMasks.length; i++) {
+            Rule rule = rules.get(i);
+            if ((found & ruleMasks[i]) != 0) {
+                rule.whenMatched().apply(message, matches, builder);
+            } else if (rule.otherwise() != null) {
+                rule.otherwise().apply(message, matches, builder);
+            }
+        }
+    }
+
+    public List<String> getKeywords() {
+        return automaton.keywords();
+    }
+
+    /**
+     * Builder Pattern for constructing MessageRules
+     */
+    public static class Builder {
+        private final List<Rule> rules = new ArrayList<>();
+        private final Set<String> extraKeywords = new LinkedHashSet<>();
+
+        /**
+         * Rule applied when the message contains any of the keywords
+         */
+        public Builder rule(List<String> anyOf, Action whenMatched) {
+            return rule(anyOf, whenMatched, null);
+        }
+
+        /**
+         * Rule with a fallback applied when none of the keywords occurs
+         */
+        public Builder rule(List<String> anyOf, Action whenMatched, Action otherwise) {
+            if (anyOf.isEmpty()) {
+                throw new IllegalArgumentException("A rule needs at least one keyword");
+            }
+            rules.add(new Rule(List.copyOf(anyOf), whenMatched, otherwise));
+            return this;
+        }
+
+        /**
+         * Keywords only tested by actions through Matches.contains()
+         */
+        public Builder keywords(String... keywords) {
+            extraKeywords.addAll(List.of(keywords));
+            return this;
+        }
+
+        public MessageRules build() {
+            return new MessageRules(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.logging_and_observability.logging.parser;
+
+import lombok.Data;
+
+/**
+ * Throughput report for a single log parsing run: one public LogParser call, with every file it read
+ */
+@Data
+public class ParseReport {
+
+    private String filePath;
+    private String mode;            // SEQUENTIAL, PARALLEL, RANGE, INCREMENTAL, ROLLED_SET, BINARY, DEFAULT...
+    private long bytes;             // Bytes read from the files
+    private long lines;             // Raw lines seen (records for binary segments)
+    private long entries;           // LogEntry objects returned
+    private int chunks;             // Number of chunks (1 per file read sequentially)
+    private long elapsedNanos;
+
+    /**
+     * Add one more file read by the run; files of a rolled set are read concurrently
+     */
+    synchronized void add(long bytes, long lines, int chunks) {
+        this.bytes += bytes;
+        this.lines += lines;
+        this.chunks += chunks;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+
+    public double getMegabytesPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? (bytes / (1024.0 * 1024.0)) / seconds : 0.0;
+    }
+
+    public double getLinesPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? lines / seconds : 0.0;
+    }
+
+    /**
+     * One-line summary suitable for logging
+     */
+    public String toSummary() {
+        return String.format("%s parse of %s: %d entries from %d lines (%.2f MB, %d chunks) in %.3fs | %.2f MB/s | %.0f lines/s",
+                mode, filePath, entries, lines, bytes / (1024.0 * 1024.0), chunks,
+                getElapsedSeconds(), getMegabytesPerSecond(), getLinesPerSecond());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.logging_and_observability.logging.parser;
+
+/**
+ * Bounded, direct-mapped dictionary for repeated low-cardinality values
+ * (thread names, levels, logger names).
+ *
+ * A lookup hashes the characters in place and only allocates a String on a miss,
+ * so a value seen on millions of lines is created once. Each slot holds one value;
+ * a colliding value replaces it, which keeps memory bounded whatever the input.
+ * Not thread-safe: use one instance per thread.
+ */
+final class StringInterner {
+
+    private final String[] slots;
+    private final int mask;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    StringInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Canonical String for the characters [start, end) of {@code text}
+     */
+    String intern(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = slots[slot];
+        if (cached != null && contentEquals(cached, text, start, end)) {
+            return cached;
+        }
+
+        String value = substring(text, start, end);
+        slots[slot] = value;
+        return value;
+    }
+
+    private static boolean contentEquals(String cached, CharSequence text, int start, int end) {
+        int length = end - start;
+        if (cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String substring(CharSequence text, int start, int end) {
+        if (text instanceof String string) {
+            return string.substring(start, end);
+        }
+        if (text instanceof CharArrayView view) {
+            return view.substring(start, end);
+        }
+        return text.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+/**
+ * Single-pass tokenizer for the ProductService log format
+ * Format: "Operation: getAllProducts | User: Alice | Email: alice@email.com | Action: READ"
+ *
+ * The message is walked once. Every "Key:" occurrence is routed through a switch
+ * on the last character of the key, and its value is read in place.
+ * The result is the same as the former regex-based parsing: first match wins
+ * for each key, "ID:"/"Name:" also match inside "ProductID:"/"ProductName:",
+ * and product IDs keep only their leading digits.
+ */
+final class StructuredLogTokenizer {
+
+    private StructuredLogTokenizer() {}
+
+    static void tokenize(String message, LogEntry.Builder builder) {
+        builder.event("PRODUCT_OPERATION");
+
+        // "ID:" and "Name:" are only read for these messages
+        boolean productResult = message.contains("Product found") || message.contains("Retrieved")
+                || message.contains("Product added") || message.contains("Product updated")
+                || message.contains("Product deleted");
+
+        String operation = null;
+        String user = null;
+        String email = null;
+        String productId = null;
+        String productName = null;
+        String action = null;
+        String price = null;
+        String id = null;
+        String name = null;
+
+        int colon = message.indexOf(':');
+        while (colon >= 0) {
+            int value = colon + 1;
+
+            switch (colon > 0 ? message.charAt(colon - 1) : ' ') {
+                case 'n' -> {
+                    if (operation == null && keyEndsAt(message, colon, "Operation")) {
+                        operation = word(message, value);
+                    } else if (action == null && keyEndsAt(message, colon, "Action")) {
+                        action = readOrWrite(message, value);
+                    }
+                }
+                case 'r' -> {
+                    if (user == null && keyEndsAt(message, colon, "User")) {
+                        user = segmentValue(message, value);
+                    }
+                }
+                case 'l' -> {
+                    if (email == null && keyEndsAt(message, colon, "Email")) {
+                        email = email(message, value);
+                    }
+                }
+                case 'D' -> {
+                    if (productId == null && keyEndsAt(message, colon, "ProductID")) {
+                        productId = digits(message, value);
+                    }
+                    if (productResult && id == null && keyEndsAt(message, colon, "ID")) {
+                        id = digits(message, value);
+                    }
+                }
+                case 'e' -> {
+                    if (productName == null && keyEndsAt(message, colon, "ProductName")) {
+                        productName = segmentValue(message, value);
+                    }
+                    if (productResult && name == null && keyEndsAt(message, colon, "Name")) {
+                        name = segmentValue(message, value);
+                    }
+                    if (price == null && keyEndsAt(message, colon, "Price")) {
+                        price = price(message, value);
+                    }
+                }
+                default -> { }
+            }
+
+            colon = message.indexOf(':', value);
+        }
+
+        boolean expensive = message.contains("Expensive product view");
+
+        if (expensive) {
+            builder.action("viewExpensiveProduct");
+        } else if (operation != null) {
+            builder.action(operation);
+        }
+
+        if (user != null) {
+            String userName = user.trim();
+            if (!userName.equals("Unknown")) {
+                builder.userName(userName);
+            }
+        }
+
+        if (email != null) {
+            builder.userEmail(email);
+        }
+
+        if (id != null) {
+            builder.resourceId(id);
+        } else if (productId != null) {
+            builder.resourceId(productId);
+        }
+        if (productId != null || productName != null || id != null) {
+            builder.resourceType("PRODUCT");
+        }
+
+        if (name != null) {
+            builder.resourceName(name.trim());
+        } else if (productName != null) {
+            builder.resourceName(productName.trim());
+        }
+
+        if (expensive) {
+            builder.operationType("SEARCH_EXPENSIVE");
+        } else if (action != null) {
+            builder.operationType(action);
+        }
+
+        if (price != null) {
+            builder.resourcePrice(Double.parseDouble(price));
+        }
+
+        // Set result
+        if (message.contains("SUCCESS")) {
+            builder.result("SUCCESS");
+        } else if (message.contains("ERROR")) {
+            builder.result("ERROR");
+        }
+    }
+
+    private static boolean keyEndsAt(String message, int colon, String key) {
+        int start = colon - key.length();
+        return start >= 0 && message.startsWith(key, start);
+    }
+
+    // Same characters as the regex class \s
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipSpaces(String message, int from) {
+        int i = from;
+        while (i < message.length() && isSpace(message.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * \s*(\w+)
+     */
+    private static String word(String message, int from) {
+        int start = skipSpaces(message, from);
+        int end = start;
+        while (end < message.length() && isWordChar(message.charAt(end))) {
+            end++;
+        }
+        return end > start ? message.substring(start, end) : null;
+    }
+
+    /**
+     * \s*(\d+)
+     */
+    private static String digits(String message, int from) {
+        int start = skipSpaces(message, from);
+        int end = start;
+        while (end < message.length() && isDigit(message.charAt(end))) {
+            end++;
+        }
+        return end > start ? message.substring(start, end) : null;
+    }
+
+    /**
+     * \s*(READ|WRITE)
+     */
+    private static String readOrWrite(String message, int from) {
+        int start = skipSpaces(message, from);
+        if (message.startsWith("READ", start)) {
+            return "READ";
+        }
+        if (message.startsWith("WRITE", start)) {
+            return "WRITE";
+        }
+        return null;
+    }
+
+    /**
+     * \s*€([\d.]+)
+     */
+    private static String price(String message, int from) {
+        int start = skipSpaces(message, from);
+        if (start >= message.length() || message.charAt(start) != '€') {
+            return null;
+        }
+        int end = ++start;
+        while (end < message.length() && (isDigit(message.charAt(end)) || message.charAt(end) == '.')) {
+            end++;
+        }
+        return end > start ? message.substring(start, end) : null;
+    }
+
+    /**
+     * \s*([^|]+?)\s*(?:\||$) - the rest of the segment without surrounding whitespace
+     */
+    private static String segmentValue(String message, int from) {
+        int segmentEnd = message.indexOf('|', from);
+        if (segmentEnd < 0) {
+            segmentEnd = message.length();
+        }
+        if (segmentEnd == from) {
+            return null;
+        }
+
+        int start = skipSpaces(message, from);
+        if (start >= segmentEnd) {
+            // Whitespace-only value: the lazy group still takes one character
+            return message.substring(segmentEnd - 1, segmentEnd);
+        }
+
+        int end = segmentEnd;
+        while (end > start && isSpace(message.charAt(end - 1))) {
+            end--;
+        }
+        return message.substring(start, end);
+    }
+
+    /**
+     * \s*([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,})
+     */
+    private static String email(String message, int from) {
+        int length = message.length();
+        int start = skipSpaces(message, from);
+
+        int at = start;
+        while (at < length && isEmailLocalChar(message.charAt(at))) {
+            at++;
+        }
+        if (at == start || at >= length || message.charAt(at) != '@') {
+            return null;
+        }
+
+        int domainEnd = at + 1;
+        while (domainEnd < length && isEmailDomainChar(message.charAt(domainEnd))) {
+            domainEnd++;
+        }
+
+        // Last '.' that leaves a non-empty domain and is followed by at least two letters
+        for (int dot = domainEnd - 1; dot >= at + 2; dot--) {
+            if (message.charAt(dot) == '.' && dot + 2 < length
+                    && isLetter(message.charAt(dot + 1)) && isLetter(message.charAt(dot + 2))) {
+                int end = dot + 3;
+                while (end < length && isLetter(message.charAt(end))) {
+                    end++;
+                }
+                return message.substring(start, end);
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isEmailLocalChar(char c) {
+        return isLetter(c) || isDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isEmailDomainChar(char c) {
+        return isLetter(c) || isDigit(c) || c == '.' || c == '-';
+    }
+}
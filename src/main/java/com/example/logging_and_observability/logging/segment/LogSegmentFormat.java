@@ -0,0 +1,107 @@
+package com.example.logging_and_observability.logging.segment;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary segment format for LogEntry records (.lseg)
+ *
+ * Layout:
+ *   header  fixed 48 bytes: magic, version, flags, entry count, min/max timestamp, index offset
+ *           (min > max when no entry has a timestamp)
+ *   records one per entry, grouped in blocks of BLOCK_ENTRIES
+ *   index   written on close: block table (offset, first record, dictionary size, time range),
+ *           the string dictionary and the dictionary codes of the user emails in the segment
+ *
+ * A record starts with a varint presence mask, followed by the present fields in bit order.
+ * Timestamps are epoch milliseconds (UTC), zigzag-delta encoded against the previous record
+ * of the same block, so every block decodes on its own. Dictionary fields are written as
+ * varint (code << 1), or as (1) followed by the string the first time it occurs; codes are
+ * assigned in order of first use. Other strings are varint length + UTF-8, prices are raw
+ * doubles and durations zigzag varints.
+ * A segment that was not closed has no index; readers then scan records up to the last complete one.
+ */
+final class LogSegmentFormat {
+
+    static final int MAGIC = 0x4C534731;   // "LSG1"
+    static final short VERSION = 1;
+    static final short FLAG_COMPLETE = 1;
+    static final int HEADER_SIZE = 48;
+
+    static final int OFFSET_FLAGS = 6;
+    static final int OFFSET_ENTRY_COUNT = 8;
+    static final int OFFSET_MIN_TIMESTAMP = 16;
+    static final int OFFSET_MAX_TIMESTAMP = 24;
+    static final int OFFSET_INDEX = 32;
+
+    static final int BLOCK_ENTRIES = 1024;
+
+    static final String FILE_EXTENSION = ".lseg";
+
+    // Presence bits, in record order
+    static final int TIMESTAMP = 1;
+    static final int LEVEL = 1 << 1;
+    static final int LOGGER = 1 << 2;
+    static final int THREAD = 1 << 3;
+    static final int EVENT = 1 << 4;
+    static final int USER_NAME = 1 << 5;
+    static final int USER_EMAIL = 1 << 6;
+    static final int ACTION = 1 << 7;
+    static final int RESOURCE_TYPE = 1 << 8;
+    static final int RESOURCE_ID = 1 << 9;
+    static final int RESOURCE_NAME = 1 << 10;
+    static final int RESOURCE_PRICE = 1 << 11;
+    static final int OPERATION_TYPE = 1 << 12;
+    static final int RESULT = 1 << 13;
+    static final int ERROR_MESSAGE = 1 << 14;
+    static final int DURATION = 1 << 15;
+    static final int ADDITIONAL_INFO = 1 << 16;
+
+    private LogSegmentFormat() {}
+
+    static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Smallest stored timestamp not before the given one, for range bounds
+     */
+    static long toEpochMillisCeiling(LocalDateTime timestamp) {
+        long millis = toEpochMillis(timestamp);
+        return timestamp.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+    }
+
+    static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Varint out of range: " + value);
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.logging_and_observability.logging.segment;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.example.logging_and_observability.logging.segment.LogSegmentFormat.*;
+
+/**
+ * Reads LogEntry records back from a binary segment file
+ *
+ * The file is memory-mapped once (or read into the heap by load(), so that no mapping
+ * keeps it in use); streams decode records straight from the buffer, without any text parsing. For closed segments the index lets time-range reads skip
+ * whole blocks and lets callers skip segments that never saw a user.
+ * Segments that were not closed (writer still running, or crashed) are read sequentially
+ * up to the last complete record.
+ * Thread-safe: every stream works on its own view of the mapping.
+ */
+public class LogSegmentReader {
+
+    private final Path path;
+    private final ByteBuffer data;
+    private final boolean complete;
+    private final long entryCount;
+    private final long minMillis;
+    private final long maxMillis;
+    private final int recordsEnd;
+
+    // Index, only for complete segments
+    private final List<long[]> blocks = new ArrayList<>();   // offset, first record, dictionary size, min, max
+    private final List<String> dictionary = new ArrayList<>();
+    private final Set<String> userEmails = new HashSet<>();
+
+    private LogSegmentReader(Path path, ByteBuffer data) throws IOException {
+        this.path = path;
+        this.data = data;
+
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a log segment: " + path);
+        }
+        if (data.getShort(4) != VERSION) {
+            throw new IOException("Unsupported log segment version " + data.getShort(4) + ": " + path);
+        }
+
+        long indexOffset = data.getLong(OFFSET_INDEX);
+        this.complete = (data.getShort(OFFSET_FLAGS) & FLAG_COMPLETE) != 0 && indexOffset >= HEADER_SIZE;
+        this.entryCount = data.getLong(OFFSET_ENTRY_COUNT);
+        this.minMillis = data.getLong(OFFSET_MIN_TIMESTAMP);
+        this.maxMillis = data.getLong(OFFSET_MAX_TIMESTAMP);
+        this.recordsEnd = complete ? (int) indexOffset : data.limit();
+
+        if (complete) {
+            readIndex((int) indexOffset);
+        }
+    }
+
+    /**
+     * Map a segment file for reading
+     */
+    public static LogSegmentReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Log segment too large to map: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new LogSegmentReader(path, mapped.order(ByteOrder.BIG_ENDIAN));
+        }
+    }
+
+    /**
+     * Read a segment file into the heap. Unlike open(), nothing refers to the file afterwards,
+     * so it can be deleted right away on every platform.
+     */
+    public static LogSegmentReader load(Path path) throws IOException {
+        return new LogSegmentReader(path, ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.BIG_ENDIAN));
+    }
+
+    private void readIndex(int indexOffset) throws IOException {
+        ByteBuffer index = data.duplicate().position(indexOffset);
+        try {
+            int blockCount = readVarInt(index);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new long[]{readVarLong(index), readVarLong(index), readVarLong(index),
+                        unzigzag(readVarLong(index)), unzigzag(readVarLong(index))});
+            }
+            int dictionarySize = readVarInt(index);
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary.add(readString(index));
+            }
+            int emailCount = readVarInt(index);
+            for (int i = 0; i < emailCount; i++) {
+                userEmails.add(dictionary.get(readVarInt(index)));
+            }
+        } catch (BufferUnderflowException | IllegalStateException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted log segment index: " + path, e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * True if the segment was closed by its writer and has an index
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Entries in a complete segment; for an open one, the count at the writer's last flush
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return minMillis <= maxMillis ? fromEpochMillis(minMillis) : null;
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return minMillis <= maxMillis ? fromEpochMillis(maxMillis) : null;
+    }
+
+    /**
+     * False only when the index proves the segment holds no entry of this user
+     */
+    public boolean mayContainUser(String userEmail) {
+        return !complete || userEmails.contains(userEmail);
+    }
+
+    /**
+     * False only when the header proves no entry falls in [from, to); null bounds are open
+     */
+    public boolean mayOverlap(LocalDateTime from, LocalDateTime to) {
+        if (!complete) {
+            return true;
+        }
+        if (minMillis > maxMillis) {
+            return entryCount > 0 && from == null && to == null;
+        }
+        return (from == null || maxMillis >= toEpochMillisCeiling(from))
+                && (to == null || minMillis < toEpochMillisCeiling(to));
+    }
+
+    public List<LogEntry> readAll() {
+        try (Stream<LogEntry> entries = stream()) {
+            return entries.collect(Collectors.toList());
+        }
+    }
+
+    public Stream<LogEntry> stream() {
+        return stream(null, null);
+    }
+
+    /**
+     * Entries with from <= timestamp < to, in file order; null bounds are open.
+     * Entries without timestamp are only returned when both bounds are open.
+     */
+    public Stream<LogEntry> stream(LocalDateTime from, LocalDateTime to) {
+        long fromMillis = from == null ? Long.MIN_VALUE : toEpochMillisCeiling(from);
+        long toMillis = to == null ? Long.MAX_VALUE : toEpochMillisCeiling(to);
+        boolean unbounded = from == null && to == null;
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(new RecordIterator(fromMillis, toMillis, unbounded),
+                        Spliterator.ORDERED | Spliterator.NONNULL),
+                false);
+    }
+
+    /**
+     * Decodes records one at a time, skipping blocks outside the time range
+     */
+    private final class RecordIterator implements Iterator<LogEntry> {
+        private final ByteBuffer buffer = data.duplicate();
+        private final long fromMillis;
+        private final long toMillis;
+        private final boolean unbounded;
+
+        // Open segments build their dictionary while reading
+        private final List<String> codes = complete ? dictionary : new ArrayList<>();
+        private int nextCode;
+        private long record;
+        private long previousMillis;
+        private int block = -1;
+        private long blockEnd;
+
+        private LogEntry next;
+        private boolean done;
+
+        private RecordIterator(long fromMillis, long toMillis, boolean unbounded) {
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.unbounded = unbounded;
+            buffer.position(HEADER_SIZE).limit(recordsEnd);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public LogEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LogEntry entry = next;
+            next = null;
+            return entry;
+        }
+
+        /**
+         * Next record in range, or null when the current one is filtered out
+         */
+        private LogEntry advance() {
+            if (complete && record == blockEnd && !enterNextBlock()) {
+                done = true;
+                return null;
+            }
+            if (!buffer.hasRemaining()) {
+                done = true;
+                return null;
+            }
+
+            int start = buffer.position();
+            try {
+                LogEntry entry = decode();
+                record++;
+                if (entry.getTimestamp() == null) {
+                    return unbounded ? entry : null;
+                }
+                long millis = toEpochMillis(entry.getTimestamp());
+                return millis >= fromMillis && millis < toMillis ? entry : null;
+            } catch (BufferUnderflowException | IllegalStateException | IndexOutOfBoundsException e) {
+                // Partial trailing record of a segment that is still being written
+                buffer.position(start);
+                done = true;
+                return null;
+            }
+        }
+
+        /**
+         * Position at the next block overlapping the time range
+         */
+        private boolean enterNextBlock() {
+            while (++block < blocks.size()) {
+                long[] b = blocks.get(block);
+                long end = block + 1 < blocks.size() ? blocks.get(block + 1)[1] : entryCount;
+                boolean overlaps = b[3] <= b[4] ? b[4] >= fromMillis && b[3] < toMillis : unbounded;
+                if (overlaps) {
+                    buffer.position((int) b[0]);
+                    record = b[1];
+                    nextCode = (int) b[2];
+                    blockEnd = end;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private LogEntry decode() {
+            if (record % BLOCK_ENTRIES == 0) {
+                previousMillis = 0;
+            }
+
+            int presence = readVarInt(buffer);
+            LogEntry.Builder builder = LogEntry.builder();
+
+            if ((presence & TIMESTAMP) != 0) {
+                previousMillis += unzigzag(readVarLong(buffer));
+                builder.timestamp(fromEpochMillis(previousMillis));
+            }
+            if ((presence & LEVEL) != 0) builder.level(readCode());
+            if ((presence & LOGGER) != 0) builder.logger(readCode());
+            if ((presence & THREAD) != 0) builder.thread(readCode());
+            if ((presence & EVENT) != 0) builder.event(readCode());
+            if ((presence & USER_NAME) != 0) builder.userName(readCode());
+            if ((presence & USER_EMAIL) != 0) builder.userEmail(readCode());
+            if ((presence & ACTION) != 0) builder.action(readCode());
+            if ((presence & RESOURCE_TYPE) != 0) builder.resourceType(readCode());
+            if ((presence & RESOURCE_ID) != 0) builder.resourceId(readString(buffer));
+            if ((presence & RESOURCE_NAME) != 0) builder.resourceName(readString(buffer));
+            if ((presence & RESOURCE_PRICE) != 0) builder.resourcePrice(buffer.getDouble());
+            if ((presence & OPERATION_TYPE) != 0) builder.operationType(readCode());
+            if ((presence & RESULT) != 0) builder.result(readCode());
+            if ((presence & ERROR_MESSAGE) != 0) builder.errorMessage(readString(buffer));
+            if ((presence & DURATION) != 0) builder.duration(unzigzag(readVarLong(buffer)));
+            if ((presence & ADDITIONAL_INFO) != 0) builder.additionalInfo(readString(buffer));
+
+            // build() fills in defaults; keep absent fields absent
+            LogEntry entry = builder.build();
+            if ((presence & TIMESTAMP) == 0) {
+                entry.setTimestamp(null);
+            }
+            if ((presence & LEVEL) == 0) {
+                entry.setLevel(null);
+            }
+            return entry;
+        }
+
+        private String readCode() {
+            long value = readVarLong(buffer);
+            if ((value & 1) == 0) {
+                return codes.get((int) (value >>> 1));
+            }
+
+            // First occurrence, defined inline
+            String defined = readString(buffer);
+            if (complete) {
+                return codes.get(nextCode++);
+            }
+            codes.add(defined);
+            return defined;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.logging_and_observability.logging.segment;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.logging_and_observability.logging.segment.LogSegmentFormat.*;
+
+/**
+ * Writes LogEntry records to a binary segment file
+ *
+ * Records are encoded into an in-memory buffer and written to the file whenever it fills up
+ * or flush() is called. close() appends the index and completes the header.
+ * Thread-safe.
+ */
+public class LogSegmentWriter implements Closeable, Flushable {
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private long filePosition = HEADER_SIZE;
+
+    private byte[] buffer = new byte[FLUSH_THRESHOLD + 4096];
+    private int length;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> dictionaryStrings = new ArrayList<>();
+    private final Set<Integer> userEmailCodes = new LinkedHashSet<>();
+
+    private final List<long[]> blocks = new ArrayList<>();   // offset, first record, dictionary size, min, max
+    private long previousMillis;
+
+    private long entryCount;
+    private long minMillis = Long.MAX_VALUE;
+    private long maxMillis = Long.MIN_VALUE;
+    private boolean closed;
+
+    private LogSegmentWriter(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        writeHeader(false);
+    }
+
+    /**
+     * Create a new segment file; fails if it already exists
+     */
+    public static LogSegmentWriter create(Path path) throws IOException {
+        return new LogSegmentWriter(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Append an entry. Timestamps are stored with millisecond precision.
+     */
+    public synchronized void write(LogEntry entry) throws IOException {
+        if (closed) {
+            throw new IOException("Segment already closed: " + path);
+        }
+
+        if (entryCount % BLOCK_ENTRIES == 0) {
+            blocks.add(new long[]{filePosition + length, entryCount, dictionaryStrings.size(), Long.MAX_VALUE, Long.MIN_VALUE});
+            previousMillis = 0;
+        }
+
+        int presence = (entry.getTimestamp() != null ? TIMESTAMP : 0)
+                | (entry.getLevel() != null ? LEVEL : 0)
+                | (entry.getLogger() != null ? LOGGER : 0)
+                | (entry.getThread() != null ? THREAD : 0)
+                | (entry.getEvent() != null ? EVENT : 0)
+                | (entry.getUserName() != null ? USER_NAME : 0)
+                | (entry.getUserEmail() != null ? USER_EMAIL : 0)
+                | (entry.getAction() != null ? ACTION : 0)
+                | (entry.getResourceType() != null ? RESOURCE_TYPE : 0)
+                | (entry.getResourceId() != null ? RESOURCE_ID : 0)
+                | (entry.getResourceName() != null ? RESOURCE_NAME : 0)
+                | (entry.getResourcePrice() != null ? RESOURCE_PRICE : 0)
+                | (entry.getOperationType() != null ? OPERATION_TYPE : 0)
+                | (entry.getResult() != null ? RESULT : 0)
+                | (entry.getErrorMessage() != null ? ERROR_MESSAGE : 0)
+                | (entry.getDuration() != null ? DURATION : 0)
+                | (entry.getAdditionalInfo() != null ? ADDITIONAL_INFO : 0);
+
+        putVarLong(presence);
+        if ((presence & TIMESTAMP) != 0) {
+            long millis = toEpochMillis(entry.getTimestamp());
+            putVarLong(zigzag(millis - previousMillis));
+            previousMillis = millis;
+
+            long[] block = blocks.get(blocks.size() - 1);
+            block[3] = Math.min(block[3], millis);
+            block[4] = Math.max(block[4], millis);
+            minMillis = Math.min(minMillis, millis);
+            maxMillis = Math.max(maxMillis, millis);
+        }
+
+        if ((presence & LEVEL) != 0) putCode(entry.getLevel());
+        if ((presence & LOGGER) != 0) putCode(entry.getLogger());
+        if ((presence & THREAD) != 0) putCode(entry.getThread());
+        if ((presence & EVENT) != 0) putCode(entry.getEvent());
+        if ((presence & USER_NAME) != 0) putCode(entry.getUserName());
+        if ((presence & USER_EMAIL) != 0) userEmailCodes.add(putCode(entry.getUserEmail()));
+        if ((presence & ACTION) != 0) putCode(entry.getAction());
+        if ((presence & RESOURCE_TYPE) != 0) putCode(entry.getResourceType());
+        if ((presence & RESOURCE_ID) != 0) putString(entry.getResourceId());
+        if ((presence & RESOURCE_NAME) != 0) putString(entry.getResourceName());
+        if ((presence & RESOURCE_PRICE) != 0) putDouble(entry.getResourcePrice());
+        if ((presence & OPERATION_TYPE) != 0) putCode(entry.getOperationType());
+        if ((presence & RESULT) != 0) putCode(entry.getResult());
+        if ((presence & ERROR_MESSAGE) != 0) putString(entry.getErrorMessage());
+        if ((presence & DURATION) != 0) putVarLong(zigzag(entry.getDuration()));
+        if ((presence & ADDITIONAL_INFO) != 0) putString(entry.getAdditionalInfo());
+
+        entryCount++;
+
+        if (length >= FLUSH_THRESHOLD) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Write buffered records to the file (without forcing them to disk)
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            writeBuffer();
+            writeHeader(false);
+        }
+    }
+
+    /**
+     * Write the index and the final header, then close the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            writeBuffer();
+            long indexOffset = filePosition;
+
+            putVarLong(blocks.size());
+            for (long[] block : blocks) {
+                putVarLong(block[0]);
+                putVarLong(block[1]);
+                putVarLong(block[2]);
+                putVarLong(zigzag(block[3]));
+                putVarLong(zigzag(block[4]));
+            }
+            putVarLong(dictionaryStrings.size());
+            for (String value : dictionaryStrings) {
+                putString(value);
+            }
+            putVarLong(userEmailCodes.size());
+            for (int code : userEmailCodes) {
+                putVarLong(code);
+            }
+            writeBuffer();
+
+            ByteBuffer header = headerBuffer(true);
+            header.putLong(OFFSET_INDEX, indexOffset);
+            channel.write(header, 0);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeHeader(boolean complete) throws IOException {
+        channel.write(headerBuffer(complete), 0);
+    }
+
+    private ByteBuffer headerBuffer(boolean complete) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort(complete ? FLAG_COMPLETE : 0);
+        header.putLong(entryCount);
+        header.putLong(minMillis);
+        header.putLong(maxMillis);
+        header.putLong(0);   // index offset, set on close
+        header.putLong(0);   // reserved
+        header.flip();
+        return header;
+    }
+
+    private void writeBuffer() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+        while (bytes.hasRemaining()) {
+            filePosition += channel.write(bytes, filePosition);
+        }
+        length = 0;
+    }
+
+    /**
+     * Dictionary code of a value, defining it inline on first use
+     */
+    private int putCode(String value) {
+        Integer code = dictionary.get(value);
+        if (code != null) {
+            putVarLong((long) code << 1);
+            return code;
+        }
+
+        int newCode = dictionaryStrings.size();
+        dictionary.put(value, newCode);
+        dictionaryStrings.add(value);
+        putVarLong(1);
+        putString(value);
+        return newCode;
+    }
+
+    private void putString(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(utf8.length);
+        ensureCapacity(utf8.length);
+        System.arraycopy(utf8, 0, buffer, length, utf8.length);
+        length += utf8.length;
+    }
+
+    private void putDouble(double value) {
+        ensureCapacity(Long.BYTES);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (bits >>> shift);
+        }
+    }
+
+    private void putVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
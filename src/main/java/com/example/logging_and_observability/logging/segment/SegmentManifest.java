@@ -0,0 +1,166 @@
+package com.example.logging_and_observability.logging.segment;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manifest of the rolled segments of a structured log file
+ *
+ * Stored next to the active file (application-logs.txt -> application-logs.manifest.json),
+ * it records for every rolled segment its file names, time range and entry count, so
+ * range reads can skip segments without opening them and retention can delete old
+ * segments without reading them.
+ * Thread-safe.
+ */
+@Slf4j
+public class SegmentManifest {
+
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+
+    private final Path manifestFile;
+    private final ObjectMapper objectMapper;
+    private final List<Segment> segments;
+
+    private SegmentManifest(Path manifestFile, List<Segment> segments) {
+        this.manifestFile = manifestFile;
+        this.segments = segments;
+        this.objectMapper = newObjectMapper();
+    }
+
+    /**
+     * Manifest of an active log file; empty if none was written yet
+     */
+    public static SegmentManifest load(Path activeFile) {
+        Path manifestFile = manifestPath(activeFile);
+        List<Segment> segments = new ArrayList<>();
+        if (Files.exists(manifestFile)) {
+            try {
+                segments = newObjectMapper().readValue(manifestFile.toFile(), new TypeReference<ArrayList<Segment>>() {});
+            } catch (IOException e) {
+                log.warn("Unreadable segment manifest {}, ignoring it", manifestFile, e);
+            }
+        }
+        return new SegmentManifest(manifestFile, segments);
+    }
+
+    public static Path manifestPath(Path activeFile) {
+        String name = activeFile.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        String base = extension > 0 ? name.substring(0, extension) : name;
+        return activeFile.resolveSibling(base + MANIFEST_SUFFIX);
+    }
+
+    private static ObjectMapper newObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return objectMapper;
+    }
+
+    public synchronized List<Segment> getSegments() {
+        return new ArrayList<>(segments);
+    }
+
+    /**
+     * Segment whose current file name (plain or compressed) is the given one, or null
+     */
+    public synchronized Segment find(String fileName) {
+        for (Segment segment : segments) {
+            if (fileName.equals(segment.getFile())) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void add(Segment segment) {
+        segments.add(segment);
+        save();
+    }
+
+    /**
+     * Record that a segment's files were replaced by their compressed versions
+     */
+    public synchronized void markCompressed(String file, String compressedFile, String compressedJsonLinesFile,
+                                            long storedBytes) {
+        Segment segment = find(file);
+        if (segment != null) {
+            segment.setFile(compressedFile);
+            segment.setJsonLinesFile(compressedJsonLinesFile);
+            segment.setStoredBytes(storedBytes);
+            segment.setCompressed(true);
+            save();
+        }
+    }
+
+    /**
+     * Remove and return the segments whose newest entry is older than the cutoff
+     */
+    public synchronized List<Segment> removeOlderThan(LocalDateTime cutoff) {
+        List<Segment> removed = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.getMaxTimestamp() != null && segment.getMaxTimestamp().isBefore(cutoff)) {
+                removed.add(segment);
+            }
+        }
+        if (!removed.isEmpty()) {
+            segments.removeAll(removed);
+            save();
+        }
+        return removed;
+    }
+
+    private void save() {
+        // Write to a temporary file first so a crash never leaves a half-written manifest
+        Path temp = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), segments);
+            try {
+                Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.error("Failed to save segment manifest {}", manifestFile, e);
+        }
+    }
+
+    /**
+     * One rolled segment: the text file and the matching JSON Lines file
+     */
+    @Data
+    public static class Segment {
+        private String file;                // text segment, relative to the manifest directory
+        private String jsonLinesFile;       // JSON Lines segment, null if there was none
+        private long entries;
+        private long bytes;                 // uncompressed size of the text segment
+        private long storedBytes;           // size on disk, after compression
+        private boolean compressed;
+        private LocalDateTime minTimestamp;         // full precision, so range checks are exact
+        private LocalDateTime maxTimestamp;
+
+        /**
+         * False only if no entry of the segment can fall in [from, to); null bounds are open
+         */
+        public boolean mayOverlap(LocalDateTime from, LocalDateTime to) {
+            if (minTimestamp == null || maxTimestamp == null) {
+                return true;
+            }
+            return (to == null || minTimestamp.isBefore(to)) && (from == null || !maxTimestamp.isBefore(from));
+        }
+    }
+}
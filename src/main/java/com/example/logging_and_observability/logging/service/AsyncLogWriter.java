@@ -0,0 +1,348 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves log writes off the calling threads
+ *
+ * Producers enqueue entries into a bounded lock-free ring buffer and return immediately.
+ * A single writer thread drains the buffer and hands entries to the sink in batches
+ * (group commit): a batch is written when it reaches maxBatchSize, when the oldest queued
+ * entry has waited flushInterval, or on flush()/close().
+ * When the buffer is full, the backpressure policy decides whether producers wait (BLOCK),
+ * lose the entry (DROP), or keep only one entry in sampleRate while the buffer is under
+ * pressure (SAMPLE).
+ * Entries submitted once close() has started are dropped and counted as such; every entry
+ * accepted before is written by the final drain.
+ */
+@Slf4j
+public class AsyncLogWriter implements AutoCloseable {
+
+    /**
+     * What producers do when the buffer is full
+     */
+    public enum Backpressure {
+        BLOCK,      // wait for the writer to make room; nothing is lost
+        DROP,       // discard the new entry
+        SAMPLE      // above the high watermark keep 1 entry in sampleRate, discard when full
+    }
+
+    /**
+     * Receives batches on the writer thread
+     */
+    @FunctionalInterface
+    public interface BatchSink {
+        void write(List<LogEntry> batch) throws IOException;
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Config config;
+    private final BatchSink sink;
+    private final LogRingBuffer<LogEntry> queue;
+    private final int highWatermark;
+    private final Thread writerThread;
+
+    private volatile boolean closed;                // no more entries accepted
+    private volatile boolean stopping;              // no producer can enqueue any more: drain and exit
+    private volatile boolean flushRequested;
+    private final AtomicInteger activeProducers = new AtomicInteger();
+
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private volatile long written;          // written by the writer thread only
+    private volatile long failed;
+    private volatile long batches;
+    private volatile long writeErrors;
+
+    public AsyncLogWriter(Config config, BatchSink sink) {
+        this.config = config;
+        this.sink = sink;
+        this.queue = new LogRingBuffer<>(config.queueCapacity);
+        this.highWatermark = queue.capacity() - queue.capacity() / 4;
+
+        this.writerThread = new Thread(this::runWriter, config.threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue an entry for writing; returns false if it was dropped or sampled out,
+     * or if the writer is closed
+     */
+    public boolean submit(LogEntry entry) {
+        submitted.incrementAndGet();
+        // Registered before checking closed, so close() waits for this entry to be queued
+        activeProducers.incrementAndGet();
+        try {
+            if (closed) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return enqueue(entry);
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    private boolean enqueue(LogEntry entry) {
+        if (config.backpressure == Backpressure.SAMPLE && queue.size() >= highWatermark
+                && sampleCounter.incrementAndGet() % config.sampleRate != 0) {
+            sampledOut.incrementAndGet();
+            return false;
+        }
+
+        if (!queue.offer(entry)) {
+            if (config.backpressure != Backpressure.BLOCK) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            long start = System.nanoTime();
+            boolean offered;
+            do {
+                LockSupport.unpark(writerThread);
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            } while (!(offered = queue.offer(entry)) && !closed);
+            blockedNanos.addAndGet(System.nanoTime() - start);
+            if (!offered) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+
+        enqueued.incrementAndGet();
+        int depth = queue.size();
+        if (depth > maxQueueDepth.get()) {
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+        if (depth >= config.maxBatchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    /**
+     * Wait until every entry queued before this call has been handed to the sink
+     */
+    public void flush() {
+        long target = enqueued.get();
+        while (written + failed < target && writerThread.isAlive()) {
+            flushRequested = true;
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Write everything still queued and stop the writer thread
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // Producers past the closed check finish queueing before the final drain
+        while (activeProducers.get() > 0) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        stopping = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<LogEntry> batch = new ArrayList<>(config.maxBatchSize);
+        long flushIntervalNanos = config.flushInterval.toNanos();
+        long oldestQueuedAt = 0;
+
+        while (true) {
+            boolean closing = stopping;
+            if (!queue.isEmpty() && oldestQueuedAt == 0) {
+                oldestQueuedAt = System.nanoTime();
+            }
+
+            long waited = oldestQueuedAt == 0 ? 0 : System.nanoTime() - oldestQueuedAt;
+            boolean due = queue.size() >= config.maxBatchSize || waited >= flushIntervalNanos
+                    || flushRequested || closing;
+
+            if (due && !queue.isEmpty()) {
+                flushRequested = false;
+                // Drain in batches until the buffer is empty
+                while (queue.drainTo(batch, config.maxBatchSize) > 0) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                oldestQueuedAt = 0;
+            } else if (closing) {
+                return;
+            } else {
+                flushRequested = false;
+                long park = oldestQueuedAt == 0 ? flushIntervalNanos : flushIntervalNanos - waited;
+                LockSupport.parkNanos(this, Math.max(park, 1));
+            }
+        }
+    }
+
+    private void writeBatch(List<LogEntry> batch) {
+        try {
+            sink.write(batch);
+            written += batch.size();
+        } catch (IOException | RuntimeException e) {
+            failed += batch.size();
+            writeErrors++;
+            log.error("Failed to write a batch of {} log entries", batch.size(), e);
+        }
+        batches++;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * Current counters of the writer
+     */
+    public Metrics getMetrics() {
+        return new Metrics(queue.size(), queue.capacity(), maxQueueDepth.get(), submitted.get(), enqueued.get(),
+                written, failed, dropped.get(), sampledOut.get(), batches, writeErrors,
+                TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()));
+    }
+
+    /**
+     * Snapshot of the writer counters
+     */
+    public record Metrics(int queueDepth, int queueCapacity, long maxQueueDepth, long submitted, long enqueued,
+                          long written, long failed, long dropped, long sampledOut, long batches,
+                          long writeErrors, long blockedMillis) {
+
+        public double averageBatchSize() {
+            return batches > 0 ? (double) (written + failed) / batches : 0.0;
+        }
+    }
+
+    /**
+     * Settings of an AsyncLogWriter
+     */
+    public static final class Config {
+        private final int queueCapacity;
+        private final int maxBatchSize;
+        private final Duration flushInterval;
+        private final Backpressure backpressure;
+        private final int sampleRate;
+        private final String threadName;
+
+        private Config(Builder builder) {
+            this.queueCapacity = builder.queueCapacity;
+            this.maxBatchSize = builder.maxBatchSize;
+            this.flushInterval = builder.flushInterval;
+            this.backpressure = builder.backpressure;
+            this.sampleRate = builder.sampleRate;
+            this.threadName = builder.threadName;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public Backpressure getBackpressure() {
+            return backpressure;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Default settings: 8192 queued entries, batches of up to 256, 100 ms flush interval, BLOCK
+         */
+        public static Config defaults() {
+            return builder().build();
+        }
+
+        /**
+         * Builder Pattern for the writer settings
+         */
+        public static class Builder {
+            private int queueCapacity = 8192;
+            private int maxBatchSize = 256;
+            private Duration flushInterval = Duration.ofMillis(100);
+            private Backpressure backpressure = Backpressure.BLOCK;
+            private int sampleRate = 10;
+            private String threadName = "async-log-writer";
+
+            public Builder queueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+                return this;
+            }
+
+            public Builder maxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+                return this;
+            }
+
+            public Builder flushInterval(Duration flushInterval) {
+                this.flushInterval = flushInterval;
+                return this;
+            }
+
+            public Builder backpressure(Backpressure backpressure) {
+                this.backpressure = backpressure;
+                return this;
+            }
+
+            /**
+             * Under SAMPLE, keep one entry in sampleRate while the buffer is above its high watermark
+             */
+            public Builder sampleRate(int sampleRate) {
+                this.sampleRate = sampleRate;
+                return this;
+            }
+
+            public Builder threadName(String threadName) {
+                this.threadName = threadName;
+                return this;
+            }
+
+            public Config build() {
+                if (queueCapacity < 2 || maxBatchSize < 1 || sampleRate < 1
+                        || flushInterval.isNegative() || flushInterval.isZero()) {
+                    throw new IllegalArgumentException("Invalid async writer settings");
+                }
+                return new Config(this);
+            }
+        }
+    }
+}
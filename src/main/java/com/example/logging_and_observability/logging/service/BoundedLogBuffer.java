@@ -0,0 +1,211 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded in-memory window of the most recent log entries
+ *
+ * A ring of capacity slots: each add claims the next sequence number with one atomic
+ * increment and overwrites the oldest entry once the ring is full, so writers never block
+ * or retry. Slots carry their sequence number, which lets snapshot() return the retained
+ * entries in order while writers keep adding: an entry overwritten during the copy is left
+ * out instead of being mixed up with its successor.
+ * User email, event and operation type are indexed by sequence number (see PostingsIndex),
+ * so query() intersects postings lists instead of scanning the buffer; a posting whose
+ * sequence has fallen out of the window is ignored and trimmed.
+ * Thread-safe; adding and reading the ring are lock-free.
+ */
+public final class BoundedLogBuffer {
+
+    private static final int SPIN_LIMIT = 1 << 10;
+    private static final int MIN_SWEEP_INTERVAL = 1024;
+
+    /**
+     * Entry published in a slot, with its sequence number
+     */
+    private record Cell(long sequence, LogEntry entry, int bytes) {}
+
+    private final int capacity;
+    private final int sweepInterval;
+    private final AtomicReferenceArray<Cell> slots;
+    private final AtomicLong tail = new AtomicLong();        // next sequence number
+    private final AtomicLong start = new AtomicLong();       // first sequence still visible (after clear)
+
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    private final PostingsIndex byUserEmail = new PostingsIndex();
+    private final PostingsIndex byEvent = new PostingsIndex();
+    private final PostingsIndex byOperationType = new PostingsIndex();
+
+    public BoundedLogBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Buffer capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.sweepInterval = Math.max(capacity, MIN_SWEEP_INTERVAL);
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Append an entry, evicting the oldest one when the buffer is full
+     */
+    public void add(LogEntry entry) {
+        long sequence = tail.getAndIncrement();
+        int bytes = entry.estimateHeapBytes();
+        Cell cell = new Cell(sequence, entry, bytes);
+        Cell previous = slots.getAndSet(index(sequence), cell);
+
+        if (previous != null && previous.sequence() > sequence) {
+            // A writer a full lap ahead got there first: this entry is already evicted
+            slots.compareAndSet(index(sequence), cell, previous);
+            evictions.incrementAndGet();
+            return;
+        }
+        retainedBytes.addAndGet(bytes);
+        if (previous != null && previous.sequence() >= start.get()) {
+            evictions.incrementAndGet();
+            retainedBytes.addAndGet(-previous.bytes());
+        }
+
+        long oldest = oldestSequence();
+        byUserEmail.add(entry.getUserEmail(), sequence, oldest);
+        byEvent.add(entry.getEvent(), sequence, oldest);
+        byOperationType.add(entry.getOperationType(), sequence, oldest);
+        if (sequence % sweepInterval == sweepInterval - 1) {
+            byUserEmail.sweep(oldest);
+            byEvent.sweep(oldest);
+            byOperationType.sweep(oldest);
+        }
+    }
+
+    /**
+     * Retained entries matching the query, oldest first
+     */
+    public List<LogEntry> query(LogQuery query) {
+        if (!query.hasIndexedCondition()) {
+            return snapshot().stream().filter(query::matches).toList();
+        }
+
+        long oldest = oldestSequence();
+        List<long[]> postings = new ArrayList<>(3);
+        if (query.getUserEmail() != null) {
+            postings.add(byUserEmail.lookup(query.getUserEmail(), oldest));
+        }
+        if (query.getEvent() != null) {
+            postings.add(byEvent.lookup(query.getEvent(), oldest));
+        }
+        if (query.getOperationType() != null) {
+            postings.add(byOperationType.lookup(query.getOperationType(), oldest));
+        }
+        // Shortest list first, so each intersection step stays small
+        postings.sort(Comparator.comparingInt(list -> list.length));
+        long[] candidates = postings.get(0);
+        for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, postings.get(i));
+        }
+
+        List<LogEntry> entries = new ArrayList<>(candidates.length);
+        for (long sequence : candidates) {
+            Cell cell = slots.get(index(sequence));
+            if (cell != null && cell.sequence() == sequence && query.matches(cell.entry())) {
+                entries.add(cell.entry());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Values of the shorter sorted list that are also in the longer one
+     */
+    private static long[] intersect(long[] shorter, long[] longer) {
+        long[] common = new long[shorter.length];
+        int count = 0;
+        int from = 0;
+        for (long sequence : shorter) {
+            int found = Arrays.binarySearch(longer, from, longer.length, sequence);
+            if (found >= 0) {
+                common[count++] = sequence;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+            if (from == longer.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+
+    /**
+     * First sequence number still in the window
+     */
+    private long oldestSequence() {
+        return Math.max(start.get(), tail.get() - capacity);
+    }
+
+    /**
+     * Retained entries, oldest first
+     */
+    public List<LogEntry> snapshot() {
+        long end = tail.get();
+        long from = Math.max(start.get(), end - capacity);
+        List<LogEntry> entries = new ArrayList<>((int) Math.max(0, end - from));
+
+        for (long sequence = from; sequence < end; sequence++) {
+            Cell cell = slots.get(index(sequence));
+            // The writer of this sequence may not have published it yet
+            for (int spin = 0; (cell == null || cell.sequence() < sequence) && spin < SPIN_LIMIT; spin++) {
+                Thread.onSpinWait();
+                cell = slots.get(index(sequence));
+            }
+            if (cell != null && cell.sequence() == sequence) {
+                entries.add(cell.entry());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Forget every retained entry
+     */
+    public void clear() {
+        start.set(tail.get());
+        retainedBytes.set(0);
+        byUserEmail.clear();
+        byEvent.clear();
+        byOperationType.clear();
+    }
+
+    /**
+     * Number of retained entries
+     */
+    public int size() {
+        long end = tail.get();
+        return (int) Math.max(0, Math.min(capacity, end - start.get()));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(size(), capacity, tail.get(), evictions.get(), Math.max(0, retainedBytes.get()));
+    }
+
+    /**
+     * Snapshot of the buffer counters; retainedBytes is an estimate of the entries' heap footprint
+     */
+    public record Metrics(int retained, int capacity, long added, long evictions, long retainedBytes) {}
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only JSON Lines log with a JSON array snapshot
+ *
+ * Every entry is serialized once, compactly (by LogEntryEncoder, with the same output as the
+ * ObjectMapper), and appended to the .ndjson file.
+ * snapshot() brings the JSON array file up to date: the first snapshot of a process
+ * rebuilds it from the whole .ndjson file (compaction, written to a temporary file and
+ * moved into place); later ones only append the lines added since, just before the
+ * closing bracket, so history is never serialized twice.
+ * roll() moves the .ndjson file away to start a new segment; the snapshot then restarts
+ * from an empty array and only covers the active segment.
+ * Thread-safe.
+ */
+@Slf4j
+final class JsonLinesLog implements Closeable {
+
+    private static final byte[] ARRAY_END = "\n]\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path linesFile;
+    private final Path snapshotFile;
+    private final ObjectMapper mapper;
+
+    private FileChannel lines;
+
+    // Snapshot state, valid once snapshotSynced is true
+    private boolean snapshotSynced;
+    private long snapshotLinesOffset;     // .ndjson bytes already in the snapshot
+    private long snapshotEntries;
+    private long snapshotEnd;             // position of ARRAY_END in the snapshot file
+    private long entriesSinceSnapshot;
+
+    JsonLinesLog(Path linesFile, Path snapshotFile, ObjectMapper mapper) {
+        this.linesFile = linesFile;
+        this.snapshotFile = snapshotFile;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Serialize the entries and append them with a single write
+     */
+    synchronized void append(List<LogEntry> entries) throws IOException {
+        LogEntryEncoder buffer = LogEntryEncoder.current();
+        for (LogEntry entry : entries) {
+            buffer.appendJson(entry);
+        }
+
+        if (lines == null) {
+            lines = FileChannel.open(linesFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            terminateLastLine();
+        }
+        buffer.writeTo(lines);
+        entriesSinceSnapshot += entries.size();
+    }
+
+    /**
+     * A previous process may have stopped in the middle of a line; start on a fresh one
+     */
+    private void terminateLastLine() throws IOException {
+        long size = lines.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel reader = FileChannel.open(linesFile, StandardOpenOption.READ)) {
+            reader.read(last, size - 1);
+        }
+        if (last.get(0) != '\n') {
+            lines.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+    }
+
+    synchronized long getEntriesSinceSnapshot() {
+        return entriesSinceSnapshot;
+    }
+
+    /**
+     * Move the .ndjson file to target and restart both files empty; false if there was nothing to move
+     */
+    synchronized boolean roll(Path target) throws IOException {
+        if (lines != null) {
+            lines.close();
+            lines = null;
+        }
+        if (!Files.exists(linesFile) || Files.size(linesFile) == 0) {
+            return false;
+        }
+        Files.move(linesFile, target);
+        compact();
+        entriesSinceSnapshot = 0;
+        return true;
+    }
+
+    /**
+     * Bring the JSON array snapshot up to date with the .ndjson file
+     */
+    synchronized void snapshot() throws IOException {
+        if (!Files.exists(linesFile)) {
+            return;
+        }
+        if (!snapshotSynced || !Files.exists(snapshotFile) || Files.size(snapshotFile) != snapshotEnd + ARRAY_END.length) {
+            compact();
+        } else {
+            appendToSnapshot();
+        }
+        entriesSinceSnapshot = 0;
+    }
+
+    /**
+     * Rebuild the snapshot from every valid line of the .ndjson file
+     */
+    private void compact() throws IOException {
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        long entries = 0;
+        long end;
+        long offset = 0;
+        long skipped = 0;
+
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(out, new byte[]{'['});
+
+            byte[] content = Files.exists(linesFile) ? Files.readAllBytes(linesFile) : new byte[0];
+            int lineStart = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] != '\n') {
+                    continue;
+                }
+                if (i > lineStart) {
+                    if (isValidJson(content, lineStart, i)) {
+                        write(out, entries == 0 ? new byte[]{'\n'} : new byte[]{',', '\n'});
+                        write(out, ByteBuffer.wrap(content, lineStart, i - lineStart));
+                        entries++;
+                    } else {
+                        skipped++;
+                    }
+                }
+                lineStart = i + 1;
+                offset = lineStart;
+            }
+
+            end = out.position();
+            write(out, ARRAY_END);
+        }
+
+        try {
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        snapshotSynced = true;
+        snapshotLinesOffset = offset;
+        snapshotEntries = entries;
+        snapshotEnd = end;
+
+        if (skipped > 0) {
+            log.warn("Skipped {} malformed line(s) of {} while compacting", skipped, linesFile);
+        }
+    }
+
+    /**
+     * Append the lines added since the last snapshot in place of the closing bracket
+     */
+    private void appendToSnapshot() throws IOException {
+        byte[] added;
+        try (FileChannel reader = FileChannel.open(linesFile, StandardOpenOption.READ)) {
+            long size = reader.size();
+            if (size <= snapshotLinesOffset) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - snapshotLinesOffset));
+            while (buffer.hasRemaining() && reader.read(buffer, snapshotLinesOffset + buffer.position()) > 0) {
+                // read until the end of the file
+            }
+            added = buffer.array();
+        }
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream(added.length + 64);
+        int lineStart = 0;
+        int consumed = 0;
+        long entries = snapshotEntries;
+        for (int i = 0; i < added.length; i++) {
+            if (added[i] != '\n') {
+                continue;
+            }
+            if (i > lineStart) {
+                if (entries > 0) {
+                    json.write(',');
+                }
+                json.write('\n');
+                json.write(added, lineStart, i - lineStart);
+                entries++;
+            }
+            lineStart = i + 1;
+            consumed = lineStart;
+        }
+        if (consumed == 0) {
+            return;
+        }
+
+        try (FileChannel out = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)) {
+            out.position(snapshotEnd);
+            write(out, json.toByteArray());
+            long end = out.position();
+            write(out, ARRAY_END);
+            snapshotEnd = end;
+        }
+        snapshotLinesOffset += consumed;
+        snapshotEntries = entries;
+    }
+
+    private boolean isValidJson(byte[] content, int from, int to) {
+        try {
+            mapper.readTree(content, from, to - from);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        write(channel, ByteBuffer.wrap(bytes));
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (lines != null) {
+            lines.close();
+            lines = null;
+        }
+    }
+}
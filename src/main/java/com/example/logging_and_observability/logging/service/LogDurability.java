@@ -0,0 +1,119 @@
+package com.example.logging_and_observability.logging.service;
+
+import java.time.Duration;
+
+/**
+ * Durability and I/O settings of the structured text log
+ * Uses Builder Pattern: LogDurability.builder().fsync(FsyncMode.INTERVAL).fsyncInterval(Duration.ofMillis(200)).build()
+ *
+ * NONE leaves flushing to the operating system (a crash of the machine can lose recent
+ * entries), INTERVAL forces the file to disk every fsyncInterval from a background thread
+ * (bounded loss, no cost on the writing thread), PER_BATCH forces it after every write
+ * (nothing acknowledged is lost; with the async writer a batch is one group commit).
+ * With mappedRegionSize > 0, entries are copied into a pre-allocated memory-mapped region
+ * instead of being written with a system call; the file is trimmed to its content on close.
+ */
+public final class LogDurability {
+
+    /**
+     * When written data is forced to the storage device
+     */
+    public enum FsyncMode {
+        NONE,
+        INTERVAL,
+        PER_BATCH
+    }
+
+    private final FsyncMode fsync;
+    private final Duration fsyncInterval;
+    private final int mappedRegionSize;
+
+    private LogDurability(Builder builder) {
+        this.fsync = builder.fsync;
+        this.fsyncInterval = builder.fsyncInterval;
+        this.mappedRegionSize = builder.mappedRegionSize;
+    }
+
+    public FsyncMode getFsync() {
+        return fsync;
+    }
+
+    public Duration getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    public int getMappedRegionSize() {
+        return mappedRegionSize;
+    }
+
+    public boolean isMapped() {
+        return mappedRegionSize > 0;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * No fsync, plain channel writes
+     */
+    public static LogDurability defaults() {
+        return builder().build();
+    }
+
+    @Override
+    public String toString() {
+        return fsync + (fsync == FsyncMode.INTERVAL ? " every " + fsyncInterval.toMillis() + " ms" : "")
+                + (isMapped() ? ", mapped regions of " + mappedRegionSize + " bytes" : "");
+    }
+
+    /**
+     * Cost of the durability policy, accumulated over every segment
+     *
+     * Write times are spent by the writing thread, including the fsync in PER_BATCH mode;
+     * fsync times are those of every fsync, on whichever thread ran it. Throughput is the
+     * bytes written per second of write time.
+     */
+    public record Metrics(String policy, long writes, long bytes, long fsyncs,
+                          double averageWriteMicros, double maxWriteMicros,
+                          double averageFsyncMicros, double maxFsyncMicros,
+                          double throughputMBPerSecond) {}
+
+    /**
+     * Builder Pattern for the durability settings
+     */
+    public static class Builder {
+        private FsyncMode fsync = FsyncMode.NONE;
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+        private int mappedRegionSize;
+
+        public Builder fsync(FsyncMode fsync) {
+            this.fsync = fsync;
+            return this;
+        }
+
+        /**
+         * Period of the background fsync in INTERVAL mode
+         */
+        public Builder fsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+            return this;
+        }
+
+        /**
+         * Size of each pre-allocated memory-mapped region; 0 to write through the channel
+         */
+        public Builder mappedRegionSize(int mappedRegionSize) {
+            this.mappedRegionSize = mappedRegionSize;
+            return this;
+        }
+
+        public LogDurability build() {
+            if (fsync == null || mappedRegionSize < 0
+                    || fsyncInterval.isNegative() || fsyncInterval.isZero()) {
+                throw new IllegalArgumentException("Invalid durability settings");
+            }
+            return new LogDurability(this);
+        }
+    }
+}
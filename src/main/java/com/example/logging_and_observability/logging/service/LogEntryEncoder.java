@@ -0,0 +1,436 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes LogEntry objects as UTF-8 bytes into a reusable per-thread buffer
+ *
+ * appendText() produces exactly the bytes of toStructuredLog() plus a line separator, so
+ * LogParser reads the output as before; appendJson() produces exactly what StructuredLogger's
+ * ObjectMapper writes for an entry (compact, same field order, timestamp as
+ * "yyyy-MM-dd HH:mm:ss.SSS"). Characters, numbers and timestamps are encoded in place,
+ * without intermediate Strings; only prices still go through Double.toString().
+ * An encoder must not be shared between threads: use current().
+ */
+final class LogEntryEncoder {
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    private static final int RETAINED_CAPACITY = 1024 * 1024;     // larger buffers are dropped after use
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+    private static final DateTimeFormatter JSON_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final byte[] TEXT_TIMESTAMP = ascii("Timestamp: ");
+    private static final byte[] TEXT_LEVEL = ascii(" | Level: ");
+    private static final byte[] TEXT_EVENT = ascii(" | Event: ");
+    private static final byte[] TEXT_USER = ascii(" | User: ");
+    private static final byte[] TEXT_ACTION = ascii(" | Action: ");
+    private static final byte[] TEXT_OPERATION = ascii(" | Operation: ");
+    private static final byte[] TEXT_RESOURCE = ascii(" | Resource: ");
+    private static final byte[] TEXT_RESULT = ascii(" | Result: ");
+    private static final byte[] TEXT_DURATION = ascii(" | Duration: ");
+    private static final byte[] TEXT_MS = ascii("ms");
+
+    // JSON property names, in LogEntry field order (the order Jackson uses)
+    private static final byte[] JSON_TIMESTAMP = ascii("{\"timestamp\":");
+    private static final byte[] JSON_LEVEL = ascii(",\"level\":");
+    private static final byte[] JSON_LOGGER = ascii(",\"logger\":");
+    private static final byte[] JSON_THREAD = ascii(",\"thread\":");
+    private static final byte[] JSON_EVENT = ascii(",\"event\":");
+    private static final byte[] JSON_USER_NAME = ascii(",\"userName\":");
+    private static final byte[] JSON_USER_EMAIL = ascii(",\"userEmail\":");
+    private static final byte[] JSON_ACTION = ascii(",\"action\":");
+    private static final byte[] JSON_RESOURCE_TYPE = ascii(",\"resourceType\":");
+    private static final byte[] JSON_RESOURCE_ID = ascii(",\"resourceId\":");
+    private static final byte[] JSON_RESOURCE_NAME = ascii(",\"resourceName\":");
+    private static final byte[] JSON_RESOURCE_PRICE = ascii(",\"resourcePrice\":");
+    private static final byte[] JSON_OPERATION_TYPE = ascii(",\"operationType\":");
+    private static final byte[] JSON_RESULT = ascii(",\"result\":");
+    private static final byte[] JSON_ERROR_MESSAGE = ascii(",\"errorMessage\":");
+    private static final byte[] JSON_DURATION = ascii(",\"duration\":");
+    private static final byte[] JSON_ADDITIONAL_INFO = ascii(",\"additionalInfo\":");
+
+    private static final ThreadLocal<LogEntryEncoder> ENCODERS = ThreadLocal.withInitial(LogEntryEncoder::new);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private ByteBuffer view = ByteBuffer.wrap(buffer);
+    private int size;
+
+    private LogEntryEncoder() {
+    }
+
+    /**
+     * The calling thread's encoder, emptied
+     */
+    static LogEntryEncoder current() {
+        LogEntryEncoder encoder = ENCODERS.get();
+        encoder.reset();
+        return encoder;
+    }
+
+    void reset() {
+        if (buffer.length > RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+            view = ByteBuffer.wrap(buffer);
+        }
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Append the entry in the pipe-delimited text format, followed by a line separator
+     */
+    LogEntryEncoder appendText(LogEntry entry) {
+        write(TEXT_TIMESTAMP);
+        if (entry.getTimestamp() != null) {
+            writeIsoTimestamp(entry.getTimestamp());
+        } else {
+            write(NULL);
+        }
+        write(TEXT_LEVEL);
+        writeText(entry.getLevel());
+        write(TEXT_EVENT);
+        writeText(entry.getEvent());
+
+        if (entry.getUserName() != null) {
+            write(TEXT_USER);
+            writeText(entry.getUserName());
+        }
+        if (entry.getUserEmail() != null) {
+            writeByte(' ');
+            writeByte('(');
+            writeText(entry.getUserEmail());
+            writeByte(')');
+        }
+        if (entry.getAction() != null) {
+            write(TEXT_ACTION);
+            writeText(entry.getAction());
+        }
+        if (entry.getOperationType() != null) {
+            write(TEXT_OPERATION);
+            writeText(entry.getOperationType());
+        }
+        if (entry.getResourceType() != null) {
+            write(TEXT_RESOURCE);
+            writeText(entry.getResourceType());
+            if (entry.getResourceId() != null) {
+                writeByte('#');
+                writeText(entry.getResourceId());
+            }
+        }
+        if (entry.getResult() != null) {
+            write(TEXT_RESULT);
+            writeText(entry.getResult());
+        }
+        if (entry.getDuration() != null) {
+            write(TEXT_DURATION);
+            writeLong(entry.getDuration());
+            write(TEXT_MS);
+        }
+        write(LINE_SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Append the entry as one line of compact JSON, followed by '\n'
+     */
+    LogEntryEncoder appendJson(LogEntry entry) {
+        write(JSON_TIMESTAMP);
+        if (entry.getTimestamp() != null) {
+            writeByte('"');
+            writeJsonTimestamp(entry.getTimestamp());
+            writeByte('"');
+        } else {
+            write(NULL);
+        }
+        writeJsonField(JSON_LEVEL, entry.getLevel());
+        writeJsonField(JSON_LOGGER, entry.getLogger());
+        writeJsonField(JSON_THREAD, entry.getThread());
+        writeJsonField(JSON_EVENT, entry.getEvent());
+        writeJsonField(JSON_USER_NAME, entry.getUserName());
+        writeJsonField(JSON_USER_EMAIL, entry.getUserEmail());
+        writeJsonField(JSON_ACTION, entry.getAction());
+        writeJsonField(JSON_RESOURCE_TYPE, entry.getResourceType());
+        writeJsonField(JSON_RESOURCE_ID, entry.getResourceId());
+        writeJsonField(JSON_RESOURCE_NAME, entry.getResourceName());
+
+        write(JSON_RESOURCE_PRICE);
+        Double price = entry.getResourcePrice();
+        if (price == null) {
+            write(NULL);
+        } else if (price.isNaN() || price.isInfinite()) {
+            writeJsonString(price.toString());        // Jackson writes non-finite numbers as strings
+        } else {
+            writeText(price.toString());
+        }
+
+        writeJsonField(JSON_OPERATION_TYPE, entry.getOperationType());
+        writeJsonField(JSON_RESULT, entry.getResult());
+        writeJsonField(JSON_ERROR_MESSAGE, entry.getErrorMessage());
+
+        write(JSON_DURATION);
+        if (entry.getDuration() != null) {
+            writeLong(entry.getDuration());
+        } else {
+            write(NULL);
+        }
+
+        writeJsonField(JSON_ADDITIONAL_INFO, entry.getAdditionalInfo());
+        writeByte('}');
+        writeByte('\n');
+        return this;
+    }
+
+    /**
+     * Write the encoded bytes to the channel at its current position
+     */
+    void writeTo(FileChannel channel) throws IOException {
+        view.clear().limit(size);
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+    }
+
+    /**
+     * Copy the encoded bytes into the target buffer, which must have room for them
+     */
+    void copyTo(ByteBuffer target) {
+        target.put(buffer, 0, size);
+    }
+
+    // ---- Text
+
+    /**
+     * Same characters as StringBuilder.append(String), including "null"
+     */
+    private void writeText(String value) {
+        if (value == null) {
+            write(NULL);
+            return;
+        }
+        int length = value.length();
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else {
+                i = writeUtf8(value, i, c);
+            }
+        }
+    }
+
+    /**
+     * Encode a non-ASCII character like String.getBytes(UTF_8), replacing lone surrogates by '?'
+     */
+    private int writeUtf8(String value, int index, char c) {
+        if (c < 0x800) {
+            buffer[size++] = (byte) (0xC0 | (c >> 6));
+            buffer[size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++index));
+            ensureCapacity(4);
+            buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            buffer[size++] = '?';
+        } else {
+            buffer[size++] = (byte) (0xE0 | (c >> 12));
+            buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return index;
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeText(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    /**
+     * LocalDateTime.toString(): seconds only if not zero, fraction in groups of 3 digits
+     */
+    private void writeIsoTimestamp(LocalDateTime timestamp) {
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            writeText(timestamp.toString());
+            return;
+        }
+        writeDate(timestamp, '-');
+        writeByte('T');
+        writeDigits(timestamp.getHour(), 2);
+        writeByte(':');
+        writeDigits(timestamp.getMinute(), 2);
+
+        int second = timestamp.getSecond();
+        int nano = timestamp.getNano();
+        if (second > 0 || nano > 0) {
+            writeByte(':');
+            writeDigits(second, 2);
+            if (nano > 0) {
+                writeByte('.');
+                if (nano % 1_000_000 == 0) {
+                    writeDigits(nano / 1_000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    writeDigits(nano / 1000, 6);
+                } else {
+                    writeDigits(nano, 9);
+                }
+            }
+        }
+    }
+
+    // ---- JSON
+
+    private void writeJsonField(byte[] name, String value) {
+        write(name);
+        if (value == null) {
+            write(NULL);
+        } else {
+            writeJsonString(value);
+        }
+    }
+
+    /**
+     * Quoted string escaped like Jackson: \" \\, control characters and surrogates, everything else as UTF-8
+     */
+    private void writeJsonString(String value) {
+        int length = value.length();
+        ensureCapacity(length * 6 + 2);
+        buffer[size++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (Character.isSurrogate(c)) {
+                // Jackson escapes both halves of a surrogate pair instead of combining them
+                writeUnicodeEscape(c);
+            } else if (c >= 0x80) {
+                i = writeUtf8(value, i, c);
+            } else if (c == '"' || c == '\\') {
+                buffer[size++] = '\\';
+                buffer[size++] = (byte) c;
+            } else if (c >= 0x20) {
+                buffer[size++] = (byte) c;
+            } else {
+                buffer[size++] = '\\';
+                switch (c) {
+                    case '\b' -> buffer[size++] = 'b';
+                    case '\t' -> buffer[size++] = 't';
+                    case '\n' -> buffer[size++] = 'n';
+                    case '\f' -> buffer[size++] = 'f';
+                    case '\r' -> buffer[size++] = 'r';
+                    default -> {
+                        size--;
+                        writeUnicodeEscape(c);
+                    }
+                }
+            }
+        }
+        buffer[size++] = '"';
+    }
+
+    private void writeUnicodeEscape(char c) {
+        buffer[size++] = '\\';
+        buffer[size++] = 'u';
+        buffer[size++] = HEX[c >> 12];
+        buffer[size++] = HEX[(c >> 8) & 0xF];
+        buffer[size++] = HEX[(c >> 4) & 0xF];
+        buffer[size++] = HEX[c & 0xF];
+    }
+
+    /**
+     * "yyyy-MM-dd HH:mm:ss.SSS", the @JsonFormat pattern of LogEntry.timestamp
+     */
+    private void writeJsonTimestamp(LocalDateTime timestamp) {
+        int year = timestamp.getYear();
+        if (year < 1 || year > 9999) {
+            writeText(timestamp.format(JSON_TIMESTAMP_FORMATTER));
+            return;
+        }
+        writeDate(timestamp, '-');
+        writeByte(' ');
+        writeDigits(timestamp.getHour(), 2);
+        writeByte(':');
+        writeDigits(timestamp.getMinute(), 2);
+        writeByte(':');
+        writeDigits(timestamp.getSecond(), 2);
+        writeByte('.');
+        writeDigits(timestamp.getNano() / 1_000_000, 3);
+    }
+
+    // ---- Bytes
+
+    private void writeDate(LocalDateTime timestamp, char separator) {
+        writeDigits(timestamp.getYear(), 4);
+        writeByte(separator);
+        writeDigits(timestamp.getMonthValue(), 2);
+        writeByte(separator);
+        writeDigits(timestamp.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Non-negative value, zero-padded to width digits
+     */
+    private void writeDigits(int value, int width) {
+        ensureCapacity(width);
+        for (int i = size + width - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += width;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) c;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, size + extra)];
+            System.arraycopy(buffer, 0, grown, 0, size);
+            buffer = grown;
+            view = ByteBuffer.wrap(buffer);
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
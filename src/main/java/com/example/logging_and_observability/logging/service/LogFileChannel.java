@@ -0,0 +1,202 @@
+package com.example.logging_and_observability.logging.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only channel of one log segment, with a LogDurability policy applied
+ *
+ * Plain mode writes at the end of the file through the channel. Mapped mode copies the
+ * bytes into a pre-allocated memory-mapped region, maps the next region when it is full,
+ * and truncates the pre-allocated tail on close; a file left padded with zeros by a crash
+ * is trimmed when it is opened again.
+ * Not thread-safe, except force(), which may run while another thread writes.
+ */
+final class LogFileChannel implements Closeable {
+
+    private static final int TRIM_BLOCK_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final LogDurability durability;
+    private final Counters counters;
+
+    private long size;                              // bytes written, without the pre-allocated tail
+    private volatile MappedByteBuffer region;       // mapped mode: region being filled
+    private volatile boolean dirty;                 // written since the last fsync
+
+    private LogFileChannel(FileChannel channel, long size, LogDurability durability, Counters counters) {
+        this.channel = channel;
+        this.size = size;
+        this.durability = durability;
+        this.counters = counters;
+    }
+
+    static LogFileChannel open(Path file, LogDurability durability, Counters counters) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = contentSize(channel);
+            if (size < channel.size()) {
+                channel.truncate(size);
+            }
+            channel.position(size);
+            return new LogFileChannel(channel, size, durability, counters);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Append the encoded bytes, and force them to disk in PER_BATCH mode
+     */
+    void write(LogEntryEncoder bytes) throws IOException {
+        long started = System.nanoTime();
+        int length = bytes.size();
+        if (durability.isMapped()) {
+            MappedByteBuffer target = region;
+            if (target == null || target.remaining() < length) {
+                target = mapRegion(Math.max(durability.getMappedRegionSize(), length));
+            }
+            bytes.copyTo(target);
+        } else {
+            bytes.writeTo(channel);
+        }
+        size += length;
+        dirty = true;
+
+        if (durability.getFsync() == LogDurability.FsyncMode.PER_BATCH) {
+            force();
+        }
+        counters.recordWrite(length, System.nanoTime() - started);
+    }
+
+    /**
+     * Force the bytes written since the last call to the storage device
+     */
+    void force() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        // Cleared first: a write that lands during the fsync leaves the channel dirty again
+        dirty = false;
+        long started = System.nanoTime();
+        MappedByteBuffer target = region;
+        if (target != null) {
+            target.force();
+        }
+        channel.force(false);
+        counters.recordFsync(System.nanoTime() - started);
+    }
+
+    private MappedByteBuffer mapRegion(int length) throws IOException {
+        MappedByteBuffer previous = region;
+        if (previous != null && durability.getFsync() != LogDurability.FsyncMode.NONE) {
+            // Its pages are no longer reachable through region once it is replaced
+            previous.force();
+        }
+        MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, size, length);
+        region = target;
+        return target;
+    }
+
+    /**
+     * Trim the pre-allocated tail, force the file unless the policy is NONE, and close it
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (durability.getFsync() != LogDurability.FsyncMode.NONE) {
+                force();
+            }
+            if (region != null) {
+                region = null;
+                channel.truncate(size);
+                if (durability.getFsync() != LogDurability.FsyncMode.NONE) {
+                    channel.force(true);
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Size of the file without the trailing zero bytes of a pre-allocated region
+     */
+    private static long contentSize(FileChannel channel) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(TRIM_BLOCK_SIZE);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - TRIM_BLOCK_SIZE);
+            block.clear().limit((int) (end - start));
+            int read = 0;
+            while (block.hasRemaining() && read >= 0) {
+                read = channel.read(block, start + block.position());
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Write and fsync costs of one durability policy, shared by its successive segments
+     */
+    static final class Counters {
+        private final String policy;
+        private final LongAdder writes = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder writeNanos = new LongAdder();
+        private final AtomicLong maxWriteNanos = new AtomicLong();
+        private final LongAdder fsyncs = new LongAdder();
+        private final LongAdder fsyncNanos = new LongAdder();
+        private final AtomicLong maxFsyncNanos = new AtomicLong();
+
+        Counters(LogDurability durability) {
+            this.policy = durability.toString();
+        }
+
+        void recordWrite(int length, long nanos) {
+            writes.increment();
+            bytes.add(length);
+            writeNanos.add(nanos);
+            maxWriteNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordFsync(long nanos) {
+            fsyncs.increment();
+            fsyncNanos.add(nanos);
+            maxFsyncNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        LogDurability.Metrics snapshot() {
+            long writeCount = writes.sum();
+            long byteCount = bytes.sum();
+            long writeTime = writeNanos.sum();
+            long fsyncCount = fsyncs.sum();
+            double nanosPerMicro = TimeUnit.MICROSECONDS.toNanos(1);
+            return new LogDurability.Metrics(policy, writeCount, byteCount, fsyncCount,
+                    writeCount == 0 ? 0 : writeTime / nanosPerMicro / writeCount,
+                    maxWriteNanos.get() / nanosPerMicro,
+                    fsyncCount == 0 ? 0 : fsyncNanos.sum() / nanosPerMicro / fsyncCount,
+                    maxFsyncNanos.get() / nanosPerMicro,
+                    writeTime == 0 ? 0 : byteCount / (1024.0 * 1024.0) / (writeTime / 1e9));
+        }
+    }
+}
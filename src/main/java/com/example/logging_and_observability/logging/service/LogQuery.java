@@ -0,0 +1,128 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * Query over the entries retained by StructuredLogger
+ * Uses Builder Pattern: LogQuery.builder().userEmail("alice@email.com").operationType("WRITE").build()
+ *
+ * Every condition is optional and all of them must hold. userEmail, event and operationType
+ * are answered from the buffer indexes; the time range is checked on the candidate entries.
+ */
+public final class LogQuery {
+
+    private final String userEmail;
+    private final String event;
+    private final String operationType;
+    private final LocalDateTime from;      // inclusive
+    private final LocalDateTime to;        // exclusive
+
+    private LogQuery(Builder builder) {
+        this.userEmail = builder.userEmail;
+        this.event = builder.event;
+        this.operationType = builder.operationType;
+        this.from = builder.from;
+        this.to = builder.to;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean hasIndexedCondition() {
+        return userEmail != null || event != null || operationType != null;
+    }
+
+    /**
+     * Exact check on an entry
+     */
+    public boolean matches(LogEntry entry) {
+        if (from != null || to != null) {
+            LocalDateTime timestamp = entry.getTimestamp();
+            if (timestamp == null
+                    || (from != null && timestamp.isBefore(from))
+                    || (to != null && !timestamp.isBefore(to))) {
+                return false;
+            }
+        }
+        return (userEmail == null || userEmail.equals(entry.getUserEmail()))
+                && (event == null || event.equals(entry.getEvent()))
+                && (operationType == null || operationType.equals(entry.getOperationType()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("LogQuery{");
+        if (userEmail != null) description.append("userEmail=").append(userEmail).append(' ');
+        if (event != null) description.append("event=").append(event).append(' ');
+        if (operationType != null) description.append("operationType=").append(operationType).append(' ');
+        if (from != null) description.append("from=").append(from).append(' ');
+        if (to != null) description.append("to=").append(to).append(' ');
+        return description.toString().trim() + "}";
+    }
+
+    /**
+     * Builder Pattern for constructing LogQuery
+     */
+    public static class Builder {
+        private String userEmail;
+        private String event;
+        private String operationType;
+        private LocalDateTime from;
+        private LocalDateTime to;
+
+        public Builder userEmail(String userEmail) {
+            this.userEmail = userEmail;
+            return this;
+        }
+
+        public Builder event(String event) {
+            this.event = event;
+            return this;
+        }
+
+        public Builder operationType(String operationType) {
+            this.operationType = operationType;
+            return this;
+        }
+
+        public Builder from(LocalDateTime from) {
+            this.from = from;
+            return this;
+        }
+
+        public Builder to(LocalDateTime to) {
+            this.to = to;
+            return this;
+        }
+
+        public LogQuery build() {
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new IllegalArgumentException("Empty time range: " + from + " to " + to);
+            }
+            return new LogQuery(this);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which structured log entries are recorded in full
+ *
+ * A policy is attached to an event type ("PRODUCT_OPERATION") or to an event type and
+ * operation type ("PRODUCT_OPERATION/READ"); the more specific key wins, and entries
+ * without a policy, as well as ERROR entries, are always kept.
+ * Every entry is counted, kept or not: seen/kept/suppressed per sampling key, and
+ * suppressed operations per user, by action and by operation type, so totals stay exact
+ * while volume drops. getTotals() and restore() carry the counters over to a later process.
+ * Thread-safe.
+ */
+public final class LogSampler {
+
+    /**
+     * Sampling decision for one sampling key
+     */
+    @FunctionalInterface
+    public interface Policy {
+        boolean keep(long nowNanos);
+
+        /**
+         * Keep exactly one entry in n
+         */
+        static Policy fixedRate(int n) {
+            if (n < 1) {
+                throw new IllegalArgumentException("Sampling rate must be positive: " + n);
+            }
+            AtomicLong counter = new AtomicLong();
+            return nowNanos -> counter.getAndIncrement() % n == 0;
+        }
+
+        /**
+         * Keep up to perSecond entries a second on average, with bursts of up to burst entries
+         */
+        static Policy tokenBucket(double perSecond, int burst) {
+            if (perSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Invalid token bucket: " + perSecond + "/s, burst " + burst);
+            }
+            return new TokenBucket(perSecond, burst);
+        }
+
+        /**
+         * Keep about targetPerSecond entries a second whatever the traffic: each second keeps
+         * one entry in (rate of the previous second / target), and never more than the target
+         */
+        static Policy adaptive(int targetPerSecond) {
+            if (targetPerSecond < 1) {
+                throw new IllegalArgumentException("Target rate must be positive: " + targetPerSecond);
+            }
+            return new Adaptive(targetPerSecond);
+        }
+    }
+
+    /**
+     * Counters of one sampling key
+     */
+    public record Stats(long seen, long kept, long suppressed) {}
+
+    /**
+     * Every counter of the sampler, as saved next to the logs; the suppressed maps are keyed
+     * by user email, then by action or by operation type
+     */
+    public record Totals(LocalDateTime generatedAt, Map<String, Stats> stats,
+                         Map<String, Map<String, Long>> suppressedByUser,
+                         Map<String, Map<String, Long>> suppressedOperationsByUser) {}
+
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> suppressedByUser = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> suppressedOperationsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Attach a policy to "EVENT" or "EVENT/OPERATION_TYPE"; null removes it
+     */
+    public void setPolicy(String key, Policy policy) {
+        if (policy == null) {
+            policies.remove(key);
+        } else {
+            policies.put(key, policy);
+        }
+    }
+
+    public boolean hasPolicies() {
+        return !policies.isEmpty();
+    }
+
+    /**
+     * Count the entry and tell whether it should be recorded
+     */
+    public boolean sample(LogEntry entry) {
+        String key = entry.getEvent() != null ? entry.getEvent() : "";
+        Policy policy = null;
+        if (entry.getOperationType() != null) {
+            String specificKey = key + "/" + entry.getOperationType();
+            policy = policies.get(specificKey);
+            if (policy != null) {
+                key = specificKey;
+            }
+        }
+        if (policy == null) {
+            policy = policies.get(key);
+        }
+
+        boolean keep = policy == null || "ERROR".equals(entry.getLevel()) || policy.keep(System.nanoTime());
+
+        Counters keyCounters = counters.computeIfAbsent(key, k -> new Counters());
+        keyCounters.seen.increment();
+        if (keep) {
+            keyCounters.kept.increment();
+        } else if (entry.getUserEmail() != null) {
+            count(suppressedByUser, entry.getUserEmail(), entry.getAction() != null ? entry.getAction() : key, 1);
+            if (entry.getOperationType() != null) {
+                count(suppressedOperationsByUser, entry.getUserEmail(), entry.getOperationType(), 1);
+            }
+        }
+        return keep;
+    }
+
+    private static void count(Map<String, Map<String, LongAdder>> counts, String userEmail, String key, long n) {
+        counts.computeIfAbsent(userEmail, user -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new LongAdder())
+                .add(n);
+    }
+
+    /**
+     * Counters per sampling key, sorted by key
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        counters.forEach((key, keyCounters) -> {
+            long seen = keyCounters.seen.sum();
+            long kept = keyCounters.kept.sum();
+            stats.put(key, new Stats(seen, kept, seen - kept));
+        });
+        return stats;
+    }
+
+    /**
+     * Suppressed entries per user email and action, sorted
+     */
+    public Map<String, Map<String, Long>> getSuppressedByUser() {
+        return sorted(suppressedByUser);
+    }
+
+    /**
+     * Suppressed entries per user email and operation type (READ, WRITE, SEARCH_EXPENSIVE), sorted
+     */
+    public Map<String, Map<String, Long>> getSuppressedOperationsByUser() {
+        return sorted(suppressedOperationsByUser);
+    }
+
+    private static Map<String, Map<String, Long>> sorted(Map<String, Map<String, LongAdder>> counts) {
+        Map<String, Map<String, Long>> sorted = new TreeMap<>();
+        counts.forEach((user, keys) -> {
+            Map<String, Long> userCounts = new TreeMap<>();
+            keys.forEach((key, count) -> userCounts.put(key, count.sum()));
+            sorted.put(user, userCounts);
+        });
+        return sorted;
+    }
+
+    /**
+     * Every counter, stamped with the current time
+     */
+    public Totals getTotals() {
+        return new Totals(LocalDateTime.now(), getStats(), getSuppressedByUser(), getSuppressedOperationsByUser());
+    }
+
+    /**
+     * Add the counters of an earlier process, e.g. read back from the saved totals,
+     * so the totals cover every run and not only this one
+     */
+    public void restore(Totals totals) {
+        if (totals.stats() != null) {
+            totals.stats().forEach((key, stats) -> {
+                Counters keyCounters = counters.computeIfAbsent(key, k -> new Counters());
+                keyCounters.seen.add(stats.seen());
+                keyCounters.kept.add(stats.kept());
+            });
+        }
+        restore(suppressedByUser, totals.suppressedByUser());
+        restore(suppressedOperationsByUser, totals.suppressedOperationsByUser());
+    }
+
+    private static void restore(Map<String, Map<String, LongAdder>> counts, Map<String, Map<String, Long>> saved) {
+        if (saved != null) {
+            saved.forEach((user, keys) -> keys.forEach((key, n) -> count(counts, user, key, n)));
+        }
+    }
+
+    /**
+     * Suppressed entries of one user and action
+     */
+    public long getSuppressedCount(String userEmail, String action) {
+        Map<String, LongAdder> actions = suppressedByUser.get(userEmail);
+        LongAdder count = actions != null ? actions.get(action) : null;
+        return count != null ? count.sum() : 0;
+    }
+
+    public void reset() {
+        counters.clear();
+        suppressedByUser.clear();
+        suppressedOperationsByUser.clear();
+    }
+
+    private static final class Counters {
+        final LongAdder seen = new LongAdder();
+        final LongAdder kept = new LongAdder();
+    }
+
+    private static final class TokenBucket implements Policy {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double perSecond, int burst) {
+            this.tokensPerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = burst;
+            this.tokens = burst;
+            this.refilledAt = System.nanoTime();
+        }
+
+        @Override
+        public synchronized boolean keep(long nowNanos) {
+            if (nowNanos > refilledAt) {
+                tokens = Math.min(capacity, tokens + (nowNanos - refilledAt) * tokensPerNano);
+                refilledAt = nowNanos;
+            }
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Adaptive implements Policy {
+        private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final int target;
+        private long windowStart = System.nanoTime();
+        private long seenInWindow;
+        private long keptInWindow;
+        private long stride = 1;            // keep one entry in stride during this window
+
+        Adaptive(int target) {
+            this.target = target;
+        }
+
+        @Override
+        public synchronized boolean keep(long nowNanos) {
+            long elapsed = nowNanos - windowStart;
+            if (elapsed >= WINDOW_NANOS) {
+                // Rate of the window that just ended, scaled if it ran longer than a second
+                double perSecond = seenInWindow * (double) WINDOW_NANOS / elapsed;
+                stride = Math.max(1, (long) Math.ceil(perSecond / target));
+                windowStart = nowNanos;
+                seenInWindow = 0;
+                keptInWindow = 0;
+            }
+            boolean keep = seenInWindow++ % stride == 0 && keptInWindow < target;
+            if (keep) {
+                keptInWindow++;
+            }
+            return keep;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.logging_and_observability.logging.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index of BoundedLogBuffer: for each value of one field, the sorted
+ * sequence numbers of the entries that carry it
+ *
+ * Sequence numbers only grow, so evicted entries are always at the head of a postings
+ * list; they are trimmed against the oldest retained sequence whenever a list is touched,
+ * and sweep() drops the lists of values that have left the buffer altogether.
+ * Thread-safe: the map is concurrent and each postings list has its own lock.
+ */
+final class PostingsIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<String, Postings> postingsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Record that the entry with this sequence number carries the key
+     */
+    void add(String key, long sequence, long oldest) {
+        if (key == null) {
+            return;
+        }
+        while (true) {
+            Postings postings = postingsByKey.computeIfAbsent(key, k -> new Postings());
+            if (postings.add(sequence, oldest)) {
+                return;
+            }
+            // The list was retired by sweep() in the meantime; a fresh one replaces it
+            postingsByKey.remove(key, postings);
+        }
+    }
+
+    /**
+     * Sorted sequence numbers of the retained entries carrying the key
+     */
+    long[] lookup(String key, long oldest) {
+        Postings postings = postingsByKey.get(key);
+        return postings != null ? postings.since(oldest) : EMPTY;
+    }
+
+    /**
+     * Remove the lists whose entries have all been evicted
+     */
+    void sweep(long oldest) {
+        postingsByKey.forEach((key, postings) -> {
+            if (postings.retireIfEmpty(oldest)) {
+                postingsByKey.remove(key, postings);
+            }
+        });
+    }
+
+    void clear() {
+        postingsByKey.clear();
+    }
+
+    int keyCount() {
+        return postingsByKey.size();
+    }
+
+    /**
+     * Sorted sequence numbers stored from head to size in a growable array
+     */
+    private static final class Postings {
+        private long[] sequences = new long[4];
+        private int head;
+        private int size;               // index after the last sequence
+        private boolean retired;
+
+        synchronized boolean add(long sequence, long oldest) {
+            if (retired) {
+                return false;
+            }
+            trim(oldest);
+            if (size == sequences.length) {
+                int live = size - head;
+                long[] grown = live * 2 <= sequences.length ? sequences : new long[sequences.length * 2];
+                System.arraycopy(sequences, head, grown, 0, live);
+                sequences = grown;
+                head = 0;
+                size = live;
+            }
+            // Writers may publish out of order; the slot is almost always the last one
+            int position = size;
+            while (position > head && sequences[position - 1] > sequence) {
+                sequences[position] = sequences[position - 1];
+                position--;
+            }
+            sequences[position] = sequence;
+            size++;
+            return true;
+        }
+
+        synchronized long[] since(long oldest) {
+            trim(oldest);
+            return Arrays.copyOfRange(sequences, head, size);
+        }
+
+        synchronized boolean retireIfEmpty(long oldest) {
+            trim(oldest);
+            if (head == size) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        private void trim(long oldest) {
+            while (head < size && sequences[head] < oldest) {
+                head++;
+            }
+            if (head == size) {
+                head = 0;
+                size = 0;
+                if (sequences.length > 64) {
+                    sequences = new long[4];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.segment.SegmentManifest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Size- and time-bounded segments of the structured text log and its JSON Lines twin
+ *
+ * Entries are appended to the active files (application-logs.txt and .ndjson). Once the
+ * text segment reaches maxBytes or has been open for maxAge, both files are renamed with
+ * the logback naming scheme (application-logs.2025-12-23.0.txt, so LogParser reads them as
+ * a rolled set), recorded in the SegmentManifest, and compressed to .gz by a background
+ * thread. Segments whose newest entry is older than the retention period are deleted
+ * from the manifest alone.
+ * The text segment is written through a LogFileChannel with the current LogDurability
+ * policy; the costs of every policy used so far are kept apart, so they can be compared.
+ * Thread-safe.
+ */
+@Slf4j
+final class RollingTextLog implements Closeable {
+
+    private static final String TIMESTAMP_PREFIX = "Timestamp: ";
+
+    private final Path textFile;
+    private final Path jsonLinesFile;
+    private final JsonLinesLog jsonLog;
+    private final SegmentManifest manifest;
+    private final ExecutorService compressor;
+
+    private volatile long maxBytes;
+    private volatile Duration maxAge;
+    private volatile Duration retention;        // null to keep every segment
+
+    // Durability policy, guarded by this
+    private LogDurability durability = LogDurability.defaults();
+    private LogFileChannel.Counters counters = new LogFileChannel.Counters(durability);
+    private final Map<String, LogFileChannel.Counters> countersByPolicy = new LinkedHashMap<>();
+    private ScheduledExecutorService fsyncScheduler;
+    private ScheduledFuture<?> fsyncTask;
+
+    // Active segment, guarded by this
+    private LogFileChannel channel;
+    private long segmentBytes;
+    private long segmentEntries;
+    private long openedAtMillis;
+    private LocalDateTime minTimestamp;
+    private LocalDateTime maxTimestamp;
+
+    // Next rolled name index of that day, guarded by this: names deleted by retention are not
+    // reused, as a compression of the deleted segment may still be queued
+    private LocalDate rolledDay;
+    private int rolledIndex;
+
+    RollingTextLog(Path textFile, Path jsonLinesFile, JsonLinesLog jsonLog,
+                   long maxBytes, Duration maxAge, Duration retention) {
+        this(textFile, jsonLinesFile, jsonLog, maxBytes, maxAge, retention,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "log-segment-compressor");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    /**
+     * @param compressor runs the compression of rolled segments; shut down by close()
+     */
+    RollingTextLog(Path textFile, Path jsonLinesFile, JsonLinesLog jsonLog,
+                   long maxBytes, Duration maxAge, Duration retention, ExecutorService compressor) {
+        this.textFile = textFile;
+        this.jsonLinesFile = jsonLinesFile;
+        this.jsonLog = jsonLog;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+        this.retention = retention;
+        this.manifest = SegmentManifest.load(textFile);
+        this.compressor = compressor;
+
+        // Segments rolled by a previous process that stopped before compressing them
+        for (SegmentManifest.Segment segment : manifest.getSegments()) {
+            if (!segment.isCompressed() && Files.exists(resolve(segment.getFile()))) {
+                compressor.execute(() -> compress(segment));
+            }
+        }
+    }
+
+    void setRotation(long maxBytes, Duration maxAge) {
+        if (maxBytes < 1 || maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Invalid rotation settings: " + maxBytes + " bytes, " + maxAge);
+        }
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+    }
+
+    void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    SegmentManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Switch to another durability policy; the active segment is closed and reopened with it
+     */
+    synchronized void setDurability(LogDurability durability) throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        this.durability = durability;
+        LogFileChannel.Counters used = countersByPolicy.get(durability.toString());
+        this.counters = used != null ? used : new LogFileChannel.Counters(durability);
+
+        if (fsyncTask != null) {
+            fsyncTask.cancel(false);
+            fsyncTask = null;
+        }
+        if (durability.getFsync() == LogDurability.FsyncMode.INTERVAL) {
+            if (fsyncScheduler == null) {
+                fsyncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "log-segment-fsync");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            long period = durability.getFsyncInterval().toNanos();
+            fsyncTask = fsyncScheduler.scheduleAtFixedRate(this::forceActiveSegment, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    synchronized LogDurability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Write and fsync costs of every policy that wrote a segment, in the order they were first used
+     */
+    synchronized List<LogDurability.Metrics> getDurabilityMetrics() {
+        List<LogDurability.Metrics> metrics = new ArrayList<>();
+        for (LogFileChannel.Counters policyCounters : countersByPolicy.values()) {
+            metrics.add(policyCounters.snapshot());
+        }
+        return metrics;
+    }
+
+    /**
+     * INTERVAL mode: fsync outside the lock, so writers never wait for the disk
+     */
+    private void forceActiveSegment() {
+        LogFileChannel active;
+        synchronized (this) {
+            active = channel;
+        }
+        if (active == null) {
+            return;
+        }
+        try {
+            active.force();
+        } catch (ClosedChannelException e) {
+            // Rolled or closed meanwhile; closing forced it already
+        } catch (IOException e) {
+            log.warn("Failed to force {} to disk", textFile, e);
+        }
+    }
+
+    /**
+     * Append the entries' text lines with one write, rolling the segment first if it is due,
+     * then their JSON Lines. Both are written under the lock roll() takes, so an entry's text
+     * line and JSON line always end up in the same segment.
+     */
+    synchronized void append(List<LogEntry> entries) throws IOException {
+        LogEntryEncoder lines = LogEntryEncoder.current();
+        for (LogEntry entry : entries) {
+            lines.appendText(entry);
+        }
+
+        if (channel == null) {
+            open();
+        }
+        if (segmentBytes > 0 && (segmentBytes + lines.size() > maxBytes
+                || System.currentTimeMillis() - openedAtMillis >= maxAge.toMillis())) {
+            roll();
+            open();
+        }
+
+        channel.write(lines);
+        segmentBytes += lines.size();
+        segmentEntries += entries.size();
+        for (LogEntry entry : entries) {
+            include(entry.getTimestamp());
+        }
+
+        // Reuses the thread's encoder, so after the text lines are accounted for
+        jsonLog.append(entries);
+    }
+
+    /**
+     * Close the active segment and start a new one, even if it is not due yet
+     */
+    synchronized void rollNow() throws IOException {
+        if (channel == null) {
+            open();
+        }
+        if (segmentBytes > 0) {
+            roll();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = LogFileChannel.open(textFile, durability, counters);
+        countersByPolicy.putIfAbsent(durability.toString(), counters);
+        segmentBytes = channel.size();
+        segmentEntries = 0;
+        minTimestamp = null;
+        maxTimestamp = null;
+        openedAtMillis = System.currentTimeMillis();
+
+        if (segmentBytes > 0) {
+            // Left by a previous process: recover its statistics for the manifest
+            openedAtMillis = Files.readAttributes(textFile, BasicFileAttributes.class).creationTime().toMillis();
+            try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    segmentEntries++;
+                    include(parseTimestamp(line));
+                }
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        channel = null;
+
+        LocalDate day = Instant.ofEpochMilli(openedAtMillis).atZone(ZoneId.systemDefault()).toLocalDate();
+        String base = baseName(textFile);
+        int index = day.equals(rolledDay) ? rolledIndex : 0;
+        while (isTaken(base + "." + day + "." + index)) {
+            index++;
+        }
+        rolledDay = day;
+        rolledIndex = index + 1;
+        String rolledName = base + "." + day + "." + index;
+        Path rolledText = textFile.resolveSibling(rolledName + extension(textFile));
+        Path rolledJsonLines = jsonLinesFile.resolveSibling(rolledName + extension(jsonLinesFile));
+
+        Files.move(textFile, rolledText);
+        boolean jsonRolled = jsonLog.roll(rolledJsonLines);
+
+        SegmentManifest.Segment segment = new SegmentManifest.Segment();
+        segment.setFile(rolledText.getFileName().toString());
+        segment.setJsonLinesFile(jsonRolled ? rolledJsonLines.getFileName().toString() : null);
+        segment.setEntries(segmentEntries);
+        segment.setBytes(segmentBytes);
+        segment.setStoredBytes(segmentBytes);
+        segment.setMinTimestamp(minTimestamp);
+        segment.setMaxTimestamp(maxTimestamp);
+        manifest.add(segment);
+        log.info("Rolled {} to {} ({} entries)", textFile, rolledText, segmentEntries);
+
+        compressor.execute(() -> compress(segment));
+        applyRetention();
+    }
+
+    private boolean isTaken(String rolledName) {
+        Path text = textFile.resolveSibling(rolledName + extension(textFile));
+        return Files.exists(text) || Files.exists(Path.of(text + ".gz"));
+    }
+
+    /**
+     * Delete the segments whose newest entry is older than the retention period
+     */
+    private void applyRetention() {
+        Duration keep = retention;
+        if (keep == null) {
+            return;
+        }
+        for (SegmentManifest.Segment segment : manifest.removeOlderThan(LocalDateTime.now().minus(keep))) {
+            deleteFiles(segment);
+            log.info("Deleted log segment {} (older than {})", segment.getFile(), keep);
+        }
+    }
+
+    /**
+     * Replace the segment's files with gzip archives (runs on the compressor thread)
+     */
+    private void compress(SegmentManifest.Segment segment) {
+        String file = segment.getFile();
+        String jsonLines = segment.getJsonLinesFile();
+        if (!Files.exists(resolve(file))) {
+            return;
+        }
+        try {
+            Path text = gzip(resolve(file));
+            Path json = jsonLines != null && Files.exists(resolve(jsonLines)) ? gzip(resolve(jsonLines)) : null;
+            String textName = text.getFileName().toString();
+
+            manifest.markCompressed(file, textName, json != null ? json.getFileName().toString() : jsonLines,
+                    Files.size(text));
+            // Retention may have deleted the plain files already
+            Files.deleteIfExists(resolve(file));
+            if (json != null) {
+                Files.deleteIfExists(resolve(jsonLines));
+            }
+            if (manifest.find(textName) == null) {
+                // Deleted by retention while it was being compressed
+                Files.deleteIfExists(text);
+                if (json != null) {
+                    Files.deleteIfExists(json);
+                }
+            }
+        } catch (IOException e) {
+            if (manifest.find(file) == null && manifest.find(file + ".gz") == null) {
+                // Deleted by retention before it could be read: drop what was compressed so far
+                deleteFiles(segment);
+            } else {
+                log.error("Failed to compress log segment {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Write source.gz through a temporary file, so readers never see a partial archive
+     */
+    private static Path gzip(Path source) throws IOException {
+        Path target = Path.of(source + ".gz");
+        Path temp = Path.of(target + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+            Files.copy(source, out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    private void deleteFiles(SegmentManifest.Segment segment) {
+        try {
+            for (String name : new String[]{segment.getFile(), segment.getJsonLinesFile()}) {
+                if (name != null) {
+                    String plain = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+                    Files.deleteIfExists(resolve(plain));
+                    Files.deleteIfExists(resolve(plain + ".gz"));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete log segment {}", segment.getFile(), e);
+        }
+    }
+
+    private void include(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return;
+        }
+        if (minTimestamp == null || timestamp.isBefore(minTimestamp)) {
+            minTimestamp = timestamp;
+        }
+        if (maxTimestamp == null || timestamp.isAfter(maxTimestamp)) {
+            maxTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * Timestamp of a line written by LogEntry.toStructuredLog(), or null
+     */
+    private static LocalDateTime parseTimestamp(String line) {
+        if (!line.startsWith(TIMESTAMP_PREFIX)) {
+            return null;
+        }
+        int end = line.indexOf(' ', TIMESTAMP_PREFIX.length());
+        try {
+            return LocalDateTime.parse(line.substring(TIMESTAMP_PREFIX.length(), end < 0 ? line.length() : end));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Path resolve(String fileName) {
+        return textFile.resolveSibling(fileName);
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot) : "";
+    }
+
+    /**
+     * Close the active segment and wait for pending compressions
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (fsyncScheduler != null) {
+                fsyncScheduler.shutdownNow();
+            }
+        }
+        compressor.shutdown();
+        try {
+            if (!compressor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Log segment compression still running after 1 minute");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,21 +1,30 @@
 package com.example.logging_and_observability.logging.service;
 
 import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.segment.LogSegmentWriter;
+import com.example.logging_and_observability.logging.segment.SegmentManifest;
 import com.example.logging_and_observability.model.User;
 import com.example.logging_and_observability.model.Product;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for structured logging using LPS (Log Processing Structure)
@@ -27,21 +36,78 @@ public class StructuredLogger {
 
     private static final String STRUCTURED_LOGS_DIR = "structured-logs";
     private static final String JSON_LOGS_FILE = "structured-logs/application-logs.json";
+    private static final String JSON_LINES_LOGS_FILE = "structured-logs/application-logs.ndjson";
+    private static final int DEFAULT_JSON_SNAPSHOT_INTERVAL = 1000;
     private static final String TEXT_LOGS_FILE = "structured-logs/application-logs.txt";
+    private static final String SAMPLING_STATS_FILE = "structured-logs/sampling-stats.json";
+    private static final String SEGMENTS_DIR = "structured-logs/segments";
+    private static final long SEGMENT_MAX_ENTRIES = 100_000;
+    private static final int DEFAULT_BUFFER_CAPACITY = 10_000;
+    private static final long TEXT_SEGMENT_MAX_BYTES = 10 * 1024 * 1024;     // same as the logback FILE appender
+    private static final Duration TEXT_SEGMENT_MAX_AGE = Duration.ofDays(1);
+    private static final Duration SEGMENT_RETENTION = Duration.ofDays(30);
 
     private final ObjectMapper objectMapper;
-    private final List<LogEntry> logBuffer = new ArrayList<>();
+    private final JsonLinesLog jsonLog;
+    private final RollingTextLog textLog;
+    private volatile int jsonSnapshotInterval = DEFAULT_JSON_SNAPSHOT_INTERVAL;
+    private final BoundedLogBuffer logBuffer;
+    private final LogSampler sampler = new LogSampler();
+    private volatile boolean binarySegments;
+    private volatile Duration segmentRetention = SEGMENT_RETENTION;    // null to keep every segment
+    private LogSegmentWriter segmentWriter;
+    private int segmentSequence;
+
+    private final AsyncLogWriter asyncWriter;     // null when writing on the calling thread
 
+    /**
+     * Synchronous: files are written on the calling thread
+     */
     public StructuredLogger() {
+        this((AsyncLogWriter.Config) null);
+    }
+
+    /**
+     * Spring bean; structured-logger.async=true moves file writes to a background writer
+     * with the default settings, structured-logger.binary-segments=true also writes binary segments
+     */
+    @Autowired
+    public StructuredLogger(@Value("${structured-logger.async:false}") boolean async,
+                            @Value("${structured-logger.binary-segments:false}") boolean binarySegments) {
+        this(async ? AsyncLogWriter.Config.defaults() : null);
+        this.binarySegments = binarySegments;
+    }
+
+    /**
+     * @param asyncConfig settings of the background writer, or null to write files on the calling thread
+     */
+    public StructuredLogger(AsyncLogWriter.Config asyncConfig) {
+        this(asyncConfig, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * @param asyncConfig settings of the background writer, or null to write files on the calling thread
+     * @param bufferCapacity number of recent entries kept in memory; older ones are evicted
+     */
+    public StructuredLogger(AsyncLogWriter.Config asyncConfig, int bufferCapacity) {
+        this.logBuffer = new BoundedLogBuffer(bufferCapacity);
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
         // Create directory
         new File(STRUCTURED_LOGS_DIR).mkdirs();
 
-        log.info("StructuredLogger initialized. Logs directory: {}", STRUCTURED_LOGS_DIR);
+        this.jsonLog = new JsonLinesLog(Paths.get(JSON_LINES_LOGS_FILE), Paths.get(JSON_LOGS_FILE), objectMapper);
+        this.textLog = new RollingTextLog(Paths.get(TEXT_LOGS_FILE), Paths.get(JSON_LINES_LOGS_FILE), jsonLog,
+                TEXT_SEGMENT_MAX_BYTES, TEXT_SEGMENT_MAX_AGE, SEGMENT_RETENTION);
+
+        this.asyncWriter = asyncConfig != null ? new AsyncLogWriter(asyncConfig, this::writeBatch) : null;
+
+        restoreSamplingStats();
+
+        log.info("StructuredLogger initialized. Logs directory: {} ({} writes)",
+                STRUCTURED_LOGS_DIR, asyncWriter != null ? "asynchronous" : "synchronous");
     }
 
     /**
@@ -179,15 +245,27 @@ public class StructuredLogger {
      * Write log entry to both JSON and text files
      */
     private void writeLog(LogEntry entry) {
+        // Counted in any case, recorded only if its sampling policy keeps it
+        if (!sampler.sample(entry)) {
+            return;
+        }
+
         // Add to buffer
         logBuffer.add(entry);
 
-        // Write to text file (append mode)
-        writeToTextFile(entry);
+        if (asyncWriter != null) {
+            // Files are written in batches by the writer thread
+            asyncWriter.submit(entry);
+        } else {
+            // Write to the text and JSON Lines files (each entry serialized once)
+            writeToTextFile(entry);
+
+            // Write to binary segment (read back by LogParser without text parsing)
+            if (binarySegments) {
+                writeToSegment(entry);
+            }
 
-        // Write to JSON file (overwrite with all entries)
-        if (logBuffer.size() % 10 == 0) { // Batch write every 10 entries
-            writeToJsonFile();
+            refreshJsonSnapshot();
         }
 
         // Also log to standard logger
@@ -195,68 +273,349 @@ public class StructuredLogger {
     }
 
     /**
-     * Write single entry to text file
+     * Write single entry to the active text and JSON Lines segments
      */
     private void writeToTextFile(LogEntry entry) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TEXT_LOGS_FILE, true))) {
-            writer.write(entry.toStructuredLog());
-            writer.newLine();
+        try {
+            textLog.append(List.of(entry));
+        } catch (IOException e) {
+            log.error("Failed to write to text and JSON Lines log files", e);
+        }
+    }
+
+    /**
+     * Write a batch from the async writer: all text lines with one write to the active segment,
+     * then all JSON lines with another
+     */
+    private void writeBatch(List<LogEntry> batch) throws IOException {
+        textLog.append(batch);
+
+        if (binarySegments) {
+            for (LogEntry entry : batch) {
+                writeToSegment(entry);
+            }
+        }
+
+        refreshJsonSnapshot();
+    }
+
+    /**
+     * Append entry to the current binary segment, starting a new one when it is full
+     */
+    private synchronized void writeToSegment(LogEntry entry) {
+        try {
+            if (segmentWriter != null && segmentWriter.getEntryCount() >= SEGMENT_MAX_ENTRIES) {
+                segmentWriter.close();
+                segmentWriter = null;
+                applySegmentRetention();
+            }
+            if (segmentWriter == null) {
+                segmentWriter = LogSegmentWriter.create(nextSegmentPath());
+            }
+            segmentWriter.write(entry);
+        } catch (IOException e) {
+            log.error("Failed to write to binary log segment", e);
+        }
+    }
+
+    /**
+     * Delete the closed binary segments last written before the retention period, i.e. whose
+     * newest entry is older than it, like the rolled text segments
+     */
+    private void applySegmentRetention() {
+        Duration keep = segmentRetention;
+        if (keep == null) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(keep);
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(Paths.get(SEGMENTS_DIR), "*.lseg")) {
+            for (Path segment : segments) {
+                if (Files.getLastModifiedTime(segment).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(segment);
+                    log.info("Deleted binary log segment {} (older than {})", segment, keep);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to apply retention to binary log segments", e);
+        }
+    }
+
+    private Path nextSegmentPath() {
+        return Paths.get(SEGMENTS_DIR, String.format("segment-%d-%04d.lseg",
+                System.currentTimeMillis(), segmentSequence++));
+    }
+
+    /**
+     * Refresh the JSON snapshot every jsonSnapshotInterval entries appended to the JSON Lines file
+     */
+    private void refreshJsonSnapshot() {
+        try {
+            int interval = jsonSnapshotInterval;
+            if (interval > 0 && jsonLog.getEntriesSinceSnapshot() >= interval) {
+                jsonLog.snapshot();
+            }
         } catch (IOException e) {
-            log.error("Failed to write to text log file", e);
+            log.error("Failed to write to JSON log file", e);
         }
     }
 
     /**
-     * Write all entries to JSON file
+     * Bring the JSON array file up to date with the JSON Lines file
      */
-    private void writeToJsonFile() {
+    private void writeJsonSnapshot() {
         try {
-            objectMapper.writeValue(new File(JSON_LOGS_FILE), logBuffer);
+            jsonLog.snapshot();
         } catch (IOException e) {
             log.error("Failed to write to JSON log file", e);
         }
     }
 
+    /**
+     * Entries between two automatic JSON snapshots; 0 to refresh the snapshot only on flush() and close()
+     */
+    public void setJsonSnapshotInterval(int entries) {
+        if (entries < 0) {
+            throw new IllegalArgumentException("Snapshot interval must not be negative: " + entries);
+        }
+        this.jsonSnapshotInterval = entries;
+    }
+
+    /**
+     * Also write every recorded entry to binary segments in structured-logs/segments, which
+     * LogParser reads without text parsing; off by default, as it costs a third write per entry
+     */
+    public void setBinarySegments(boolean enabled) {
+        this.binarySegments = enabled;
+    }
+
+    /**
+     * Roll the text and JSON Lines segments at maxBytes or after maxAge, whichever comes first
+     */
+    public void setRotation(long maxBytes, Duration maxAge) {
+        textLog.setRotation(maxBytes, maxAge);
+    }
+
+    /**
+     * Delete rolled text, JSON Lines and binary segments whose newest entry is older than this;
+     * null to keep them all
+     */
+    public void setRetention(Duration retention) {
+        textLog.setRetention(retention);
+        this.segmentRetention = retention;
+    }
+
+    /**
+     * Close the active text and JSON Lines segments now, e.g. before archiving
+     */
+    public void rollSegments() {
+        if (asyncWriter != null) {
+            asyncWriter.flush();
+        }
+        try {
+            textLog.rollNow();
+        } catch (IOException e) {
+            log.error("Failed to roll structured log segments", e);
+        }
+    }
+
+    /**
+     * Durability of the text log: fsync mode and optional memory-mapped writes, e.g.
+     * LogDurability.builder().fsync(LogDurability.FsyncMode.PER_BATCH).build()
+     */
+    public void setDurability(LogDurability durability) {
+        try {
+            textLog.setDurability(durability);
+        } catch (IOException e) {
+            log.error("Failed to reopen structured log with durability {}", durability, e);
+        }
+    }
+
+    public LogDurability getDurability() {
+        return textLog.getDurability();
+    }
+
+    /**
+     * Rolled segments of the text log with their time ranges and entry counts
+     */
+    public SegmentManifest getSegmentManifest() {
+        return textLog.getManifest();
+    }
+
+    /**
+     * Sample the entries of an event type ("PRODUCT_OPERATION") or of an event and operation type
+     * ("PRODUCT_OPERATION/READ"), e.g. LogSampler.Policy.adaptive(50); null records them all again.
+     * A suppressed entry is written to none of the log files, its counts are added back by
+     * ProfileExtractor; an event that another logger also records would then be counted twice.
+     */
+    public void setSamplingPolicy(String key, LogSampler.Policy policy) {
+        sampler.setPolicy(key, policy);
+    }
+
+    /**
+     * Seen, kept and suppressed entries per sampling key
+     */
+    public Map<String, LogSampler.Stats> getSamplingStats() {
+        return sampler.getStats();
+    }
+
+    /**
+     * Entries not recorded because of sampling, per user email and action
+     */
+    public Map<String, Map<String, Long>> getSuppressedByUser() {
+        return sampler.getSuppressedByUser();
+    }
+
+    /**
+     * Entries not recorded because of sampling, per user email and operation type
+     */
+    public Map<String, Map<String, Long>> getSuppressedOperationsByUser() {
+        return sampler.getSuppressedOperationsByUser();
+    }
+
+    /**
+     * Save the sampling counters next to the logs. They include the counters of earlier
+     * processes (restoreSamplingStats), so ProfileExtractor can add every suppressed
+     * operation back to the profiles.
+     */
+    private void writeSamplingStats() {
+        if (!sampler.hasPolicies()) {
+            return;
+        }
+        try {
+            objectMapper.writeValue(new File(SAMPLING_STATS_FILE), sampler.getTotals());
+        } catch (IOException e) {
+            log.error("Failed to write sampling statistics", e);
+        }
+    }
+
+    /**
+     * Start from the counters saved by the previous process, so the totals survive restarts
+     */
+    private void restoreSamplingStats() {
+        File file = new File(SAMPLING_STATS_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            sampler.restore(objectMapper.readValue(file, LogSampler.Totals.class));
+        } catch (IOException e) {
+            log.error("Failed to read sampling statistics {}, counting from zero", SAMPLING_STATS_FILE, e);
+        }
+    }
+
     /**
      * Flush all buffered logs
      */
     public void flush() {
-        writeToJsonFile();
+        if (asyncWriter != null) {
+            asyncWriter.flush();
+        }
+        writeJsonSnapshot();
+        writeSamplingStats();
+        flushSegment();
         log.info("Flushed {} log entries to {}", logBuffer.size(), JSON_LOGS_FILE);
     }
 
+    private synchronized void flushSegment() {
+        if (segmentWriter != null) {
+            try {
+                segmentWriter.flush();
+            } catch (IOException e) {
+                log.error("Failed to flush binary log segment", e);
+            }
+        }
+    }
+
     /**
-     * Get all log entries
+     * Write out queued entries, then close the text segment (waiting for background compression)
+     * and the current binary segment (which gets its index)
+     */
+    @PreDestroy
+    public void close() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
+        try {
+            textLog.close();
+        } catch (IOException e) {
+            log.error("Failed to close text log file", e);
+        }
+        writeJsonSnapshot();
+        writeSamplingStats();
+        try {
+            jsonLog.close();
+        } catch (IOException e) {
+            log.error("Failed to close JSON Lines log file", e);
+        }
+        closeSegment();
+    }
+
+    private synchronized void closeSegment() {
+        if (segmentWriter != null) {
+            try {
+                segmentWriter.close();
+            } catch (IOException e) {
+                log.error("Failed to close binary log segment", e);
+            }
+            segmentWriter = null;
+        }
+    }
+
+    /**
+     * Queue depth and throughput counters of the async writer, or null in synchronous mode
+     */
+    public AsyncLogWriter.Metrics getWriterMetrics() {
+        return asyncWriter != null ? asyncWriter.getMetrics() : null;
+    }
+
+    /**
+     * Write latency, fsync latency and throughput of each durability policy used so far
+     */
+    public List<LogDurability.Metrics> getDurabilityMetrics() {
+        return textLog.getDurabilityMetrics();
+    }
+
+    /**
+     * Retained entries, evictions and approximate memory of the in-memory buffer
+     */
+    public BoundedLogBuffer.Metrics getBufferMetrics() {
+        return logBuffer.getMetrics();
+    }
+
+    /**
+     * Get all retained log entries, oldest first
      */
     public List<LogEntry> getAllLogs() {
-        return new ArrayList<>(logBuffer);
+        return logBuffer.snapshot();
     }
 
     /**
      * Get logs by user email
      */
     public List<LogEntry> getLogsByUser(String userEmail) {
-        return logBuffer.stream()
-                .filter(log -> userEmail.equals(log.getUserEmail()))
-                .toList();
+        return logBuffer.query(LogQuery.builder().userEmail(userEmail).build());
     }
 
     /**
      * Get logs by event type
      */
     public List<LogEntry> getLogsByEvent(String event) {
-        return logBuffer.stream()
-                .filter(log -> event.equals(log.getEvent()))
-                .toList();
+        return logBuffer.query(LogQuery.builder().event(event).build());
     }
 
     /**
      * Get logs by operation type
      */
     public List<LogEntry> getLogsByOperationType(String operationType) {
-        return logBuffer.stream()
-                .filter(log -> operationType.equals(log.getOperationType()))
-                .toList();
+        return logBuffer.query(LogQuery.builder().operationType(operationType).build());
+    }
+
+    /**
+     * Get the retained logs matching every condition of the query,
+     * e.g. one user's WRITE operations within a time range
+     */
+    public List<LogEntry> findLogs(LogQuery query) {
+        return logBuffer.query(query);
     }
 
     /**
@@ -0,0 +1,601 @@
+package com.example.logging_and_observability.logging.store;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented, in-memory store of log entries
+ *
+ * Every LogEntry field is kept in its own array instead of one object per entry:
+ * timestamps as epoch nanoseconds, low-cardinality strings, prices and durations as codes
+ * into a per-column dictionary, and free text (error messages, additional info) as UTF-8
+ * in a shared byte arena, where repeated texts are stored once. Code arrays start one byte
+ * wide and widen to two or four bytes only when their dictionary outgrows them.
+ * Rows keep insertion order. Entries can be materialized again with get(), but scans and
+ * aggregates work on the columns directly.
+ * Not thread-safe while loading; read-only use after loading is safe.
+ */
+public final class ColumnarLogStore implements Iterable<LogEntry> {
+
+    /**
+     * Dictionary-encoded string columns
+     */
+    public enum Column {
+        LEVEL, LOGGER, THREAD, EVENT, USER_NAME, USER_EMAIL, ACTION,
+        RESOURCE_TYPE, RESOURCE_ID, RESOURCE_NAME, OPERATION_TYPE, RESULT
+    }
+
+    /** Code of a null value in every dictionary column */
+    public static final int NULL_CODE = 0;
+    /** Returned by codeOf() for a value that never occurs in the column */
+    public static final int ABSENT_CODE = -1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int NO_TEXT = -1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final long OUT_OF_RANGE_TIMESTAMP = Long.MIN_VALUE + 1;
+    private static final int RECENT_TEXT_SLOTS = 4096;   // must be a power of two
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private int size;
+    private int capacity;
+
+    private long[] timestamps;           // epoch nanoseconds (UTC), or one of the markers above
+    private final Map<Integer, LocalDateTime> outOfRangeTimestamps = new HashMap<>();   // outside 1677-2262
+    private final CodeColumn[] codes = new CodeColumn[COLUMNS.length];
+    private final Dictionary[] dictionaries = new Dictionary[COLUMNS.length];
+    private final CodeColumn priceCodes;
+    private final Dictionary prices = new Dictionary();           // Double values
+    private final CodeColumn durationCodes;
+    private final Dictionary durations = new Dictionary();        // Long values
+    private int[] errorMessages;         // arena offsets, NO_TEXT when absent
+    private int[] additionalInfos;
+
+    private byte[] arena;
+    private int arenaLength;
+    private final int[] recentTexts = new int[RECENT_TEXT_SLOTS];   // text hash slot -> arena offset
+
+    public ColumnarLogStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarLogStore(int initialCapacity) {
+        this.capacity = Math.max(16, initialCapacity);
+        this.timestamps = new long[capacity];
+        for (Column column : COLUMNS) {
+            codes[column.ordinal()] = new CodeColumn(capacity);
+            dictionaries[column.ordinal()] = new Dictionary();
+        }
+        this.priceCodes = new CodeColumn(capacity);
+        this.durationCodes = new CodeColumn(capacity);
+        this.errorMessages = new int[capacity];
+        this.additionalInfos = new int[capacity];
+        this.arena = new byte[capacity * 16];
+        Arrays.fill(recentTexts, NO_TEXT);
+    }
+
+    /**
+     * Load a stream of entries; the caller remains responsible for closing the stream
+     */
+    public static ColumnarLogStore of(Stream<LogEntry> entries) {
+        ColumnarLogStore store = new ColumnarLogStore();
+        entries.forEachOrdered(store::add);
+        store.trimToSize();
+        return store;
+    }
+
+    public static ColumnarLogStore of(List<LogEntry> entries) {
+        ColumnarLogStore store = new ColumnarLogStore(entries.size());
+        entries.forEach(store::add);
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Per-column value dictionary; code 0 is null
+     */
+    private static final class Dictionary {
+        private final Map<Object, Integer> codes = new HashMap<>();
+        private final List<Object> values = new ArrayList<>();
+
+        private Dictionary() {
+            values.add(null);
+        }
+
+        private int encode(Object value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Dictionary codes of one column, stored as unsigned bytes, then shorts, then ints
+     * as the largest code grows
+     */
+    private static final class CodeColumn {
+        private byte[] bytes;
+        private short[] shorts;
+        private int[] ints;
+
+        private CodeColumn(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private int get(int row) {
+            if (bytes != null) {
+                return bytes[row] & 0xFF;
+            }
+            return shorts != null ? shorts[row] & 0xFFFF : ints[row];
+        }
+
+        private void set(int row, int code, int size) {
+            if (bytes != null && code > 0xFF) {
+                shorts = new short[bytes.length];
+                for (int i = 0; i < size; i++) {
+                    shorts[i] = (short) (bytes[i] & 0xFF);
+                }
+                bytes = null;
+            }
+            if (shorts != null && code > 0xFFFF) {
+                ints = new int[shorts.length];
+                for (int i = 0; i < size; i++) {
+                    ints[i] = shorts[i] & 0xFFFF;
+                }
+                shorts = null;
+            }
+
+            if (bytes != null) {
+                bytes[row] = (byte) code;
+            } else if (shorts != null) {
+                shorts[row] = (short) code;
+            } else {
+                ints[row] = code;
+            }
+        }
+
+        private void resize(int capacity) {
+            if (bytes != null) {
+                bytes = Arrays.copyOf(bytes, capacity);
+            } else if (shorts != null) {
+                shorts = Arrays.copyOf(shorts, capacity);
+            } else {
+                ints = Arrays.copyOf(ints, capacity);
+            }
+        }
+
+        private int width() {
+            return bytes != null ? Byte.BYTES : shorts != null ? Short.BYTES : Integer.BYTES;
+        }
+    }
+
+    /**
+     * Append an entry as a new row
+     */
+    public void add(LogEntry entry) {
+        if (size == capacity) {
+            resize(Math.max(16, size + (size >> 1)));
+        }
+        int row = size;
+
+        timestamps[row] = toEpochNanos(entry.getTimestamp());
+        if (timestamps[row] == OUT_OF_RANGE_TIMESTAMP) {
+            outOfRangeTimestamps.put(row, entry.getTimestamp());
+        }
+        priceCodes.set(row, prices.encode(entry.getResourcePrice()), row);
+        durationCodes.set(row, durations.encode(entry.getDuration()), row);
+
+        encode(Column.LEVEL, row, entry.getLevel());
+        encode(Column.LOGGER, row, entry.getLogger());
+        encode(Column.THREAD, row, entry.getThread());
+        encode(Column.EVENT, row, entry.getEvent());
+        encode(Column.USER_NAME, row, entry.getUserName());
+        encode(Column.USER_EMAIL, row, entry.getUserEmail());
+        encode(Column.ACTION, row, entry.getAction());
+        encode(Column.RESOURCE_TYPE, row, entry.getResourceType());
+        encode(Column.RESOURCE_ID, row, entry.getResourceId());
+        encode(Column.RESOURCE_NAME, row, entry.getResourceName());
+        encode(Column.OPERATION_TYPE, row, entry.getOperationType());
+        encode(Column.RESULT, row, entry.getResult());
+
+        errorMessages[row] = storeText(entry.getErrorMessage());
+        additionalInfos[row] = storeText(entry.getAdditionalInfo());
+
+        size++;
+    }
+
+    private void encode(Column column, int row, String value) {
+        codes[column.ordinal()].set(row, dictionaries[column.ordinal()].encode(value), row);
+    }
+
+    private static long toEpochNanos(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        long seconds = timestamp.toEpochSecond(ZoneOffset.UTC);
+        if (seconds <= Long.MIN_VALUE / 1_000_000_000L + 1 || seconds >= Long.MAX_VALUE / 1_000_000_000L) {
+            return OUT_OF_RANGE_TIMESTAMP;
+        }
+        return seconds * 1_000_000_000L + timestamp.getNano();
+    }
+
+    /**
+     * Copy a text into the arena as varint length + UTF-8, reusing a recent identical copy
+     */
+    private int storeText(String text) {
+        if (text == null) {
+            return NO_TEXT;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+
+        int slot = (text.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(RECENT_TEXT_SLOTS));
+        int recent = recentTexts[slot];
+        if (recent != NO_TEXT && sameText(recent, utf8)) {
+            return recent;
+        }
+
+        if (arenaLength + utf8.length + 5 > arena.length) {
+            long needed = (long) arenaLength + utf8.length + 5;
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Text arena full: " + arenaLength + " bytes");
+            }
+            arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, arena.length * 3L / 2)));
+        }
+
+        int offset = arenaLength;
+        int length = utf8.length;
+        while ((length & ~0x7F) != 0) {
+            arena[arenaLength++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        arena[arenaLength++] = (byte) length;
+        System.arraycopy(utf8, 0, arena, arenaLength, utf8.length);
+        arenaLength += utf8.length;
+
+        recentTexts[slot] = offset;
+        return offset;
+    }
+
+    private boolean sameText(int offset, byte[] utf8) {
+        int position = offset;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = arena[position++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return length == utf8.length
+                && Arrays.equals(arena, position, position + length, utf8, 0, length);
+    }
+
+    private String text(int offset) {
+        if (offset == NO_TEXT) {
+            return null;
+        }
+        int position = offset;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = arena[position++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return new String(arena, position, length, StandardCharsets.UTF_8);
+    }
+
+    private void resize(int newCapacity) {
+        capacity = newCapacity;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        for (CodeColumn column : codes) {
+            column.resize(capacity);
+        }
+        priceCodes.resize(capacity);
+        durationCodes.resize(capacity);
+        errorMessages = Arrays.copyOf(errorMessages, capacity);
+        additionalInfos = Arrays.copyOf(additionalInfos, capacity);
+    }
+
+    /**
+     * Release the spare capacity left after loading
+     */
+    public void trimToSize() {
+        if (size < capacity) {
+            resize(Math.max(size, 1));
+        }
+        if (arenaLength < arena.length) {
+            arena = Arrays.copyOf(arena, arenaLength);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ---- Row access ----
+
+    /**
+     * Materialize a row as a LogEntry
+     */
+    public LogEntry get(int row) {
+        checkRow(row);
+        LogEntry entry = LogEntry.builder()
+                .timestamp(timestamp(row))
+                .level(value(Column.LEVEL, row))
+                .logger(value(Column.LOGGER, row))
+                .thread(value(Column.THREAD, row))
+                .event(value(Column.EVENT, row))
+                .userName(value(Column.USER_NAME, row))
+                .userEmail(value(Column.USER_EMAIL, row))
+                .action(value(Column.ACTION, row))
+                .resourceType(value(Column.RESOURCE_TYPE, row))
+                .resourceId(value(Column.RESOURCE_ID, row))
+                .resourceName(value(Column.RESOURCE_NAME, row))
+                .resourcePrice((Double) prices.values.get(priceCodes.get(row)))
+                .operationType(value(Column.OPERATION_TYPE, row))
+                .result(value(Column.RESULT, row))
+                .errorMessage(errorMessage(row))
+                .duration((Long) durations.values.get(durationCodes.get(row)))
+                .additionalInfo(additionalInfo(row))
+                .build();
+
+        // build() fills in defaults; keep absent fields absent
+        if (!hasTimestamp(row)) {
+            entry.setTimestamp(null);
+        }
+        if (code(Column.LEVEL, row) == NULL_CODE) {
+            entry.setLevel(null);
+        }
+        return entry;
+    }
+
+    @Override
+    public Iterator<LogEntry> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * All rows materialized lazily, in insertion order
+     */
+    public Stream<LogEntry> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    public boolean hasTimestamp(int row) {
+        checkRow(row);
+        return timestamps[row] != NO_TIMESTAMP;
+    }
+
+    public LocalDateTime timestamp(int row) {
+        checkRow(row);
+        long nanos = timestamps[row];
+        if (nanos == NO_TIMESTAMP) {
+            return null;
+        }
+        if (nanos == OUT_OF_RANGE_TIMESTAMP) {
+            return outOfRangeTimestamps.get(row);
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Resource price, or null when absent
+     */
+    public Double price(int row) {
+        checkRow(row);
+        return (Double) prices.values.get(priceCodes.get(row));
+    }
+
+    /**
+     * Duration in milliseconds, or null when absent
+     */
+    public Long duration(int row) {
+        checkRow(row);
+        return (Long) durations.values.get(durationCodes.get(row));
+    }
+
+    public int code(Column column, int row) {
+        checkRow(row);
+        return codes[column.ordinal()].get(row);
+    }
+
+    public String value(Column column, int row) {
+        return decode(column, code(column, row));
+    }
+
+    public String errorMessage(int row) {
+        checkRow(row);
+        return text(errorMessages[row]);
+    }
+
+    public String additionalInfo(int row) {
+        checkRow(row);
+        return text(additionalInfos[row]);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+    }
+
+    // ---- Dictionaries ----
+
+    /**
+     * Code of a value in a column, NULL_CODE for null or ABSENT_CODE if it never occurs
+     */
+    public int codeOf(Column column, String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = dictionaries[column.ordinal()].codes.get(value);
+        return code != null ? code : ABSENT_CODE;
+    }
+
+    public String decode(Column column, int code) {
+        return (String) dictionaries[column.ordinal()].values.get(code);
+    }
+
+    /**
+     * Number of codes in a column, including NULL_CODE
+     */
+    public int cardinality(Column column) {
+        return dictionaries[column.ordinal()].values.size();
+    }
+
+    // ---- Scans and aggregates ----
+
+    /**
+     * Rows whose column holds the value, in insertion order
+     */
+    public int[] select(Column column, String value) {
+        int code = codeOf(column, value);
+        if (code == ABSENT_CODE) {
+            return new int[0];
+        }
+        CodeColumn values = codes[column.ordinal()];
+        return IntStream.range(0, size).filter(row -> values.get(row) == code).toArray();
+    }
+
+    /**
+     * Rows with from <= timestamp < to, in insertion order; null bounds are open
+     */
+    public int[] selectTimeRange(LocalDateTime from, LocalDateTime to) {
+        return IntStream.range(0, size)
+                .filter(row -> {
+                    if (timestamps[row] == NO_TIMESTAMP) {
+                        return from == null && to == null;
+                    }
+                    LocalDateTime timestamp = timestamp(row);
+                    return (from == null || !timestamp.isBefore(from)) && (to == null || timestamp.isBefore(to));
+                })
+                .toArray();
+    }
+
+    /**
+     * Rows grouped by the code of a column: result[code] lists the rows holding it, in insertion order
+     */
+    public int[][] groupBy(Column column) {
+        CodeColumn values = codes[column.ordinal()];
+        int[] counts = new int[cardinality(column)];
+        for (int row = 0; row < size; row++) {
+            counts[values.get(row)]++;
+        }
+
+        int[][] groups = new int[counts.length][];
+        for (int code = 0; code < counts.length; code++) {
+            groups[code] = new int[counts[code]];
+        }
+        int[] filled = new int[counts.length];
+        for (int row = 0; row < size; row++) {
+            int code = values.get(row);
+            groups[code][filled[code]++] = row;
+        }
+        return groups;
+    }
+
+    /**
+     * Occurrences of every code of a column over all rows: result[code]
+     */
+    public long[] countBy(Column column) {
+        CodeColumn values = codes[column.ordinal()];
+        long[] counts = new long[cardinality(column)];
+        for (int row = 0; row < size; row++) {
+            counts[values.get(row)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Occurrences of every code of a column over the given rows: result[code]
+     */
+    public long[] countBy(Column column, int[] rows) {
+        CodeColumn values = codes[column.ordinal()];
+        long[] counts = new long[cardinality(column)];
+        for (int row : rows) {
+            counts[values.get(row)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Sum of the durations present in the given rows
+     */
+    public long sumDuration(int[] rows) {
+        long[] countByCode = new long[durations.values.size()];
+        for (int row : rows) {
+            countByCode[durationCodes.get(row)]++;
+        }
+        long sum = 0;
+        for (int code = NULL_CODE + 1; code < countByCode.length; code++) {
+            sum += countByCode[code] * (Long) durations.values.get(code);
+        }
+        return sum;
+    }
+
+    /**
+     * Earliest timestamp of the given rows, or null if none has one
+     */
+    public LocalDateTime minTimestamp(int[] rows) {
+        int best = -1;
+        for (int row : rows) {
+            if (timestamps[row] != NO_TIMESTAMP && (best < 0 || compareTimestamps(row, best) < 0)) {
+                best = row;
+            }
+        }
+        return best < 0 ? null : timestamp(best);
+    }
+
+    /**
+     * Latest timestamp of the given rows, or null if none has one
+     */
+    public LocalDateTime maxTimestamp(int[] rows) {
+        int best = -1;
+        for (int row : rows) {
+            if (timestamps[row] != NO_TIMESTAMP && (best < 0 || compareTimestamps(row, best) > 0)) {
+                best = row;
+            }
+        }
+        return best < 0 ? null : timestamp(best);
+    }
+
+    private int compareTimestamps(int a, int b) {
+        if (timestamps[a] == OUT_OF_RANGE_TIMESTAMP || timestamps[b] == OUT_OF_RANGE_TIMESTAMP) {
+            return timestamp(a).compareTo(timestamp(b));
+        }
+        return Long.compare(timestamps[a], timestamps[b]);
+    }
+
+    /**
+     * Approximate heap footprint of the columns, dictionaries excluded
+     */
+    public long estimatedBytes() {
+        long perRow = Long.BYTES + 2L * Integer.BYTES + priceCodes.width() + durationCodes.width();
+        for (CodeColumn column : codes) {
+            perRow += column.width();
+        }
+        return perRow * capacity + arena.length;
+    }
+}
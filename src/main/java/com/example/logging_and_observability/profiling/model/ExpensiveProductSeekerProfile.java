@@ -80,6 +80,33 @@ public class ExpensiveProductSeekerProfile extends UserProfile {
         updateStatistics(price);
     }
 
+    /**
+     * Same as calling trackProductView views times
+     */
+    public void trackProductViews(String productId, String productName, Double price, int views) {
+        totalProductViews += views;
+        totalOperations += views;
+
+        if (price != null && price >= EXPENSIVE_THRESHOLD) {
+            expensiveProductViews += views;
+
+            ExpensiveProductView existing = expensiveProducts.stream()
+                    .filter(p -> p.getProductId().equals(productId))
+                    .findFirst()
+                    .orElse(null);
+
+            if (existing != null) {
+                existing.setViewCount(existing.getViewCount() + views);
+            } else {
+                ExpensiveProductView view = new ExpensiveProductView(productId, productName, price);
+                view.setViewCount(views);
+                expensiveProducts.add(view);
+            }
+        }
+
+        updateStatistics(price);
+    }
+
     private void updateStatistics(Double price) {
         // Update percentage
         if (totalProductViews > 0) {
@@ -62,6 +62,14 @@ public class ReadHeavyProfile extends UserProfile {
         productNames.put(productId, productName);
     }
 
+    /**
+     * Same as calling trackProductView views times
+     */
+    public void trackProductViews(String productId, String productName, int views) {
+        productViewCount.put(productId, productViewCount.getOrDefault(productId, 0) + views);
+        productNames.put(productId, productName);
+    }
+
     private void updateReadPercentage() {
         if (totalOperations > 0) {
             readPercentage = (totalReadOperations * 100.0) / totalOperations;
@@ -61,6 +61,28 @@ public class WriteHeavyProfile extends UserProfile {
         updateWritePercentage();
     }
 
+    /**
+     * Same as calling incrementWriteOperation count times
+     */
+    public void incrementWriteOperations(String operationName, String productId, int count) {
+        totalWriteOperations += count;
+        totalOperations += count;
+
+        switch (operationName) {
+            case "addProduct" -> addProductCount += count;
+            case "updateProduct" -> updateProductCount += count;
+            case "deleteProduct" -> deleteProductCount += count;
+        }
+
+        operationTypeCount.put(operationName, operationTypeCount.getOrDefault(operationName, 0) + count);
+
+        if (productId != null) {
+            productsModified.put(productId, productsModified.getOrDefault(productId, 0) + count);
+        }
+
+        updateWritePercentage();
+    }
+
     public void incrementReadOperation() {
         totalReadOperations++;
         totalOperations++;
@@ -0,0 +1,199 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.parser.LogCheckpoint;
+import com.example.logging_and_observability.logging.parser.LogParser;
+import com.example.logging_and_observability.profiling.model.UserProfile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * extractProfilesParallel must build exactly the profiles of the sequential extractProfilesFromStream,
+ * with one, two or as many threads as processors, and with more threads than entries; so must the
+ * shards of every count once merged, and the out-of-core extraction, which leaves no run file behind
+ */
+class ProfileExtractorTest {
+
+    private static final String LOG_FILE = "logs/product-management.log";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final ProfileExtractor profileExtractor = new ProfileExtractor(new LogParser());
+
+    @Test
+    void parallelMatchesSequentialOnLogCorpus() throws JsonProcessingException {
+        List<LogEntry> logs = new LogParser().parseLogFile(LOG_FILE);
+        assertFalse(logs.isEmpty());
+
+        assertParallelMatchesSequential(logs);
+    }
+
+    @Test
+    void parallelMatchesSequentialOnInterleavedSyntheticUsers() throws JsonProcessingException {
+        assertParallelMatchesSequential(interleavedSyntheticUsers(new Random(22), 200));
+    }
+
+    @Test
+    void parallelHandlesFewerEntriesThanThreads() throws JsonProcessingException {
+        List<LogEntry> logs = UserLogAccumulatorTest.syntheticLogs("solo@email.com", 1, new Random(3)).subList(0, 1);
+
+        assertParallelMatchesSequential(logs);
+        assertParallelMatchesSequential(List.of());
+    }
+
+    @Test
+    void parallelismMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> profileExtractor.setParallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> profileExtractor.setParallelism(-4));
+    }
+
+    @Test
+    void mergedShardsMatchSequential(@TempDir Path directory) throws JsonProcessingException {
+        List<LogEntry> logs = interleavedSyntheticUsers(new Random(25), 60);
+        String expected = serialize(profileExtractor.extractProfilesFromStream(logs.stream()));
+
+        ProfileExtractor shardExtractor = new ProfileExtractor(defaultLogs(logs));
+
+        for (int count : new int[]{1, 3, 7}) {
+            Path shardDirectory = directory.resolve("shards-of-" + count);
+            shardExtractor.setShardDirectory(shardDirectory);
+
+            int users = 0;
+            for (int index = 1; index <= count; index++) {
+                users += shardExtractor.extractProfileShard(ProfileShard.of(index, count));
+            }
+            assertEquals(60, users, count + " shards");
+            assertEquals(expected, serialize(shardExtractor.mergeProfileShards()), count + " shards");
+        }
+
+        // A missing shard is not merged
+        shardExtractor.setShardDirectory(directory.resolve("incomplete"));
+        shardExtractor.extractProfileShard(ProfileShard.of(1, 2));
+        assertThrows(IllegalStateException.class, shardExtractor::mergeProfileShards);
+    }
+
+    @Test
+    void outOfCoreMatchesSequentialWhenPartitionsAreSplitAgain(@TempDir Path directory) throws IOException {
+        List<LogEntry> logs = interleavedSyntheticUsers(new Random(24), 200);
+        String expected = serialize(profileExtractor.extractProfilesFromStream(logs.stream()));
+
+        // Every partition is several times the budget, so it is spilled, then split and spilled again
+        long logBytes = logs.stream().mapToLong(LogEntry::estimateHeapBytes).sum();
+        ProfileExtractor outOfCore = new ProfileExtractor(defaultLogs(logs));
+        outOfCore.setSpillPartitions(4);
+        Path spillDirectory = directory.resolve("spill");
+        outOfCore.setSpillDirectory(spillDirectory);
+
+        Map<String, UserProfile> profiles = new HashMap<>();
+        int[] runDirectories = {0};
+        int users = outOfCore.extractProfilesOutOfCore(logBytes / 32, profile -> {
+            assertNull(profiles.put(profile.getUserEmail(), profile), profile.getUserEmail());
+            runDirectories[0] = Math.max(runDirectories[0], filesIn(spillDirectory).size());
+        });
+
+        assertEquals(200, users);
+        assertEquals(expected, serialize(profiles));
+        // The run files of level 0 and of at least one re-split level existed side by side
+        assertTrue(runDirectories[0] >= 2, runDirectories[0] + " run directories");
+        assertEquals(List.of(), filesIn(spillDirectory));
+    }
+
+    private void assertParallelMatchesSequential(List<LogEntry> logs) throws JsonProcessingException {
+        String expected = serialize(profileExtractor.extractProfilesFromStream(logs.stream()));
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[]{1, 2, processors, Math.max(3, processors) * 2 + 1}) {
+            profileExtractor.setParallelism(threads);
+            // Repeated, so a thread schedule that changed the result would likely show up
+            for (int run = 0; run < 3; run++) {
+                assertEquals(expected, serialize(profileExtractor.extractProfilesParallel(logs)),
+                        threads + " threads, run " + run);
+            }
+        }
+    }
+
+    /**
+     * Parser whose default logs are the given entries
+     */
+    private static LogParser defaultLogs(List<LogEntry> logs) {
+        return new LogParser() {
+            @Override
+            public Stream<LogEntry> streamDefaultLogs() {
+                return logs.stream();
+            }
+
+            @Override
+            public Map<String, LogCheckpoint> positionsOfDefaultLogs() {
+                return new TreeMap<>();
+            }
+        };
+    }
+
+    private static List<Path> filesIn(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Synthetic users interleaved at random, each user's own entries kept in order, with a few
+     * entries of no user, so chunks and shards cut through users
+     */
+    static List<LogEntry> interleavedSyntheticUsers(Random random, int users) {
+        List<List<LogEntry>> logsByUser = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            logsByUser.add(UserLogAccumulatorTest.syntheticLogs("user" + user + "@email.com", user % 3, random));
+        }
+
+        List<LogEntry> logs = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        logsByUser.forEach(userLogs -> positions.add(0));
+        while (!logsByUser.isEmpty()) {
+            int user = random.nextInt(logsByUser.size());
+            List<LogEntry> userLogs = logsByUser.get(user);
+            int position = positions.get(user);
+            logs.add(userLogs.get(position));
+            if (position + 1 == userLogs.size()) {
+                logsByUser.remove(user);
+                positions.remove(user);
+            } else {
+                positions.set(user, position + 1);
+            }
+            if (random.nextInt(20) == 0) {
+                logs.add(LogEntry.builder().event("APPLICATION_STARTED").build()); // no user
+            }
+        }
+        return logs;
+    }
+
+    private String serialize(Map<String, UserProfile> profiles) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new TreeMap<>(profiles));
+    }
+}
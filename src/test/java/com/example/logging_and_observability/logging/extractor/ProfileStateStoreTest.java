@@ -0,0 +1,144 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.profiling.model.UserProfile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ProfileStateStore must give back accumulators that build the same profiles as folding every
+ * entry at once, with the histories in the append-only side file rather than the state file,
+ * each save appending only the new operations and a save that did not complete being ignored
+ */
+class ProfileStateStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void savedRunsBuildTheProfilesOfOneFold(@TempDir Path directory) throws IOException {
+        Path stateFile = directory.resolve("profile-state.json");
+        Path historyFile = directory.resolve("profile-state.history.jsonl");
+        List<List<LogEntry>> runs = syntheticRuns(new Random(23), 4);
+
+        byte[] history = new byte[0];
+        int operations = 0;
+        for (List<LogEntry> run : runs) {
+            // A new store per run, as after a restart
+            ProfileStateStore store = new ProfileStateStore(stateFile.toString());
+            ProfileStateStore.State state = store.load();
+            fold(state.getAccumulators(), run);
+            store.write(state);
+
+            // Only the new operations are appended, the state file has none
+            byte[] appended = Files.readAllBytes(historyFile);
+            operations += run.size();
+            assertArrayEquals(history, Arrays.copyOf(appended, history.length));
+            assertEquals(operations, Files.readAllLines(historyFile).size());
+            assertEquals(appended.length, state.getHistoryBytes());
+            assertFalse(Files.readString(stateFile).contains("operationHistory"));
+            history = appended;
+        }
+
+        Map<String, UserLogAccumulator> expected = new TreeMap<>();
+        runs.forEach(run -> fold(expected, run));
+        assertEquals(serialize(expected), serialize(new ProfileStateStore(stateFile.toString()).read().getAccumulators()));
+    }
+
+    @Test
+    void operationsOfAnIncompleteSaveAreDropped(@TempDir Path directory) throws IOException {
+        Path stateFile = directory.resolve("profile-state.json");
+        Path historyFile = directory.resolve("profile-state.history.jsonl");
+        List<List<LogEntry>> runs = syntheticRuns(new Random(29), 2);
+
+        ProfileStateStore.State state = new ProfileStateStore.State();
+        fold(state.getAccumulators(), runs.get(0));
+        new ProfileStateStore(stateFile.toString()).write(state);
+        String expected = serialize(new ProfileStateStore(stateFile.toString()).read().getAccumulators());
+
+        // A run that appended to the history but stopped before replacing the state file
+        byte[] committed = Files.readAllBytes(historyFile);
+        Files.write(historyFile, committed, StandardOpenOption.APPEND);
+        Files.writeString(historyFile, "{\"userEmail\":\"half", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ProfileStateStore store = new ProfileStateStore(stateFile.toString());
+        ProfileStateStore.State loaded = store.read();
+        assertEquals(expected, serialize(loaded.getAccumulators()));
+
+        // The next save appends after the committed history
+        fold(loaded.getAccumulators(), runs.get(1));
+        store.write(loaded);
+        Map<String, UserLogAccumulator> all = new TreeMap<>();
+        runs.forEach(run -> fold(all, run));
+        assertEquals(serialize(all), serialize(new ProfileStateStore(stateFile.toString()).read().getAccumulators()));
+    }
+
+    @Test
+    void truncatedHistoryIsUnreadable(@TempDir Path directory) throws IOException {
+        Path stateFile = directory.resolve("profile-state.json");
+        Path historyFile = directory.resolve("profile-state.history.jsonl");
+        ProfileStateStore.State state = new ProfileStateStore.State();
+        fold(state.getAccumulators(), syntheticRuns(new Random(31), 1).get(0));
+        new ProfileStateStore(stateFile.toString()).write(state);
+
+        byte[] history = Files.readAllBytes(historyFile);
+        Files.write(historyFile, Arrays.copyOf(history, history.length / 2));
+
+        ProfileStateStore store = new ProfileStateStore(stateFile.toString());
+        assertThrows(IOException.class, store::read);
+        assertEquals(0, store.load().getAccumulators().size());
+    }
+
+    /**
+     * Interleaved entries of a few users, cut into consecutive runs
+     */
+    private static List<List<LogEntry>> syntheticRuns(Random random, int runs) {
+        List<LogEntry> logs = new ArrayList<>();
+        for (int user = 0; user < 12; user++) {
+            logs.addAll(UserLogAccumulatorTest.syntheticLogs("user" + user + "@email.com", user % 3, random));
+        }
+        Collections.shuffle(logs, random);
+
+        List<List<LogEntry>> cut = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            cut.add(logs.subList(logs.size() * run / runs, logs.size() * (run + 1) / runs));
+        }
+        return cut;
+    }
+
+    private static void fold(Map<String, UserLogAccumulator> accumulators, List<LogEntry> logs) {
+        for (LogEntry entry : logs) {
+            accumulators.computeIfAbsent(entry.getUserEmail(), UserLogAccumulator::new).add(entry);
+        }
+    }
+
+    private String serialize(Map<String, UserLogAccumulator> accumulators) throws JsonProcessingException {
+        Map<String, UserProfile> profiles = new TreeMap<>();
+        accumulators.forEach((userEmail, accumulator) -> profiles.put(userEmail, accumulator.toProfile()));
+        return objectMapper.writeValueAsString(profiles);
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.logging_and_observability.logging.extractor;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.parser.LogParser;
+import com.example.logging_and_observability.logging.service.LogSampler;
+import com.example.logging_and_observability.profiling.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * UserLogAccumulator must build the same profiles as the former multi-pass buildProfileFromLogs,
+ * whether it folds a user's entries at once or merges accumulators of consecutive parts,
+ * and classify and count as if nothing had been sampled out once the sampler's counts are added
+ */
+class UserLogAccumulatorTest {
+
+    private static final String LOG_FILE = "logs/product-management.log";
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void foldMatchesBaselineOnLogCorpus() throws JsonProcessingException {
+        Map<String, List<LogEntry>> logsByUser = byUser(new LogParser().parseLogFile(LOG_FILE));
+        assertFalse(logsByUser.isEmpty());
+
+        for (Map.Entry<String, List<LogEntry>> user : logsByUser.entrySet()) {
+            assertSameProfiles(user.getKey(), user.getValue());
+        }
+    }
+
+    @Test
+    void foldMatchesBaselineOnSyntheticUsers() throws JsonProcessingException {
+        Random random = new Random(7);
+        Set<Class<?>> profileTypes = new HashSet<>();
+
+        for (int user = 0; user < 60; user++) {
+            String userEmail = "user" + user + "@email.com";
+            List<LogEntry> logs = syntheticLogs(userEmail, user % 3, random);
+            assertSameProfiles(userEmail, logs);
+            profileTypes.add(buildProfileFromLogs(userEmail, logs).getClass());
+        }
+
+        assertEquals(Set.of(ReadHeavyProfile.class, WriteHeavyProfile.class, ExpensiveProductSeekerProfile.class),
+                profileTypes);
+    }
+
+    @Test
+    void sampledOutCountsRestoreTheUnsampledProfilesAcrossRestarts(@TempDir Path directory) throws IOException {
+        File statsFile = directory.resolve("sampling-stats.json").toFile();
+        Random random = new Random(11);
+        Map<String, List<LogEntry>> all = new LinkedHashMap<>();
+        Map<String, List<LogEntry>> kept = new LinkedHashMap<>();
+
+        // Two processes: the second starts from the counters saved by the first
+        for (int process = 0; process < 2; process++) {
+            LogSampler sampler = new LogSampler();
+            if (statsFile.exists()) {
+                sampler.restore(objectMapper.readValue(statsFile, LogSampler.Totals.class));
+            }
+            sampler.setPolicy("PRODUCT_OPERATION/READ", LogSampler.Policy.fixedRate(5));
+            sampler.setPolicy("PRODUCT_OPERATION", LogSampler.Policy.fixedRate(2));
+
+            for (int user = 0; user < 30; user++) {
+                String userEmail = "user" + user + "@email.com";
+                for (LogEntry entry : syntheticLogs(userEmail, user % 3, random)) {
+                    // Sampled entries carry no product, whose views the counts cannot restore
+                    entry.setEvent("PRODUCT_OPERATION");
+                    entry.setResourceId(null);
+                    all.computeIfAbsent(userEmail, u -> new ArrayList<>()).add(entry);
+                    if (sampler.sample(entry)) {
+                        kept.computeIfAbsent(userEmail, u -> new ArrayList<>()).add(entry);
+                    }
+                }
+            }
+            objectMapper.writeValue(statsFile, sampler.getTotals());
+        }
+
+        SampledOutOperations sampledOut = SampledOutOperations.load(statsFile, objectMapper);
+        assertFalse(sampledOut.isEmpty());
+        Set<String> profileTypes = new HashSet<>();
+        for (Map.Entry<String, List<LogEntry>> user : all.entrySet()) {
+            String userEmail = user.getKey();
+            UserProfile expected = fold(userEmail, user.getValue()).toProfile();
+            UserProfile actual = fold(userEmail, kept.getOrDefault(userEmail, List.of())).toProfile(sampledOut);
+            assertEquals(withoutEntryDetails(expected), withoutEntryDetails(actual), userEmail);
+            profileTypes.add(expected.getProfileType());
+        }
+        assertEquals(Set.of("READ_HEAVY", "WRITE_HEAVY", "EXPENSIVE_SEEKER"), profileTypes);
+    }
+
+    /**
+     * Profile without what only the recorded entries can tell: history, period and user name
+     */
+    private ObjectNode withoutEntryDetails(UserProfile profile) {
+        ObjectNode tree = objectMapper.valueToTree(profile);
+        tree.remove(List.of("operationHistory", "profileCreatedAt", "lastActivityAt", "userName"));
+        return tree;
+    }
+
+    @Test
+    void mergeRejectsAnotherUser() {
+        UserLogAccumulator accumulator = new UserLogAccumulator("alice@email.com");
+        assertThrows(IllegalArgumentException.class,
+                () -> accumulator.merge(new UserLogAccumulator("bob@email.com")));
+    }
+
+    @Test
+    void profileHistoryIsNotTheAccumulatorHistory() throws JsonProcessingException {
+        List<LogEntry> logs = syntheticLogs("alice@email.com", 0, new Random(21));
+        UserLogAccumulator accumulator = new UserLogAccumulator("alice@email.com");
+        logs.forEach(accumulator::add);
+        String expected = objectMapper.writeValueAsString(accumulator.toProfile());
+        int operations = accumulator.unsavedOperations().size();
+        assertFalse(accumulator.toProfile().getOperationHistory().isEmpty());
+
+        // As UserProfileService does with the profiles it keeps
+        UserProfile profile = accumulator.toProfile();
+        profile.getOperationHistory().clear();
+        profile.getOperationHistory().add(new OperationLog());
+
+        assertEquals(operations, accumulator.unsavedOperations().size());
+        assertEquals(expected, objectMapper.writeValueAsString(accumulator.toProfile()));
+    }
+
+    /**
+     * Profile of the whole fold and of merges of every split into two parts, and of a few
+     * splits into three, against the baseline
+     */
+    private void assertSameProfiles(String userEmail, List<LogEntry> logs) throws JsonProcessingException {
+        String expected = objectMapper.writeValueAsString(buildProfileFromLogs(userEmail, logs));
+        assertEquals(expected, objectMapper.writeValueAsString(fold(userEmail, logs).toProfile()), userEmail);
+
+        for (int split = 0; split <= logs.size(); split++) {
+            UserLogAccumulator merged = fold(userEmail, logs.subList(0, split));
+            merged.merge(fold(userEmail, logs.subList(split, logs.size())));
+            assertEquals(expected, objectMapper.writeValueAsString(merged.toProfile()), userEmail + " split at " + split);
+        }
+
+        int third = logs.size() / 3;
+        UserLogAccumulator merged = fold(userEmail, logs.subList(0, third));
+        merged.merge(fold(userEmail, logs.subList(third, 2 * third)));
+        merged.merge(fold(userEmail, logs.subList(2 * third, logs.size())));
+        assertEquals(expected, objectMapper.writeValueAsString(merged.toProfile()), userEmail + " split in three");
+    }
+
+    private static UserLogAccumulator fold(String userEmail, List<LogEntry> logs) {
+        UserLogAccumulator accumulator = new UserLogAccumulator(userEmail);
+        logs.forEach(accumulator::add);
+        return accumulator;
+    }
+
+    private static Map<String, List<LogEntry>> byUser(List<LogEntry> logs) {
+        return logs.stream()
+                .filter(log -> log.getUserEmail() != null)
+                .collect(Collectors.groupingBy(LogEntry::getUserEmail, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Logs of one user, biased towards reads (0), writes (1) or expensive searches (2)
+     */
+    static List<LogEntry> syntheticLogs(String userEmail, int bias, Random random) {
+        String[] operationTypes = switch (bias) {
+            case 0 -> new String[]{"READ", "READ", "READ", "WRITE", "SEARCH_EXPENSIVE", null};
+            case 1 -> new String[]{"WRITE", "WRITE", "WRITE", "WRITE", "READ", null};
+            default -> new String[]{"SEARCH_EXPENSIVE", "SEARCH_EXPENSIVE", "SEARCH_EXPENSIVE", "READ", "WRITE"};
+        };
+        String[] actions = {"getAllProducts", "getProductById", "addProduct", "updateProduct", "deleteProduct",
+                "searchProducts", null};
+        String[] productIds = {"1", "2", "6941b2c4", null};
+        String[] productNames = {"Laptop", "Desk", "Laptop Pro", null};
+        Double[] prices = {1299.99, 45.5, 2500.0, null};
+
+        List<LogEntry> logs = new ArrayList<>();
+        int count = 1 + random.nextInt(40);
+        for (int i = 0; i < count; i++) {
+            String operationType = operationTypes[random.nextInt(operationTypes.length)];
+            String action = actions[random.nextInt(actions.length)];
+            if (action == null && "WRITE".equals(operationType)) {
+                action = "addProduct"; // ProductService names every write, the baseline relies on it
+            }
+            logs.add(LogEntry.builder()
+                    // Out of order, so the earliest and latest entries are not the first and last
+                    .timestamp(START.plusSeconds(random.nextInt(100_000)))
+                    .userName(i < 2 && random.nextBoolean() ? null : "User " + userEmail.length() % 7)
+                    .userEmail(userEmail)
+                    .operationType(operationType)
+                    .action(action)
+                    .resourceId(productIds[random.nextInt(productIds.length)])
+                    .resourceName(productNames[random.nextInt(productNames.length)])
+                    .resourcePrice(prices[random.nextInt(prices.length)])
+                    .result(random.nextInt(10) == 0 ? "FAILURE" : "SUCCESS")
+                    .build());
+        }
+        return logs;
+    }
+
+    // ---- Baseline: ProfileExtractor before the single-pass accumulator ----
+
+    private static UserProfile buildProfileFromLogs(String userEmail, List<LogEntry> logs) {
+        String userName = logs.stream()
+                .map(LogEntry::getUserName)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse("Unknown");
+
+        long readOps = logs.stream()
+                .filter(log -> "READ".equals(log.getOperationType()))
+                .count();
+
+        long writeOps = logs.stream()
+                .filter(log -> "WRITE".equals(log.getOperationType()))
+                .count();
+
+        long expensiveOps = logs.stream()
+                .filter(log -> "SEARCH_EXPENSIVE".equals(log.getOperationType()))
+                .count();
+
+        long totalOps = readOps + writeOps + expensiveOps;
+
+        double expensivePercentage = totalOps > 0 ? (expensiveOps * 100.0 / totalOps) : 0;
+        double writePercentage = totalOps > 0 ? (writeOps * 100.0 / totalOps) : 0;
+
+        UserProfile profile;
+
+        if (expensivePercentage >= 50.0) {
+            profile = buildExpensiveSeekerProfile(userName, userEmail, logs);
+        } else if (writePercentage >= 60.0) {
+            profile = buildWriteHeavyProfile(userName, userEmail, logs);
+        } else {
+            profile = buildReadHeavyProfile(userName, userEmail, logs);
+        }
+
+        profile.setTotalOperations((int) totalOps);
+        profile.setProfileCreatedAt(logs.stream()
+                .map(LogEntry::getTimestamp)
+                .min(LocalDateTime::compareTo)
+                .orElse(LocalDateTime.now()));
+        profile.setLastActivityAt(logs.stream()
+                .map(LogEntry::getTimestamp)
+                .max(LocalDateTime::compareTo)
+                .orElse(LocalDateTime.now()));
+
+        List<OperationLog> operationHistory = logs.stream()
+                .map(UserLogAccumulator::toOperationLog)
+                .collect(Collectors.toList());
+        profile.setOperationHistory(operationHistory);
+
+        return profile;
+    }
+
+    private static ReadHeavyProfile buildReadHeavyProfile(String userName, String userEmail, List<LogEntry> logs) {
+        ReadHeavyProfile profile = new ReadHeavyProfile();
+        profile.setUserName(userName);
+        profile.setUserEmail(userEmail);
+        profile.setUserAge(0);
+
+        profile.setTotalReadOperations((int) logs.stream()
+                .filter(log -> "READ".equals(log.getOperationType()))
+                .count());
+        profile.setTotalWriteOperations((int) logs.stream()
+                .filter(log -> "WRITE".equals(log.getOperationType()))
+                .count());
+
+        profile.setGetAllProductsCount((int) logs.stream()
+                .filter(log -> "getAllProducts".equals(log.getAction()))
+                .count());
+        profile.setGetProductByIdCount((int) logs.stream()
+                .filter(log -> "getProductById".equals(log.getAction()))
+                .count());
+
+        logs.stream()
+                .filter(log -> "getProductById".equals(log.getAction()))
+                .filter(log -> log.getResourceId() != null)
+                .forEach(log -> {
+                    if (log.getResourceName() != null) {
+                        profile.trackProductView(log.getResourceId(), log.getResourceName());
+                    }
+                });
+
+        return profile;
+    }
+
+    private static WriteHeavyProfile buildWriteHeavyProfile(String userName, String userEmail, List<LogEntry> logs) {
+        WriteHeavyProfile profile = new WriteHeavyProfile();
+        profile.setUserName(userName);
+        profile.setUserEmail(userEmail);
+        profile.setUserAge(0);
+
+        profile.setTotalReadOperations((int) logs.stream()
+                .filter(log -> "READ".equals(log.getOperationType()))
+                .count());
+        profile.setTotalWriteOperations((int) logs.stream()
+                .filter(log -> "WRITE".equals(log.getOperationType()))
+                .count());
+
+        profile.setAddProductCount((int) logs.stream()
+                .filter(log -> "addProduct".equals(log.getAction()))
+                .count());
+        profile.setUpdateProductCount((int) logs.stream()
+                .filter(log -> "updateProduct".equals(log.getAction()))
+                .count());
+        profile.setDeleteProductCount((int) logs.stream()
+                .filter(log -> "deleteProduct".equals(log.getAction()))
+                .count());
+
+        logs.stream()
+                .filter(log -> "WRITE".equals(log.getOperationType()))
+                .filter(log -> log.getResourceId() != null)
+                .forEach(log -> profile.incrementWriteOperation(log.getAction(), log.getResourceId()));
+
+        return profile;
+    }
+
+    private static ExpensiveProductSeekerProfile buildExpensiveSeekerProfile(String userName, String userEmail,
+                                                                             List<LogEntry> logs) {
+        ExpensiveProductSeekerProfile profile = new ExpensiveProductSeekerProfile();
+        profile.setUserName(userName);
+        profile.setUserEmail(userEmail);
+        profile.setUserAge(0);
+
+        logs.stream()
+                .filter(log -> log.getResourcePrice() != null)
+                .forEach(log -> {
+                    if (log.getResourceId() != null && log.getResourceName() != null) {
+                        profile.trackProductView(log.getResourceId(), log.getResourceName(), log.getResourcePrice());
+                    }
+                });
+
+        return profile;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogDeduplicator must drop an entry only for an unmatched counterpart of another source within
+ * the tolerance, cancel at most one counterpart per entry in the exact window and in the Bloom
+ * generations alike, and carry its unmatched window over to a later run
+ */
+class LogDeduplicatorTest {
+
+    private static final Duration TOLERANCE = Duration.ofSeconds(2);
+    // On a generation boundary (a multiple of the tolerance since the epoch)
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30);
+
+    @Test
+    void dropsCounterpartsOfAnotherSourceWithinTheTolerance() {
+        LogDeduplicator deduplicator = new LogDeduplicator();
+
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 0), 0));
+        assertFalse(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 2000), 1));
+
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "2", 3000), 0));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "2", 5001), 1));
+
+        // Fingerprint normalizes the email case and surrounding spaces
+        assertTrue(deduplicator.accept(entry("Bob@Email.com ", "addProduct", "3", 6000), 1));
+        assertFalse(deduplicator.accept(entry("bob@email.com", " addProduct", "3 ", 6500), 0));
+
+        // Another product, action or user is another operation
+        assertTrue(deduplicator.accept(entry("bob@email.com", "addProduct", null, 7000), 0));
+        assertTrue(deduplicator.accept(entry("bob@email.com", "updateProduct", null, 7000), 1));
+        assertTrue(deduplicator.accept(entry("carol@email.com", "addProduct", null, 7000), 1));
+
+        assertEquals(9, deduplicator.getEntries());
+        assertEquals(2, deduplicator.getExactDuplicates());
+        assertEquals(0, deduplicator.getProbableDuplicates());
+    }
+
+    @Test
+    void keepsRepeatsInsideOneSource() {
+        LogDeduplicator deduplicator = new LogDeduplicator();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(deduplicator.accept(entry("alice@email.com", "getAllProducts", null, i * 100), 0));
+        }
+        assertEquals(0, deduplicator.getDuplicates());
+    }
+
+    @Test
+    void eachEntryCancelsAtMostOneCounterpartInTheExactWindow() {
+        LogDeduplicator deduplicator = new LogDeduplicator();
+
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getAllProducts", null, 0), 0));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getAllProducts", null, 100), 0));
+
+        // Two copies cancel the two entries of source 0, the third is a real operation
+        assertFalse(deduplicator.accept(entry("alice@email.com", "getAllProducts", null, 200), 1));
+        assertFalse(deduplicator.accept(entry("alice@email.com", "getAllProducts", null, 300), 1));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getAllProducts", null, 400), 1));
+        assertEquals(2, deduplicator.getExactDuplicates());
+    }
+
+    @Test
+    void eachOverflowedEntryCancelsAtMostOneCounterpart() {
+        LogDeduplicator deduplicator = new LogDeduplicator(TOLERANCE, 1, 1024);
+
+        // The second entry pushes the first out of the one-entry exact window, into the Bloom filter
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 0), 0));
+        assertTrue(deduplicator.accept(entry("bob@email.com", "getAllProducts", null, 0), 0));
+
+        // Three copies from the other source: only the first is dropped
+        assertFalse(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 100), 1));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 200), 1));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 300), 1));
+
+        assertEquals(0, deduplicator.getExactDuplicates());
+        assertEquals(1, deduplicator.getProbableDuplicates());
+    }
+
+    @Test
+    void overflowedEntriesLastOneGenerationMore() {
+        LogDeduplicator deduplicator = new LogDeduplicator(TOLERANCE, 1, 1024);
+
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 0), 0));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "2", 0), 0));
+        assertTrue(deduplicator.accept(entry("bob@email.com", "getAllProducts", null, 0), 0));
+
+        // Next generation: the filter of the previous one still matches
+        assertTrue(deduplicator.accept(entry("carol@email.com", "getAllProducts", null, 2000), 0));
+        assertFalse(deduplicator.accept(entry("alice@email.com", "getProductById", "1", 2000), 1));
+
+        // Two generations later it has been recycled
+        assertTrue(deduplicator.accept(entry("carol@email.com", "addProduct", null, 4000), 0));
+        assertTrue(deduplicator.accept(entry("alice@email.com", "getProductById", "2", 4000), 1));
+
+        // A jump over several generations clears both filters
+        assertTrue(deduplicator.accept(entry("dave@email.com", "getProductById", "3", 10_000), 0));
+        assertTrue(deduplicator.accept(entry("dave@email.com", "getProductById", "4", 10_000), 0));
+        assertTrue(deduplicator.accept(entry("erin@email.com", "getAllProducts", null, 20_000), 0));
+        assertTrue(deduplicator.accept(entry("dave@email.com", "getProductById", "3", 20_000), 1));
+
+        assertEquals(1, deduplicator.getDuplicates());
+    }
+
+    @Test
+    void keepsEntriesWithoutFingerprintOrTimestamp() {
+        LogDeduplicator deduplicator = new LogDeduplicator();
+
+        LogEntry untimed = entry("alice@email.com", "getProductById", "1", 0);
+        untimed.setTimestamp(null);    // as LogSegmentReader returns entries logged without one
+        assertTrue(deduplicator.accept(untimed, 0));
+        assertTrue(deduplicator.accept(untimed, 1));
+
+        assertTrue(deduplicator.accept(entry(null, "getProductById", "1", 0), 0));
+        assertTrue(deduplicator.accept(entry(null, "getProductById", "1", 0), 1));
+        assertTrue(deduplicator.accept(entry("alice@email.com", null, "1", 0), 0));
+        assertTrue(deduplicator.accept(entry("alice@email.com", null, "1", 0), 1));
+
+        assertEquals(6, deduplicator.getEntries());
+        assertEquals(0, deduplicator.getDuplicates());
+        assertTrue(deduplicator.getWindow().isEmpty());
+    }
+
+    @Test
+    void restoredWindowMatchesTheNextRun() throws Exception {
+        LogDeduplicator first = new LogDeduplicator();
+        assertTrue(first.accept(entry("alice@email.com", "getProductById", "1", 0), 0));
+        assertTrue(first.accept(entry("alice@email.com", "getProductById", "2", 500), 0));
+        assertFalse(first.accept(entry("alice@email.com", "getProductById", "2", 600), 1));
+        assertTrue(first.accept(entry("bob@email.com", "addProduct", "3", 1000), 1));
+
+        // Matched entries are not saved; the window goes through JSON like ProfileStateStore's
+        List<LogDeduplicator.WindowEntry> window = first.getWindow();
+        assertEquals(2, window.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<LogDeduplicator.WindowEntry> saved = objectMapper.readValue(
+                objectMapper.writeValueAsString(window), new TypeReference<List<LogDeduplicator.WindowEntry>>() {});
+        assertEquals(window, saved);
+
+        LogDeduplicator next = new LogDeduplicator();
+        next.restoreWindow(saved);
+        assertEquals(window, next.getWindow());
+
+        assertFalse(next.accept(entry("alice@email.com", "getProductById", "1", 1500), 1));
+        assertTrue(next.accept(entry("alice@email.com", "getProductById", "2", 1500), 0));
+        assertTrue(next.accept(entry("bob@email.com", "addProduct", "3", 1500), 1));
+        assertFalse(next.accept(entry("bob@email.com", "addProduct", "3", 1600), 0));
+        // Out of the tolerance of the restored entries
+        assertTrue(next.accept(entry("alice@email.com", "getProductById", "1", 4000), 1));
+
+        assertThrows(IllegalStateException.class, () -> next.restoreWindow(saved));
+    }
+
+    @Test
+    void mergeDistinctKeepsTimestampOrderAndDropsDuplicates() {
+        List<LogEntry> application = List.of(
+                entry("alice@email.com", "getAllProducts", null, 0),
+                entry("alice@email.com", "addProduct", "1", 1000),
+                entry("bob@email.com", "getProductById", "1", 5000));
+        List<LogEntry> structured = List.of(
+                entry("alice@email.com", "getAllProducts", null, 10),
+                entry("alice@email.com", "addProduct", "1", 1010),
+                entry("alice@email.com", "addProduct", "1", 3000));
+
+        List<LogEntry> merged = new LogDeduplicator().mergeDistinct(List.of(application, structured));
+
+        assertEquals(List.of(application.get(0), application.get(1), structured.get(2), application.get(2)), merged);
+    }
+
+    private static LogEntry entry(String userEmail, String action, String resourceId, long offsetMillis) {
+        return LogEntry.builder()
+                .timestamp(START.plusNanos(offsetMillis * 1_000_000))
+                .userEmail(userEmail)
+                .action(action)
+                .resourceId(resourceId)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.logging_and_observability.logging.parser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark of LogLineScanner against the previous regex-based line splitting
+ * Reports time and bytes allocated per line, measured with the per-thread allocation counter.
+ *
+ * Usage (from the project root):
+ * java -cp target/test-classes:target/classes:... com.example.logging_and_observability.logging.parser.LogLineScannerBenchmark [log-file]
+ */
+public class LogLineScannerBenchmark {
+
+    private static final String DEFAULT_LOG_FILE = "logs/product-management.log";
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    // Previous LogParser implementation, kept as the baseline
+    private static final Pattern LOG_PATTERN = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3})\\s+" +
+                    "\\[([^\\]]+)\\]\\s+" +
+                    "([A-Z]+)\\s+" +
+                    "([^\\s]+)\\s+-\\s+" +
+                    "(.+)"
+    );
+
+    private static final DateTimeFormatter LOG_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    static final String[] SAMPLE_LINES = {
+            "2025-01-15 10:30:45.123 [http-nio-8080-exec-1] INFO  c.e.l.service.ProductService - Operation: getAllProducts | User: Alice Johnson | Email: alice.johnson@email.com | Action: READ",
+            "2025-01-15 10:30:45.131 [http-nio-8080-exec-1] INFO  c.e.l.service.ProductService - Retrieved 12 products | User: alice.johnson@email.com | Operation: READ | Status: SUCCESS",
+            "2025-01-15 10:30:46.007 [http-nio-8080-exec-2] WARN  c.e.l.service.ProductService - Expensive product view | ID: 42 | Name: Laptop | Price: €1299.99",
+            "2025-01-15 10:30:46.520 [main] DEBUG o.s.web.servlet.DispatcherServlet - Completed 200 OK",
+            "\tat com.example.logging_and_observability.service.ProductService.getProductById(ProductService.java:57)"
+    };
+
+    record Header(LocalDateTime timestamp, String thread, String level, String logger, String message) {}
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("╔════════════════════════════════════════════════╗");
+        System.out.println("║   LOG LINE SCANNER BENCHMARK                   ║");
+        System.out.println("╚════════════════════════════════════════════════╝\n");
+
+        List<String> lines = loadLines(args.length > 0 ? args[0] : DEFAULT_LOG_FILE);
+        System.out.println("✓ Lines: " + lines.size());
+
+        // Both implementations must agree before measuring them
+        LogLineScanner scanner = new LogLineScanner();
+        int mismatches = 0;
+        for (String line : lines) {
+            if (!Objects.equals(scanWithRegex(line), scanWithScanner(scanner, line))) {
+                mismatches++;
+                if (mismatches <= 5) {
+                    System.err.println("✗ Mismatch: " + line);
+                }
+            }
+        }
+        System.out.println("✓ Mismatches: " + mismatches + "\n");
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRegex(lines);
+            runScanner(scanner, lines);
+        }
+
+        long regexNanos = 0, regexBytes = 0;
+        long scannerNanos = 0, scannerBytes = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long allocated = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            runRegex(lines);
+            regexNanos += System.nanoTime() - start;
+            regexBytes += threads.getThreadAllocatedBytes(threadId) - allocated;
+
+            allocated = threads.getThreadAllocatedBytes(threadId);
+            start = System.nanoTime();
+            runScanner(scanner, lines);
+            scannerNanos += System.nanoTime() - start;
+            scannerBytes += threads.getThreadAllocatedBytes(threadId) - allocated;
+        }
+
+        double total = (double) lines.size() * MEASURED_ROUNDS;
+        System.out.printf("Regex:   %8.1f ns/line %8.1f bytes/line%n", regexNanos / total, regexBytes / total);
+        System.out.printf("Scanner: %8.1f ns/line %8.1f bytes/line%n", scannerNanos / total, scannerBytes / total);
+        System.out.printf("Speedup: %8.2fx, allocation %.1f%% of baseline%n",
+                (double) regexNanos / scannerNanos, 100.0 * scannerBytes / Math.max(1, regexBytes));
+    }
+
+    static List<String> loadLines(String logFile) throws IOException {
+        List<String> lines = new ArrayList<>();
+        Path path = Paths.get(logFile);
+
+        if (Files.exists(path)) {
+            lines.addAll(Files.readAllLines(path));
+        }
+
+        if (lines.isEmpty()) {
+            System.out.println("✓ " + logFile + " not found, using built-in samples");
+            for (int i = 0; i < 10_000; i++) {
+                lines.add(SAMPLE_LINES[i % SAMPLE_LINES.length]);
+            }
+        }
+
+        return lines;
+    }
+
+    private static int runRegex(List<String> lines) {
+        int matched = 0;
+        for (String line : lines) {
+            if (scanWithRegex(line) != null) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private static int runScanner(LogLineScanner scanner, List<String> lines) {
+        int matched = 0;
+        for (String line : lines) {
+            // Same work as LogParser: every field the entry needs, without the Header wrapper
+            try {
+                if (scanner.scan(line) && scanner.timestamp() != null && scanner.thread() != null
+                        && scanner.level() != null && scanner.logger() != null && scanner.message() != null) {
+                    matched++;
+                }
+            } catch (RuntimeException e) {
+                // invalid timestamp, dropped like in LogParser
+            }
+        }
+        return matched;
+    }
+
+    static Header scanWithScanner(LogLineScanner scanner, String line) {
+        try {
+            if (!scanner.scan(line)) {
+                return null;
+            }
+            return new Header(scanner.timestamp(), scanner.thread(), scanner.level(), scanner.logger(), scanner.message());
+        } catch (RuntimeException e) {
+            return null; // LogParser drops lines with an invalid timestamp
+        }
+    }
+
+    static Header scanWithRegex(String line) {
+        Matcher matcher = LOG_PATTERN.matcher(line);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return new Header(LocalDateTime.parse(matcher.group(1), LOG_DATE_FORMATTER),
+                    matcher.group(2), matcher.group(3), matcher.group(4), matcher.group(5));
+        } catch (RuntimeException e) {
+            return null; // LogParser drops lines with an invalid timestamp
+        }
+    }
+}
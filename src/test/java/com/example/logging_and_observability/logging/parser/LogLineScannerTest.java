@@ -0,0 +1,126 @@
+package com.example.logging_and_observability.logging.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * LogLineScanner must split lines exactly like the former LOG_PATTERN regex
+ */
+class LogLineScannerTest {
+
+    private static final String LOG_FILE = "logs/product-management.log";
+
+    private static final String[] EDGE_CASES = {
+            "",
+            "2025-01-15 10:30:45.123",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger - x",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger - ",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger -",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger-message",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger - a - b - c",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger  -  spaced out  ",
+            "2025-01-15 10:30:45.123\t[main]\tINFO\tc.e.Logger\t-\ttabs",
+            "2025-01-15 10:30:45.123 [main]INFO c.e.Logger - no space after thread",
+            "2025-01-15 10:30:45.123[main] INFO c.e.Logger - no space before thread",
+            "2025-01-15 10:30:45.123 [] INFO c.e.Logger - empty thread",
+            "2025-01-15 10:30:45.123 [pool-1 thread-2] INFO c.e.Logger - thread with a space",
+            "2025-01-15 10:30:45.123 [a]b] INFO c.e.Logger - bracket in thread",
+            "2025-01-15 10:30:45.123 [main] info c.e.Logger - lower case level",
+            "2025-01-15 10:30:45.123 [main] INF0 c.e.Logger - digit in level",
+            "2025-01-15 10:30:45.123 [main] INFO - missing logger",
+            "2025-13-45 10:30:45.123 [main] INFO c.e.Logger - invalid date",
+            "2025-02-30 10:30:45.123 [main] INFO c.e.Logger - invalid day",
+            "2025-01-15 25:30:45.123 [main] INFO c.e.Logger - invalid hour",
+            "2025-01-15 10:30:45.12 [main] INFO c.e.Logger - short millis",
+            "2025-01-15T10:30:45.123 [main] INFO c.e.Logger - ISO separator",
+            "2025-01-15 10:30:45.123 [main] INFO c.e.Logger - carriage return\r",
+            " 2025-01-15 10:30:45.123 [main] INFO c.e.Logger - leading space",
+            "\tat com.example.Service.method(Service.java:57)",
+            "Caused by: java.lang.IllegalStateException: boom"
+    };
+
+    @Test
+    void matchesRegexOnLogCorpus() throws IOException {
+        List<String> lines = LogLineScannerBenchmark.loadLines(LOG_FILE);
+        assertFalse(lines.isEmpty());
+        assertSameAsRegex(lines);
+    }
+
+    @Test
+    void matchesRegexOnSamplesAndEdgeCases() {
+        assertSameAsRegex(List.of(LogLineScannerBenchmark.SAMPLE_LINES));
+        assertSameAsRegex(List.of(EDGE_CASES));
+    }
+
+    @Test
+    void matchesRegexOnMutatedLines() throws IOException {
+        List<String> originals = new ArrayList<>(LogLineScannerBenchmark.loadLines(LOG_FILE));
+        originals.addAll(List.of(LogLineScannerBenchmark.SAMPLE_LINES));
+
+        String alphabet = " \t[]-:.0123456789AZaz";
+        Random random = new Random(42);
+        List<String> mutated = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder line = new StringBuilder(originals.get(random.nextInt(originals.size())));
+            for (int edits = 1 + random.nextInt(3); edits > 0 && !line.isEmpty(); edits--) {
+                // Edits favour the header, where the two implementations could disagree
+                int at = random.nextInt(Math.min(line.length(), 80));
+                switch (random.nextInt(3)) {
+                    case 0 -> line.deleteCharAt(at);
+                    case 1 -> line.insert(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                    default -> line.setCharAt(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            mutated.add(line.toString());
+        }
+        assertSameAsRegex(mutated);
+    }
+
+    @Test
+    void matchesRegexOnMonthEndsAndRepeatedSeconds() {
+        List<String> lines = new ArrayList<>();
+        for (int year : new int[] {2023, 2024, 1900, 2000}) {
+            for (int month = 1; month <= 12; month++) {
+                for (int day = 27; day <= 32; day++) {
+                    // Same second twice, then another millisecond of it, so the cached value is reused
+                    String second = String.format("%04d-%02d-%02d 23:59:59", year, month, day);
+                    lines.add(second + ".100 [main] INFO c.e.Logger - first");
+                    lines.add(second + ".100 [main] INFO c.e.Logger - same millisecond");
+                    lines.add(second + ".999 [main] INFO c.e.Logger - next millisecond");
+                }
+            }
+        }
+        lines.add("2025-04-00 10:30:45.123 [main] INFO c.e.Logger - day zero");
+        lines.add("0000-01-31 10:30:45.123 [main] INFO c.e.Logger - year zero");
+        lines.add("2025-01-31 10:30:45.123 [main] INFO c.e.Logger - valid again");
+        assertSameAsRegex(lines);
+    }
+
+    @Test
+    void scannerIsReusableAcrossLines() {
+        LogLineScanner scanner = new LogLineScanner();
+        String first = LogLineScannerBenchmark.SAMPLE_LINES[0];
+        String second = LogLineScannerBenchmark.SAMPLE_LINES[3];
+
+        assertNotNull(LogLineScannerBenchmark.scanWithScanner(scanner, first));
+        LogLineScannerBenchmark.scanWithScanner(scanner, "not a log line");
+        assertEquals(LogLineScannerBenchmark.scanWithRegex(second),
+                LogLineScannerBenchmark.scanWithScanner(scanner, second));
+    }
+
+    private static void assertSameAsRegex(List<String> lines) {
+        LogLineScanner scanner = new LogLineScanner();
+        for (String line : lines) {
+            assertEquals(LogLineScannerBenchmark.scanWithRegex(line),
+                    LogLineScannerBenchmark.scanWithScanner(scanner, line), line);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * LogMerger must return every entry of its sources in timestamp order, entries with the same
+ * timestamp in the order of their sources, eagerly and lazily alike
+ */
+class LogMergerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30);
+
+    @Test
+    void mergeIsAStableSortOfTheSources() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            List<List<LogEntry>> sources = randomSources(random, random.nextInt(6));
+
+            // Sorting the concatenation stably orders ties by source, then within the source
+            List<LogEntry> expected = sources.stream().flatMap(List::stream)
+                    .sorted(Comparator.comparing(LogEntry::getTimestamp)).toList();
+
+            assertSameEntries(expected, LogMerger.mergeByTimestamp(sources));
+            try (Stream<LogEntry> merged = LogMerger.mergeStreams(sources.stream().map(List::stream).toList())) {
+                assertSameEntries(expected, merged.toList());
+            }
+        }
+    }
+
+    @Test
+    void singleSourceIsReturnedUnchanged() {
+        List<LogEntry> source = List.of(entry(0, "a"), entry(0, "b"));
+        assertSame(source, LogMerger.mergeByTimestamp(List.of(source)));
+        assertEquals(List.of(), LogMerger.mergeByTimestamp(List.of(List.of(), List.of())));
+    }
+
+    @Test
+    void filterSeesTheSourceOfEveryEntry() {
+        List<LogEntry> first = List.of(entry(0, "0"), entry(2, "0"));
+        List<LogEntry> second = List.of(entry(1, "1"), entry(2, "1"), entry(3, "1"));
+
+        List<String> seen = new ArrayList<>();
+        Iterator<LogEntry> merged = LogMerger.mergeIterators(List.of(first.iterator(), second.iterator()),
+                (entry, source) -> {
+                    assertEquals(String.valueOf(source), entry.getUserEmail());
+                    seen.add(entry.getUserEmail());
+                    return source == 1;
+                });
+
+        List<LogEntry> kept = new ArrayList<>();
+        merged.forEachRemaining(kept::add);
+        assertSameEntries(second, kept);
+        assertEquals(List.of("0", "1", "0", "1", "1"), seen);
+    }
+
+    @Test
+    void closingTheMergedStreamClosesEverySource() {
+        AtomicInteger closed = new AtomicInteger();
+        List<Stream<LogEntry>> sources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sources.add(Stream.of(entry(i, "x")).onClose(closed::incrementAndGet));
+        }
+
+        Stream<LogEntry> merged = LogMerger.mergeStreams(sources);
+        assertEquals(0, closed.get());
+        merged.close();
+        assertEquals(3, closed.get());
+    }
+
+    @Test
+    void streamsAreMergedLazily() {
+        // An endless source: only the entries taken are read
+        Stream<LogEntry> endless = Stream.iterate(0, i -> i + 2).map(i -> entry(i, "even"));
+        try (Stream<LogEntry> merged = LogMerger.mergeStreams(List.of(endless, Stream.of(entry(1, "odd"), entry(3, "odd"))))) {
+            List<String> first = merged.limit(5).map(LogEntry::getUserEmail).toList();
+            assertEquals(List.of("even", "odd", "even", "odd", "even"), first);
+        }
+        assertFalse(LogMerger.mergeIterators(List.of()).hasNext());
+    }
+
+    /**
+     * Timestamp-ordered sources with many equal timestamps; each entry is a distinct object
+     */
+    private static List<List<LogEntry>> randomSources(Random random, int count) {
+        List<List<LogEntry>> sources = new ArrayList<>();
+        for (int source = 0; source < count; source++) {
+            List<LogEntry> entries = new ArrayList<>();
+            long second = random.nextInt(5);
+            for (int i = random.nextInt(30); i > 0; i--) {
+                second += random.nextInt(3);
+                entries.add(entry(second, source + "-" + i));
+            }
+            sources.add(entries);
+        }
+        return sources;
+    }
+
+    /**
+     * Same entry objects in the same order; equal entries could hide a swap
+     */
+    private static void assertSameEntries(List<LogEntry> expected, List<LogEntry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i), "entry " + i);
+        }
+    }
+
+    private static LogEntry entry(long second, String userEmail) {
+        return LogEntry.builder()
+                .timestamp(START.plusSeconds(second))
+                .userEmail(userEmail)
+                .build();
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.segment.SegmentManifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * LogParser must read every entry of a log file and its rolled segments exactly once across
+ * incremental runs, whether the file grew, was rolled over by a rename, or renamed and gzipped.
+ * A parallel parse must return what a sequential one does, whatever the chunk size and line
+ * ends, and each public call must report on every file it read. A range parse must return what
+ * filtering a sequential parse by timestamp does, lines slightly out of order included. A rolled
+ * set, plain and gzipped, must be read completely and merged in timestamp order.
+ */
+class LogParserTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30);
+    private static final DateTimeFormatter LINE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final LogParser logParser = new LogParser();
+
+    @Test
+    void firstRunReadsRolledSegmentsThenResumesAtTheOffset(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        write(directory.resolve("app.2025-01-14.0.log"), lines(0, 3));
+        gzip(directory.resolve("app.2025-01-14.1.log.gz"), lines(3, 6));
+        write(active, lines(6, 9));
+        Map<String, LogCheckpoint> checkpoints = new HashMap<>();
+
+        assertEquals(operations(0, 9), operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+        assertEquals(Files.size(active), checkpoints.get(active.toString()).getOffset());
+
+        append(active, lines(9, 12));
+        assertEquals(operations(9, 12), operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+
+        // Nothing new
+        assertEquals(List.of(), logParser.parseLogFileSince(active.toString(), checkpoints));
+    }
+
+    @Test
+    void partialTrailingLineIsLeftForTheNextRun(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        write(active, lines(0, 2));
+        Map<String, LogCheckpoint> checkpoints = new HashMap<>();
+        logParser.parseLogFileSince(active.toString(), checkpoints);
+
+        String next = lines(2, 3);
+        append(active, next.substring(0, 30));
+        assertEquals(List.of(), logParser.parseLogFileSince(active.toString(), checkpoints));
+
+        append(active, next.substring(30));
+        assertEquals(operations(2, 3), operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+    }
+
+    @Test
+    void renamedFileIsReadToTheEndBeforeTheNewOne(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        write(active, lines(0, 3));
+        Map<String, LogCheckpoint> checkpoints = new HashMap<>();
+        logParser.parseLogFileSince(active.toString(), checkpoints);
+
+        // Lines written before the rollover, then two rollovers by rename
+        append(active, lines(3, 5));
+        Files.move(active, directory.resolve("app.2025-01-15.0.log"));
+        write(active, lines(5, 7));
+        Files.move(active, directory.resolve("app.2025-01-15.1.log"));
+        write(active, lines(7, 9));
+
+        assertEquals(operations(3, 9), operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+        append(active, lines(9, 10));
+        assertEquals(operations(9, 10), operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+    }
+
+    @Test
+    void renamedThenGzippedFileIsReadFromTheOffset(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        write(active, lines(0, 3));
+        Map<String, LogCheckpoint> checkpoints = new HashMap<>();
+        logParser.parseLogFileSince(active.toString(), checkpoints);
+
+        append(active, lines(3, 5));
+        Path rolled = directory.resolve("app.2025-01-15.0.log");
+        Files.move(active, rolled);
+        gzip(directory.resolve("app.2025-01-15.0.log.gz"), Files.readString(rolled));
+        Files.delete(rolled);
+        write(active, lines(5, 7));
+
+        assertEquals(operations(3, 7), operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+    }
+
+    @Test
+    void deletedCheckpointedFileFallsBackToTheLastTimestamp(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        // The last two entries read share a millisecond, as does the first of the next segment
+        write(active, line(0, 0) + line(1, 1000) + line(2, 1000));
+        Map<String, LogCheckpoint> checkpoints = new HashMap<>();
+        logParser.parseLogFileSince(active.toString(), checkpoints);
+        assertEquals(START.plusSeconds(1), checkpoints.get(active.toString()).getLastTimestamp());
+
+        // Rolled twice, and retention deleted the checkpointed file with what followed the checkpoint
+        append(active, line(3, 1000));
+        Path checkpointed = directory.resolve("app.2025-01-15.0.log");
+        Files.move(active, checkpointed);
+        write(active, line(4, 1000) + line(5, 1500));
+        Files.move(active, directory.resolve("app.2025-01-15.1.log"));
+        write(active, line(6, 2000));
+        Files.delete(checkpointed);
+
+        assertEquals(List.of("op 4", "op 5", "op 6"),
+                operations(logParser.parseLogFileSince(active.toString(), checkpoints)));
+    }
+
+    @Test
+    void missingFileKeepsItsCheckpoint(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        write(active, lines(0, 2));
+        Map<String, LogCheckpoint> checkpoints = new HashMap<>();
+        logParser.parseLogFileSince(active.toString(), checkpoints);
+        LogCheckpoint checkpoint = checkpoints.get(active.toString());
+
+        Files.delete(active);
+        assertEquals(List.of(), logParser.parseLogFileSince(active.toString(), checkpoints));
+        assertSame(checkpoint, checkpoints.get(active.toString()));
+    }
+
+    @Test
+    void parallelParseMatchesSequentialParse(@TempDir Path directory) throws IOException {
+        String stackTrace = "java.lang.IllegalStateException: boom\n\tat com.example.Service.method(Service.java:57)\n";
+        Map<String, String> files = Map.of(
+                "crlf.log", lines(0, 30).replace("\n", "\r\n"),
+                "unterminated.log", lines(0, 30).stripTrailing(),
+                "mixed.log", lines(0, 10) + stackTrace + "\n\r\n" + lines(10, 20).replace("\n", "\r")
+                        + lines(20, 30).replace("\n", "\r\n") + lines(30, 31).stripTrailing());
+
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path path = directory.resolve(file.getKey());
+            write(path, file.getValue());
+            List<LogEntry> expected = logParser.parseLogFile(path.toString());
+            long expectedLines = logParser.getLastParseReport().getLines();
+            assertEquals(file.getKey().equals("mixed.log") ? 31 : 30, expected.size());
+
+            for (int chunkSize : new int[] {1, 64, 500, 1 << 20}) {
+                LogParser parallel = new LogParser(LogParser.defaultMessageRules(), chunkSize);
+                assertEquals(expected, parallel.parseLogFileParallel(path.toString()), file.getKey() + " in chunks of " + chunkSize);
+
+                ParseReport report = parallel.getLastParseReport();
+                assertEquals("PARALLEL", report.getMode());
+                assertEquals(expectedLines, report.getLines(), file.getKey() + " in chunks of " + chunkSize);
+                assertEquals(expected.size(), report.getEntries());
+                assertEquals(Files.size(path), report.getBytes());
+                assertEquals(chunkSize < 1 << 20, report.getChunks() > 1);
+            }
+        }
+    }
+
+    @Test
+    void reportCoversEveryFileReadByTheCall(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        Path rolled = directory.resolve("app.2025-01-14.0.log");
+        Path gzipped = directory.resolve("app.2025-01-14.1.log.gz");
+        write(rolled, lines(0, 3));
+        gzip(gzipped, lines(3, 6) + "not a log line\n");
+        write(active, lines(6, 9));
+
+        List<LogEntry> entries = logParser.parseRolledLogSet(active.toString());
+
+        ParseReport report = logParser.getLastParseReport();
+        assertEquals("ROLLED_SET", report.getMode());
+        assertEquals(active.toString(), report.getFilePath());
+        assertEquals(entries.size(), report.getEntries());
+        assertEquals(10, report.getLines());
+        assertEquals(3, report.getChunks());
+        assertEquals(Files.size(rolled) + Files.size(gzipped) + Files.size(active), report.getBytes());
+
+        // Incremental: the rolled segments read on the first run are counted too
+        logParser.parseLogFileSince(active.toString(), new HashMap<>());
+        report = logParser.getLastParseReport();
+        assertEquals("INCREMENTAL", report.getMode());
+        assertEquals(9, report.getEntries());
+        assertEquals(10, report.getLines());
+    }
+
+    @Test
+    void rangeParseMatchesFilteredSequentialParse(@TempDir Path directory) throws IOException {
+        // Lines up to 400 ms out of order (within the seek tolerance), with stack traces in between
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        List<LocalDateTime> timestamps = new ArrayList<>();
+        for (int operation = 0; operation < 2000; operation++) {
+            long offsetMillis = operation * 100L + (operation % 10 == 0 ? 0 : random.nextInt(801) - 400);
+            content.append(line(operation, Math.max(0, offsetMillis)));
+            timestamps.add(START.plusNanos(Math.max(0, offsetMillis) * 1_000_000));
+            if (operation % 97 == 0) {
+                content.append("java.lang.IllegalStateException: boom\n\tat com.example.Service.method(Service.java:57)\n");
+            }
+        }
+        Path file = directory.resolve("app.log");
+        write(file, content.toString());
+        List<LogEntry> all = logParser.parseLogFile(file.toString());
+        LocalDateTime last = timestamps.stream().max(LocalDateTime::compareTo).orElseThrow();
+
+        List<LocalDateTime> bounds = new ArrayList<>(List.of(
+                START.minusSeconds(5), START, START.plusNanos(1_000_000), last, last.plusNanos(1_000_000),
+                last.plusSeconds(5)));
+        for (int i = 0; i < 20; i++) {
+            // Exactly on a line, and between two lines
+            LocalDateTime onLine = timestamps.get(random.nextInt(timestamps.size()));
+            bounds.add(onLine);
+            bounds.add(onLine.plusNanos(50_000_000));
+        }
+
+        for (LocalDateTime from : bounds) {
+            assertEquals(inRange(all, from, null), logParser.parseLogFileRange(file.toString(), from, null), "from " + from);
+            assertEquals(inRange(all, null, from), logParser.parseLogFileRange(file.toString(), null, from), "to " + from);
+            LocalDateTime to = from.plusSeconds(1 + random.nextInt(30));
+            assertEquals(inRange(all, from, to), logParser.parseLogFileRange(file.toString(), from, to),
+                    "from " + from + " to " + to);
+        }
+        assertEquals(all, logParser.parseLogFileRange(file.toString(), null, null));
+    }
+
+    @Test
+    void rolledSetRangeParseMatchesFilteredRolledSetParse(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        Path first = directory.resolve("app.2025-01-15.0.log");
+        Path second = directory.resolve("app.2025-01-15.1.log.gz");
+        write(first, lines(0, 100));
+        gzip(second, lines(100, 200));
+        write(active, lines(200, 300));
+
+        // The manifest lets the range parse skip the first segment for late ranges
+        SegmentManifest manifest = SegmentManifest.load(active);
+        manifest.add(segment(first, 0, 100));
+        manifest.add(segment(second, 100, 200));
+
+        List<LogEntry> all = logParser.parseRolledLogSet(active.toString());
+        assertEquals(operations(0, 300), operations(all));
+        for (int[] range : new int[][] {{0, 300}, {50, 150}, {99, 100}, {100, 101}, {150, 250}, {250, 400}, {300, 301}}) {
+            LocalDateTime from = START.plusSeconds(range[0]);
+            LocalDateTime to = START.plusSeconds(range[1]);
+            assertEquals(inRange(all, from, to),
+                    logParser.parseRolledLogSetRange(active.toString(), LogFilter.builder().from(from).to(to).build()),
+                    range[0] + "-" + range[1]);
+        }
+    }
+
+    @Test
+    void rolledSetIsReadCompletelyInTimestampOrder(@TempDir Path directory) throws IOException {
+        Path active = directory.resolve("app.log");
+        // Overlapping segments: each takes every third second; index 10 sorts after index 2
+        write(directory.resolve("app.2025-01-14.0.log"), every(0, 3));
+        gzip(directory.resolve("app.2025-01-15.2.log.gz"), every(1, 3).replace(line(4, 4000), line(4, 4000) + line(500, 5000)));
+        gzip(directory.resolve("app.2025-01-15.10.log.gz"), every(2, 3).replace(line(5, 5000), line(5, 5000) + line(1000, 5000)));
+        write(active, line(2000, 5000) + lines(60, 62).stripTrailing());
+        // Not segments of app.log
+        write(directory.resolve("app.log.bak"), lines(100, 101));
+        write(directory.resolve("app.2025-01-15.x.log"), lines(101, 102));
+        write(directory.resolve("other.2025-01-15.0.log"), lines(102, 103));
+
+        List<String> expected = new ArrayList<>();
+        for (int operation = 0; operation < 60; operation++) {
+            if (operation == 5) {
+                // Same millisecond: oldest segment first, the active file last
+                expected.addAll(List.of("op 500", "op 5", "op 1000", "op 2000"));
+            } else {
+                expected.add("op " + operation);
+            }
+        }
+        expected.addAll(operations(60, 62));
+
+        List<LogEntry> entries = logParser.parseRolledLogSet(active.toString());
+        assertEquals(expected, operations(entries));
+        try (Stream<LogEntry> streamed = logParser.streamRolledLogSet(active.toString())) {
+            assertEquals(entries, streamed.toList());
+        }
+    }
+
+    /**
+     * Lines of the operations below 60 equal to start modulo step, one per second
+     */
+    private static String every(int start, int step) {
+        StringBuilder lines = new StringBuilder();
+        for (int operation = start; operation < 60; operation += step) {
+            lines.append(line(operation, operation * 1000L));
+        }
+        return lines.toString();
+    }
+
+    private static List<LogEntry> inRange(List<LogEntry> entries, LocalDateTime from, LocalDateTime to) {
+        return entries.stream()
+                .filter(entry -> (from == null || !entry.getTimestamp().isBefore(from))
+                        && (to == null || entry.getTimestamp().isBefore(to)))
+                .toList();
+    }
+
+    private static SegmentManifest.Segment segment(Path file, int from, int to) {
+        SegmentManifest.Segment segment = new SegmentManifest.Segment();
+        segment.setFile(file.getFileName().toString());
+        segment.setEntries(to - from);
+        segment.setMinTimestamp(START.plusSeconds(from));
+        segment.setMaxTimestamp(START.plusSeconds(to - 1));
+        return segment;
+    }
+
+    static String line(int operation, long offsetMillis) {
+        return START.plusNanos(offsetMillis * 1_000_000).format(LINE_TIMESTAMP)
+                + " [http-nio-8080-exec-1] INFO  c.e.l.service.ProductService - op " + operation
+                + " User: alice@email.com fetched all products\n";
+    }
+
+    /**
+     * Lines of operations from (inclusive) to (exclusive), one per second
+     */
+    static String lines(int from, int to) {
+        StringBuilder lines = new StringBuilder();
+        for (int operation = from; operation < to; operation++) {
+            lines.append(line(operation, operation * 1000L));
+        }
+        return lines.toString();
+    }
+
+    static List<String> operations(int from, int to) {
+        List<String> operations = new ArrayList<>();
+        for (int operation = from; operation < to; operation++) {
+            operations.add("op " + operation);
+        }
+        return operations;
+    }
+
+    static List<String> operations(List<LogEntry> entries) {
+        List<String> operations = new ArrayList<>();
+        for (LogEntry entry : entries) {
+            String message = entry.getAdditionalInfo();
+            operations.add(message.substring(0, message.indexOf(" User")));
+        }
+        return operations;
+    }
+
+    static void write(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    static void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    static void gzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * KeywordAutomaton must find exactly the keywords String.contains finds, overlapping or nested
+ * ones included, and the default MessageRules must give the same entries as the former if-chain
+ * of LogParser.parseMessage on free-form messages
+ */
+class MessageRulesTest {
+
+    private static final String LOG_FILE = "logs/product-management.log";
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123_000_000);
+
+    // Keywords that overlap, nest or share prefixes and suffixes, beyond those of the default rules
+    private static final List<String> OVERLAPPING_KEYWORDS = List.of(
+            "he", "she", "his", "hers", "s", "ss", "sss", "product", "products", "ms", "oduct",
+            "Error", "rror", "r", "€", "€€", "é", "aé€", "abcab", "bca", "cabc");
+
+    // Pieces of the messages the default rules are written for, and near misses
+    private static final String[] FRAGMENTS = {
+            "User ", "user", "User: Alice Johnson", "User:Bob", "User: Unknown", "alice.johnson@email.com",
+            "bob@mail", "product", "Product", "products", "getAllProducts", "getProductById", "addProduct",
+            "updateProduct", "deleteProduct", "getProduct", "Expensive product view", "SEARCH_EXPENSIVE",
+            "authenticated", "login", "logins", "Success", "successfully", "registered", "registration",
+            "Error", "error", "failed", "Exception", "ms", "120ms", "45 ms", "7 milliseconds", "millis",
+            "ID: 42", "id:7", "ID:", "Price: €12.5", "€1299.99", "EUR 3", "Price: 1.2.3", "Name: Laptop",
+            "Name: Old Item |", " | ", ": ", " ", "-", "\t"
+    };
+
+    @Test
+    void automatonMatchesContainsForEveryKeyword() {
+        List<String> defaultKeywords = LogParser.defaultMessageRules().getKeywords();
+        KeywordAutomaton defaults = new KeywordAutomaton(defaultKeywords);
+        KeywordAutomaton overlapping = new KeywordAutomaton(OVERLAPPING_KEYWORDS);
+
+        List<String> texts = new ArrayList<>(List.of("", "products", "ushers", "sssss", "abcabcabc", "aé€€",
+                "Error rror", "getAllProducts 12ms"));
+        Random random = new Random(8);
+        String alphabet = "abcehirsmdptuoE€é ";
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int pieces = random.nextInt(6); pieces > 0; pieces--) {
+                if (random.nextBoolean()) {
+                    text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                } else {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            texts.add(text.toString());
+        }
+
+        for (String text : texts) {
+            assertEquals(containsMask(defaultKeywords, text), defaults.match(text), text);
+            assertEquals(containsMask(OVERLAPPING_KEYWORDS, text), overlapping.match(text), text);
+        }
+    }
+
+    @Test
+    void automatonUsesEveryBitOfTheMask() {
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < KeywordAutomaton.MAX_KEYWORDS; i++) {
+            keywords.add("k" + i + ";");
+        }
+        KeywordAutomaton automaton = new KeywordAutomaton(keywords);
+
+        assertEquals(1L << 63, automaton.match("k63;"));
+        assertEquals(-1L, automaton.match(String.join("", keywords)));
+        assertEquals(0, automaton.bit("k64;"));
+
+        keywords.add("k64;");
+        assertThrows(IllegalArgumentException.class, () -> new KeywordAutomaton(keywords));
+        assertThrows(IllegalArgumentException.class, () -> new KeywordAutomaton(List.of("a", "")));
+    }
+
+    @Test
+    void defaultRulesMatchTheIfChainOnLogCorpus() throws IOException {
+        List<String> messages = new ArrayList<>();
+        LogLineScanner scanner = new LogLineScanner();
+        for (String line : LogLineScannerBenchmark.loadLines(LOG_FILE)) {
+            if (scanner.scan(line) && !scanner.message().contains("Operation:")) {
+                messages.add(scanner.message());
+            }
+        }
+        assertFalse(messages.isEmpty());
+
+        assertSameAsIfChain(messages);
+    }
+
+    @Test
+    void defaultRulesMatchTheIfChainOnKeywordMixes() {
+        Random random = new Random(3);
+        List<String> messages = new ArrayList<>(List.of(FRAGMENTS));
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder message = new StringBuilder();
+            for (int pieces = 1 + random.nextInt(6); pieces > 0; pieces--) {
+                message.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                if (random.nextInt(3) == 0) {
+                    message.append(" | ");
+                }
+            }
+            messages.add(message.toString());
+        }
+
+        assertSameAsIfChain(messages);
+    }
+
+    @Test
+    void ruleAddedOnTopOfTheDefaultsRunsInTableOrder() {
+        MessageRules rules = LogParser.defaultMessageRules().toBuilder()
+                .rule(List.of("archived"), (message, matches, builder) -> builder.event("PRODUCT_ARCHIVED"))
+                .build();
+
+        LogEntry.Builder builder = LogEntry.builder().timestamp(TIMESTAMP);
+        rules.apply("Product archived | ID: 9 | 3 ms", builder);
+        LogEntry entry = builder.build();
+
+        assertEquals("PRODUCT_ARCHIVED", entry.getEvent());
+        assertEquals("9", entry.getResourceId());
+        assertEquals(3L, entry.getDuration());
+        assertEquals("SUCCESS", entry.getResult());
+    }
+
+    private static void assertSameAsIfChain(List<String> messages) {
+        MessageRules rules = LogParser.defaultMessageRules();
+        for (String message : messages) {
+            assertEquals(outcome(message, IfChain::parseMessage), outcome(message, rules::apply), message);
+        }
+    }
+
+    /**
+     * Built entry, or the type of the exception the parsing threw
+     */
+    private static Object outcome(String message, BiConsumer<String, LogEntry.Builder> parser) {
+        LogEntry.Builder builder = LogEntry.builder().timestamp(TIMESTAMP).additionalInfo(message);
+        try {
+            parser.accept(message, builder);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+        return builder.build();
+    }
+
+    private static long containsMask(List<String> keywords, String text) {
+        long mask = 0;
+        for (int i = 0; i < keywords.size(); i++) {
+            if (text.contains(keywords.get(i))) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Free-form branch of LogParser.parseMessage as it was before the rule table
+     */
+    private static final class IfChain {
+
+        private static final Pattern EMAIL_PATTERN = Pattern.compile("([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})");
+        private static final Pattern USER_NAME_PATTERN = Pattern.compile("User[:\\s]+([A-Za-z\\s]+)(?:\\s|$)");
+        private static final Pattern PRODUCT_ID_PATTERN = Pattern.compile("(?:ID|id)[:\\s]+(\\d+)");
+        private static final Pattern PRICE_PATTERN = Pattern.compile("(?:€|EUR|Price:)[:\\s]*([\\d.]+)");
+        private static final Pattern PRODUCT_NAME_PATTERN = Pattern.compile("Name[:\\s]+([^|]+?)\\s*(?:\\||$)");
+        private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)\\s*(?:ms|milliseconds)");
+
+        static void parseMessage(String message, LogEntry.Builder builder) {
+            if (message.contains("User ") || message.contains("user")) {
+                extractUserInfo(message, builder);
+            }
+
+            if (message.contains("product") || message.contains("Product")) {
+                extractProductInfo(message, builder);
+                builder.event("PRODUCT_OPERATION");
+            }
+
+            if (message.contains("getAllProducts")) {
+                builder.action("getAllProducts").operationType("READ");
+            } else if (message.contains("getProductById")) {
+                builder.action("getProductById").operationType("READ");
+            } else if (message.contains("addProduct")) {
+                builder.action("addProduct").operationType("WRITE");
+            } else if (message.contains("updateProduct")) {
+                builder.action("updateProduct").operationType("WRITE");
+            } else if (message.contains("deleteProduct")) {
+                builder.action("deleteProduct").operationType("WRITE");
+            }
+
+            if (message.contains("Expensive product view") || message.contains("SEARCH_EXPENSIVE")) {
+                builder.action("viewExpensiveProduct").operationType("SEARCH_EXPENSIVE");
+            }
+
+            if (message.contains("authenticated") || message.contains("login")) {
+                builder.event("USER_AUTHENTICATION");
+                builder.result(message.contains("Success") || message.contains("successfully") ? "SUCCESS" : "FAILURE");
+            }
+
+            if (message.contains("registered") || message.contains("registration")) {
+                builder.event("USER_REGISTRATION");
+                builder.result("SUCCESS");
+            }
+
+            if (message.contains("Error") || message.contains("failed") || message.contains("Exception")) {
+                builder.result("ERROR");
+                builder.errorMessage(message);
+            } else if (builder.build().getResult() == null) {
+                builder.result("SUCCESS");
+            }
+
+            if (message.contains("ms") || message.contains("milliseconds")) {
+                extractDuration(message, builder);
+            }
+        }
+
+        private static void extractUserInfo(String message, LogEntry.Builder builder) {
+            Matcher emailMatcher = EMAIL_PATTERN.matcher(message);
+            if (emailMatcher.find()) {
+                builder.userEmail(emailMatcher.group(1));
+            }
+
+            Matcher nameMatcher = USER_NAME_PATTERN.matcher(message);
+            if (nameMatcher.find()) {
+                String name = nameMatcher.group(1).trim();
+                if (!name.equals("Unknown")) {
+                    builder.userName(name);
+                }
+            }
+        }
+
+        private static void extractProductInfo(String message, LogEntry.Builder builder) {
+            builder.resourceType("PRODUCT");
+
+            Matcher idMatcher = PRODUCT_ID_PATTERN.matcher(message);
+            if (idMatcher.find()) {
+                builder.resourceId(idMatcher.group(1));
+            }
+
+            Matcher priceMatcher = PRICE_PATTERN.matcher(message);
+            if (priceMatcher.find()) {
+                builder.resourcePrice(Double.parseDouble(priceMatcher.group(1)));
+            }
+
+            Matcher nameMatcher = PRODUCT_NAME_PATTERN.matcher(message);
+            if (nameMatcher.find()) {
+                builder.resourceName(nameMatcher.group(1).trim());
+            }
+        }
+
+        private static void extractDuration(String message, LogEntry.Builder builder) {
+            Matcher durationMatcher = DURATION_PATTERN.matcher(message);
+            if (durationMatcher.find()) {
+                builder.duration(Long.parseLong(durationMatcher.group(1)));
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.logging_and_observability.logging.parser;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark of StructuredLogTokenizer against the previous regex-based parsing
+ *
+ * Usage (from the project root):
+ * java -cp target/test-classes:target/classes:... com.example.logging_and_observability.logging.parser.StructuredLogTokenizerBenchmark [log-file]
+ */
+public class StructuredLogTokenizerBenchmark {
+
+    private static final String DEFAULT_LOG_FILE = "logs/product-management.log";
+    private static final LocalDateTime FIXED_TIMESTAMP = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    static final String[] SAMPLE_MESSAGES = {
+            "Operation: getAllProducts | User: Alice Johnson | Email: alice.johnson@email.com | Action: READ",
+            "Retrieved 12 products | User: alice.johnson@email.com | Operation: READ | Status: SUCCESS",
+            "Operation: getProductById | User: Bob Smith | Email: bob.smith@email.com | ProductID: 6941b2c4 | Action: READ",
+            "Product found | ID: 6941b2c4 | Name: Laptop | Price: €1299.99 | User: bob.smith@email.com | Operation: READ | Status: SUCCESS",
+            "Expensive product view | ID: 6941b2c4 | Name: Laptop | Price: €1299.99 | User: bob.smith@email.com | Operation: SEARCH_EXPENSIVE",
+            "Operation: addProduct | User: Henry Brown | Email: henry.brown@email.com | ProductName: Stock Item 3 | Price: €45.5 | Action: WRITE",
+            "Product deleted | ID: 42 | Name: Old Item | User: henry.brown@email.com | Operation: WRITE | Status: SUCCESS"
+    };
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("╔════════════════════════════════════════════════╗");
+        System.out.println("║   STRUCTURED LOG TOKENIZER BENCHMARK           ║");
+        System.out.println("╚════════════════════════════════════════════════╝\n");
+
+        List<String> messages = loadMessages(args.length > 0 ? args[0] : DEFAULT_LOG_FILE);
+        System.out.println("✓ Messages: " + messages.size());
+
+        // Both implementations must agree before timing them
+        int mismatches = 0;
+        for (String message : messages) {
+            if (!Objects.equals(parseWithRegex(message), parseWithTokenizer(message))) {
+                mismatches++;
+                if (mismatches <= 5) {
+                    System.err.println("✗ Mismatch: " + message);
+                }
+            }
+        }
+        System.out.println("✓ Mismatches: " + mismatches + "\n");
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRegex(messages);
+            runTokenizer(messages);
+        }
+
+        long regexNanos = 0;
+        long tokenizerNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            regexNanos += runRegex(messages);
+            tokenizerNanos += runTokenizer(messages);
+        }
+
+        double total = (double) messages.size() * MEASURED_ROUNDS;
+        System.out.printf("Regex:     %8.1f ns/message%n", regexNanos / total);
+        System.out.printf("Tokenizer: %8.1f ns/message%n", tokenizerNanos / total);
+        System.out.printf("Speedup:   %8.2fx%n", (double) regexNanos / tokenizerNanos);
+    }
+
+    static List<String> loadMessages(String logFile) throws IOException {
+        List<String> messages = new ArrayList<>();
+        Path path = Paths.get(logFile);
+
+        if (Files.exists(path)) {
+            for (String line : Files.readAllLines(path)) {
+                int separator = line.indexOf(" - ");
+                if (separator >= 0 && line.contains("Operation:")) {
+                    messages.add(line.substring(separator + 3));
+                }
+            }
+        }
+
+        if (messages.isEmpty()) {
+            System.out.println("✓ No structured lines in " + logFile + ", using built-in samples");
+            for (int i = 0; i < 10_000; i++) {
+                messages.add(SAMPLE_MESSAGES[i % SAMPLE_MESSAGES.length]);
+            }
+        }
+
+        return messages;
+    }
+
+    private static long runRegex(List<String> messages) {
+        long start = System.nanoTime();
+        for (String message : messages) {
+            parseWithRegex(message);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runTokenizer(List<String> messages) {
+        long start = System.nanoTime();
+        for (String message : messages) {
+            parseWithTokenizer(message);
+        }
+        return System.nanoTime() - start;
+    }
+
+    static LogEntry parseWithTokenizer(String message) {
+        LogEntry.Builder builder = LogEntry.builder().timestamp(FIXED_TIMESTAMP);
+        try {
+            StructuredLogTokenizer.tokenize(message, builder);
+        } catch (NumberFormatException e) {
+            return null; // LogParser drops lines with a malformed price
+        }
+        return builder.build();
+    }
+
+    static LogEntry parseWithRegex(String message) {
+        LogEntry.Builder builder = LogEntry.builder().timestamp(FIXED_TIMESTAMP);
+        try {
+            parseStructuredProductLogRegex(message, builder);
+        } catch (NumberFormatException e) {
+            return null; // LogParser drops lines with a malformed price
+        }
+        return builder.build();
+    }
+
+    /**
+     * Previous LogParser implementation, kept as the baseline
+     */
+    private static void parseStructuredProductLogRegex(String message, LogEntry.Builder builder) {
+        builder.event("PRODUCT_OPERATION");
+
+        Matcher opMatcher = Pattern.compile("Operation:\\s*(\\w+)").matcher(message);
+        if (opMatcher.find()) {
+            builder.action(opMatcher.group(1));
+        }
+
+        Matcher userMatcher = Pattern.compile("User:\\s*([^|]+?)\\s*(?:\\||$)").matcher(message);
+        if (userMatcher.find()) {
+            String userName = userMatcher.group(1).trim();
+            if (!userName.equals("Unknown")) {
+                builder.userName(userName);
+            }
+        }
+
+        Matcher emailMatcher = Pattern.compile("Email:\\s*([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})").matcher(message);
+        if (emailMatcher.find()) {
+            builder.userEmail(emailMatcher.group(1));
+        }
+
+        Matcher idMatcher = Pattern.compile("ProductID:\\s*(\\d+)").matcher(message);
+        if (idMatcher.find()) {
+            builder.resourceId(idMatcher.group(1));
+            builder.resourceType("PRODUCT");
+        }
+
+        Matcher nameMatcher = Pattern.compile("ProductName:\\s*([^|]+?)\\s*(?:\\||$)").matcher(message);
+        if (nameMatcher.find()) {
+            builder.resourceName(nameMatcher.group(1).trim());
+            builder.resourceType("PRODUCT");
+        }
+
+        Matcher actionMatcher = Pattern.compile("Action:\\s*(READ|WRITE)").matcher(message);
+        if (actionMatcher.find()) {
+            builder.operationType(actionMatcher.group(1));
+        }
+
+        Matcher priceMatcher = Pattern.compile("Price:\\s*€([\\d.]+)").matcher(message);
+        if (priceMatcher.find()) {
+            builder.resourcePrice(Double.parseDouble(priceMatcher.group(1)));
+        }
+
+        if (message.contains("Product found") || message.contains("Retrieved") || message.contains("Product added") || message.contains("Product updated") || message.contains("Product deleted")) {
+            Matcher idMatcher2 = Pattern.compile("ID:\\s*(\\d+)").matcher(message);
+            if (idMatcher2.find()) {
+                builder.resourceId(idMatcher2.group(1));
+                builder.resourceType("PRODUCT");
+            }
+
+            Matcher nameMatcher2 = Pattern.compile("Name:\\s*([^|]+?)\\s*(?:\\||$)").matcher(message);
+            if (nameMatcher2.find()) {
+                builder.resourceName(nameMatcher2.group(1).trim());
+            }
+
+            Matcher priceMatcher2 = Pattern.compile("Price:\\s*€([\\d.]+)").matcher(message);
+            if (priceMatcher2.find()) {
+                builder.resourcePrice(Double.parseDouble(priceMatcher2.group(1)));
+            }
+        }
+
+        if (message.contains("Expensive product view")) {
+            builder.action("viewExpensiveProduct");
+            builder.operationType("SEARCH_EXPENSIVE");
+        }
+
+        if (message.contains("SUCCESS") || message.contains("Status: SUCCESS")) {
+            builder.result("SUCCESS");
+        } else if (message.contains("ERROR") || message.contains("Status: ERROR")) {
+            builder.result("ERROR");
+        }
+    }
+}
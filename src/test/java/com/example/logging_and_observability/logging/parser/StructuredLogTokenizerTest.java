@@ -0,0 +1,89 @@
+package com.example.logging_and_observability.logging.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * StructuredLogTokenizer must give the same entries as the former regex-based parsing
+ */
+class StructuredLogTokenizerTest {
+
+    private static final String LOG_FILE = "logs/product-management.log";
+
+    private static final String[] EDGE_CASES = {
+            "",
+            "Operation:",
+            "Operation: | User: | Email: | Action:",
+            "Operation:getAllProducts|User:Alice|Email:alice@email.com|Action:READ",
+            "Operation:   getAllProducts  |  User:   Alice Johnson   |  Email:  alice@email.com  | Action:  WRITE",
+            "Action: READWRITE | Operation: x | User: Unknown | Email: none",
+            "Action: DELETE | Operation: deleteProduct",
+            "Operation: a | Operation: b | User: first | User: second",
+            "Operation: getProductById | ProductID: abc123 | Action: READ",
+            "Operation: getProductById | ProductID: 123abc | Action: READ",
+            "Product found | ID: | Name: | Price: € | User: bob@email.com",
+            "Product found | ID: 7 | Name: Laptop | Price: €12,5 | Status: SUCCESS",
+            "Product found | ID: 7 | Name: Laptop | Price: €1.2.3 | Status: SUCCESS",
+            "Product found | ID: 7 | Name: Laptop | Price: 99.99 | Status: SUCCESS",
+            "Product updated | ProductID: 5 | ProductName: Desk | Price: €-3",
+            "Search | ID: 7 | Name: Laptop | Price: €10",
+            "Retrieved 0 products | User: a.b-c_d+e@sub.example.co.uk | Operation: READ",
+            "Operation: getAllProducts | Email: not-an-email | Action: READ",
+            "Operation: getAllProducts | Email: @email.com | Action: READ",
+            "Operation: getAllProducts | Email: alice@ | Action: READ",
+            "Operation: getAllProducts | User: Alice | Email: alice@email.com | Action: READ |",
+            ":::: | :User: x | User:: y | Email:: z@e.com",
+            "OperationX: foo | XUser: bar | Operation: real",
+            "Operation:\tgetAllProducts\t| User:\tAlice | Action:\tREAD"
+    };
+
+    @Test
+    void matchesRegexParsingOnLogCorpus() throws IOException {
+        List<String> messages = StructuredLogTokenizerBenchmark.loadMessages(LOG_FILE);
+        assertFalse(messages.isEmpty());
+        assertSameAsRegex(messages);
+    }
+
+    @Test
+    void matchesRegexParsingOnSamplesAndEdgeCases() {
+        assertSameAsRegex(List.of(StructuredLogTokenizerBenchmark.SAMPLE_MESSAGES));
+        assertSameAsRegex(List.of(EDGE_CASES));
+    }
+
+    @Test
+    void matchesRegexParsingOnMutatedMessages() throws IOException {
+        List<String> originals = new ArrayList<>(StructuredLogTokenizerBenchmark.loadMessages(LOG_FILE));
+        originals.addAll(List.of(StructuredLogTokenizerBenchmark.SAMPLE_MESSAGES));
+
+        String alphabet = " |:€.@-_0123456789aeDIN";
+        Random random = new Random(42);
+        List<String> mutated = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder message = new StringBuilder(originals.get(random.nextInt(originals.size())));
+            for (int edits = 1 + random.nextInt(3); edits > 0 && !message.isEmpty(); edits--) {
+                int at = random.nextInt(message.length());
+                switch (random.nextInt(3)) {
+                    case 0 -> message.deleteCharAt(at);
+                    case 1 -> message.insert(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                    default -> message.setCharAt(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            mutated.add(message.toString());
+        }
+        assertSameAsRegex(mutated);
+    }
+
+    private static void assertSameAsRegex(List<String> messages) {
+        for (String message : messages) {
+            assertEquals(StructuredLogTokenizerBenchmark.parseWithRegex(message),
+                    StructuredLogTokenizerBenchmark.parseWithTokenizer(message), message);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.logging_and_observability.logging.segment;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip of LogEntry records through LogSegmentWriter and LogSegmentReader
+ */
+class LogSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123_456_789);
+    private static final String[] USERS = {"alice@email.com", "bob@email.com", "chloé@email.com"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void completeSegmentReadsBackEveryEntry() throws IOException {
+        List<LogEntry> entries = entries(3000, new Random(1));
+        Path path = directory.resolve("complete" + LogSegmentFormat.FILE_EXTENSION);
+        try (LogSegmentWriter writer = LogSegmentWriter.create(path)) {
+            for (LogEntry entry : entries) {
+                writer.write(entry);
+            }
+        }
+
+        List<LogEntry> expected = stored(entries);
+        for (LogSegmentReader reader : List.of(LogSegmentReader.open(path), LogSegmentReader.load(path))) {
+            assertTrue(reader.isComplete());
+            assertEquals(entries.size(), reader.getEntryCount());
+            assertEquals(expected, reader.readAll());
+            assertEquals(expected.stream().map(LogEntry::getTimestamp).filter(Objects::nonNull).min(LocalDateTime::compareTo).orElseThrow(),
+                    reader.getMinTimestamp());
+            assertEquals(expected.stream().map(LogEntry::getTimestamp).filter(Objects::nonNull).max(LocalDateTime::compareTo).orElseThrow(),
+                    reader.getMaxTimestamp());
+            for (String user : USERS) {
+                assertTrue(reader.mayContainUser(user));
+            }
+            assertFalse(reader.mayContainUser("nobody@email.com"));
+        }
+    }
+
+    @Test
+    void timeRangeReadsMatchFilteringEveryEntry() throws IOException {
+        List<LogEntry> entries = entries(3000, new Random(2));
+        Path path = directory.resolve("range" + LogSegmentFormat.FILE_EXTENSION);
+        try (LogSegmentWriter writer = LogSegmentWriter.create(path)) {
+            for (LogEntry entry : entries) {
+                writer.write(entry);
+            }
+        }
+
+        List<LogEntry> expected = stored(entries);
+        LogSegmentReader reader = LogSegmentReader.open(path);
+        LocalDateTime[][] ranges = {
+                {START, START.plusSeconds(30)},
+                {START.plusSeconds(10).plusNanos(500_000), START.plusMinutes(10)},
+                {null, START.plusSeconds(45)},
+                {START.plusMinutes(20), null},
+                {START.minusDays(1), START.minusHours(1)}
+        };
+        for (LocalDateTime[] range : ranges) {
+            try (Stream<LogEntry> read = reader.stream(range[0], range[1])) {
+                assertEquals(inRange(expected, range[0], range[1]), read.collect(Collectors.toList()),
+                        Arrays.toString(range));
+            }
+            if (!inRange(expected, range[0], range[1]).isEmpty()) {
+                assertTrue(reader.mayOverlap(range[0], range[1]), Arrays.toString(range));
+            }
+        }
+    }
+
+    @Test
+    void openSegmentReadsUpToLastFlush() throws IOException {
+        List<LogEntry> entries = entries(2500, new Random(3));
+        Path path = directory.resolve("open" + LogSegmentFormat.FILE_EXTENSION);
+        try (LogSegmentWriter writer = LogSegmentWriter.create(path)) {
+            for (LogEntry entry : entries.subList(0, 2000)) {
+                writer.write(entry);
+            }
+            writer.flush();
+            for (LogEntry entry : entries.subList(2000, entries.size())) {
+                writer.write(entry);
+            }
+
+            // The writer is still running: the last entries are only buffered
+            LogSegmentReader reader = LogSegmentReader.open(path);
+            assertFalse(reader.isComplete());
+            assertEquals(2000, reader.getEntryCount());
+            assertEquals(stored(entries.subList(0, 2000)), reader.readAll());
+            assertTrue(reader.mayContainUser("nobody@email.com"));
+        }
+
+        assertEquals(stored(entries), LogSegmentReader.open(path).readAll());
+    }
+
+    @Test
+    void truncatedOpenSegmentReadsEveryCompleteRecord() throws IOException {
+        List<LogEntry> entries = entries(200, new Random(4));
+        Path path = directory.resolve("flushed" + LogSegmentFormat.FILE_EXTENSION);
+
+        // File size after every flush, i.e. where each record ends
+        long[] recordEnds = new long[entries.size()];
+        byte[] bytes;
+        try (LogSegmentWriter writer = LogSegmentWriter.create(path)) {
+            for (int i = 0; i < entries.size(); i++) {
+                writer.write(entries.get(i));
+                writer.flush();
+                recordEnds[i] = Files.size(path);
+            }
+            bytes = Files.readAllBytes(path);
+        }
+
+        List<LogEntry> expected = stored(entries);
+        Path truncated = directory.resolve("truncated" + LogSegmentFormat.FILE_EXTENSION);
+        for (int length = LogSegmentFormat.HEADER_SIZE; length <= bytes.length; length++) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            int complete = 0;
+            while (complete < recordEnds.length && recordEnds[complete] <= length) {
+                complete++;
+            }
+
+            LogSegmentReader reader = LogSegmentReader.load(truncated);
+            assertFalse(reader.isComplete());
+            assertEquals(expected.subList(0, complete), reader.readAll(), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegments() throws IOException {
+        Path path = directory.resolve("text" + LogSegmentFormat.FILE_EXTENSION);
+        Files.writeString(path, "2025-01-15 10:30:45.123 [main] INFO c.e.Logger - not a segment");
+        assertThrows(IOException.class, () -> LogSegmentReader.open(path));
+    }
+
+    /**
+     * Entries with randomly missing fields, non-ASCII strings and unordered timestamps
+     */
+    private static List<LogEntry> entries(int count, Random random) {
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LogEntry entry = LogEntry.builder()
+                    .timestamp(START.plusNanos(random.nextInt(3_600_000) * 1_000_000L + random.nextInt(1_000_000)))
+                    .level(pick(random, "INFO", "WARN", "ERROR", "DEBUG"))
+                    .logger(pick(random, "c.e.l.service.ProductService", "o.s.web.servlet.DispatcherServlet", null))
+                    .thread(pick(random, "main", "http-nio-8080-exec-" + random.nextInt(10), null))
+                    .event(pick(random, "PRODUCT_OPERATION", "USER_LOGIN", null))
+                    .userName(pick(random, "Alice Johnson", "Bob Smith", "Chloé Müller", null))
+                    .userEmail(pick(random, USERS[0], USERS[1], USERS[2], null))
+                    .action(pick(random, "getAllProducts", "addProduct", "deleteProduct", null))
+                    .resourceType(pick(random, "PRODUCT", "USER", null))
+                    .resourceId(random.nextBoolean() ? Integer.toHexString(random.nextInt()) : null)
+                    .resourceName(pick(random, "Laptop", "Écran 27\"", "", null))
+                    .resourcePrice(random.nextBoolean() ? random.nextInt(200_000) / 100.0 : null)
+                    .operationType(pick(random, "READ", "WRITE", "SEARCH_EXPENSIVE", null))
+                    .result(pick(random, "SUCCESS", "FAILURE", null))
+                    .errorMessage(random.nextInt(10) == 0 ? "Product not found: " + random.nextInt(100) : null)
+                    .duration(random.nextBoolean() ? (long) random.nextInt(2000) - 10 : null)
+                    .additionalInfo(random.nextInt(20) == 0 ? "x".repeat(random.nextInt(300)) : null)
+                    .build();
+            if (random.nextInt(20) == 0) {
+                entry.setTimestamp(null);
+            }
+            if (random.nextInt(20) == 0) {
+                entry.setLevel(null);
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static String pick(Random random, String... values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Entries as the segment stores them, with timestamps truncated to milliseconds
+     */
+    private static List<LogEntry> stored(List<LogEntry> entries) {
+        List<LogEntry> stored = new ArrayList<>();
+        for (LogEntry entry : entries) {
+            LogEntry copy = LogEntry.builder().build();
+            copy.setTimestamp(entry.getTimestamp() == null ? null : entry.getTimestamp().truncatedTo(ChronoUnit.MILLIS));
+            copy.setLevel(entry.getLevel());
+            copy.setLogger(entry.getLogger());
+            copy.setThread(entry.getThread());
+            copy.setEvent(entry.getEvent());
+            copy.setUserName(entry.getUserName());
+            copy.setUserEmail(entry.getUserEmail());
+            copy.setAction(entry.getAction());
+            copy.setResourceType(entry.getResourceType());
+            copy.setResourceId(entry.getResourceId());
+            copy.setResourceName(entry.getResourceName());
+            copy.setResourcePrice(entry.getResourcePrice());
+            copy.setOperationType(entry.getOperationType());
+            copy.setResult(entry.getResult());
+            copy.setErrorMessage(entry.getErrorMessage());
+            copy.setDuration(entry.getDuration());
+            copy.setAdditionalInfo(entry.getAdditionalInfo());
+            stored.add(copy);
+        }
+        return stored;
+    }
+
+    private static List<LogEntry> inRange(List<LogEntry> entries, LocalDateTime from, LocalDateTime to) {
+        List<LogEntry> inRange = new ArrayList<>();
+        for (LogEntry entry : entries) {
+            LocalDateTime timestamp = entry.getTimestamp();
+            if (timestamp == null ? from == null && to == null
+                    : (from == null || !timestamp.isBefore(from)) && (to == null || timestamp.isBefore(to))) {
+                inRange.add(entry);
+            }
+        }
+        return inRange;
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BoundedLogBuffer under concurrent producers and readers, and its indexed queries
+ * against a filtered snapshot
+ */
+class BoundedLogBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 20_000;
+    private static final int CAPACITY = 1000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30);
+    private static final String[] OPERATION_TYPES = {"READ", "WRITE", "SEARCH_EXPENSIVE", null};
+    private static final String[] EVENTS = {"PRODUCT_VIEW", "PRODUCT_UPDATE", "USER_LOGIN"};
+
+    @Test
+    void keepsTheMostRecentEntriesOnOneThread() {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(entry(0, i));
+        }
+
+        assertEquals(List.of(entry(0, 2), entry(0, 3), entry(0, 4)), buffer.snapshot());
+        assertEquals(new BoundedLogBuffer.Metrics(3, 3, 5, 2,
+                        3L * entry(0, 0).estimateHeapBytes()),
+                buffer.getMetrics());
+
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(List.of(), buffer.snapshot());
+        buffer.add(entry(0, 5));
+        assertEquals(List.of(entry(0, 5)), buffer.snapshot());
+    }
+
+    @Test
+    @Timeout(60)
+    void retainsTheLastCapacityEntriesOfConcurrentProducers() throws InterruptedException {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(CAPACITY);
+        run(producers(buffer));
+
+        List<LogEntry> retained = buffer.snapshot();
+        assertEquals(CAPACITY, retained.size());
+        assertEquals(CAPACITY, buffer.size());
+        assertInProducerOrder(retained);
+
+        // Each producer's retained entries are the end of what it added
+        int[] first = new int[PRODUCERS];
+        int[] count = new int[PRODUCERS];
+        Arrays.fill(first, -1);
+        for (LogEntry entry : retained) {
+            int producer = producerOf(entry);
+            if (first[producer] < 0) {
+                first[producer] = indexOf(entry);
+            }
+            count[producer]++;
+        }
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertTrue(count[p] == 0 || first[p] + count[p] == PER_PRODUCER, "producer " + p);
+        }
+
+        long bytes = retained.stream().mapToLong(LogEntry::estimateHeapBytes).sum();
+        long added = (long) PRODUCERS * PER_PRODUCER;
+        assertEquals(new BoundedLogBuffer.Metrics(CAPACITY, CAPACITY, added, added - CAPACITY, bytes),
+                buffer.getMetrics());
+    }
+
+    @Test
+    @Timeout(60)
+    void snapshotsStayConsistentWhileProducersAdd() throws InterruptedException {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(CAPACITY);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (producing.get()) {
+                    List<LogEntry> snapshot = buffer.snapshot();
+                    assertTrue(snapshot.size() <= CAPACITY);
+                    assertInProducerOrder(snapshot);
+                    Thread.yield();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        run(producers(buffer));
+        producing.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(CAPACITY, buffer.snapshot().size());
+    }
+
+    @Test
+    void queriesMatchFilteredSnapshotAsTheRingWraps() {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(100);
+        // A few laps, and past the first sweep of the indexes
+        for (int i = 0; i < 2500; i++) {
+            buffer.add(indexedEntry(i % PRODUCERS, i));
+            if (i % 37 == 0) {
+                assertQueriesMatchSnapshot(buffer);
+            }
+        }
+        assertQueriesMatchSnapshot(buffer);
+        assertEquals(100, buffer.size());
+    }
+
+    @Test
+    void queriesSeeNothingBeforeClear() {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(100);
+        for (int i = 0; i < 150; i++) {
+            buffer.add(indexedEntry(i % PRODUCERS, i));
+        }
+        buffer.clear();
+        for (LogQuery query : queries()) {
+            assertEquals(List.of(), buffer.query(query), query.toString());
+        }
+
+        // Entries added after clear() are found, and only they
+        for (int i = 150; i < 180; i++) {
+            buffer.add(indexedEntry(i % PRODUCERS, i));
+        }
+        assertQueriesMatchSnapshot(buffer);
+        assertEquals(30, buffer.query(LogQuery.builder().from(START).build()).size());
+        assertTrue(buffer.query(LogQuery.builder().userEmail("producer0@email.com").build()).stream()
+                .allMatch(entry -> indexOf(entry) >= 150));
+
+        // ...including after the ring wraps again
+        for (int i = 180; i < 400; i++) {
+            buffer.add(indexedEntry(i % PRODUCERS, i));
+        }
+        assertQueriesMatchSnapshot(buffer);
+    }
+
+    @Test
+    @Timeout(60)
+    void queriesStayConsistentWithConcurrentProducers() throws InterruptedException {
+        BoundedLogBuffer buffer = new BoundedLogBuffer(CAPACITY);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (producing.get()) {
+                    // Producers move on between lookups, so only check what is returned
+                    for (LogQuery query : queries()) {
+                        List<LogEntry> entries = buffer.query(query);
+                        assertTrue(entries.size() <= CAPACITY);
+                        assertTrue(entries.stream().allMatch(query::matches), query.toString());
+                        assertInProducerOrder(entries);
+                    }
+                    Thread.yield();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+
+        List<Runnable> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.add(() -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    buffer.add(indexedEntry(producer, i));
+                    if (i % 64 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        run(producers);
+        producing.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(CAPACITY, buffer.snapshot().size());
+        assertQueriesMatchSnapshot(buffer);
+    }
+
+    /**
+     * Every query returns exactly the snapshot entries it matches, in the same order
+     */
+    private static void assertQueriesMatchSnapshot(BoundedLogBuffer buffer) {
+        List<LogEntry> snapshot = buffer.snapshot();
+        for (LogQuery query : queries()) {
+            assertEquals(snapshot.stream().filter(query::matches).toList(), buffer.query(query), query.toString());
+        }
+    }
+
+    /**
+     * Single and compound conditions, with and without a time range, and values that never occur
+     */
+    private static List<LogQuery> queries() {
+        LocalDateTime from = START.plusSeconds(200);
+        LocalDateTime to = START.plusSeconds(2300);
+        List<LogQuery> queries = new ArrayList<>();
+        queries.add(LogQuery.builder().from(from).to(to).build());
+        queries.add(LogQuery.builder().userEmail("nobody@email.com").build());
+        queries.add(LogQuery.builder().event("USER_LOGOUT").operationType("READ").build());
+        for (int p = 0; p < PRODUCERS; p++) {
+            String userEmail = "producer" + p + "@email.com";
+            queries.add(LogQuery.builder().userEmail(userEmail).build());
+            queries.add(LogQuery.builder().userEmail(userEmail).operationType("WRITE").build());
+            queries.add(LogQuery.builder().userEmail(userEmail).operationType("READ").from(from).to(to).build());
+            queries.add(LogQuery.builder().userEmail(userEmail).event("PRODUCT_VIEW")
+                    .operationType("SEARCH_EXPENSIVE").from(from).build());
+        }
+        for (String operationType : OPERATION_TYPES) {
+            if (operationType != null) {
+                queries.add(LogQuery.builder().operationType(operationType).build());
+                queries.add(LogQuery.builder().operationType(operationType).to(to).build());
+            }
+        }
+        for (String event : EVENTS) {
+            queries.add(LogQuery.builder().event(event).build());
+            queries.add(LogQuery.builder().event(event).operationType("WRITE").from(from).to(to).build());
+        }
+        return queries;
+    }
+
+    private static List<Runnable> producers(BoundedLogBuffer buffer) {
+        List<Runnable> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.add(() -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    buffer.add(entry(producer, i));
+                    if (i % 64 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        return producers;
+    }
+
+    /**
+     * Run the tasks on their own threads, released together, and wait for all of them
+     */
+    private static void run(List<Runnable> tasks) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable task : tasks) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Entries appear once, and each producer's entries in the order it added them
+     */
+    private static void assertInProducerOrder(List<LogEntry> entries) {
+        int[] last = new int[PRODUCERS];
+        Arrays.fill(last, -1);
+        for (LogEntry entry : entries) {
+            int producer = producerOf(entry);
+            int index = indexOf(entry);
+            assertTrue(index > last[producer], "out of order: " + producer + "/" + index);
+            last[producer] = index;
+        }
+    }
+
+    private static LogEntry entry(int producer, int index) {
+        LogEntry entry = LogEntry.builder()
+                .userEmail("producer" + producer + "@email.com")
+                .resourceId(String.valueOf(index))
+                .build();
+        entry.setTimestamp(null);
+        return entry;
+    }
+
+    /**
+     * Entry of a producer with every indexed field set; its timestamp grows with the index
+     */
+    private static LogEntry indexedEntry(int producer, int index) {
+        return LogEntry.builder()
+                .timestamp(START.plusSeconds(index))
+                .userEmail("producer" + producer + "@email.com")
+                .event(EVENTS[index % EVENTS.length])
+                .operationType(OPERATION_TYPES[(index / 2) % OPERATION_TYPES.length])
+                .resourceId(String.valueOf(index))
+                .build();
+    }
+
+    private static int producerOf(LogEntry entry) {
+        return entry.getUserEmail().charAt("producer".length()) - '0';
+    }
+
+    private static int indexOf(LogEntry entry) {
+        return Integer.parseInt(entry.getResourceId());
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * LogEntryEncoder must write exactly the bytes of toStructuredLog() plus a line separator,
+ * and exactly those of StructuredLogger's ObjectMapper plus '\n'
+ */
+class LogEntryEncoderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123_000_000);
+
+    private static final String[] STRINGS = {
+            "",
+            "alice.johnson@email.com",
+            "quote \" backslash \\ slash / pipe | colon:",
+            "\u0000\u0001\u0007\b\t\n\u000b\f\r\u001b\u001f\u007f",
+            "café, naïve, Ünïcödé, €100, ¥, 中文, русский, ﬀ",
+            "emoji 😀 and 🚀 in a surrogate pair",
+            "lone high \ud83d here",
+            "lone low \ude00 here",
+            "reversed pair \ude00\ud83d",
+            "\ud83d",
+            "￾￿  ",
+    };
+
+    private static final Double[] PRICES = {
+            null, 0.0, -0.0, 1299.99, 45.5, 1e-7, 1.0E10, 123456789012.345, Double.MIN_VALUE, Double.MAX_VALUE,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+    };
+
+    private static final Long[] DURATIONS = {null, 0L, 7L, -42L, 1_000_000_007L, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    private static final LocalDateTime[] TIMESTAMPS = {
+            null,
+            START,
+            LocalDateTime.of(2025, 1, 15, 10, 30),                          // no seconds
+            LocalDateTime.of(2025, 1, 15, 10, 30, 5),                       // no fraction
+            LocalDateTime.of(2025, 1, 15, 10, 30, 0, 1),                    // nanoseconds only
+            LocalDateTime.of(2025, 1, 15, 10, 30, 0, 456_000),              // microseconds
+            LocalDateTime.of(2025, 12, 31, 23, 59, 59, 999_999_999),
+            LocalDateTime.of(0, 1, 1, 0, 0),
+            LocalDateTime.of(1, 1, 1, 0, 0, 1),
+            LocalDateTime.of(-5, 6, 7, 8, 9, 10),
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_000_000),
+            LocalDateTime.of(10_000, 1, 1, 0, 0),
+            LocalDateTime.of(123_456, 2, 3, 4, 5, 6, 7),
+            LocalDateTime.MIN,
+            LocalDateTime.MAX,
+    };
+
+    // Configured like StructuredLogger's
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void everyStringEncodesLikeTheReference() throws JsonProcessingException {
+        for (String value : STRINGS) {
+            LogEntry entry = entryWithEveryField(value);
+            assertSameEncoding(entry);
+        }
+    }
+
+    @Test
+    void nullFieldsEncodeLikeTheReference() throws JsonProcessingException {
+        LogEntry empty = LogEntry.builder().build();
+        empty.setTimestamp(null);
+        empty.setLevel(null);
+        assertSameEncoding(empty);
+
+        // Each field null in turn, the others set
+        for (int field = 0; field < 17; field++) {
+            LogEntry entry = entryWithEveryField("value");
+            clearField(entry, field);
+            assertSameEncoding(entry);
+        }
+
+        // Resource id without resource type is left out of the text format
+        LogEntry entry = entryWithEveryField("value");
+        entry.setResourceType(null);
+        assertSameEncoding(entry);
+    }
+
+    @Test
+    void numbersAndTimestampsEncodeLikeTheReference() throws JsonProcessingException {
+        for (Double price : PRICES) {
+            LogEntry entry = entryWithEveryField("value");
+            entry.setResourcePrice(price);
+            assertSameEncoding(entry);
+        }
+        for (Long duration : DURATIONS) {
+            LogEntry entry = entryWithEveryField("value");
+            entry.setDuration(duration);
+            assertSameEncoding(entry);
+        }
+        for (LocalDateTime timestamp : TIMESTAMPS) {
+            LogEntry entry = entryWithEveryField("value");
+            entry.setTimestamp(timestamp);
+            assertSameEncoding(entry);
+        }
+    }
+
+    @Test
+    void randomEntriesEncodeLikeTheReferenceInOneBuffer() throws JsonProcessingException {
+        Random random = new Random(19);
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            entries.add(randomEntry(random));
+        }
+        // Longer than the initial buffer, so it grows mid-entry
+        entries.add(entryWithEveryField("é😀\u0001".repeat(10_000)));
+
+        for (LogEntry entry : entries) {
+            assertSameEncoding(entry);
+        }
+
+        // Appended one after the other, as the writers batch them
+        ByteArrayOutputStream expectedText = new ByteArrayOutputStream();
+        ByteArrayOutputStream expectedJson = new ByteArrayOutputStream();
+        LogEntryEncoder text = LogEntryEncoder.current();
+        for (LogEntry entry : entries) {
+            expectedText.writeBytes(referenceText(entry));
+            text.appendText(entry);
+        }
+        assertArrayEquals(expectedText.toByteArray(), bytes(text));
+
+        LogEntryEncoder json = LogEntryEncoder.current();
+        for (LogEntry entry : entries) {
+            expectedJson.writeBytes(referenceJson(entry));
+            json.appendJson(entry);
+        }
+        assertArrayEquals(expectedJson.toByteArray(), bytes(json));
+    }
+
+    private void assertSameEncoding(LogEntry entry) throws JsonProcessingException {
+        String description = String.valueOf(entry);
+        assertEquals(new String(referenceText(entry), StandardCharsets.UTF_8),
+                new String(bytes(LogEntryEncoder.current().appendText(entry)), StandardCharsets.UTF_8), description);
+        assertArrayEquals(referenceText(entry), bytes(LogEntryEncoder.current().appendText(entry)), description);
+        assertArrayEquals(referenceJson(entry), bytes(LogEntryEncoder.current().appendJson(entry)), description);
+    }
+
+    private static byte[] referenceText(LogEntry entry) {
+        return (entry.toStructuredLog() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] referenceJson(LogEntry entry) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private static byte[] bytes(LogEntryEncoder encoder) {
+        ByteBuffer target = ByteBuffer.allocate(encoder.size());
+        encoder.copyTo(target);
+        return target.array();
+    }
+
+    private static LogEntry entryWithEveryField(String value) {
+        return LogEntry.builder()
+                .timestamp(START)
+                .level("INFO " + value)
+                .logger("ProductService " + value)
+                .thread("http-nio-8080-exec-1 " + value)
+                .event("PRODUCT_OPERATION " + value)
+                .userName("Alice " + value)
+                .userEmail(value)
+                .action("getProductById " + value)
+                .resourceType("PRODUCT " + value)
+                .resourceId("6941b2c4 " + value)
+                .resourceName("Laptop " + value)
+                .resourcePrice(1299.99)
+                .operationType("READ " + value)
+                .result("SUCCESS " + value)
+                .errorMessage("Not found " + value)
+                .duration(12L)
+                .additionalInfo(value)
+                .build();
+    }
+
+    private static void clearField(LogEntry entry, int field) {
+        switch (field) {
+            case 0 -> entry.setTimestamp(null);
+            case 1 -> entry.setLevel(null);
+            case 2 -> entry.setLogger(null);
+            case 3 -> entry.setThread(null);
+            case 4 -> entry.setEvent(null);
+            case 5 -> entry.setUserName(null);
+            case 6 -> entry.setUserEmail(null);
+            case 7 -> entry.setAction(null);
+            case 8 -> entry.setResourceType(null);
+            case 9 -> entry.setResourceId(null);
+            case 10 -> entry.setResourceName(null);
+            case 11 -> entry.setResourcePrice(null);
+            case 12 -> entry.setOperationType(null);
+            case 13 -> entry.setResult(null);
+            case 14 -> entry.setErrorMessage(null);
+            case 15 -> entry.setDuration(null);
+            default -> entry.setAdditionalInfo(null);
+        }
+    }
+
+    /**
+     * Entry whose fields are null or picked from the edge cases, or random characters
+     */
+    private static LogEntry randomEntry(Random random) {
+        LogEntry entry = entryWithEveryField("");
+        for (int field = 0; field < 17; field++) {
+            if (random.nextInt(4) == 0) {
+                clearField(entry, field);
+            }
+        }
+        if (entry.getTimestamp() != null) {
+            entry.setTimestamp(TIMESTAMPS[1 + random.nextInt(TIMESTAMPS.length - 1)]);
+        }
+        entry.setResourcePrice(PRICES[random.nextInt(PRICES.length)]);
+        entry.setDuration(DURATIONS[random.nextInt(DURATIONS.length)]);
+        if (entry.getUserName() != null) {
+            entry.setUserName(randomString(random));
+        }
+        if (entry.getUserEmail() != null) {
+            entry.setUserEmail(STRINGS[random.nextInt(STRINGS.length)]);
+        }
+        if (entry.getResourceId() != null) {
+            entry.setResourceId(randomString(random));
+        }
+        if (entry.getResourceName() != null) {
+            entry.setResourceName(randomString(random));
+        }
+        if (entry.getErrorMessage() != null) {
+            entry.setErrorMessage(STRINGS[random.nextInt(STRINGS.length)]);
+        }
+        if (entry.getAdditionalInfo() != null) {
+            entry.setAdditionalInfo(randomString(random));
+        }
+        return entry;
+    }
+
+    /**
+     * Up to 40 characters from every UTF-16 range: ASCII, controls, 2- and 3-byte UTF-8, surrogates
+     */
+    private static String randomString(Random random) {
+        StringBuilder value = new StringBuilder();
+        int length = random.nextInt(41);
+        for (int i = 0; i < length; i++) {
+            char c = switch (random.nextInt(6)) {
+                case 0 -> (char) random.nextInt(0x20);
+                case 1, 2 -> (char) (0x20 + random.nextInt(0x60));
+                case 3 -> (char) (0x80 + random.nextInt(0x780));
+                case 4 -> (char) (0xD800 + random.nextInt(0x800));
+                default -> (char) random.nextInt(0x10000);
+            };
+            value.append(c);
+        }
+        return value.toString();
+    }
+}
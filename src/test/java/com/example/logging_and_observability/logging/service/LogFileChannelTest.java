@@ -0,0 +1,184 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogFileChannel must leave exactly the bytes written in the file, in mapped mode across any number
+ * of regions and with an fsync running concurrently, trim the pre-allocated tail on close, and trim
+ * the zeros a crash left after the content when the file is opened again
+ */
+class LogFileChannelTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123_000_000);
+    private static final int REGION_SIZE = 512;
+
+    @Test
+    void mappedWritesAcrossRegionsReopenToTheExactBytes(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("segment.txt");
+        LogDurability mapped = LogDurability.builder().mappedRegionSize(REGION_SIZE).build();
+        Random random = new Random(20);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        // Three processes append to the same segment; some entries are larger than a region
+        for (int process = 0; process < 3; process++) {
+            LogFileChannel channel = LogFileChannel.open(file, mapped, counters(mapped));
+            assertEquals(expected.size(), channel.size());
+            for (int i = 0; i < 100; i++) {
+                write(channel, entry(random, i % 17 == 0 ? 3 * REGION_SIZE : 0), expected);
+            }
+            assertEquals(expected.size(), channel.size());
+            channel.close();
+
+            assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file), "process " + process);
+        }
+    }
+
+    @Test
+    void reopenTrimsTheZerosOfAPreAllocatedRegion(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("segment.txt");
+        LogDurability mapped = LogDurability.builder().mappedRegionSize(REGION_SIZE).build();
+        Random random = new Random(21);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        LogFileChannel channel = LogFileChannel.open(file, mapped, counters(mapped));
+        for (int i = 0; i < 20; i++) {
+            write(channel, entry(random, 0), expected);
+        }
+        channel.close();
+
+        // As left by a crash before close: a region mapped past the content, over more than one trim block
+        for (int padding : new int[]{1, REGION_SIZE, 200 * 1024}) {
+            Files.write(file, new byte[padding], StandardOpenOption.APPEND);
+
+            channel = LogFileChannel.open(file, mapped, counters(mapped));
+            assertEquals(expected.size(), channel.size(), padding + " zeros");
+            assertEquals(expected.size(), Files.size(file), padding + " zeros");
+            write(channel, entry(random, 0), expected);
+            channel.close();
+
+            assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file), padding + " zeros");
+        }
+
+        // A file of zeros only has no content
+        Path zeros = directory.resolve("zeros.txt");
+        Files.write(zeros, new byte[100 * 1024]);
+        channel = LogFileChannel.open(zeros, mapped, counters(mapped));
+        assertEquals(0, channel.size());
+        channel.close();
+        assertEquals(0, Files.size(zeros));
+    }
+
+    @Test
+    void intervalFsyncRunsConcurrentlyWithMappedWrites(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("segment.txt");
+        LogDurability durability = LogDurability.builder()
+                .fsync(LogDurability.FsyncMode.INTERVAL)
+                .fsyncInterval(Duration.ofMillis(1))
+                .mappedRegionSize(REGION_SIZE)
+                .build();
+        LogFileChannel.Counters counters = counters(durability);
+        Random random = new Random(22);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        // force() in a loop, as RollingTextLog's fsync thread does, while regions are filled and replaced
+        LogFileChannel channel = LogFileChannel.open(file, durability, counters);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService fsync = Executors.newSingleThreadExecutor();
+        Future<?> forced = fsync.submit(() -> {
+            while (writing.get()) {
+                try {
+                    channel.force();
+                } catch (ClosedChannelException e) {
+                    return null;
+                }
+            }
+            return null;
+        });
+        for (int i = 0; i < 2000; i++) {
+            write(channel, entry(random, i % 101 == 0 ? REGION_SIZE : 0), expected);
+        }
+        writing.set(false);
+        forced.get();
+        fsync.shutdown();
+        channel.close();
+
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file));
+        LogDurability.Metrics metrics = counters.snapshot();
+        assertEquals(2000, metrics.writes());
+        assertEquals(expected.size(), metrics.bytes());
+        assertTrue(metrics.fsyncs() > 0);
+    }
+
+    @Test
+    void plainWritesReopenToTheExactBytes(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("segment.txt");
+        LogDurability perBatch = LogDurability.builder().fsync(LogDurability.FsyncMode.PER_BATCH).build();
+        LogFileChannel.Counters counters = counters(perBatch);
+        Random random = new Random(23);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        for (int process = 0; process < 2; process++) {
+            LogFileChannel channel = LogFileChannel.open(file, perBatch, counters);
+            for (int i = 0; i < 50; i++) {
+                write(channel, entry(random, 0), expected);
+            }
+            channel.close();
+        }
+
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file));
+        assertEquals(100, counters.snapshot().fsyncs());
+    }
+
+    private static LogFileChannel.Counters counters(LogDurability durability) {
+        return new LogFileChannel.Counters(durability);
+    }
+
+    private static void write(LogFileChannel channel, LogEntry entry, ByteArrayOutputStream expected) throws IOException {
+        LogEntryEncoder encoder = LogEntryEncoder.current().appendText(entry);
+        ByteBuffer bytes = ByteBuffer.allocate(encoder.size());
+        encoder.copyTo(bytes);
+        expected.write(bytes.array());
+        channel.write(encoder);
+    }
+
+    /**
+     * An entry of a random size, at least minLength bytes long once encoded
+     */
+    private static LogEntry entry(Random random, int minLength) {
+        char[] name = new char[Math.max(1 + random.nextInt(80), minLength)];
+        Arrays.fill(name, (char) ('a' + random.nextInt(26)));
+        return LogEntry.builder()
+                .timestamp(START.plusSeconds(random.nextInt(3600)))
+                .level("INFO")
+                .event("PRODUCT_OPERATION")
+                .userName(new String(name))
+                .userEmail("alice@email.com")
+                .action("getProductById")
+                .resourceType("PRODUCT")
+                .resourceId(String.valueOf(random.nextInt(1000)))
+                .result("SUCCESS")
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.logging_and_observability.logging.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogRingBuffer under concurrent producers and consumers
+ */
+class LogRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 3;
+    private static final int PER_PRODUCER = 50_000;
+
+    @Test
+    void boundedAndFifoOnOneThread() {
+        LogRingBuffer<Integer> ring = new LogRingBuffer<>(5);
+        assertEquals(8, ring.capacity());
+
+        for (int i = 0; i < ring.capacity(); i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(-1));
+        assertEquals(ring.capacity(), ring.size());
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(8));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drainTo(drained, 3));
+        assertEquals(List.of(1, 2, 3), drained);
+        assertEquals(5, ring.drainTo(drained, 100));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8), drained);
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    @Timeout(60)
+    void deliversEveryElementExactlyOnceInProducerOrder() throws InterruptedException {
+        LogRingBuffer<Long> ring = new LogRingBuffer<>(256);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger consumed = new AtomicInteger();
+        int total = PRODUCERS * PER_PRODUCER;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (long i = 0; i < PER_PRODUCER; i++) {
+                    // Element = producer in the high bits, its own counter in the low bits
+                    while (!ring.offer(producer << 32 | i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        List<List<Long>> received = new ArrayList<>();
+        for (int c = 0; c < CONSUMERS; c++) {
+            List<Long> mine = new ArrayList<>();
+            received.add(mine);
+            threads.add(new Thread(() -> {
+                await(start);
+                List<Long> batch = new ArrayList<>();
+                while (consumed.get() < total) {
+                    int drained = ring.drainTo(batch, 64);
+                    if (drained == 0) {
+                        Thread.yield();
+                        continue;
+                    }
+                    mine.addAll(batch);
+                    batch.clear();
+                    consumed.addAndGet(drained);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        boolean[][] seen = new boolean[PRODUCERS][PER_PRODUCER];
+        for (List<Long> mine : received) {
+            long[] last = new long[PRODUCERS];
+            Arrays.fill(last, -1);
+            for (long element : mine) {
+                int producer = (int) (element >>> 32);
+                int index = (int) element;
+                assertFalse(seen[producer][index], "delivered twice: " + producer + "/" + index);
+                seen[producer][index] = true;
+                // A consumer claims increasing positions, so it sees each producer's elements in order
+                assertTrue(index > last[producer], "out of order: " + producer + "/" + index);
+                last[producer] = index;
+            }
+        }
+        for (int p = 0; p < PRODUCERS; p++) {
+            for (int i = 0; i < PER_PRODUCER; i++) {
+                assertTrue(seen[p][i], "lost: " + p + "/" + i);
+            }
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    @Timeout(60)
+    void concurrentProducersNeverExceedCapacity() throws InterruptedException {
+        LogRingBuffer<Integer> ring = new LogRingBuffer<>(1000);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            producers.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < 10_000; i++) {
+                    if (ring.offer(i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(ring.capacity(), accepted.get());
+        assertEquals(ring.capacity(), ring.size());
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(ring.capacity(), ring.drainTo(drained, Integer.MAX_VALUE));
+        assertTrue(ring.offer(0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The sampling policies must keep exactly the entries their contract promises at the times they
+ * are given, and LogSampler must keep every ERROR entry and every entry without a policy
+ */
+class LogSamplerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void fixedRateKeepsOneEntryInN() {
+        LogSampler.Policy everyThird = LogSampler.Policy.fixedRate(3);
+        long now = System.nanoTime();
+        for (int i = 0; i < 30; i++) {
+            // The time plays no part
+            assertEquals(i % 3 == 0, everyThird.keep(now + (i % 2) * SECOND), "entry " + i);
+        }
+
+        LogSampler.Policy all = LogSampler.Policy.fixedRate(1);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(all.keep(now));
+        }
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.Policy.fixedRate(0));
+    }
+
+    @Test
+    void tokenBucketKeepsABurstThenTheRefillRate() {
+        LogSampler.Policy bucket = LogSampler.Policy.tokenBucket(10, 5);
+        long start = System.nanoTime();
+
+        // A full bucket, then nothing until a token has been refilled
+        assertEquals(5, kept(bucket, start, 20));
+        assertEquals(0, kept(bucket, start + 50 * MILLIS, 20));
+        assertEquals(1, kept(bucket, start + 110 * MILLIS, 20));
+
+        // Fractions of a token carry over: 0.1 left, then 0.1 + 1.5 and 0.6 + 1.0
+        assertEquals(1, kept(bucket, start + 260 * MILLIS, 20));
+        assertEquals(1, kept(bucket, start + 360 * MILLIS, 20));
+
+        // A clock read out of order refills nothing
+        assertEquals(0, kept(bucket, start, 20));
+
+        // A long pause fills the bucket up to the burst only
+        assertEquals(5, kept(bucket, start + 60 * SECOND, 20));
+
+        // Steady traffic above the rate keeps the rate: 10 a second over 10 seconds
+        long steady = start + 60 * SECOND;
+        int keptOverTime = 0;
+        for (int ms = 1; ms <= 10_000; ms++) {
+            keptOverTime += bucket.keep(steady + ms * MILLIS) ? 1 : 0;
+        }
+        assertTrue(keptOverTime >= 99 && keptOverTime <= 100, keptOverTime + " kept");
+
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.Policy.tokenBucket(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.Policy.tokenBucket(10, 0));
+    }
+
+    @Test
+    void adaptiveSetsItsStrideFromThePreviousWindowAndCapsEachWindow() {
+        LogSampler.Policy adaptive = LogSampler.Policy.adaptive(10);
+
+        // Far past the first window: a new one starts here, with a stride of 1 as nothing was seen
+        long start = System.nanoTime() + 10 * SECOND;
+
+        // Stride 1: the first 10 entries are kept, then the window is capped
+        assertEquals(range(0, 10, 1), keptIndexes(adaptive, start, 100, MILLIS));
+
+        // 100 entries in the last second: one in 10
+        assertEquals(range(0, 100, 10), keptIndexes(adaptive, start + SECOND, 100, MILLIS));
+
+        // 100 entries over a window that lasted 2 seconds: 50 a second, one in 5
+        assertEquals(range(0, 20, 5), keptIndexes(adaptive, start + 3 * SECOND, 20, MILLIS));
+
+        // 20 entries in the last second: one in 2, capped at 10 when the traffic bursts
+        assertEquals(range(0, 20, 2), keptIndexes(adaptive, start + 4 * SECOND, 500, MILLIS));
+
+        // 500 entries in the last second: one in 50
+        assertEquals(range(0, 500, 50), keptIndexes(adaptive, start + 5 * SECOND, 500, MILLIS));
+
+        // 500 entries over a window that lasted 5 seconds: 100 a second, one in 10
+        assertEquals(range(0, 3, 10), keptIndexes(adaptive, start + 10 * SECOND, 3, MILLIS));
+
+        // A quiet second brings the stride back to 1
+        assertEquals(range(0, 3, 1), keptIndexes(adaptive, start + 11 * SECOND, 3, MILLIS));
+
+        assertThrows(IllegalArgumentException.class, () -> LogSampler.Policy.adaptive(0));
+    }
+
+    @Test
+    void errorsAndEntriesWithoutPolicyAreAlwaysKept() {
+        LogSampler sampler = new LogSampler();
+        AtomicInteger consulted = new AtomicInteger();
+        sampler.setPolicy("PRODUCT_OPERATION", nowNanos -> {
+            consulted.incrementAndGet();
+            return false;
+        });
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sampler.sample(entry("ERROR", "PRODUCT_OPERATION", "READ")));
+            assertFalse(sampler.sample(entry("INFO", "PRODUCT_OPERATION", "READ")));
+            assertTrue(sampler.sample(entry("INFO", "USER_LOGIN", null)));
+        }
+        // ERROR entries do not consume the policy's budget
+        assertEquals(4, consulted.get());
+
+        // The event and operation type key wins over the event key
+        sampler.setPolicy("PRODUCT_OPERATION/WRITE", nowNanos -> true);
+        assertTrue(sampler.sample(entry("INFO", "PRODUCT_OPERATION", "WRITE")));
+        assertEquals(4, consulted.get());
+
+        Map<String, LogSampler.Stats> stats = sampler.getStats();
+        assertEquals(new LogSampler.Stats(8, 4, 4), stats.get("PRODUCT_OPERATION"));
+        assertEquals(new LogSampler.Stats(1, 1, 0), stats.get("PRODUCT_OPERATION/WRITE"));
+        assertEquals(new LogSampler.Stats(4, 4, 0), stats.get("USER_LOGIN"));
+        assertEquals(Map.of("alice@email.com", Map.of("getProductById", 4L)), sampler.getSuppressedByUser());
+        assertEquals(Map.of("alice@email.com", Map.of("READ", 4L)), sampler.getSuppressedOperationsByUser());
+    }
+
+    private static int kept(LogSampler.Policy policy, long nowNanos, int entries) {
+        int kept = 0;
+        for (int i = 0; i < entries; i++) {
+            kept += policy.keep(nowNanos) ? 1 : 0;
+        }
+        return kept;
+    }
+
+    /**
+     * Indexes of the kept entries among entries spaced by stepNanos from startNanos
+     */
+    private static List<Integer> keptIndexes(LogSampler.Policy policy, long startNanos, int entries, long stepNanos) {
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            if (policy.keep(startNanos + i * stepNanos)) {
+                kept.add(i);
+            }
+        }
+        return kept;
+    }
+
+    private static List<Integer> range(int from, int to, int step) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i += step) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    private static LogEntry entry(String level, String event, String operationType) {
+        return LogEntry.builder()
+                .level(level)
+                .event(event)
+                .operationType(operationType)
+                .userEmail("alice@email.com")
+                .action("getProductById")
+                .build();
+    }
+}
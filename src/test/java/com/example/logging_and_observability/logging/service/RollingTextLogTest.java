@@ -0,0 +1,276 @@
+package com.example.logging_and_observability.logging.service;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.segment.SegmentManifest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RollingTextLog must roll the text and JSON Lines files together at maxBytes or maxAge, with
+ * every entry's two lines in the same segment, record each segment in the manifest, compress it,
+ * and leave no file behind for a segment deleted by retention, even while it was being compressed
+ */
+class RollingTextLogTest {
+
+    private static final Duration LONG_AGO = Duration.ofDays(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void concurrentWritersRollBothFilesAtMaxBytes(@TempDir Path directory) throws Exception {
+        assertConcurrentWritersRoll(directory, LogDurability.defaults());
+    }
+
+    @Test
+    void concurrentWritersRollMappedSegmentsWhileTheyAreForced(@TempDir Path directory) throws Exception {
+        // Regions smaller than a segment, and the fsync thread forcing segments as they fill and roll
+        assertConcurrentWritersRoll(directory, LogDurability.builder()
+                .fsync(LogDurability.FsyncMode.INTERVAL)
+                .fsyncInterval(Duration.ofMillis(1))
+                .mappedRegionSize((int) lineBytes() * 2)
+                .build());
+    }
+
+    @Test
+    void rollsAfterMaxAge(@TempDir Path directory) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        RollingTextLog log = open(directory, 1024 * 1024, Duration.ofMillis(50), null);
+
+        log.append(List.of(entry(1, now), entry(2, now)));
+        log.append(List.of(entry(3, now)));
+        assertEquals(0, log.getManifest().getSegments().size());
+
+        Thread.sleep(100);
+        log.append(List.of(entry(4, now)));
+        log.close();
+
+        List<SegmentManifest.Segment> segments = log.getManifest().getSegments();
+        assertEquals(1, segments.size());
+        assertEquals(3, segments.get(0).getEntries());
+        assertEquals(List.of("1", "2", "3"), jsonLinesIds(readLines(directory.resolve(segments.get(0).getJsonLinesFile()))));
+        assertEquals(List.of("4"), jsonLinesIds(Files.readAllLines(directory.resolve("application-logs.ndjson"))));
+
+        // The manifest is read back by the next process
+        assertEquals(segments, SegmentManifest.load(directory.resolve("application-logs.txt")).getSegments());
+    }
+
+    @Test
+    void rollNowClosesTheActiveSegment(@TempDir Path directory) throws Exception {
+        RollingTextLog log = open(directory, 1024 * 1024, Duration.ofHours(1), null);
+        log.rollNow();
+        assertEquals(0, log.getManifest().getSegments().size());
+
+        log.append(List.of(entry(1, LocalDateTime.now())));
+        log.rollNow();
+        log.close();
+
+        assertEquals(1, log.getManifest().getSegments().size());
+        assertFalse(Files.exists(directory.resolve("application-logs.txt")));
+        assertFalse(Files.exists(directory.resolve("application-logs.ndjson")));
+    }
+
+    @Test
+    void retentionDeletesSegmentsWaitingForCompression(@TempDir Path directory) throws Exception {
+        LocalDateTime old = LocalDateTime.now().minus(LONG_AGO);
+        LocalDateTime recent = LocalDateTime.now();
+
+        // Compression is held back until the old segments have been rolled and deleted
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService compressor = Executors.newSingleThreadExecutor();
+        compressor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        RollingTextLog log = new RollingTextLog(directory.resolve("application-logs.txt"),
+                directory.resolve("application-logs.ndjson"), jsonLinesLog(directory),
+                lineBytes() * 2, Duration.ofHours(1), Duration.ofDays(1), compressor);
+
+        for (int i = 0; i < 6; i++) {
+            log.append(List.of(entry(i, old)));
+        }
+        assertEquals(0, log.getManifest().getSegments().size());
+        for (int i = 6; i < 12; i++) {
+            log.append(List.of(entry(i, recent)));
+        }
+        release.countDown();
+        log.close();
+
+        List<SegmentManifest.Segment> segments = log.getManifest().getSegments();
+        assertEquals(2, segments.size());
+        assertEquals(expectedFiles(segments), filesIn(directory));
+    }
+
+    @Test
+    void retentionRacingCompressionLeavesNoFileBehind(@TempDir Path directory) throws Exception {
+        // Every append rolls the previous entry, and retention deletes it at once
+        LocalDateTime old = LocalDateTime.now().minus(LONG_AGO);
+        RollingTextLog log = open(directory, 1, Duration.ofHours(1), Duration.ofDays(1));
+        for (int i = 0; i < 300; i++) {
+            log.append(List.of(entry(i, old)));
+        }
+        log.close();
+
+        assertEquals(0, log.getManifest().getSegments().size());
+        assertEquals(expectedFiles(List.of()), filesIn(directory));
+    }
+
+    private void assertConcurrentWritersRoll(Path directory, LogDurability durability) throws Exception {
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        RollingTextLog log = open(directory, lineBytes() * 5, Duration.ofHours(1), null);
+        log.setDurability(durability);
+
+        // Four writers, single entries and batches, so rolls fall between the writers' appends
+        List<LogEntry> written = new ArrayList<>();
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        List<Future<?>> done = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            List<LogEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                entries.add(entry(writer * 1000 + i, start.plusSeconds(i)));
+            }
+            written.addAll(entries);
+            done.add(writers.submit(() -> {
+                for (int i = 0; i < entries.size(); i += 1 + i % 3) {
+                    log.append(entries.subList(i, Math.min(entries.size(), i + 1 + i % 3)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        writers.shutdown();
+        log.close();
+
+        List<SegmentManifest.Segment> segments = log.getManifest().getSegments();
+        assertTrue(segments.size() > 10);
+        Map<String, LogEntry> byId = new HashMap<>();
+        written.forEach(entry -> byId.put(entry.getResourceId(), entry));
+
+        Set<String> read = new TreeSet<>();
+        for (SegmentManifest.Segment segment : segments) {
+            assertTrue(segment.isCompressed());
+            assertTrue(segment.getFile().endsWith(".txt.gz"));
+            assertTrue(segment.getJsonLinesFile().endsWith(".ndjson.gz"));
+            assertFalse(Files.exists(directory.resolve(segment.getFile().replace(".gz", ""))));
+            assertEquals(Files.size(directory.resolve(segment.getFile())), segment.getStoredBytes());
+
+            List<String> text = readLines(directory.resolve(segment.getFile()));
+            List<String> ids = jsonLinesIds(readLines(directory.resolve(segment.getJsonLinesFile())));
+            assertSegment(segment, text, ids, byId);
+            read.addAll(ids);
+        }
+
+        List<String> activeText = Files.readAllLines(directory.resolve("application-logs.txt"));
+        List<String> activeIds = jsonLinesIds(Files.readAllLines(directory.resolve("application-logs.ndjson")));
+        assertEquals(activeIds.stream().map(id -> byId.get(id).toStructuredLog()).toList(), activeText);
+        read.addAll(activeIds);
+
+        assertEquals(byId.keySet(), read);
+        assertEquals(written.size(), segments.stream().mapToLong(SegmentManifest.Segment::getEntries).sum()
+                + activeIds.size());
+    }
+
+    private RollingTextLog open(Path directory, long maxBytes, Duration maxAge, Duration retention) {
+        return new RollingTextLog(directory.resolve("application-logs.txt"), directory.resolve("application-logs.ndjson"),
+                jsonLinesLog(directory), maxBytes, maxAge, retention);
+    }
+
+    private JsonLinesLog jsonLinesLog(Path directory) {
+        return new JsonLinesLog(directory.resolve("application-logs.ndjson"), directory.resolve("application-logs.json"),
+                objectMapper);
+    }
+
+    /**
+     * The text lines of a segment are those of the entries of its JSON lines, in the same order
+     */
+    private static void assertSegment(SegmentManifest.Segment segment, List<String> text, List<String> ids,
+                                      Map<String, LogEntry> byId) {
+        assertEquals(ids.stream().map(id -> byId.get(id).toStructuredLog()).toList(), text);
+        assertEquals(segment.getEntries(), ids.size());
+        List<LocalDateTime> timestamps = ids.stream().map(id -> byId.get(id).getTimestamp()).sorted().toList();
+        assertEquals(timestamps.get(0), segment.getMinTimestamp());
+        assertEquals(timestamps.get(timestamps.size() - 1), segment.getMaxTimestamp());
+    }
+
+    private List<String> jsonLinesIds(List<String> lines) throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (String line : lines) {
+            ids.add(objectMapper.readTree(line).get("resourceId").asText());
+        }
+        return ids;
+    }
+
+    private static Set<String> expectedFiles(List<SegmentManifest.Segment> segments) {
+        Set<String> files = new TreeSet<>(Set.of("application-logs.txt", "application-logs.ndjson",
+                "application-logs.json", "application-logs.manifest.json"));
+        for (SegmentManifest.Segment segment : segments) {
+            files.add(segment.getFile());
+            files.add(segment.getJsonLinesFile());
+        }
+        return files;
+    }
+
+    private static Set<String> filesIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toCollection(TreeSet::new));
+        }
+    }
+
+    private static List<String> readLines(Path gzipped) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    private static long lineBytes() {
+        return entry(1000, LocalDateTime.now()).toStructuredLog().length() + System.lineSeparator().length();
+    }
+
+    private static LogEntry entry(int id, LocalDateTime timestamp) {
+        return LogEntry.builder()
+                .timestamp(timestamp)
+                .level("INFO")
+                .logger("ProductService")
+                .event("PRODUCT_OPERATION")
+                .userEmail("alice@email.com")
+                .action("getProductById")
+                .resourceType("PRODUCT")
+                .resourceId(String.valueOf(id))
+                .result("SUCCESS")
+                .build();
+    }
+}
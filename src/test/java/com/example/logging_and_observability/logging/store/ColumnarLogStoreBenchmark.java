@@ -0,0 +1,65 @@
+package com.example.logging_and_observability.logging.store;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.parser.LogParser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap footprint of a ColumnarLogStore against the List of LogEntry it replaces
+ * Both are measured as retained heap after a full GC.
+ *
+ * Usage (from the project root):
+ * java -cp target/test-classes:target/classes:... com.example.logging_and_observability.logging.store.ColumnarLogStoreBenchmark [log-file]
+ */
+public class ColumnarLogStoreBenchmark {
+
+    private static final String DEFAULT_LOG_FILE = "logs/product-management.log";
+
+    public static void main(String[] args) {
+        System.out.println("╔════════════════════════════════════════════════╗");
+        System.out.println("║   COLUMNAR LOG STORE BENCHMARK                 ║");
+        System.out.println("╚════════════════════════════════════════════════╝\n");
+
+        String logFile = args.length > 0 ? args[0] : DEFAULT_LOG_FILE;
+        LogParser parser = new LogParser();
+
+        long before = usedHeap();
+        List<LogEntry> entries = parser.parseLogFile(logFile);
+        long listBytes = usedHeap() - before;
+        System.out.println("✓ Entries: " + entries.size());
+
+        before = usedHeap();
+        ColumnarLogStore store = ColumnarLogStore.of(entries);
+        long storeBytes = usedHeap() - before;
+
+        // Same content before comparing sizes
+        int mismatches = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (!store.get(row).equals(entries.get(row))) {
+                mismatches++;
+            }
+        }
+        System.out.println("✓ Mismatches: " + mismatches + "\n");
+
+        double rows = Math.max(1, entries.size());
+        System.out.printf("List<LogEntry>:   %10d bytes %8.1f bytes/entry%n", listBytes, listBytes / rows);
+        System.out.printf("ColumnarLogStore: %10d bytes %8.1f bytes/entry%n", storeBytes, storeBytes / rows);
+        System.out.printf("Reduction:        %10.1fx%n", (double) listBytes / Math.max(1, storeBytes));
+
+        // Keep both reachable until measured
+        List<Object> keep = new ArrayList<>(List.of(entries, store));
+        System.out.println("✓ Done (" + keep.size() + " structures measured)");
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
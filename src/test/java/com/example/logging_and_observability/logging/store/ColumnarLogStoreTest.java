@@ -0,0 +1,67 @@
+package com.example.logging_and_observability.logging.store;
+
+import com.example.logging_and_observability.logging.model.LogEntry;
+import com.example.logging_and_observability.logging.parser.LogParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * ColumnarLogStore must hold exactly the entries of the List it replaces
+ */
+class ColumnarLogStoreTest {
+
+    private static final String LOG_FILE = "logs/product-management.log";
+
+    private static final Map<ColumnarLogStore.Column, Function<LogEntry, String>> COLUMNS = Map.of(
+            ColumnarLogStore.Column.LEVEL, LogEntry::getLevel,
+            ColumnarLogStore.Column.USER_EMAIL, LogEntry::getUserEmail,
+            ColumnarLogStore.Column.ACTION, LogEntry::getAction,
+            ColumnarLogStore.Column.OPERATION_TYPE, LogEntry::getOperationType,
+            ColumnarLogStore.Column.RESULT, LogEntry::getResult);
+
+    @Test
+    void storesEveryEntryOfLogCorpus() {
+        List<LogEntry> entries = new LogParser().parseLogFile(LOG_FILE);
+        assertFalse(entries.isEmpty());
+
+        ColumnarLogStore store = ColumnarLogStore.of(entries);
+        assertEquals(entries.size(), store.size());
+        for (int row = 0; row < entries.size(); row++) {
+            assertEquals(entries.get(row), store.get(row), "row " + row);
+        }
+        assertEquals(entries, store.stream().toList());
+    }
+
+    @Test
+    void scansMatchFilteringEveryEntry() {
+        List<LogEntry> entries = new LogParser().parseLogFile(LOG_FILE);
+        ColumnarLogStore store = ColumnarLogStore.of(entries);
+
+        COLUMNS.forEach((column, getter) -> {
+            long[] counts = store.countBy(column);
+            for (int code = 0; code < store.cardinality(column); code++) {
+                String value = store.decode(column, code);
+                int[] expected = IntStream.range(0, entries.size())
+                        .filter(row -> Objects.equals(getter.apply(entries.get(row)), value))
+                        .toArray();
+                assertArrayEquals(expected, store.select(column, value), column + "=" + value);
+                assertArrayEquals(expected, store.groupBy(column)[code], column + "=" + value);
+                assertEquals(expected.length, counts[code], column + "=" + value);
+            }
+            assertEquals(0, store.select(column, "never logged").length);
+        });
+
+        int[] all = IntStream.range(0, entries.size()).toArray();
+        assertEquals(entries.stream().map(LogEntry::getDuration).filter(Objects::nonNull).mapToLong(Long::longValue).sum(),
+                store.sumDuration(all));
+    }
+}